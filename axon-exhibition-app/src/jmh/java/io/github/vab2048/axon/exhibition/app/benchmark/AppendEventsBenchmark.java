@@ -0,0 +1,87 @@
+package io.github.vab2048.axon.exhibition.app.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.MultiRowAppendEventsStatementBuilder;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import org.axonframework.common.jdbc.DataSourceConnectionProvider;
+import org.axonframework.common.transaction.NoTransactionManager;
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
+import org.axonframework.eventsourcing.eventstore.jdbc.JdbcEventStorageEngine;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.util.PGobject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares Axon's default per-row append path against the multi-row append path
+ * ({@link MultiRowAppendEventsStatementBuilder}) for a unit of work containing a given number of events.
+ *
+ * Two events per unit of work mirrors the handling of a CreateImmediatePaymentCommand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AppendEventsBenchmark {
+    private static final String DOMAIN_EVENTS_TABLE = "axon.domainevententry";
+
+    @Param({"per-row", "multi-row"})
+    public String appendMode;
+
+    @Param({"1", "2", "10", "100"})
+    public int eventsPerUnitOfWork;
+
+    private HikariDataSource dataSource;
+    private JdbcEventStorageEngine storageEngine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = BenchmarkDatabase.newDataSource();
+        BenchmarkDatabase.truncate(dataSource, DOMAIN_EVENTS_TABLE);
+
+        JacksonSerializer serializer = JacksonSerializer.defaultSerializer();
+        JdbcEventStorageEngine.Builder builder = JdbcEventStorageEngine.builder()
+                .dataType(PGobject.class)
+                .connectionProvider(new DataSourceConnectionProvider(dataSource))
+                .eventSerializer(serializer)
+                .snapshotSerializer(serializer)
+                .schema(EventSchema.builder().eventTable(DOMAIN_EVENTS_TABLE).build())
+                .transactionManager(NoTransactionManager.INSTANCE);
+        if (appendMode.equals("multi-row")) {
+            builder.appendEvents(new MultiRowAppendEventsStatementBuilder(64));
+        }
+        storageEngine = builder.build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.truncate(dataSource, DOMAIN_EVENTS_TABLE);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void appendUnitOfWork() {
+        storageEngine.appendEvents(nextUnitOfWork());
+    }
+
+    /*
+     * The events of a single unit of work: credits to a brand-new account (so there is never a sequence clash).
+     */
+    private List<DomainEventMessage<?>> nextUnitOfWork() {
+        var accountId = UUID.randomUUID();
+        List<DomainEventMessage<?>> events = new ArrayList<>(eventsPerUnitOfWork);
+        for (int i = 0; i < eventsPerUnitOfWork; i++) {
+            var payload = new AccountCreditedEvent(accountId, UUID.randomUUID(), 10L);
+            events.add(new GenericDomainEventMessage<>("AccountAggregate", accountId.toString(), i, payload));
+        }
+        return events;
+    }
+}
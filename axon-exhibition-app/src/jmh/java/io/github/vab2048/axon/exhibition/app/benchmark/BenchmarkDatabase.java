@@ -0,0 +1,50 @@
+package io.github.vab2048.axon.exhibition.app.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Access to the postgres DB the benchmarks run against.
+ *
+ * The DB is expected to have the application's schema in place already (i.e. `./gradlew flywayMigrate` has been run).
+ * The connection details default to those in application.properties and can be overridden with the following system
+ * properties:
+ * - benchmark.db.url
+ * - benchmark.db.username
+ * - benchmark.db.password
+ */
+public class BenchmarkDatabase {
+    private BenchmarkDatabase() { /* Non instantiable class */ }
+
+    public static final String DEFAULT_URL = "jdbc:postgresql://localhost:5432/axon_exhibition";
+    public static final String DEFAULT_USERNAME = "postgres";
+    public static final String DEFAULT_PASSWORD = "password";
+
+    /**
+     * {@return a new pooled data source for the benchmark DB. The caller is responsible for closing it.}
+     */
+    public static HikariDataSource newDataSource() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(System.getProperty("benchmark.db.url", DEFAULT_URL));
+        config.setUsername(System.getProperty("benchmark.db.username", DEFAULT_USERNAME));
+        config.setPassword(System.getProperty("benchmark.db.password", DEFAULT_PASSWORD));
+        config.setMaximumPoolSize(8);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Remove all rows from the given tables so that each benchmark trial starts from the same state.
+     */
+    public static void truncate(DataSource dataSource, String... tables) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE " + String.join(", ", tables));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to truncate benchmark tables", e);
+        }
+    }
+}
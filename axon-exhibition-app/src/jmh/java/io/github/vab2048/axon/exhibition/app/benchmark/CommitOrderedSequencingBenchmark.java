@@ -0,0 +1,153 @@
+package io.github.vab2048.axon.exhibition.app.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.EventRowBinder;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.EventStoreStatements;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.GlobalIndexSequencer;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import org.axonframework.common.transaction.TransactionManager;
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventhandling.GapAwareTrackingToken;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
+import org.axonframework.eventsourcing.eventstore.jdbc.JdbcEventStorageEngine;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.axonframework.spring.jdbc.SpringDataSourceConnectionProvider;
+import org.axonframework.spring.messaging.unitofwork.SpringTransactionManager;
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.util.PGobject;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Concurrent appends with a tracking reader following them, with the global index assigned by the identity column
+ * (Axon's default) or in commit order by a {@link GlobalIndexSequencer}.
+ *
+ * The `append` throughput shows the cost of serializing the appending transactions, and the `track` throughput (events
+ * read per second) what the reader gains from not having to re-query gaps. The largest number of gaps seen in the
+ * reader's GapAwareTrackingToken, and its size once serialized for the token store, are printed when each trial ends.
+ *
+ * `workAfterAppendMicros` is how long each appending transaction stays open after the append (as the rest of a unit of
+ * work would) - the longer it is, the more out of order the identity's commits get and the longer a commit ordered
+ * append holds the sequencing row.
+ *
+ * Needs the `commit-ordered-sequencing` optional migration applied to the benchmark DB.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CommitOrderedSequencingBenchmark {
+    private static final String DOMAIN_EVENTS_TABLE = "axon.domainevententry";
+    private static final String SEQUENCE_TABLE = "axon.domainevententry_sequence";
+    private static final int TRACKING_BATCH_SIZE = 100;
+
+    @Param({"identity", "commit-ordered"})
+    public String sequencing;
+
+    @Param({"0", "200"})
+    public int workAfterAppendMicros;
+
+    private HikariDataSource dataSource;
+    private TransactionManager transactionManager;
+    private JdbcEventStorageEngine storageEngine;
+
+    // Only ever touched by the (single) tracking thread.
+    private TrackingToken lastToken;
+    private GapAwareTrackingToken tokenWithMostGaps;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = BenchmarkDatabase.newDataSource();
+        BenchmarkDatabase.truncate(dataSource, DOMAIN_EVENTS_TABLE);
+        new JdbcTemplate(dataSource).update("UPDATE " + SEQUENCE_TABLE + " SET lastGlobalIndex = 0");
+
+        transactionManager = new SpringTransactionManager(new DataSourceTransactionManager(dataSource));
+        JacksonSerializer serializer = JacksonSerializer.defaultSerializer();
+        JdbcEventStorageEngine.Builder builder = JdbcEventStorageEngine.builder()
+                .dataType(PGobject.class)
+                .connectionProvider(new SpringDataSourceConnectionProvider(dataSource))
+                .eventSerializer(serializer)
+                .snapshotSerializer(serializer)
+                .schema(EventSchema.builder().eventTable(DOMAIN_EVENTS_TABLE).build())
+                .transactionManager(transactionManager);
+        if (sequencing.equals("commit-ordered")) {
+            var statements = new EventStoreStatements(EventRowBinder.DEFAULT, new GlobalIndexSequencer(SEQUENCE_TABLE));
+            builder.appendEvents(statements::appendEvents);
+        }
+        storageEngine = builder.build();
+        lastToken = null;
+        tokenWithMostGaps = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        int gaps = tokenWithMostGaps == null ? 0 : tokenWithMostGaps.getGaps().size();
+        int tokenSize = tokenWithMostGaps == null ? 0 : JacksonSerializer.defaultSerializer()
+                .serialize(tokenWithMostGaps, byte[].class).getData().length;
+        System.out.printf("%n%s (%dus after append): at most %d gaps in the tracking token (%d bytes serialized)%n",
+                sequencing, workAfterAppendMicros, gaps, tokenSize);
+        BenchmarkDatabase.truncate(dataSource, DOMAIN_EVENTS_TABLE);
+        dataSource.close();
+    }
+
+    @Benchmark
+    @Group("appendWhileTracking")
+    @GroupThreads(7)
+    public void append() {
+        transactionManager.executeInTransaction(() -> {
+            storageEngine.appendEvents(nextUnitOfWork());
+            if (workAfterAppendMicros > 0) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(workAfterAppendMicros));
+            }
+        });
+    }
+
+    /*
+     * Read the next batch of events after the last token, as a tracking processor does.
+     */
+    @Benchmark
+    @Group("appendWhileTracking")
+    @GroupThreads(1)
+    @OperationsPerInvocation(TRACKING_BATCH_SIZE)
+    public int track() {
+        int read = 0;
+        try (Stream<? extends TrackedEventMessage<?>> events = storageEngine.readEvents(lastToken, false)) {
+            Iterator<? extends TrackedEventMessage<?>> iterator = events.iterator();
+            while (read < TRACKING_BATCH_SIZE && iterator.hasNext()) {
+                lastToken = iterator.next().trackingToken();
+                read++;
+            }
+        }
+        if (lastToken instanceof GapAwareTrackingToken token
+                && (tokenWithMostGaps == null || token.getGaps().size() > tokenWithMostGaps.getGaps().size())) {
+            tokenWithMostGaps = token;
+        }
+        return read;
+    }
+
+    /*
+     * Two events for a brand-new account, as for a CreateImmediatePaymentCommand.
+     */
+    private List<DomainEventMessage<?>> nextUnitOfWork() {
+        var accountId = UUID.randomUUID();
+        List<DomainEventMessage<?>> events = new ArrayList<>(2);
+        for (int i = 0; i < 2; i++) {
+            var payload = new AccountCreditedEvent(accountId, UUID.randomUUID(), 10L);
+            events.add(new GenericDomainEventMessage<>("AccountAggregate", accountId.toString(), i, payload));
+        }
+        return events;
+    }
+}
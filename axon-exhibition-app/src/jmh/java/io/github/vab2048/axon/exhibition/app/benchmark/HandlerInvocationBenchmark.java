@@ -0,0 +1,68 @@
+package io.github.vab2048.axon.exhibition.app.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.vab2048.axon.exhibition.app.command.account.AccountAggregate;
+import io.github.vab2048.axon.exhibition.app.config.handler.GeneratedHandlerDefinition;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.messaging.annotation.AnnotatedMessageHandlingMemberDefinition;
+import org.axonframework.messaging.annotation.ClasspathParameterResolverFactory;
+import org.axonframework.messaging.annotation.HandlerDefinition;
+import org.axonframework.messaging.annotation.MessageHandlingMember;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of invoking an AccountAggregate event sourcing handler (including resolving its parameters) reflectively - as
+ * Axon does by default - and through its generated invoker (see {@link GeneratedHandlerDefinition}). Also measures
+ * creating the handler, which is done for each handler of each aggregate and saga on start up.
+ *
+ * Does not need a DB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandlerInvocationBenchmark {
+
+    @Param({"reflective", "generated"})
+    public String invocation;
+
+    private HandlerDefinition handlerDefinition;
+    private MessageHandlingMember<AccountAggregate> handler;
+    private AccountAggregate aggregate;
+    private EventMessage<AccountCreditedEvent> event;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        handlerDefinition = switch (invocation) {
+            case "reflective" -> new AnnotatedMessageHandlingMemberDefinition();
+            case "generated" -> new GeneratedHandlerDefinition();
+            default -> throw new IllegalArgumentException("Unknown invocation: " + invocation);
+        };
+        handler = createHandler();
+        aggregate = new ObjectMapper().convertValue(
+                Map.of("accountId", UUID.randomUUID(), "balance", 0L), AccountAggregate.class);
+        event = GenericEventMessage.asEventMessage(
+                new AccountCreditedEvent(aggregate.getAccountId(), UUID.randomUUID(), 1L));
+    }
+
+    @Benchmark
+    public Object handle() throws Exception {
+        return handler.handle(event, aggregate);
+    }
+
+    @Benchmark
+    public MessageHandlingMember<AccountAggregate> createHandler() throws Exception {
+        return handlerDefinition.createHandler(AccountAggregate.class,
+                        AccountAggregate.class.getDeclaredMethod("on", AccountCreditedEvent.class),
+                        ClasspathParameterResolverFactory.forClass(AccountAggregate.class))
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.vab2048.axon.exhibition.app.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementSaga;
+import io.github.vab2048.axon.exhibition.app.config.serialization.PayloadCompressor;
+import io.github.vab2048.axon.exhibition.app.config.serialization.SmileJacksonSerializer;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import org.axonframework.messaging.MetaData;
+import org.axonframework.serialization.SerializedObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of serializing + compressing and decompressing + deserializing representative payloads with each
+ * {@link PayloadCompressor.Codec}, to help choose `axon-exhibition.payload-format.compression-threshold`.
+ *
+ * The size of each payload before and after compression is printed when each trial starts. Does not need a DB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadCompressionBenchmark {
+
+    @Param({"NONE", "LZ4", "ZSTD"})
+    public PayloadCompressor.Codec codec;
+
+    @Param({"account-event", "account-snapshot", "saga", "event-metadata", "large-event-metadata"})
+    public String payload;
+
+    private SmileJacksonSerializer serializer;
+    private Object object;
+    private SerializedObject<byte[]> serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // A threshold of 0 so that every payload is compressed - the point is to see where compression starts to pay.
+        serializer = SmileJacksonSerializer.create(new ObjectMapper(new SmileFactory()), new PayloadCompressor(codec, 0));
+        object = payload(payload);
+        serialized = serializer.serialize(object, byte[].class);
+
+        int uncompressed = SmileJacksonSerializer.create(new ObjectMapper(new SmileFactory()))
+                .serialize(object, byte[].class).getData().length;
+        System.out.printf("%n%s with %s: %d bytes -> %d bytes%n", payload, codec, uncompressed, serialized.getData().length);
+    }
+
+    @Benchmark
+    public SerializedObject<byte[]> serialize() {
+        return serializer.serialize(object, byte[].class);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(serialized);
+    }
+
+    private static Object payload(String name) {
+        return switch (name) {
+            case "account-event" -> new AccountCreditedEvent(UUID.randomUUID(), UUID.randomUUID(), 1_000L);
+            // The same shape as an AccountAggregate snapshot.
+            case "account-snapshot" -> new HashMap<>(Map.of("accountId", UUID.randomUUID(), "balance", 123_456L));
+            case "saga" -> saga();
+            // Axon's correlation data as added to every event.
+            case "event-metadata" -> MetaData.with("traceId", UUID.randomUUID().toString())
+                    .and("correlationId", UUID.randomUUID().toString());
+            case "large-event-metadata" -> largeMetaData();
+            default -> throw new IllegalArgumentException("Unknown payload: " + name);
+        };
+    }
+
+    @SuppressWarnings("deprecation")
+    private static PaymentSettlementSaga saga() {
+        var saga = new PaymentSettlementSaga();
+        saga.setSourceAccountId(UUID.randomUUID());
+        saga.setDestinationAccountId(UUID.randomUUID());
+        saga.setAmount(1_000L);
+        return saga;
+    }
+
+    /*
+     * Metadata carrying e.g. request headers and audit details (around 2KB).
+     */
+    private static MetaData largeMetaData() {
+        Map<String, String> entries = new HashMap<>();
+        entries.put("traceId", UUID.randomUUID().toString());
+        entries.put("correlationId", UUID.randomUUID().toString());
+        for (int i = 0; i < 30; i++) {
+            entries.put("x-request-header-" + i, "value-" + i + "-" + UUID.randomUUID());
+        }
+        return MetaData.from(entries);
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.vab2048.axon.exhibition.app.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.vab2048.axon.exhibition.app.command.account.AccountCreditShards;
+import io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementCommandDispatcher;
+import io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementProcessor;
+import io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementSaga;
+import io.github.vab2048.axon.exhibition.app.config.saga.BoundedCachingSagaStore;
+import io.github.vab2048.axon.exhibition.app.config.saga.SagaAssociationFilter;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountDebitedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.CreditAccountCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.DebitAccountCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.MarkPaymentAsCompletedCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.MarkPaymentAsFailedCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.PaymentSettlementTriggeredEvent;
+import org.axonframework.commandhandling.SimpleCommandBus;
+import org.axonframework.commandhandling.gateway.DefaultCommandGateway;
+import org.axonframework.common.jdbc.DataSourceConnectionProvider;
+import org.axonframework.eventhandling.EventHandlerInvoker;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.eventhandling.Segment;
+import org.axonframework.eventhandling.SimpleEventHandlerInvoker;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.axonframework.modelling.saga.AnnotatedSagaManager;
+import org.axonframework.modelling.saga.SimpleResourceInjector;
+import org.axonframework.modelling.saga.repository.AnnotatedSagaRepository;
+import org.axonframework.modelling.saga.repository.SagaStore;
+import org.axonframework.modelling.saga.repository.jdbc.JdbcSagaStore;
+import org.axonframework.modelling.saga.repository.jdbc.PostgresSagaSqlSchema;
+import org.axonframework.modelling.saga.repository.jdbc.SagaSchema;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the settlement engines (see the "Payment settlement" section of application.properties) by settling one
+ * payment per operation: handling its PaymentSettlementTriggeredEvent, AccountDebitedEvent and AccountCreditedEvent,
+ * each in its own unit of work as the event processor would with a batch size of 1.
+ * - `saga`:        the PaymentSettlementSaga on the JDBC saga store alone.
+ * - `cached-saga`: the PaymentSettlementSaga on the saga store as the app configures it, i.e. cached.
+ * - `stateless`:   the PaymentSettlementProcessor.
+ *
+ * The commands are handled by no-op handlers, so only the settlement itself (including any saga store I/O) is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SettlementEngineBenchmark {
+    private static final String SAGA_TABLE = "axon.sagaentry";
+    private static final String ASSOCIATIONS_TABLE = "axon.associationvalueentry";
+
+    @Param({"saga", "cached-saga", "stateless"})
+    public String engine;
+
+    private HikariDataSource dataSource;
+    private EventHandlerInvoker eventHandlerInvoker;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = BenchmarkDatabase.newDataSource();
+        BenchmarkDatabase.truncate(dataSource, SAGA_TABLE, ASSOCIATIONS_TABLE);
+
+        var commandBus = SimpleCommandBus.builder().build();
+        List.of(DebitAccountCommand.class, CreditAccountCommand.class, MarkPaymentAsCompletedCommand.class,
+                MarkPaymentAsFailedCommand.class).forEach(type -> commandBus.subscribe(type.getName(), c -> null));
+        var commandDispatcher = new PaymentSettlementCommandDispatcher(
+                DefaultCommandGateway.builder().commandBus(commandBus).build(), Duration.ofSeconds(30));
+        var accountCreditShards = new AccountCreditShards(null, null, false);
+
+        eventHandlerInvoker = switch (engine) {
+            case "saga" -> sagaManager(jdbcSagaStore(), commandDispatcher, accountCreditShards);
+            case "cached-saga" -> sagaManager(new BoundedCachingSagaStore<>(jdbcSagaStore(), 10_000,
+                            Duration.ofMinutes(1), new SagaAssociationFilter(null, null, false, 0, 0.01)),
+                    commandDispatcher, accountCreditShards);
+            case "stateless" -> SimpleEventHandlerInvoker.builder()
+                    .eventHandlers(new PaymentSettlementProcessor(commandDispatcher, accountCreditShards))
+                    .build();
+            default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.truncate(dataSource, SAGA_TABLE, ASSOCIATIONS_TABLE);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void settlePayment() throws Exception {
+        var paymentId = UUID.randomUUID();
+        var sourceAccountId = UUID.randomUUID();
+        var destinationAccountId = UUID.randomUUID();
+        // As the stateless engine's correlation data provider would copy it from the commands onto their events.
+        var metaData = Map.of(PaymentSettlementProcessor.DESTINATION_ACCOUNT_ID_META_DATA_KEY,
+                destinationAccountId.toString());
+
+        handle(GenericEventMessage.asEventMessage(new PaymentSettlementTriggeredEvent(
+                paymentId, sourceAccountId, destinationAccountId, 10L, Instant.now())));
+        handle(GenericEventMessage.asEventMessage(new AccountDebitedEvent(sourceAccountId, paymentId, 10L))
+                .andMetaData(metaData));
+        handle(GenericEventMessage.asEventMessage(new AccountCreditedEvent(destinationAccountId, paymentId, 10L))
+                .andMetaData(metaData));
+    }
+
+    private void handle(EventMessage<?> event) throws Exception {
+        var result = DefaultUnitOfWork.startAndGet(event).executeWithResult(() -> {
+            eventHandlerInvoker.handle(event, Segment.ROOT_SEGMENT);
+            return null;
+        });
+        if (result.isExceptional()) {
+            throw new IllegalStateException("Failed to handle " + event.getPayloadType(), result.exceptionResult());
+        }
+    }
+
+    private JdbcSagaStore jdbcSagaStore() {
+        return JdbcSagaStore.builder()
+                .sqlSchema(new PostgresSagaSqlSchema(new SagaSchema(SAGA_TABLE, ASSOCIATIONS_TABLE)))
+                .connectionProvider(new DataSourceConnectionProvider(dataSource))
+                .serializer(JacksonSerializer.defaultSerializer())
+                .build();
+    }
+
+    private static AnnotatedSagaManager<PaymentSettlementSaga> sagaManager(
+            SagaStore<Object> sagaStore, PaymentSettlementCommandDispatcher commandDispatcher,
+            AccountCreditShards accountCreditShards) {
+        var sagaRepository = AnnotatedSagaRepository.<PaymentSettlementSaga>builder()
+                .sagaType(PaymentSettlementSaga.class)
+                .sagaStore(sagaStore)
+                .resourceInjector(new SimpleResourceInjector(commandDispatcher, accountCreditShards))
+                .build();
+        return AnnotatedSagaManager.<PaymentSettlementSaga>builder()
+                .sagaRepository(sagaRepository)
+                .sagaType(PaymentSettlementSaga.class)
+                .build();
+    }
+}
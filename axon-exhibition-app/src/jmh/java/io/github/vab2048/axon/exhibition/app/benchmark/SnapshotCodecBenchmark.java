@@ -0,0 +1,65 @@
+package io.github.vab2048.axon.exhibition.app.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.github.vab2048.axon.exhibition.app.command.account.AccountAggregate;
+import io.github.vab2048.axon.exhibition.app.command.account.AccountAggregateSnapshotCodec;
+import io.github.vab2048.axon.exhibition.app.config.serialization.SmileJacksonSerializer;
+import io.github.vab2048.axon.exhibition.app.config.serialization.SnapshotCodecSerializer;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing and reading an AccountAggregate snapshot with Jackson - as JSON (the default) or Smile - and with
+ * the {@link AccountAggregateSnapshotCodec}.
+ *
+ * The size of the snapshot in each format is printed when each trial starts. Does not need a DB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotCodecBenchmark {
+
+    @Param({"json", "smile", "codec"})
+    public String format;
+
+    private Serializer serializer;
+    private AccountAggregate aggregate;
+    private SerializedObject<byte[]> serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var smile = SmileJacksonSerializer.create(new ObjectMapper(new SmileFactory()));
+        serializer = switch (format) {
+            case "json" -> JacksonSerializer.defaultSerializer();
+            case "smile" -> smile;
+            case "codec" -> new SnapshotCodecSerializer(smile, List.of(new AccountAggregateSnapshotCodec()), true);
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        // As Axon itself creates the aggregate when reading a Jackson snapshot.
+        aggregate = new ObjectMapper().convertValue(
+                Map.of("accountId", UUID.randomUUID(), "balance", 123_456L), AccountAggregate.class);
+        serialized = serializer.serialize(aggregate, byte[].class);
+        System.out.printf("%n%s: %d bytes%n", format, serialized.getData().length);
+    }
+
+    @Benchmark
+    public SerializedObject<byte[]> serialize() {
+        return serializer.serialize(aggregate, byte[].class);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(serialized);
+    }
+}
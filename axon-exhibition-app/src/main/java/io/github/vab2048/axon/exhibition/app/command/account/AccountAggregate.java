@@ -9,9 +9,10 @@ import org.axonframework.spring.stereotype.Aggregate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.UUID;
 
-import static io.github.vab2048.axon.exhibition.app.config.ApplicationAxonConfiguration.ACCOUNT_AGGREGATE_SNAPSHOT_TRIGGER_DEFINITION_BEAN_NAME;
+import static io.github.vab2048.axon.exhibition.app.config.ApplicationAxonConfiguration.ACCOUNT_AGGREGATE_REPOSITORY_BEAN_NAME;
 import static org.axonframework.modelling.command.AggregateLifecycle.apply;
 
 /**
@@ -20,7 +21,7 @@ import static org.axonframework.modelling.command.AggregateLifecycle.apply;
  * This is just a bare-bones implementation for the purpose of a demo.
  * It does not do anything special to deal with negative balances.
  */
-@Aggregate(snapshotTriggerDefinition = ACCOUNT_AGGREGATE_SNAPSHOT_TRIGGER_DEFINITION_BEAN_NAME)
+@Aggregate(repository = ACCOUNT_AGGREGATE_REPOSITORY_BEAN_NAME)
 public class AccountAggregate {
     private static final Logger log = LoggerFactory.getLogger(AccountAggregate.class);
 
@@ -29,7 +30,8 @@ public class AccountAggregate {
      * *****************************************************/
 
     // Since we are using Jackson as a serializer we unfortunately need getters and setters for each field
-    // otherwise state will not be persisted when we take a snapshot.
+    // otherwise state will not be persisted when we take a snapshot (unless the snapshot codecs are enabled, in which
+    // case the AccountAggregateSnapshotCodec writes them).
 
     /**
      * Identifier for the account.
@@ -58,6 +60,33 @@ public class AccountAggregate {
         this.balance = balance;
     }
 
+    /**
+     * The number of shards the account's credits are spread over (see {@link AccountCreditShards}), or 0 when its
+     * credits are not sharded.
+     */
+    private int creditShards;
+
+    public int getCreditShards() {
+        return creditShards;
+    }
+
+    public void setCreditShards(int creditShards) {
+        this.creditShards = creditShards;
+    }
+
+    /**
+     * The total of the credits of each shard consolidated into the balance so far, by shard.
+     */
+    private long[] consolidatedCreditShardTotals = new long[0];
+
+    public long[] getConsolidatedCreditShardTotals() {
+        return consolidatedCreditShardTotals;
+    }
+
+    public void setConsolidatedCreditShardTotals(long[] consolidatedCreditShardTotals) {
+        this.consolidatedCreditShardTotals = consolidatedCreditShardTotals;
+    }
+
     // -------------------------------------------------------------------------------
 
     @Deprecated
@@ -92,8 +121,11 @@ public class AccountAggregate {
     }
 
     @CommandHandler
-    void handle(DebitAccountCommand cmd) {
+    void handle(DebitAccountCommand cmd, AccountCreditShards accountCreditShards) {
         log.debug("Handling: {}", cmd);
+        // Debits always go through the account, with any sharded credits consolidated first so that the balance
+        // debited is the whole balance.
+        consolidateCreditShards(accountCreditShards);
         apply(new AccountDebitedEvent(cmd.accountId(), cmd.paymentId(), cmd.amount()));
     }
 
@@ -102,4 +134,55 @@ public class AccountAggregate {
         log.debug("Applying: {}", evt);
         balance = balance - evt.amount();
     }
+
+    // -------------------------------------------------------------------------------
+
+    @CommandHandler
+    void handle(ShardAccountCreditsCommand cmd, AccountCreditShards accountCreditShards) {
+        log.debug("Handling: {}", cmd);
+        if (!accountCreditShards.isEnabled()) {
+            throw new IllegalStateException("Account sharding is not enabled");
+        }
+        if (cmd.shards() <= creditShards || cmd.shards() > AccountCreditShards.MAX_SHARDS) {
+            throw new IllegalArgumentException(("The credits of account %s are spread over %s shard(s) and can only be"
+                    + " spread over more (up to %s), not %s")
+                    .formatted(accountId, creditShards, AccountCreditShards.MAX_SHARDS, cmd.shards()));
+        }
+        apply(new AccountCreditsShardedEvent(cmd.accountId(), cmd.shards()));
+    }
+
+    @EventSourcingHandler
+    void on(AccountCreditsShardedEvent evt) {
+        log.debug("Applying: {}", evt);
+        creditShards = evt.shards();
+        consolidatedCreditShardTotals = Arrays.copyOf(consolidatedCreditShardTotals, evt.shards());
+    }
+
+    @CommandHandler
+    void handle(ConsolidateAccountCreditShardsCommand cmd, AccountCreditShards accountCreditShards) {
+        log.debug("Handling: {}", cmd);
+        consolidateCreditShards(accountCreditShards);
+    }
+
+    /*
+     * Add the credits each shard has taken since it was last consolidated to the balance. A shard only ever adds to its
+     * credited total, so consolidating is idempotent.
+     */
+    private void consolidateCreditShards(AccountCreditShards accountCreditShards) {
+        for (int shard = 0; shard < creditShards; shard++) {
+            long creditedTotal = accountCreditShards.creditedTotal(accountId, shard);
+            long consolidatedTotal = consolidatedCreditShardTotals[shard];
+            if (creditedTotal > consolidatedTotal) {
+                apply(new AccountCreditShardConsolidatedEvent(accountId, shard, creditedTotal - consolidatedTotal,
+                        creditedTotal));
+            }
+        }
+    }
+
+    @EventSourcingHandler
+    void on(AccountCreditShardConsolidatedEvent evt) {
+        log.debug("Applying: {}", evt);
+        balance = balance + evt.amount();
+        consolidatedCreditShardTotals[evt.shard()] = evt.consolidatedTotal();
+    }
 }
@@ -0,0 +1,79 @@
+package io.github.vab2048.axon.exhibition.app.command.account;
+
+import io.github.vab2048.axon.exhibition.app.config.serialization.SnapshotCodec;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Writes an account snapshot as its identifier, balance and credit shards (28 bytes, plus 8 per credit shard) rather
+ * than as a Jackson document.
+ *
+ * Layout version 1: the account id (most then least significant bits) and the balance, each a big endian long.
+ * Layout version 2: as version 1, followed by the number of credit shards (an int) and the consolidated total of each
+ * (a long each).
+ * Layout version 3 (no longer written): as version 2, followed by the debited and then the credited payment ids, each
+ * as their number (an int) and then the ids (as the account id). The ids are skipped when read.
+ */
+@Component
+public class AccountAggregateSnapshotCodec implements SnapshotCodec<AccountAggregate> {
+    private static final int VERSION = 2;
+    private static final int LAST_READ_VERSION = 3;
+
+    @Override
+    public Class<AccountAggregate> type() {
+        return AccountAggregate.class;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void encode(AccountAggregate aggregate, DataOutput out) throws IOException {
+        out.writeLong(aggregate.getAccountId().getMostSignificantBits());
+        out.writeLong(aggregate.getAccountId().getLeastSignificantBits());
+        out.writeLong(aggregate.getBalance());
+        out.writeInt(aggregate.getCreditShards());
+        for (long consolidatedTotal : aggregate.getConsolidatedCreditShardTotals()) {
+            out.writeLong(consolidatedTotal);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public AccountAggregate decode(int version, DataInput in) throws IOException {
+        if (version < 1 || version > LAST_READ_VERSION) {
+            throw new IOException("Unknown AccountAggregate snapshot layout version: " + version);
+        }
+        var aggregate = new AccountAggregate();
+        aggregate.setAccountId(new UUID(in.readLong(), in.readLong()));
+        aggregate.setBalance(in.readLong());
+        if (version >= 2) {
+            int creditShards = in.readInt();
+            long[] consolidatedCreditShardTotals = new long[creditShards];
+            for (int shard = 0; shard < creditShards; shard++) {
+                consolidatedCreditShardTotals[shard] = in.readLong();
+            }
+            aggregate.setCreditShards(creditShards);
+            aggregate.setConsolidatedCreditShardTotals(consolidatedCreditShardTotals);
+        }
+        if (version >= 3) {
+            skipUuids(in);
+            skipUuids(in);
+        }
+        return aggregate;
+    }
+
+    private static void skipUuids(DataInput in) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            in.readLong();
+            in.readLong();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package io.github.vab2048.axon.exhibition.app.command.account;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountDebitedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountShardCreditedEvent;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.NewAccountCreatedEvent;
 import org.axonframework.config.EventProcessingConfiguration;
 import org.axonframework.config.EventProcessingConfigurer;
@@ -44,6 +45,12 @@ public class AccountBalanceView {
         balance.put(evt.accountId(), currentBalance + evt.amount());
     }
 
+    @EventHandler
+    void on(AccountShardCreditedEvent evt) {
+        Long currentBalance = balance.get(evt.accountId());
+        balance.put(evt.accountId(), currentBalance + evt.amount());
+    }
+
     @EventHandler
     void on(AccountDebitedEvent evt) {
         Long currentBalance = balance.get(evt.accountId());
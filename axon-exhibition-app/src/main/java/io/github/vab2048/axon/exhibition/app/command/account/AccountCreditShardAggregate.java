@@ -0,0 +1,99 @@
+package io.github.vab2048.axon.exhibition.app.command.account;
+
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountShardCreditedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.CreditAccountShardCommand;
+import org.axonframework.commandhandling.CommandHandler;
+import org.axonframework.eventsourcing.EventSourcingHandler;
+import org.axonframework.modelling.command.AggregateCreationPolicy;
+import org.axonframework.modelling.command.AggregateIdentifier;
+import org.axonframework.modelling.command.CreationPolicy;
+import org.axonframework.spring.stereotype.Aggregate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+
+import static io.github.vab2048.axon.exhibition.app.config.ApplicationAxonConfiguration.ACCOUNT_CREDIT_SHARD_AGGREGATE_REPOSITORY_BEAN_NAME;
+import static org.axonframework.modelling.command.AggregateLifecycle.apply;
+
+/**
+ * One of the credit shards of an account (see {@link AccountCreditShards}): takes credits for the account so that they
+ * are not serialized on the account itself.
+ *
+ * The shard only keeps the running total of its credits, which the account consolidates into its balance.
+ */
+@Aggregate(repository = ACCOUNT_CREDIT_SHARD_AGGREGATE_REPOSITORY_BEAN_NAME)
+public class AccountCreditShardAggregate {
+    private static final Logger log = LoggerFactory.getLogger(AccountCreditShardAggregate.class);
+
+    /* *****************************************************
+     * Fields
+     * *****************************************************/
+
+    // Since we are using Jackson as a serializer we need getters and setters for each field (for the snapshots).
+
+    @AggregateIdentifier
+    private UUID shardId;
+    private UUID accountId;
+    private int shard;
+
+    /**
+     * The total of all the credits taken by the shard, in pennies.
+     */
+    private long creditedTotal;
+
+    public UUID getShardId() {
+        return shardId;
+    }
+
+    public void setShardId(UUID shardId) {
+        this.shardId = shardId;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(UUID accountId) {
+        this.accountId = accountId;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+
+    public long getCreditedTotal() {
+        return creditedTotal;
+    }
+
+    public void setCreditedTotal(long creditedTotal) {
+        this.creditedTotal = creditedTotal;
+    }
+
+    // -------------------------------------------------------------------------------
+
+    @Deprecated
+    AccountCreditShardAggregate() { /* For framework use only. */ }
+
+    // A shard is created by its first credit.
+    @CommandHandler
+    @CreationPolicy(AggregateCreationPolicy.CREATE_IF_MISSING)
+    void handle(CreditAccountShardCommand cmd) {
+        log.debug("Handling: {}", cmd);
+        apply(new AccountShardCreditedEvent(cmd.shardId(), cmd.accountId(), cmd.shard(), cmd.paymentId(),
+                cmd.amount()));
+    }
+
+    @EventSourcingHandler
+    void on(AccountShardCreditedEvent evt) {
+        log.debug("Applying: {}", evt);
+        this.shardId = evt.shardId();
+        this.accountId = evt.accountId();
+        this.shard = evt.shard();
+        this.creditedTotal = creditedTotal + evt.amount();
+    }
+}
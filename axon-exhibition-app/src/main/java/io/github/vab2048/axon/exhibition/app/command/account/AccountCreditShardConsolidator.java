@@ -0,0 +1,81 @@
+package io.github.vab2048.axon.exhibition.app.command.account;
+
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.ConsolidateAccountCreditShardsCommand;
+import org.axonframework.commandhandling.gateway.CommandGateway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically consolidates the credit shards of each account whose credits are sharded (see
+ * {@link AccountCreditShards}), so that the account's command side balance does not lag far behind its credits
+ * between debits (each debit consolidates the shards first anyway).
+ */
+public class AccountCreditShardConsolidator implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(AccountCreditShardConsolidator.class);
+
+    private final AccountCreditShards accountCreditShards;
+    private final CommandGateway commandGateway;
+    private final Duration interval;
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param interval how often to consolidate the shards.
+     */
+    public AccountCreditShardConsolidator(AccountCreditShards accountCreditShards, CommandGateway commandGateway,
+                                          Duration interval) {
+        this.accountCreditShards = accountCreditShards;
+        this.commandGateway = commandGateway;
+        this.interval = interval;
+    }
+
+    /**
+     * Consolidate the credit shards of each account (also picking up the accounts sharded by other instances of the
+     * app). The consolidation of each account is a command of its own, which is not waited for.
+     */
+    public void consolidate() {
+        accountCreditShards.refresh();
+        for (UUID accountId : accountCreditShards.shardedAccounts()) {
+            commandGateway.send(new ConsolidateAccountCreditShardsCommand(accountId))
+                    .exceptionally(e -> {
+                        log.warn("Failed to consolidate the credit shards of account {}", accountId, e);
+                        return null;
+                    });
+        }
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "account-credit-shard-consolidator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                consolidate();
+            } catch (RuntimeException e) {
+                log.warn("Failed to consolidate the account credit shards (will retry in {})", interval, e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+}
@@ -0,0 +1,138 @@
+package io.github.vab2048.axon.exhibition.app.command.account;
+
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditsShardedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.CreditAccountCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.CreditAccountShardCommand;
+import org.axonframework.config.EventProcessingConfigurer;
+import org.axonframework.config.ProcessingGroup;
+import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.axonframework.modelling.command.AggregateNotFoundException;
+import org.axonframework.modelling.command.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The credit shards of the accounts whose credits are sharded (opt-in, see the "Account sharding" section of
+ * application.properties): routes each credit of such an account to one of its shards, and reads the credited total of
+ * a shard for the account to consolidate.
+ *
+ * The number of shards of each account is kept in the command side account credit shards table (by this subscribing
+ * event processor, so in the same transaction as the event) and read into memory on start up and on each
+ * {@link #refresh()}. As an account's number of shards only grows and an account can always be credited directly,
+ * routing on a stale number (e.g. one changed by another instance of the app) is still correct.
+ */
+@ProcessingGroup(AccountCreditShards.PROCESSING_GROUP)
+public class AccountCreditShards {
+    private static final Logger log = LoggerFactory.getLogger(AccountCreditShards.class);
+    public static final String PROCESSING_GROUP = "account-credit-shards";
+    public static final int MAX_SHARDS = 256;
+    private static final String TABLE_NAME = "command_side.account_credit_shards";
+
+    @Autowired
+    public void configure(EventProcessingConfigurer eventProcessing) {
+        eventProcessing.registerSubscribingEventProcessor(PROCESSING_GROUP);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Repository<AccountCreditShardAggregate> shardRepository;
+    private final boolean enabled;
+    private volatile Map<UUID, Integer> shardsByAccount = Map.of();
+
+    /**
+     * @param enabled whether accounts can have their credits sharded (when not, the table need not exist).
+     */
+    public AccountCreditShards(JdbcTemplate jdbcTemplate, Repository<AccountCreditShardAggregate> shardRepository,
+                               boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRepository = shardRepository;
+        this.enabled = enabled;
+        refresh();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The identifier of the given shard of the given account (the same on every instance of the app).
+     */
+    public static UUID shardId(UUID accountId, int shard) {
+        String name = "account-credit-shard:" + accountId + ":" + shard;
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * {@return the command to credit the given account with: either directly or on one of its shards.}
+     *
+     * The shard is picked by the payment, so that a retried credit goes to the same shard.
+     */
+    public Object creditCommand(UUID accountId, UUID paymentId, long amount) {
+        Integer shards = shardsByAccount.get(accountId);
+        if (shards == null) {
+            return new CreditAccountCommand(accountId, paymentId, amount);
+        }
+        int shard = Math.floorMod(paymentId.hashCode(), shards);
+        return new CreditAccountShardCommand(shardId(accountId, shard), accountId, shard, paymentId, amount);
+    }
+
+    /**
+     * {@return the total of all the credits taken by the given shard of the given account.}
+     *
+     * Must be called while handling a command: the shard is then locked until its unit of work completes.
+     */
+    public long creditedTotal(UUID accountId, int shard) {
+        try {
+            return shardRepository.load(shardId(accountId, shard).toString())
+                    .invoke(AccountCreditShardAggregate::getCreditedTotal);
+        } catch (AggregateNotFoundException e) {
+            // Not credited yet.
+            return 0L;
+        }
+    }
+
+    /**
+     * {@return the accounts whose credits are sharded (as of the last refresh).}
+     */
+    public Set<UUID> shardedAccounts() {
+        return shardsByAccount.keySet();
+    }
+
+    /**
+     * Read the number of shards of each account from the table again.
+     */
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        Map<UUID, Integer> shards = new HashMap<>();
+        jdbcTemplate.query("SELECT account_id, shards FROM " + TABLE_NAME,
+                resultSet -> {
+                    shards.put(resultSet.getObject("account_id", UUID.class), resultSet.getInt("shards"));
+                });
+        shardsByAccount = Map.copyOf(shards);
+    }
+
+    @EventHandler
+    void on(AccountCreditsShardedEvent evt) {
+        log.info("Sharding the credits of account {} over {} shard(s)", evt.accountId(), evt.shards());
+        jdbcTemplate.update("INSERT INTO " + TABLE_NAME + " (account_id, shards) VALUES (?, ?)"
+                + " ON CONFLICT (account_id) DO UPDATE SET shards = EXCLUDED.shards", evt.accountId(), evt.shards());
+        // Only route credits to the new shards once the account has them (i.e. once they are committed).
+        CurrentUnitOfWork.ifStarted(unitOfWork -> unitOfWork.afterCommit(u -> put(evt.accountId(), evt.shards())));
+    }
+
+    private synchronized void put(UUID accountId, int shards) {
+        Map<UUID, Integer> shardsByAccount = new HashMap<>(this.shardsByAccount);
+        shardsByAccount.merge(accountId, shards, Math::max);
+        this.shardsByAccount = Map.copyOf(shardsByAccount);
+    }
+}
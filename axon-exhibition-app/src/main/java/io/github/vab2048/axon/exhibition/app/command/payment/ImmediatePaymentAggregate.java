@@ -46,6 +46,21 @@ public final class ImmediatePaymentAggregate extends PaymentAggregate {
                 command.destinationAccountId(), command.amount(), settlementInitiationTimestamp));
     }
 
+    /**
+     * The payment of a transfer settled as it is created (see {@link ImmediatePaymentTransferHandler}), which is not
+     * triggered for settlement.
+     */
+    ImmediatePaymentAggregate(TransferImmediatePaymentCommand command, Instant settlementInitiationTimestamp) {
+        log.debug("Handling: {}", command);
+        apply(new ImmediatePaymentCreatedEvent(
+                command.paymentId(),
+                command.sourceAccountId(),
+                command.destinationAccountId(),
+                command.amount(),
+                PaymentStatus.CREATED,
+                settlementInitiationTimestamp));
+    }
+
     @EventSourcingHandler
     void on(ImmediatePaymentCreatedEvent event) {
         log.debug("Applying: {}", event);
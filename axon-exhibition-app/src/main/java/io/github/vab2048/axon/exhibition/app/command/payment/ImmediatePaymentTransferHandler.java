@@ -0,0 +1,120 @@
+package io.github.vab2048.axon.exhibition.app.command.payment;
+
+import io.github.vab2048.axon.exhibition.app.command.account.AccountAggregate;
+import io.github.vab2048.axon.exhibition.app.config.lock.StripedLockFactory;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.CreditAccountCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.DebitAccountCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.MarkPaymentAsCompletedCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.TransferImmediatePaymentCommand;
+import io.github.vab2048.axon.exhibition.message_api.common.InstantSupplier;
+import org.axonframework.commandhandling.CommandExecutionException;
+import org.axonframework.commandhandling.CommandHandler;
+import org.axonframework.modelling.command.Aggregate;
+import org.axonframework.modelling.command.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static io.github.vab2048.axon.exhibition.app.config.ApplicationAxonConfiguration.ACCOUNT_AGGREGATE_LOCK_FACTORY_BEAN_NAME;
+import static io.github.vab2048.axon.exhibition.app.config.ApplicationAxonConfiguration.ACCOUNT_AGGREGATE_REPOSITORY_BEAN_NAME;
+import static io.github.vab2048.axon.exhibition.app.config.ApplicationAxonConfiguration.PAYMENT_AGGREGATE_REPOSITORY_BEAN_NAME;
+import static org.axonframework.commandhandling.GenericCommandMessage.asCommandMessage;
+
+/**
+ * The fast path of an immediate payment (see the "Payment settlement" section of application.properties): creates the
+ * payment, debits the source account, credits the destination account and completes the payment all in the one unit
+ * of work (and so transaction), rather than over the several of its settlement.
+ *
+ * Both accounts are loaded - and so locked until the unit of work completes - before either is changed, in the order
+ * of their locks ({@link StripedLockFactory#lockOrder()}, by stripe): two transfers locking the same account stripes
+ * (in either direction) never each hold a stripe the other waits for. The payment is locked last, once both accounts
+ * are held, by the payment lock factory: its stripe may be held by the handler of another payment, but no handler
+ * holding a payment's stripe goes on to wait for an account's, so that wait never closes a cycle.
+ *
+ * A transfer from or to an account whose credits are sharded is rejected with a {@link TransferRejectedException} (the
+ * shards exist as the account is too busy to lock for each credit) before either account is changed, so the payment
+ * can still be created and settled as usual. A transfer which fails in any other way is rolled back with its unit of
+ * work as a whole.
+ */
+@Component
+@ConditionalOnProperty(prefix = "axon-exhibition.payment-settlement", name = "fast-path", havingValue = "true")
+public class ImmediatePaymentTransferHandler {
+    private static final Logger log = LoggerFactory.getLogger(ImmediatePaymentTransferHandler.class);
+
+    private final Repository<AccountAggregate> accountRepository;
+    private final Repository<PaymentAggregate> paymentRepository;
+    private final StripedLockFactory accountLockFactory;
+    private final InstantSupplier instantSupplier;
+
+    public ImmediatePaymentTransferHandler(
+            @Qualifier(ACCOUNT_AGGREGATE_REPOSITORY_BEAN_NAME) Repository<AccountAggregate> accountRepository,
+            @Qualifier(PAYMENT_AGGREGATE_REPOSITORY_BEAN_NAME) Repository<PaymentAggregate> paymentRepository,
+            @Qualifier(ACCOUNT_AGGREGATE_LOCK_FACTORY_BEAN_NAME) StripedLockFactory accountLockFactory,
+            InstantSupplier instantSupplier) {
+        this.accountRepository = accountRepository;
+        this.paymentRepository = paymentRepository;
+        this.accountLockFactory = accountLockFactory;
+        this.instantSupplier = instantSupplier;
+    }
+
+    @CommandHandler
+    UUID handle(TransferImmediatePaymentCommand command) throws Exception {
+        log.debug("Handling: {}", command);
+        List<String> accountIds = Stream.of(command.sourceAccountId(), command.destinationAccountId())
+                .map(UUID::toString)
+                .distinct()
+                .sorted(accountLockFactory.lockOrder())
+                .toList();
+        Map<String, Aggregate<AccountAggregate>> accounts = new HashMap<>();
+        for (String accountId : accountIds) {
+            Aggregate<AccountAggregate> account = accountRepository.load(accountId);
+            if (account.invoke(AccountAggregate::getCreditShards) > 0) {
+                throw new TransferRejectedException(
+                        "Unable to transfer payment %s directly because the credits of account %s are sharded"
+                                .formatted(command.paymentId(), accountId));
+            }
+            accounts.put(accountId, account);
+        }
+
+        // The account and payment command handlers do the rest, as they would for the commands of the settlement.
+        accounts.get(command.sourceAccountId().toString()).handle(asCommandMessage(
+                new DebitAccountCommand(command.sourceAccountId(), command.paymentId(), command.amount())));
+        accounts.get(command.destinationAccountId().toString()).handle(asCommandMessage(
+                new CreditAccountCommand(command.destinationAccountId(), command.paymentId(), command.amount())));
+        Aggregate<PaymentAggregate> payment = paymentRepository.newInstance(
+                () -> new ImmediatePaymentAggregate(command, instantSupplier.get()));
+        payment.handle(asCommandMessage(new MarkPaymentAsCompletedCommand(command.paymentId())));
+        return command.paymentId();
+    }
+
+    /**
+     * Thrown when a transfer is rejected, i.e. the payment is to be created and settled as usual instead.
+     *
+     * The exception itself only reaches the sender of the command when the command is handled locally: a command bus
+     * handling it remotely (e.g. Axon Server's) throws a {@link CommandExecutionException} of its own instead, which
+     * carries the {@link #DETAILS} along. So a rejection is recognised by those (see {@link #isRejection}).
+     */
+    public static class TransferRejectedException extends CommandExecutionException {
+        public static final String DETAILS = "immediate-payment-transfer-rejected";
+
+        TransferRejectedException(String message) {
+            super(message, null, DETAILS);
+        }
+
+        /**
+         * {@return whether the given exception of sending a transfer is its rejection, whether the transfer was
+         * handled locally or remotely.}
+         */
+        public static boolean isRejection(CommandExecutionException e) {
+            return e.getDetails().map(DETAILS::equals).orElse(false);
+        }
+    }
+}
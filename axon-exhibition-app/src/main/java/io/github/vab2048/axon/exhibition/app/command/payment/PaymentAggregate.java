@@ -13,12 +13,13 @@ import org.slf4j.LoggerFactory;
 import java.time.Clock;
 import java.util.UUID;
 
+import static io.github.vab2048.axon.exhibition.app.config.ApplicationAxonConfiguration.PAYMENT_AGGREGATE_REPOSITORY_BEAN_NAME;
 import static org.axonframework.modelling.command.AggregateLifecycle.apply;
 
 /**
  * Representation of a bank transfer (payment) - a movement of money from one account to another.
  */
-@Aggregate
+@Aggregate(repository = PAYMENT_AGGREGATE_REPOSITORY_BEAN_NAME)
 public abstract sealed class PaymentAggregate permits ImmediatePaymentAggregate, ScheduledPaymentAggregate {
     private static final Clock clock = GenericEventMessage.clock;
     private static final Logger log = LoggerFactory.getLogger(PaymentAggregate.class);
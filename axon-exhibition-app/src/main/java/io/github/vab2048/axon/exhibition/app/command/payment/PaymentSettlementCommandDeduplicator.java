@@ -0,0 +1,109 @@
+package io.github.vab2048.axon.exhibition.app.command.payment;
+
+import org.axonframework.commandhandling.CommandMessage;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.MessageHandlerInterceptor;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handles each command of the {@link PaymentSettlementProcessor} only once: a command sent again (as its event was
+ * handled again) has the same identifier (see {@link PaymentSettlementProcessor#command}), and is ignored as it is
+ * already in the table of the `stateless-payment-settlement` optional migration.
+ *
+ * A command's identifier is inserted in the transaction which handles it, so it is only recorded should the command
+ * succeed (a command which failed is handled again). The identifiers are kept for the given retention, after which
+ * they are periodically deleted - an event is only handled again until its batch commits, so well within it.
+ *
+ * Only the commands carrying the processor's {@link PaymentSettlementProcessor#DESTINATION_ACCOUNT_ID_META_DATA_KEY}
+ * meta data are recorded; any other command is handled as usual.
+ */
+public class PaymentSettlementCommandDeduplicator implements MessageHandlerInterceptor<CommandMessage<?>>,
+        SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(PaymentSettlementCommandDeduplicator.class);
+    private static final String TABLE_NAME = "command_side.payment_settlement_command";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retention;
+    private final Duration cleanupInterval;
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param retention       how long a command's identifier is kept to recognise it being sent again.
+     * @param cleanupInterval how often to delete the identifiers kept for longer than the retention.
+     */
+    public PaymentSettlementCommandDeduplicator(JdbcTemplate jdbcTemplate, Duration retention,
+                                                Duration cleanupInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+        this.cleanupInterval = cleanupInterval;
+    }
+
+    @Override
+    public Object handle(UnitOfWork<? extends CommandMessage<?>> unitOfWork, InterceptorChain interceptorChain)
+            throws Exception {
+        CommandMessage<?> command = unitOfWork.getMessage();
+        if (!command.getMetaData().containsKey(PaymentSettlementProcessor.DESTINATION_ACCOUNT_ID_META_DATA_KEY)) {
+            return interceptorChain.proceed();
+        }
+        int recorded = jdbcTemplate.update("INSERT INTO " + TABLE_NAME + " (command_id, handled_at) VALUES (?, ?)"
+                + " ON CONFLICT (command_id) DO NOTHING",
+                UUID.fromString(command.getIdentifier()), Timestamp.from(Instant.now()));
+        if (recorded == 0) {
+            log.warn("Received settlement command {} ({}) which was already handled. Will ignore the command.",
+                    command.getIdentifier(), command.getPayload());
+            return null;
+        }
+        return interceptorChain.proceed();
+    }
+
+    /**
+     * Delete the identifiers kept for longer than the retention.
+     */
+    public void cleanUp() {
+        int deleted = jdbcTemplate.update("DELETE FROM " + TABLE_NAME + " WHERE handled_at < ?",
+                Timestamp.from(Instant.now().minus(retention)));
+        log.debug("Deleted {} settlement command identifier(s) older than {}", deleted, retention);
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-settlement-command-deduplicator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                cleanUp();
+            } catch (RuntimeException e) {
+                log.warn("Failed to delete the old settlement command identifiers (will retry in {})",
+                        cleanupInterval, e);
+            }
+        }, cleanupInterval.toMillis(), cleanupInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.vab2048.axon.exhibition.app.command.payment;
+
+import org.axonframework.commandhandling.gateway.CommandGateway;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the commands of the payment settlement sagas (or processor) without waiting for each of them to complete, so
+ * that their event processor keeps the commands of a whole batch of settlement events in flight at once (rather than
+ * one round trip at a time).
+ *
+ * The batch's unit of work only commits (i.e. the processor's token only moves past its events) once all its commands
+ * have completed. So, as when waiting for each command, the events of a batch whose commands may not have been handled
+ * (e.g. as the app stopped) are handled again. Nor does it wait for them for longer than the given timeout: should
+ * any command not have completed by then, the unit of work rolls back and the batch is handled again.
+ *
+ * A command which fails is logged, as a failing saga handler would be, or replaced by the given command to send
+ * instead (e.g. one failing the payment). So one failing command does not roll back the batch - so long as the
+ * command bus is asynchronous, as Axon Server's is. On a synchronous bus (e.g. the {@code SimpleCommandBus}) a
+ * command is handled as it is sent, in the processor's own unit of work, so it fails the batch just as it would when
+ * waited for.
+ */
+public class PaymentSettlementCommandDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(PaymentSettlementCommandDispatcher.class);
+    private static final String IN_FLIGHT_RESOURCE = PaymentSettlementCommandDispatcher.class.getName() + ".inFlight";
+
+    private final CommandGateway commandGateway;
+    private final Duration timeout;
+
+    /**
+     * @param timeout how long a batch waits for its commands to complete before it fails (and is handled again).
+     */
+    public PaymentSettlementCommandDispatcher(CommandGateway commandGateway, Duration timeout) {
+        this.commandGateway = commandGateway;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Send the given command, logging it should it fail.
+     */
+    public void send(Object command) {
+        send(command, null);
+    }
+
+    /**
+     * Send the given command, sending the other given command instead should it fail.
+     *
+     * @param onFailure the command to send should the given one fail, or null to only log the failure.
+     */
+    public void send(Object command, Object onFailure) {
+        CompletableFuture<Object> outcome = commandGateway.send(command)
+                .exceptionallyCompose(failure -> {
+                    if (onFailure == null) {
+                        log.error("Failed to handle settlement command: {}", command, failure);
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    log.warn("Failed to handle settlement command: {} (sending {} instead)", command, onFailure,
+                            failure);
+                    return commandGateway.send(onFailure).exceptionally(e -> {
+                        log.error("Failed to handle settlement command: {}", onFailure, e);
+                        return null;
+                    });
+                });
+        CurrentUnitOfWork.ifStarted(unitOfWork -> inFlight(unitOfWork.root()).add(outcome));
+    }
+
+    /*
+     * The commands sent while handling the (batch of) events of the given unit of work, which awaits them (for up to
+     * the timeout, failing with a TimeoutException beyond it) before it commits. Only touched by the processor's
+     * thread.
+     */
+    private List<CompletableFuture<?>> inFlight(UnitOfWork<?> unitOfWork) {
+        return unitOfWork.getOrComputeResource(IN_FLIGHT_RESOURCE, key -> {
+            List<CompletableFuture<?>> inFlight = new ArrayList<>();
+            unitOfWork.onPrepareCommit(u -> CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new))
+                    .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .join());
+            return inFlight;
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.vab2048.axon.exhibition.app.command.payment;
+
+import io.github.vab2048.axon.exhibition.app.command.account.AccountCreditShards;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountDebitedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountShardCreditedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.DebitAccountCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.MarkPaymentAsCompletedCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.MarkPaymentAsFailedCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.PaymentSettlementTriggeredEvent;
+import org.axonframework.commandhandling.CommandMessage;
+import org.axonframework.commandhandling.GenericCommandMessage;
+import org.axonframework.config.ProcessingGroup;
+import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.messaging.GenericMessage;
+import org.axonframework.messaging.MetaData;
+import org.axonframework.messaging.annotation.MetaDataValue;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Opt-in alternative to the {@link PaymentSettlementSaga} (see the "Payment settlement" section of
+ * application.properties): settles each payment from its events alone, so without reading or writing any saga.
+ *
+ * The PaymentSettlementTriggeredEvent carries all there is to know about the settlement. Only the destination account
+ * is needed beyond it, which the debit carries along as the {@link #DESTINATION_ACCOUNT_ID_META_DATA_KEY} meta data -
+ * copied onto the events (and so the commands) which follow by its correlation data provider. An account event without
+ * it is not part of a settlement by this processor, and is ignored.
+ *
+ * An event may be handled again (e.g. after a restart before its token was stored), in which case its command is sent
+ * again. The identifier of each command is derived from the payment and the step of its settlement, so it is the same
+ * command, which the {@link PaymentSettlementCommandDeduplicator} ignores: an account (or credit shard) is debited or
+ * credited for a payment only once.
+ */
+@ProcessingGroup(PaymentSettlementProcessor.PROCESSING_GROUP)
+public class PaymentSettlementProcessor {
+    public static final String PROCESSING_GROUP = "payment-settlement";
+    public static final String DESTINATION_ACCOUNT_ID_META_DATA_KEY = "settlementDestinationAccountId";
+
+    private final PaymentSettlementCommandDispatcher commandDispatcher;
+    private final AccountCreditShards accountCreditShards;
+
+    public PaymentSettlementProcessor(PaymentSettlementCommandDispatcher commandDispatcher,
+                                      AccountCreditShards accountCreditShards) {
+        this.commandDispatcher = commandDispatcher;
+        this.accountCreditShards = accountCreditShards;
+    }
+
+    @EventHandler
+    void on(PaymentSettlementTriggeredEvent event) {
+        String destinationAccountId = event.destinationAccountId().toString();
+        var debit = new DebitAccountCommand(event.sourceAccountId(), event.paymentId(), event.amount());
+        // Nothing has been moved yet should the debit be rejected, so the payment simply fails.
+        commandDispatcher.send(command(event.paymentId(), "debit", debit, destinationAccountId),
+                command(event.paymentId(), "fail", new MarkPaymentAsFailedCommand(event.paymentId()),
+                        destinationAccountId));
+    }
+
+    @EventHandler
+    void on(AccountDebitedEvent event,
+            @MetaDataValue(DESTINATION_ACCOUNT_ID_META_DATA_KEY) String destinationAccountId) {
+        if (destinationAccountId == null) {
+            return;
+        }
+        var credit = accountCreditShards.creditCommand(UUID.fromString(destinationAccountId), event.paymentId(),
+                event.amount());
+        commandDispatcher.send(command(event.paymentId(), "credit", credit, destinationAccountId));
+    }
+
+    @EventHandler
+    void on(AccountCreditedEvent event,
+            @MetaDataValue(DESTINATION_ACCOUNT_ID_META_DATA_KEY) String destinationAccountId) {
+        complete(event.paymentId(), destinationAccountId);
+    }
+
+    @EventHandler
+    void on(AccountShardCreditedEvent event,
+            @MetaDataValue(DESTINATION_ACCOUNT_ID_META_DATA_KEY) String destinationAccountId) {
+        complete(event.paymentId(), destinationAccountId);
+    }
+
+    private void complete(UUID paymentId, String destinationAccountId) {
+        if (destinationAccountId == null) {
+            return;
+        }
+        commandDispatcher.send(command(paymentId, "complete", new MarkPaymentAsCompletedCommand(paymentId),
+                destinationAccountId));
+    }
+
+    /**
+     * {@return the given step of the settlement of the given payment, as a command message with an identifier derived
+     * from both.}
+     */
+    static CommandMessage<?> command(UUID paymentId, String step, Object payload, String destinationAccountId) {
+        String name = "payment-settlement:" + paymentId + ":" + step;
+        String identifier = UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString();
+        MetaData metaData = CurrentUnitOfWork.correlationData()
+                .and(DESTINATION_ACCOUNT_ID_META_DATA_KEY, destinationAccountId);
+        return new GenericCommandMessage<>(new GenericMessage<>(identifier, payload, metaData),
+                payload.getClass().getName());
+    }
+}
@@ -1,12 +1,14 @@
 package io.github.vab2048.axon.exhibition.app.command.payment;
 
+import io.github.vab2048.axon.exhibition.app.command.account.AccountCreditShards;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountDebitedEvent;
-import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.CreditAccountCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountShardCreditedEvent;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.DebitAccountCommand;
 import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.MarkPaymentAsCompletedCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.MarkPaymentAsFailedCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.PaymentFailedEvent;
 import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.PaymentSettlementTriggeredEvent;
-import org.axonframework.commandhandling.gateway.CommandGateway;
 import org.axonframework.modelling.saga.EndSaga;
 import org.axonframework.modelling.saga.SagaEventHandler;
 import org.axonframework.modelling.saga.StartSaga;
@@ -14,22 +16,37 @@ import org.axonframework.spring.stereotype.Saga;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 
 import java.util.UUID;
 
 /**
  * Process manager for a payment settlement i.e. a transfer of money from one account to another.
+ *
+ * The commands are sent without waiting for them to complete (see {@link PaymentSettlementCommandDispatcher}): the
+ * saga moves on when the events of the commands it sent are published.
+ *
+ * The default settlement engine (see {@link PaymentSettlementProcessor} for the alternative).
  */
 @Saga
+@ConditionalOnProperty(prefix = "axon-exhibition.payment-settlement", name = "engine", havingValue = "saga",
+        matchIfMissing = true)
 public class PaymentSettlementSaga {
     private static final Logger log = LoggerFactory.getLogger(PaymentSettlementSaga.class);
     public static final String PAYMENT_ID_ASSOCIATION_PROPERTY = "paymentId";
 
-    private transient CommandGateway commandGateway;
+    private transient PaymentSettlementCommandDispatcher commandDispatcher;
 
     @Autowired
-    public void setCommandGateway(CommandGateway commandGateway) {
-        this.commandGateway = commandGateway;
+    public void setCommandDispatcher(PaymentSettlementCommandDispatcher commandDispatcher) {
+        this.commandDispatcher = commandDispatcher;
+    }
+
+    private transient AccountCreditShards accountCreditShards;
+
+    @Autowired
+    public void setAccountCreditShards(AccountCreditShards accountCreditShards) {
+        this.accountCreditShards = accountCreditShards;
     }
 
     private UUID sourceAccountId;
@@ -74,20 +91,35 @@ public class PaymentSettlementSaga {
         this.destinationAccountId = event.destinationAccountId();
         this.amount = event.amount();
         var cmd = new DebitAccountCommand(sourceAccountId, event.paymentId(), amount);
-        commandGateway.sendAndWait(cmd);
+        // Nothing has been moved yet should the debit be rejected, so the payment simply fails.
+        commandDispatcher.send(cmd, new MarkPaymentAsFailedCommand(event.paymentId()));
     }
 
     @SagaEventHandler(associationProperty = PAYMENT_ID_ASSOCIATION_PROPERTY)
     public void on(AccountDebitedEvent event) {
-        // On successfully debiting one side of the transfer we need to then credit the other.
-        var cmd = new CreditAccountCommand(destinationAccountId, event.paymentId(), event.amount());
-        commandGateway.sendAndWait(cmd);
+        // On successfully debiting one side of the transfer we need to then credit the other (or one of its credit
+        // shards, when its credits are sharded).
+        var cmd = accountCreditShards.creditCommand(destinationAccountId, event.paymentId(), event.amount());
+        commandDispatcher.send(cmd);
     }
 
     @SagaEventHandler(associationProperty = PAYMENT_ID_ASSOCIATION_PROPERTY)
     @EndSaga
     public void on(AccountCreditedEvent event) {
         // When the account has been credited then mark the transfer aggregate as being complete.
-        commandGateway.sendAndWait(new MarkPaymentAsCompletedCommand(event.paymentId()));
+        commandDispatcher.send(new MarkPaymentAsCompletedCommand(event.paymentId()));
+    }
+
+    @SagaEventHandler(associationProperty = PAYMENT_ID_ASSOCIATION_PROPERTY)
+    @EndSaga
+    public void on(AccountShardCreditedEvent event) {
+        // As above: the credit is the account's once it is on one of its shards.
+        commandDispatcher.send(new MarkPaymentAsCompletedCommand(event.paymentId()));
+    }
+
+    @SagaEventHandler(associationProperty = PAYMENT_ID_ASSOCIATION_PROPERTY)
+    @EndSaga
+    public void on(PaymentFailedEvent event) {
+        log.info("Payment {} failed, ending its settlement", event.paymentId());
     }
 }
@@ -0,0 +1,39 @@
+package io.github.vab2048.axon.exhibition.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Whether the credits of busy accounts can be spread over credit shards (see the "Account sharding" section of
+ * application.properties and {@link io.github.vab2048.axon.exhibition.app.command.account.AccountCreditShards}).
+ */
+@ConfigurationProperties(prefix = "axon-exhibition.account-sharding")
+public class AccountShardingProperties {
+
+    /**
+     * Whether an account's credits can be sharded (requires the account-credit-sharding optional migration).
+     */
+    private boolean enabled = false;
+
+    /**
+     * How often the credit shards of each sharded account are consolidated into its balance.
+     */
+    private Duration consolidationInterval = Duration.ofMinutes(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getConsolidationInterval() {
+        return consolidationInterval;
+    }
+
+    public void setConsolidationInterval(Duration consolidationInterval) {
+        this.consolidationInterval = consolidationInterval;
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.vab2048.axon.exhibition.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How many aggregates are kept in memory, and for how long (see the "Aggregate caches" section of
+ * application.properties and {@link io.github.vab2048.axon.exhibition.app.config.cache.BoundedAggregateCache}).
+ */
+@ConfigurationProperties(prefix = "axon-exhibition.aggregate-cache")
+public class AggregateCacheProperties {
+
+    /**
+     * The limits of any aggregate type without its own.
+     */
+    private Limits defaults = new Limits();
+
+    /**
+     * The limits of each aggregate type (of the root of a polymorphic aggregate), by its simple class name. Any limit
+     * not set takes the built-in default (not the one in {@link #defaults}).
+     */
+    private Map<String, Limits> aggregates = new HashMap<>();
+
+    public Limits getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Limits defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Limits> getAggregates() {
+        return aggregates;
+    }
+
+    public void setAggregates(Map<String, Limits> aggregates) {
+        this.aggregates = aggregates;
+    }
+
+    /**
+     * {@return the limits of the given aggregate type.}
+     */
+    public Limits limitsFor(Class<?> aggregateType) {
+        return aggregates.getOrDefault(aggregateType.getSimpleName(), defaults);
+    }
+
+    public static class Limits {
+
+        /**
+         * The number of aggregates kept (the least recently used is evicted first), or 0 to disable the cache.
+         */
+        private int maximumSize = 10_000;
+
+        /**
+         * How long an aggregate is kept after it was last used.
+         */
+        private Duration timeToIdle = Duration.ofMinutes(10);
+
+        public int getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTimeToIdle() {
+            return timeToIdle;
+        }
+
+        public void setTimeToIdle(Duration timeToIdle) {
+            this.timeToIdle = timeToIdle;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.vab2048.axon.exhibition.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How commands on the same aggregate are serialized (see the "Aggregate locks" section of application.properties and
+ * {@link io.github.vab2048.axon.exhibition.app.config.lock.StripedLockFactory}).
+ */
+@ConfigurationProperties(prefix = "axon-exhibition.aggregate-lock")
+public class AggregateLockProperties {
+
+    /**
+     * The settings of any aggregate type without its own.
+     */
+    private Settings defaults = new Settings();
+
+    /**
+     * The settings of each aggregate type (of the root of a polymorphic aggregate), by its simple class name. Any
+     * setting not set takes the built-in default (not the one in {@link #defaults}).
+     */
+    private Map<String, Settings> aggregates = new HashMap<>();
+
+    /**
+     * The number of contended aggregates tracked (of each aggregate type) for the top contended.
+     */
+    private int trackedAggregates = 1000;
+
+    public Settings getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Settings defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Settings> getAggregates() {
+        return aggregates;
+    }
+
+    public void setAggregates(Map<String, Settings> aggregates) {
+        this.aggregates = aggregates;
+    }
+
+    public int getTrackedAggregates() {
+        return trackedAggregates;
+    }
+
+    public void setTrackedAggregates(int trackedAggregates) {
+        this.trackedAggregates = trackedAggregates;
+    }
+
+    /**
+     * {@return the settings of the given aggregate type.}
+     */
+    public Settings settingsFor(Class<?> aggregateType) {
+        return aggregates.getOrDefault(aggregateType.getSimpleName(), defaults);
+    }
+
+    public static class Settings {
+
+        /**
+         * The number of locks the aggregates are spread over (rounded up to a power of two).
+         */
+        private int stripes = 1024;
+
+        /**
+         * How many times a contended lock is retried before the command waits for it.
+         */
+        private int spins = 100;
+
+        /**
+         * How long a command waits for the lock before it fails.
+         */
+        private Duration timeout = Duration.ofSeconds(10);
+
+        public int getStripes() {
+            return stripes;
+        }
+
+        public void setStripes(int stripes) {
+            this.stripes = stripes;
+        }
+
+        public int getSpins() {
+            return spins;
+        }
+
+        public void setSpins(int spins) {
+            this.spins = spins;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+}
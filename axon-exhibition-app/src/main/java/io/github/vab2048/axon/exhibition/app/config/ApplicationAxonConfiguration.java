@@ -1,15 +1,57 @@
 package io.github.vab2048.axon.exhibition.app.config;
 
+import io.github.vab2048.axon.exhibition.app.command.account.AccountAggregate;
+import io.github.vab2048.axon.exhibition.app.command.account.AccountCreditShardAggregate;
+import io.github.vab2048.axon.exhibition.app.command.account.AccountCreditShardConsolidator;
+import io.github.vab2048.axon.exhibition.app.command.account.AccountCreditShards;
 import io.github.vab2048.axon.exhibition.app.command.account.AccountEmailAddressConstraintProjection;
+import io.github.vab2048.axon.exhibition.app.command.payment.ImmediatePaymentAggregate;
+import io.github.vab2048.axon.exhibition.app.command.payment.PaymentAggregate;
+import io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementCommandDeduplicator;
+import io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementCommandDispatcher;
+import io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementProcessor;
+import io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementSaga;
+import io.github.vab2048.axon.exhibition.app.command.payment.ScheduledPaymentAggregate;
+import io.github.vab2048.axon.exhibition.app.config.cache.BoundedAggregateCache;
+import io.github.vab2048.axon.exhibition.app.config.deadline.JdbcDeadlineManager;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.ApplicationJdbcEventStorageEngine;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.DomainEventNotificationListener;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.DomainEventPartitionMaintainer;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.EventRowBinder;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.EventStoreStatements;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.GlobalIndexSequencer;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.MultiRowAppendEventsStatementBuilder;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.NotifiableEmbeddedEventStore;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.PartitionedEventTableStatements;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.PayloadTypeFilter;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.PayloadTypeFilteredMessageSource;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.ReadSnapshotAndEventDataStatementBuilder;
+import io.github.vab2048.axon.exhibition.app.config.eventstore.TypeDictionary;
+import io.github.vab2048.axon.exhibition.app.config.lock.StripedLockFactory;
+import io.github.vab2048.axon.exhibition.app.config.saga.BoundedCachingSagaStore;
+import io.github.vab2048.axon.exhibition.app.config.saga.SagaAssociationFilter;
+import io.github.vab2048.axon.exhibition.app.config.saga.SagaAssociationFilterRebuilder;
+import io.github.vab2048.axon.exhibition.app.config.serialization.PayloadSerializers;
+import io.github.vab2048.axon.exhibition.app.config.serialization.SnapshotCodec;
+import io.github.vab2048.axon.exhibition.app.config.snapshot.AdaptiveSnapshotTriggerDefinition;
+import io.github.vab2048.axon.exhibition.app.config.snapshot.CoalescingSnapshotter;
+import io.github.vab2048.axon.exhibition.app.config.snapshot.SnapshotCompactor;
+import io.github.vab2048.axon.exhibition.app.query.account.AccountViewProjection;
+import io.github.vab2048.axon.exhibition.app.query.payment.PaymentViewProjection;
+import org.axonframework.commandhandling.CommandBus;
+import org.axonframework.commandhandling.gateway.CommandGateway;
+import org.axonframework.common.DirectExecutor;
 import org.axonframework.common.jdbc.ConnectionProvider;
+import org.axonframework.common.jdbc.UnitOfWorkAwareConnectionProviderWrapper;
 import org.axonframework.common.transaction.TransactionManager;
 import org.axonframework.config.ConfigurationScopeAwareProvider;
 import org.axonframework.config.EventProcessingConfigurer;
 import org.axonframework.deadline.SimpleDeadlineManager;
 import org.axonframework.eventhandling.PropagatingErrorHandler;
+import org.axonframework.eventhandling.TrackingEventProcessorConfiguration;
 import org.axonframework.eventhandling.tokenstore.jdbc.JdbcTokenStore;
 import org.axonframework.eventhandling.tokenstore.jdbc.TokenSchema;
-import org.axonframework.eventsourcing.EventCountSnapshotTriggerDefinition;
+import org.axonframework.eventsourcing.EventSourcingRepository;
 import org.axonframework.eventsourcing.SnapshotTriggerDefinition;
 import org.axonframework.eventsourcing.Snapshotter;
 import org.axonframework.eventsourcing.eventstore.EmbeddedEventStore;
@@ -18,23 +60,43 @@ import org.axonframework.eventsourcing.eventstore.EventStore;
 import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
 import org.axonframework.eventsourcing.eventstore.jdbc.JdbcEventStorageEngine;
 import org.axonframework.messaging.Message;
+import org.axonframework.messaging.correlation.CorrelationDataProvider;
+import org.axonframework.messaging.correlation.MessageOriginProvider;
+import org.axonframework.messaging.correlation.SimpleCorrelationDataProvider;
 import org.axonframework.messaging.interceptors.LoggingInterceptor;
 import org.axonframework.modelling.saga.repository.jdbc.JdbcSagaStore;
 import org.axonframework.modelling.saga.repository.jdbc.PostgresSagaSqlSchema;
 import org.axonframework.modelling.saga.repository.jdbc.SagaSchema;
 import org.axonframework.serialization.Serializer;
 import org.axonframework.spring.config.AxonConfiguration;
-import org.postgresql.util.PGobject;
+import org.axonframework.spring.eventsourcing.SpringAggregateSnapshotterFactoryBean;
+import org.axonframework.spring.jdbc.SpringDataSourceConnectionProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * C.F. axon-spring-boot-autoconfigure: org.axonframework.springboot.autoconfig.JdbcAutoConfiguration
  */
 @Configuration
+@EnableConfigurationProperties({EventStoreProperties.class, PayloadFormatProperties.class, SnapshotProperties.class,
+        AggregateCacheProperties.class, AggregateLockProperties.class, AccountShardingProperties.class,
+        SagaCacheProperties.class, PaymentSettlementProperties.class, SagaAssociationFilterProperties.class,
+        DeadlineProperties.class})
 public class ApplicationAxonConfiguration {
     private static final Logger log = LoggerFactory.getLogger(ApplicationAxonConfiguration.class);
     private static final LoggingInterceptor<Message<?>> LOGGING_INTERCEPTOR = new LoggingInterceptor<>();
@@ -46,33 +108,136 @@ public class ApplicationAxonConfiguration {
     /* Table names for the app's command side */
     private static final String AXON_DB_SCHEMA = "axon";
     private static final String DB_DOMAIN_EVENTS_TABLE_NAME = AXON_DB_SCHEMA + "." + "domainevententry";
+    private static final String DB_DOMAIN_EVENTS_SEQUENCE_TABLE_NAME = AXON_DB_SCHEMA + "." + "domainevententry_sequence";
+    private static final String DB_DOMAIN_EVENTS_AGGREGATE_INDEX_TABLE_NAME = AXON_DB_SCHEMA + "." + "domainevententry_aggregate_index";
     private static final String DB_SNAPSHOTS_TABLE_NAME = AXON_DB_SCHEMA + "." + "snapshotevententry";
+    private static final String DB_TYPE_DICTIONARY_TABLE_NAME = AXON_DB_SCHEMA + "." + "typedictionary";
     private static final String DB_SAGA_ENTRY_TABLE_NAME = AXON_DB_SCHEMA + "." + "sagaentry";
     private static final String DB_SAGA_ASSOC_VALUE_ENTRY_TABLE_NAME = AXON_DB_SCHEMA + "." + "associationvalueentry";
     private static final String DB_TOKEN_ENTRY_TABLE = AXON_DB_SCHEMA + "."+ "tokenentry";
+    private static final String DB_DEADLINE_ENTRY_TABLE_NAME = AXON_DB_SCHEMA + "." + "deadlineentry";
+
+    /**
+     * As per Axon's JdbcAutoConfiguration - except that each connection is set up to read jsonb columns as
+     * {@link JsonbBytes} (i.e. straight to bytes without an intermediate String).
+     */
+    @Bean
+    public ConnectionProvider connectionProvider(DataSource dataSource) {
+        return new UnitOfWorkAwareConnectionProviderWrapper(
+                new JsonbBytesConnectionProvider(new SpringDataSourceConnectionProvider(dataSource)));
+    }
+
+    @Bean
+    public PayloadSerializers payloadSerializers(PayloadFormatProperties properties,
+                                                 Jackson2ObjectMapperBuilder objectMapperBuilder,
+                                                 ObjectProvider<SnapshotCodec<?>> snapshotCodecs) {
+        return new PayloadSerializers(properties, objectMapperBuilder, snapshotCodecs.orderedStream().toList());
+    }
+
+    // The codes stored in the type columns of the event and snapshot tables in place of the names.
+    @Bean
+    @ConditionalOnProperty(prefix = "axon-exhibition.event-store", name = "type-dictionary", havingValue = "true")
+    public TypeDictionary typeDictionary(ConnectionProvider connectionProvider) {
+        return new TypeDictionary(connectionProvider, DB_TYPE_DICTIONARY_TABLE_NAME);
+    }
+
+    // How the identifier, timestamp and type columns of the event and snapshot tables are bound.
+    @Bean
+    public EventRowBinder eventRowBinder(EventStoreProperties eventStoreProperties,
+                                         ObjectProvider<TypeDictionary> typeDictionary) {
+        return new EventRowBinder(eventStoreProperties.getColumnTypes() == EventStoreProperties.ColumnTypes.NATIVE,
+                typeDictionary.getIfAvailable());
+    }
 
     @Bean
     public EventStorageEngine eventStorageEngine(
             @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") AxonConfiguration axonConfiguration,
             ConnectionProvider connectionProvider,
-            TransactionManager transactionManager) {
+            TransactionManager transactionManager,
+            EventStoreProperties eventStoreProperties,
+            SnapshotProperties snapshotProperties,
+            PayloadSerializers payloadSerializers,
+            EventRowBinder eventRowBinder) {
+        JdbcEventStorageEngine.Builder builder = jdbcEventStorageEngineBuilder(axonConfiguration, connectionProvider,
+                transactionManager, eventStoreProperties, payloadSerializers, eventRowBinder)
+                .snapshotFilter(axonConfiguration.snapshotFilter());
+
+        // Optionally assign the global index in commit order from the sequencing table rather than the identity.
+        boolean commitOrdered = eventStoreProperties.getSequencing() == EventStoreProperties.Sequencing.COMMIT_ORDERED;
+        GlobalIndexSequencer sequencer = commitOrdered ? new GlobalIndexSequencer(DB_DOMAIN_EVENTS_SEQUENCE_TABLE_NAME) : null;
+        // Optionally write all events of a unit of work with multi-row INSERTs rather than one INSERT per event.
+        if (eventStoreProperties.getAppendMode() == EventStoreProperties.AppendMode.MULTI_ROW) {
+            builder.appendEvents(new MultiRowAppendEventsStatementBuilder(eventStoreProperties.getMaxAppendBatchSize(),
+                    eventRowBinder, sequencer));
+        } else if (sequencer != null) {
+            builder.appendEvents(new EventStoreStatements(eventRowBinder, sequencer)::appendEvents);
+        }
+        // Optionally replace the snapshot of an aggregate in place rather than adding one and deleting the older ones.
+        if (snapshotProperties.getWriteMode() == SnapshotProperties.WriteMode.UPSERT) {
+            builder.appendSnapshot(new EventStoreStatements(eventRowBinder)::upsertSnapshot);
+        }
+        // Optionally load an aggregate with one query for its snapshot and events (see NotifiableEmbeddedEventStore).
+        if (eventStoreProperties.isSingleQueryAggregateLoads()) {
+            ReadSnapshotAndEventDataStatementBuilder statement = new EventStoreStatements(eventRowBinder)::readSnapshotAndEventData;
+            if (eventStoreProperties.isPartitioned()) {
+                statement = new PartitionedEventTableStatements(DB_DOMAIN_EVENTS_AGGREGATE_INDEX_TABLE_NAME,
+                        eventRowBinder)::readSnapshotAndEventData;
+            }
+            var aggregateLoad = new ApplicationJdbcEventStorageEngine.AggregateLoad(statement,
+                    AGGREGATE_LOAD_BATCH_SIZE, axonConfiguration.snapshotFilter(), axonConfiguration.upcasterChain(),
+                    transactionManager);
+            return new ApplicationJdbcEventStorageEngine(builder, eventRowBinder, aggregateLoad);
+        }
+        return build(builder, eventRowBinder);
+    }
+
+    // The number of events read by each query while loading an aggregate (Axon's default batch size).
+    private static final int AGGREGATE_LOAD_BATCH_SIZE = 100;
+
+    private static JdbcEventStorageEngine build(JdbcEventStorageEngine.Builder builder, EventRowBinder eventRowBinder) {
+        return isDefault(eventRowBinder) ? builder.build() : new ApplicationJdbcEventStorageEngine(builder, eventRowBinder);
+    }
+
+    private static boolean isDefault(EventRowBinder eventRowBinder) {
+        return !eventRowBinder.nativeColumnTypes() && eventRowBinder.typeDictionary() == null;
+    }
+
+    private static JdbcEventStorageEngine.Builder jdbcEventStorageEngineBuilder(
+            org.axonframework.config.Configuration configuration,
+            ConnectionProvider connectionProvider,
+            TransactionManager transactionManager,
+            EventStoreProperties eventStoreProperties,
+            PayloadSerializers payloadSerializers,
+            EventRowBinder eventRowBinder) {
         EventSchema schema = EventSchema.builder()
                 .eventTable(DB_DOMAIN_EVENTS_TABLE_NAME)
                 .snapshotTable(DB_SNAPSHOTS_TABLE_NAME)
                 .build();
 
-        return JdbcEventStorageEngine.builder()
-                // We are using JSON, so we set the data type for serialized event message payloads
+        JdbcEventStorageEngine.Builder builder = JdbcEventStorageEngine.builder()
+                // By default we are using JSON, so we set the data type for serialized event message payloads
                 // to be a PGobject (jsonb). In the Postgres DB it will be the 'jsonb' type for the column.
-                .dataType(PGobject.class)
+                // When the tables are configured for the binary (Smile) format it is a byte[] (bytea) instead.
+                .dataType(payloadSerializers.eventStoreDataType())
                 .connectionProvider(connectionProvider)                       // Mandatory
-                .eventSerializer(axonConfiguration.eventSerializer())         // Mandatory
+                .eventSerializer(payloadSerializers.domainEventSerializer(configuration.eventSerializer())) // Mandatory
                 .schema(schema)
-                .snapshotFilter(axonConfiguration.snapshotFilter())
-                .snapshotSerializer(axonConfiguration.serializer())           // Mandatory
+                .snapshotSerializer(payloadSerializers.snapshotSerializer(configuration.serializer()))     // Mandatory
                 .transactionManager(transactionManager)                       // Mandatory
-                .upcasterChain(axonConfiguration.upcasterChain())
-                .build();
+                .upcasterChain(configuration.upcasterChain());
+
+        // Optionally bind identifiers and timestamps as uuid/timestamptz and types as dictionary codes rather than
+        // as strings.
+        if (!isDefault(eventRowBinder)) {
+            ApplicationJdbcEventStorageEngine.configure(builder, eventRowBinder);
+        }
+        // Optionally find the events of an aggregate through the aggregate index of the partitioned event table.
+        if (eventStoreProperties.isPartitioned()) {
+            var statements = new PartitionedEventTableStatements(DB_DOMAIN_EVENTS_AGGREGATE_INDEX_TABLE_NAME, eventRowBinder);
+            builder.readEventDataForAggregate(statements::readEventDataForAggregate)
+                    .lastSequenceNumberFor(statements::lastSequenceNumberFor);
+        }
+        return builder;
     }
 
     // The Event store `EmbeddedEventStore` delegates actual storage and retrieval of events to our
@@ -80,35 +245,76 @@ public class ApplicationAxonConfiguration {
     @Bean
     public EmbeddedEventStore eventStore(
             @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") AxonConfiguration configuration,
-            EventStorageEngine storageEngine) {
-        return EmbeddedEventStore.builder()
+            EventStorageEngine storageEngine,
+            EventStoreProperties eventStoreProperties) {
+        // The notifiable store can additionally be woken up by the DomainEventNotificationListener (when enabled).
+        return new NotifiableEmbeddedEventStore(EmbeddedEventStore.builder()
                 .storageEngine(storageEngine)
                 .messageMonitor(configuration.messageMonitor(EventStore.class, "eventStore"))
-                .build();
+                .fetchDelay(eventStoreProperties.getFetchDelay().toMillis()));
     }
 
+    // Fetch new events as soon as the DB notifies us they have been inserted, rather than on the next poll.
     @Bean
-    public JdbcTokenStore tokenStore(ConnectionProvider connectionProvider, Serializer serializer) {
+    @ConditionalOnProperty(prefix = "axon-exhibition.event-store", name = "notifications-enabled", havingValue = "true")
+    public DomainEventNotificationListener domainEventNotificationListener(DataSourceProperties dataSourceProperties,
+                                                                           EmbeddedEventStore eventStore) {
+        return new DomainEventNotificationListener(dataSourceProperties, (NotifiableEmbeddedEventStore) eventStore);
+    }
+
+    // Keep creating the partitions of the partitioned event table ahead of the global index.
+    @Bean
+    @ConditionalOnProperty(prefix = "axon-exhibition.event-store", name = "partitioned", havingValue = "true")
+    public DomainEventPartitionMaintainer domainEventPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                                                         EventStoreProperties eventStoreProperties) {
+        return new DomainEventPartitionMaintainer(jdbcTemplate, eventStoreProperties.getPartitionsAhead(),
+                eventStoreProperties.getPartitionMaintenanceInterval());
+    }
+
+    @Bean
+    public JdbcTokenStore tokenStore(ConnectionProvider connectionProvider, Serializer serializer,
+                                     PayloadSerializers payloadSerializers) {
         TokenSchema schema = TokenSchema.builder().setTokenTable(DB_TOKEN_ENTRY_TABLE).build();
         return JdbcTokenStore.builder()
                 // contentType defines the type which the tracking token should be serialized to.
-                // We are using a PGobject to represent the jsonb type which is actually used in the DB.
-                .contentType(PGobject.class)
+                // By default we are using a PGobject to represent the jsonb type which is actually used in the DB
+                // (or a byte[] for bytea when using the binary format).
+                .contentType(payloadSerializers.tokenDataType())
                 .connectionProvider(connectionProvider)
-                .serializer(serializer)
+                .serializer(payloadSerializers.tokenSerializer(serializer))
                 .schema(schema)
                 .build();
     }
 
 
     @Bean
-    public JdbcSagaStore sagaStore(ConnectionProvider connectionProvider, Serializer serializer) {
+    public BoundedCachingSagaStore<Object> sagaStore(ConnectionProvider connectionProvider, Serializer serializer,
+                                                     PayloadSerializers payloadSerializers,
+                                                     SagaCacheProperties sagaCacheProperties,
+                                                     SagaAssociationFilter sagaAssociationFilter) {
         SagaSchema schema = new SagaSchema(DB_SAGA_ENTRY_TABLE_NAME, DB_SAGA_ASSOC_VALUE_ENTRY_TABLE_NAME);
-        return JdbcSagaStore.builder()
+        JdbcSagaStore jdbcSagaStore = JdbcSagaStore.builder()
                 .sqlSchema(new PostgresSagaSqlSchema(schema))
                 .connectionProvider(connectionProvider)
-                .serializer(serializer)
+                .serializer(payloadSerializers.sagaSerializer(serializer))
                 .build();
+        // Keep the sagas in memory between their events (see the "Saga cache" section of application.properties).
+        return new BoundedCachingSagaStore<>(jdbcSagaStore, sagaCacheProperties.getMaximumSize(),
+                sagaCacheProperties.getTimeToIdle(), sagaAssociationFilter);
+    }
+
+    @Bean
+    public SagaAssociationFilter sagaAssociationFilter(JdbcTemplate jdbcTemplate,
+                                                       SagaAssociationFilterProperties properties) {
+        return new SagaAssociationFilter(jdbcTemplate, DB_SAGA_ASSOC_VALUE_ENTRY_TABLE_NAME, properties.isEnabled(),
+                properties.getExpectedAssociations(), properties.getFalsePositiveProbability());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "axon-exhibition.saga-association-filter", name = "enabled", havingValue = "true")
+    public SagaAssociationFilterRebuilder sagaAssociationFilterRebuilder(SagaAssociationFilter sagaAssociationFilter,
+                                                                         SagaAssociationFilterProperties properties) {
+        return new SagaAssociationFilterRebuilder(sagaAssociationFilter, properties.getRebuildInterval());
     }
 
     /* *************************************************************************************
@@ -136,6 +342,8 @@ public class ApplicationAxonConfiguration {
      * *************************************************************************************/
 
     @Bean
+    @ConditionalOnProperty(prefix = "axon-exhibition.deadlines", name = "persistent", havingValue = "false",
+            matchIfMissing = true)
     public SimpleDeadlineManager simpleDeadlineManager(
             @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") AxonConfiguration configuration,
             TransactionManager transactionManager) {
@@ -145,29 +353,293 @@ public class ApplicationAxonConfiguration {
                 .build();
     }
 
+    // Keeps the deadlines in the DB instead (see the "Deadlines" section of application.properties).
+    @Bean
+    @ConditionalOnProperty(prefix = "axon-exhibition.deadlines", name = "persistent", havingValue = "true")
+    public JdbcDeadlineManager jdbcDeadlineManager(
+            @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") AxonConfiguration configuration,
+            TransactionManager transactionManager,
+            JdbcTemplate jdbcTemplate,
+            Serializer serializer,
+            DeadlineProperties properties) {
+        return new JdbcDeadlineManager(new ConfigurationScopeAwareProvider(configuration), transactionManager,
+                jdbcTemplate, serializer, DB_DEADLINE_ENTRY_TABLE_NAME, properties.getThreads(),
+                properties.getBatchSize(), properties.getPollInterval(), properties.getClaimTimeout(),
+                properties.getMaxAttempts());
+    }
+
     /* *************************************************************************************
      * Processing Groups...
      * *************************************************************************************/
 
     @Autowired
-    public void configureEventProcessingGroups(EventProcessingConfigurer processingConfigurer) {
+    public void configureEventProcessingGroups(EventProcessingConfigurer processingConfigurer,
+                                               EventStoreProperties eventStoreProperties,
+                                               ConnectionProvider connectionProvider,
+                                               TransactionManager transactionManager,
+                                               PayloadSerializers payloadSerializers,
+                                               EventRowBinder eventRowBinder,
+                                               PaymentSettlementProperties paymentSettlementProperties) {
         // Specific configuration for the AccountEmailAddressConstraintProjection processing group...
         // - As a subscribing event processor
         // - Which propagates errors.
         processingConfigurer.registerSubscribingEventProcessor(AccountEmailAddressConstraintProjection.PROCESSING_GROUP_NAME);
         processingConfigurer.registerListenerInvocationErrorHandler(AccountEmailAddressConstraintProjection.PROCESSING_GROUP_NAME,
                 conf -> PropagatingErrorHandler.instance());
+
+        // The payment settlement sagas handle a batch of events at once, with the commands of the whole batch in
+        // flight together (see PaymentSettlementCommandDispatcher).
+        processingConfigurer.registerTrackingEventProcessorConfiguration(
+                PaymentSettlementSaga.class.getSimpleName() + "Processor",
+                conf -> TrackingEventProcessorConfiguration.forSingleThreadedProcessing()
+                        .andBatchSize(paymentSettlementProperties.getBatchSize()));
+        // As does the stateless settlement engine's processor, which only settles the payments triggered after it
+        // first started (rather than all those since the beginning of the event store).
+        if (paymentSettlementProperties.getEngine() == PaymentSettlementProperties.Engine.STATELESS) {
+            processingConfigurer.registerPooledStreamingEventProcessor(
+                    PaymentSettlementProcessor.PROCESSING_GROUP,
+                    conf -> conf.eventStore(),
+                    (conf, builder) -> builder
+                            .initialToken(messageSource -> messageSource.createHeadToken())
+                            .batchSize(paymentSettlementProperties.getBatchSize()));
+        }
+
+        // Optionally have the tracking event processors only fetch the payloads of the events they handle while
+        // catching up/replaying. The processing group of a class without @ProcessingGroup is its package name, and
+        // that of a saga is its simple name + "Processor".
+        if (eventStoreProperties.isPayloadTypeFiltering()) {
+            Map<String, Class<?>> trackingProcessingGroups = Map.of(
+                    AccountViewProjection.class.getPackageName(), AccountViewProjection.class,
+                    PaymentViewProjection.class.getPackageName(), PaymentViewProjection.class,
+                    PaymentSettlementSaga.class.getSimpleName() + "Processor", PaymentSettlementSaga.class);
+            trackingProcessingGroups.forEach((processorName, handlerType) ->
+                    PayloadTypeFilter.forHandlersOf(handlerType)
+                            .map(filter -> filter.using(eventRowBinder.typeDictionary()))
+                            .ifPresentOrElse(
+                            filter -> processingConfigurer.registerTrackingEventProcessor(processorName, conf ->
+                                    new PayloadTypeFilteredMessageSource(conf.eventStore(), build(
+                                            jdbcEventStorageEngineBuilder(conf, connectionProvider, transactionManager,
+                                                    eventStoreProperties, payloadSerializers, eventRowBinder)
+                                                    .readEventDataWithoutGaps(filter::readEventDataWithoutGaps)
+                                                    .readEventDataWithGaps(filter::readEventDataWithGaps),
+                                            eventRowBinder))),
+                            () -> log.info("Not filtering the events of processor {} by payload type (it handles payload types which may have subtypes)",
+                                    processorName)));
+        }
     }
 
     /* *************************************************************************************
      * Snapshotting...
      * *************************************************************************************/
+    /**
+     * As Axon's auto configured snapshotter (SpringAggregateSnapshotterFactoryBean) but taking the snapshots on the
+     * coalescing snapshotter's executor rather than in the committing thread.
+     */
+    @Bean
+    public CoalescingSnapshotter snapshotter(ApplicationContext applicationContext,
+                                             EventStore eventStore,
+                                             TransactionManager transactionManager,
+                                             SnapshotProperties snapshotProperties) {
+        var factory = new SpringAggregateSnapshotterFactoryBean();
+        factory.setApplicationContext(applicationContext);
+        factory.setEventStore(eventStore);
+        factory.setTransactionManager(transactionManager);
+        factory.setExecutor(DirectExecutor.INSTANCE);
+        return new CoalescingSnapshotter(factory.getObject(), snapshotProperties.getThreads(),
+                snapshotProperties.getQueueCapacity());
+    }
+
+
+    // Deletes the snapshots superseded by a later one of the same aggregate (see the "Snapshots" section of
+    // application.properties).
+    @Bean
+    public SnapshotCompactor snapshotCompactor(JdbcTemplate jdbcTemplate, SnapshotProperties snapshotProperties) {
+        EventSchema schema = EventSchema.builder().snapshotTable(DB_SNAPSHOTS_TABLE_NAME).build();
+        return new SnapshotCompactor(jdbcTemplate, schema, snapshotProperties.getCompactionBatchSize(),
+                snapshotProperties.getCompactionInterval());
+    }
+
     public static final String ACCOUNT_AGGREGATE_SNAPSHOT_TRIGGER_DEFINITION_BEAN_NAME = "accountAggregateSnapshotTrigger";
-    public static final int ACCOUNT_AGGREGATE_EVENT_COUNT_SNAPSHOT_TRIGGER = 3;
     @Bean(ACCOUNT_AGGREGATE_SNAPSHOT_TRIGGER_DEFINITION_BEAN_NAME)
-    public SnapshotTriggerDefinition accountAggregateSnapshotTrigger(Snapshotter snapshotter) {
-        // After 3 events take a snapshot (this number is low just so we can see trigger a snapshot easily).
-        return new EventCountSnapshotTriggerDefinition(snapshotter, ACCOUNT_AGGREGATE_EVENT_COUNT_SNAPSHOT_TRIGGER);
+    public SnapshotTriggerDefinition accountAggregateSnapshotTrigger(Snapshotter snapshotter,
+                                                                     SnapshotProperties snapshotProperties) {
+        // Snapshot each account once its load gets slow or long enough (see the "Snapshots" section of
+        // application.properties) rather than after a fixed number of events.
+        return new AdaptiveSnapshotTriggerDefinition(snapshotter, snapshotProperties.thresholdsFor(AccountAggregate.class));
+    }
+
+    /* *************************************************************************************
+     * Aggregate caches...
+     * *************************************************************************************/
+    public static final String ACCOUNT_AGGREGATE_CACHE_BEAN_NAME = "accountAggregateCache";
+    @Bean(ACCOUNT_AGGREGATE_CACHE_BEAN_NAME)
+    public BoundedAggregateCache accountAggregateCache(AggregateCacheProperties aggregateCacheProperties) {
+        return aggregateCache(AccountAggregate.class, aggregateCacheProperties);
+    }
+
+    public static final String PAYMENT_AGGREGATE_CACHE_BEAN_NAME = "paymentAggregateCache";
+    @Bean(PAYMENT_AGGREGATE_CACHE_BEAN_NAME)
+    public BoundedAggregateCache paymentAggregateCache(AggregateCacheProperties aggregateCacheProperties) {
+        // Shared by the immediate and scheduled payments, which are one (polymorphic) aggregate.
+        return aggregateCache(PaymentAggregate.class, aggregateCacheProperties);
+    }
+
+    private static BoundedAggregateCache aggregateCache(Class<?> aggregateType, AggregateCacheProperties properties) {
+        AggregateCacheProperties.Limits limits = properties.limitsFor(aggregateType);
+        return new BoundedAggregateCache(aggregateType.getSimpleName(), limits.getMaximumSize(), limits.getTimeToIdle());
+    }
+
+    /* *************************************************************************************
+     * Aggregate locks and repositories...
+     * *************************************************************************************/
+    public static final String ACCOUNT_AGGREGATE_LOCK_FACTORY_BEAN_NAME = "accountAggregateLockFactory";
+    @Bean(ACCOUNT_AGGREGATE_LOCK_FACTORY_BEAN_NAME)
+    public StripedLockFactory accountAggregateLockFactory(AggregateLockProperties aggregateLockProperties) {
+        return lockFactory(AccountAggregate.class, aggregateLockProperties);
+    }
+
+    public static final String PAYMENT_AGGREGATE_LOCK_FACTORY_BEAN_NAME = "paymentAggregateLockFactory";
+    @Bean(PAYMENT_AGGREGATE_LOCK_FACTORY_BEAN_NAME)
+    public StripedLockFactory paymentAggregateLockFactory(AggregateLockProperties aggregateLockProperties) {
+        return lockFactory(PaymentAggregate.class, aggregateLockProperties);
+    }
+
+    private static StripedLockFactory lockFactory(Class<?> aggregateType, AggregateLockProperties properties) {
+        AggregateLockProperties.Settings settings = properties.settingsFor(aggregateType);
+        return new StripedLockFactory(aggregateType.getSimpleName(), settings.getStripes(), settings.getSpins(),
+                settings.getTimeout(), properties.getTrackedAggregates());
+    }
+
+    // The repositories are defined here (rather than configured through @Aggregate) to set their lock factory, which
+    // @Aggregate does not allow for. Otherwise they are as Axon configures them.
+    public static final String ACCOUNT_AGGREGATE_REPOSITORY_BEAN_NAME = "accountAggregateRepository";
+    @Bean(ACCOUNT_AGGREGATE_REPOSITORY_BEAN_NAME)
+    public EventSourcingRepository<AccountAggregate> accountAggregateRepository(
+            @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") AxonConfiguration configuration,
+            EventStore eventStore,
+            @Qualifier(ACCOUNT_AGGREGATE_CACHE_BEAN_NAME) BoundedAggregateCache cache,
+            @Qualifier(ACCOUNT_AGGREGATE_SNAPSHOT_TRIGGER_DEFINITION_BEAN_NAME) SnapshotTriggerDefinition trigger,
+            @Qualifier(ACCOUNT_AGGREGATE_LOCK_FACTORY_BEAN_NAME) StripedLockFactory lockFactory) {
+        return EventSourcingRepository.builder(AccountAggregate.class)
+                .parameterResolverFactory(configuration.parameterResolverFactory())
+                .handlerDefinition(configuration.handlerDefinition(AccountAggregate.class))
+                .eventStore(eventStore)
+                .cache(cache)
+                .snapshotTriggerDefinition(trigger)
+                .lockFactory(lockFactory)
+                .build();
+    }
+
+    public static final String PAYMENT_AGGREGATE_REPOSITORY_BEAN_NAME = "paymentAggregateRepository";
+    @Bean(PAYMENT_AGGREGATE_REPOSITORY_BEAN_NAME)
+    public EventSourcingRepository<PaymentAggregate> paymentAggregateRepository(
+            @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") AxonConfiguration configuration,
+            EventStore eventStore,
+            @Qualifier(PAYMENT_AGGREGATE_CACHE_BEAN_NAME) BoundedAggregateCache cache,
+            @Qualifier(PAYMENT_AGGREGATE_LOCK_FACTORY_BEAN_NAME) StripedLockFactory lockFactory) {
+        return EventSourcingRepository.builder(PaymentAggregate.class)
+                .subtypes(Set.of(ImmediatePaymentAggregate.class, ScheduledPaymentAggregate.class))
+                .parameterResolverFactory(configuration.parameterResolverFactory())
+                .handlerDefinition(configuration.handlerDefinition(PaymentAggregate.class))
+                .eventStore(eventStore)
+                .cache(cache)
+                .lockFactory(lockFactory)
+                .build();
+    }
+
+    /* *************************************************************************************
+     * Account credit sharding...
+     * *************************************************************************************/
+    // The credit shards are cached, locked and snapshotted as the accounts themselves are (a hot account's shards
+    // each take a share of its credits).
+    public static final String ACCOUNT_CREDIT_SHARD_AGGREGATE_REPOSITORY_BEAN_NAME = "accountCreditShardAggregateRepository";
+    @Bean(ACCOUNT_CREDIT_SHARD_AGGREGATE_REPOSITORY_BEAN_NAME)
+    public EventSourcingRepository<AccountCreditShardAggregate> accountCreditShardAggregateRepository(
+            @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") AxonConfiguration configuration,
+            EventStore eventStore,
+            Snapshotter snapshotter,
+            @Qualifier(ACCOUNT_CREDIT_SHARD_AGGREGATE_CACHE_BEAN_NAME) BoundedAggregateCache cache,
+            @Qualifier(ACCOUNT_CREDIT_SHARD_AGGREGATE_LOCK_FACTORY_BEAN_NAME) StripedLockFactory lockFactory,
+            SnapshotProperties snapshotProperties) {
+        return EventSourcingRepository.builder(AccountCreditShardAggregate.class)
+                .parameterResolverFactory(configuration.parameterResolverFactory())
+                .handlerDefinition(configuration.handlerDefinition(AccountCreditShardAggregate.class))
+                .eventStore(eventStore)
+                .cache(cache)
+                .snapshotTriggerDefinition(new AdaptiveSnapshotTriggerDefinition(snapshotter,
+                        snapshotProperties.thresholdsFor(AccountCreditShardAggregate.class)))
+                .lockFactory(lockFactory)
+                .build();
+    }
+
+    public static final String ACCOUNT_CREDIT_SHARD_AGGREGATE_CACHE_BEAN_NAME = "accountCreditShardAggregateCache";
+    @Bean(ACCOUNT_CREDIT_SHARD_AGGREGATE_CACHE_BEAN_NAME)
+    public BoundedAggregateCache accountCreditShardAggregateCache(AggregateCacheProperties aggregateCacheProperties) {
+        return aggregateCache(AccountCreditShardAggregate.class, aggregateCacheProperties);
+    }
+
+    public static final String ACCOUNT_CREDIT_SHARD_AGGREGATE_LOCK_FACTORY_BEAN_NAME =
+            "accountCreditShardAggregateLockFactory";
+    @Bean(ACCOUNT_CREDIT_SHARD_AGGREGATE_LOCK_FACTORY_BEAN_NAME)
+    public StripedLockFactory accountCreditShardAggregateLockFactory(AggregateLockProperties aggregateLockProperties) {
+        return lockFactory(AccountCreditShardAggregate.class, aggregateLockProperties);
+    }
+
+    @Bean
+    public AccountCreditShards accountCreditShards(
+            JdbcTemplate jdbcTemplate,
+            @Qualifier(ACCOUNT_CREDIT_SHARD_AGGREGATE_REPOSITORY_BEAN_NAME)
+            EventSourcingRepository<AccountCreditShardAggregate> shardRepository,
+            AccountShardingProperties accountShardingProperties) {
+        return new AccountCreditShards(jdbcTemplate, shardRepository, accountShardingProperties.isEnabled());
+    }
+
+    @Bean
+    public PaymentSettlementCommandDispatcher paymentSettlementCommandDispatcher(
+            CommandGateway commandGateway, PaymentSettlementProperties paymentSettlementProperties) {
+        return new PaymentSettlementCommandDispatcher(commandGateway,
+                paymentSettlementProperties.getCommandTimeout());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "axon-exhibition.payment-settlement", name = "engine", havingValue = "stateless")
+    public PaymentSettlementProcessor paymentSettlementProcessor(PaymentSettlementCommandDispatcher commandDispatcher,
+                                                                 AccountCreditShards accountCreditShards) {
+        return new PaymentSettlementProcessor(commandDispatcher, accountCreditShards);
+    }
+
+    // Ignores the commands of the stateless settlement engine sent again (see PaymentSettlementCommandDeduplicator).
+    @Bean
+    @ConditionalOnProperty(prefix = "axon-exhibition.payment-settlement", name = "engine", havingValue = "stateless")
+    public PaymentSettlementCommandDeduplicator paymentSettlementCommandDeduplicator(
+            CommandBus commandBus, JdbcTemplate jdbcTemplate, PaymentSettlementProperties properties) {
+        var deduplicator = new PaymentSettlementCommandDeduplicator(jdbcTemplate,
+                properties.getDeduplicationRetention(), properties.getDeduplicationCleanupInterval());
+        commandBus.registerHandlerInterceptor(deduplicator);
+        return deduplicator;
+    }
+
+    // The stateless settlement engine needs the destination account copied from each of its commands onto the events
+    // they apply. Defining a correlation data provider replaces Axon's default one, so that is defined again alongside.
+    @Bean
+    @ConditionalOnProperty(prefix = "axon-exhibition.payment-settlement", name = "engine", havingValue = "stateless")
+    public CorrelationDataProvider paymentSettlementCorrelationDataProvider() {
+        return new SimpleCorrelationDataProvider(PaymentSettlementProcessor.DESTINATION_ACCOUNT_ID_META_DATA_KEY);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "axon-exhibition.payment-settlement", name = "engine", havingValue = "stateless")
+    public CorrelationDataProvider paymentSettlementMessageOriginProvider() {
+        return new MessageOriginProvider();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "axon-exhibition.account-sharding", name = "enabled", havingValue = "true")
+    public AccountCreditShardConsolidator accountCreditShardConsolidator(AccountCreditShards accountCreditShards,
+                                                                         CommandGateway commandGateway,
+                                                                         AccountShardingProperties properties) {
+        return new AccountCreditShardConsolidator(accountCreditShards, commandGateway,
+                properties.getConsolidationInterval());
     }
 
 }
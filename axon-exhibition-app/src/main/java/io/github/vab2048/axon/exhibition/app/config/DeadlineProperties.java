@@ -0,0 +1,92 @@
+package io.github.vab2048.axon.exhibition.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Where the deadlines (of the scheduled payments) are kept, and how they are met (see the "Deadlines" section of
+ * application.properties and {@link io.github.vab2048.axon.exhibition.app.config.deadline.JdbcDeadlineManager}).
+ */
+@ConfigurationProperties(prefix = "axon-exhibition.deadlines")
+public class DeadlineProperties {
+
+    /**
+     * Whether to keep the deadlines in the DB rather than in memory.
+     */
+    private boolean persistent = false;
+
+    /**
+     * The number of threads meeting the due deadlines.
+     */
+    private int threads = 4;
+
+    /**
+     * The most deadlines claimed at once.
+     */
+    private int batchSize = 100;
+
+    /**
+     * How long to wait before looking for due deadlines again when there were none.
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * How long a claimed deadline is left to its claimant, after which it is claimed again (e.g. as its handling
+     * failed).
+     */
+    private Duration claimTimeout = Duration.ofMinutes(5);
+
+    /**
+     * The most times a deadline is attempted, after which it is logged and deleted.
+     */
+    private int maxAttempts = 10;
+
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    public void setPersistent(boolean persistent) {
+        this.persistent = persistent;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(Duration pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public Duration getClaimTimeout() {
+        return claimTimeout;
+    }
+
+    public void setClaimTimeout(Duration claimTimeout) {
+        this.claimTimeout = claimTimeout;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+}
@@ -0,0 +1,213 @@
+package io.github.vab2048.axon.exhibition.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Application specific settings for the JDBC event store (see the "Event Store" section of
+ * application.properties).
+ */
+@ConfigurationProperties(prefix = "axon-exhibition.event-store")
+public class EventStoreProperties {
+
+    /**
+     * How the events of a single unit of work are appended to the domain event table.
+     */
+    private AppendMode appendMode = AppendMode.PER_ROW;
+
+    /**
+     * Maximum number of events written by a single multi-row INSERT when using {@link AppendMode#MULTI_ROW}.
+     */
+    private int maxAppendBatchSize = 64;
+
+    /**
+     * How the global index of appended events is assigned.
+     */
+    private Sequencing sequencing = Sequencing.IDENTITY;
+
+    /**
+     * The types of the identifier and timestamp columns of the domain event and snapshot tables.
+     */
+    private ColumnTypes columnTypes = ColumnTypes.TEXT;
+
+    /**
+     * Whether the payload type and aggregate type columns of the domain event and snapshot tables hold the integer
+     * codes of the type dictionary table rather than the names (requires the `type-dictionary` optional migration).
+     */
+    private boolean typeDictionary = false;
+
+    /**
+     * Whether the domain event table is range partitioned on the global index (requires the
+     * `partitioned-event-store` optional migration).
+     */
+    private boolean partitioned = false;
+
+    /**
+     * How many partitions of the partitioned domain event table to keep ahead of the one being inserted into.
+     */
+    private int partitionsAhead = 2;
+
+    /**
+     * How often to check whether more partitions of the partitioned domain event table need creating.
+     */
+    private Duration partitionMaintenanceInterval = Duration.ofMinutes(10);
+
+    /**
+     * Whether to LISTEN for the notifications sent by the domain event insert trigger and fetch new events as soon
+     * as they are committed (requires the `domain-event-notify` optional migration).
+     */
+    private boolean notificationsEnabled = false;
+
+    /**
+     * How long the event store waits between polls of the domain event table when its consumers are caught up.
+     * With notifications enabled this is only the fallback for missed notifications, so it can be much longer.
+     */
+    private Duration fetchDelay = Duration.ofSeconds(1);
+
+    /**
+     * Whether the tracking event processors only fetch the payloads of the event types they handle while catching
+     * up or replaying (see {@link io.github.vab2048.axon.exhibition.app.config.eventstore.PayloadTypeFilter}).
+     */
+    private boolean payloadTypeFiltering = false;
+
+    /**
+     * Whether an aggregate is loaded with a single query for its latest snapshot and the events after it, rather than
+     * one query for the snapshot and then another for the events.
+     */
+    private boolean singleQueryAggregateLoads = false;
+
+    public AppendMode getAppendMode() {
+        return appendMode;
+    }
+
+    public void setAppendMode(AppendMode appendMode) {
+        this.appendMode = appendMode;
+    }
+
+    public int getMaxAppendBatchSize() {
+        return maxAppendBatchSize;
+    }
+
+    public void setMaxAppendBatchSize(int maxAppendBatchSize) {
+        this.maxAppendBatchSize = maxAppendBatchSize;
+    }
+
+    public Sequencing getSequencing() {
+        return sequencing;
+    }
+
+    public void setSequencing(Sequencing sequencing) {
+        this.sequencing = sequencing;
+    }
+
+    public ColumnTypes getColumnTypes() {
+        return columnTypes;
+    }
+
+    public void setColumnTypes(ColumnTypes columnTypes) {
+        this.columnTypes = columnTypes;
+    }
+
+    public boolean isTypeDictionary() {
+        return typeDictionary;
+    }
+
+    public void setTypeDictionary(boolean typeDictionary) {
+        this.typeDictionary = typeDictionary;
+    }
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    public void setPartitioned(boolean partitioned) {
+        this.partitioned = partitioned;
+    }
+
+    public int getPartitionsAhead() {
+        return partitionsAhead;
+    }
+
+    public void setPartitionsAhead(int partitionsAhead) {
+        this.partitionsAhead = partitionsAhead;
+    }
+
+    public Duration getPartitionMaintenanceInterval() {
+        return partitionMaintenanceInterval;
+    }
+
+    public void setPartitionMaintenanceInterval(Duration partitionMaintenanceInterval) {
+        this.partitionMaintenanceInterval = partitionMaintenanceInterval;
+    }
+
+    public boolean isNotificationsEnabled() {
+        return notificationsEnabled;
+    }
+
+    public void setNotificationsEnabled(boolean notificationsEnabled) {
+        this.notificationsEnabled = notificationsEnabled;
+    }
+
+    public Duration getFetchDelay() {
+        return fetchDelay;
+    }
+
+    public void setFetchDelay(Duration fetchDelay) {
+        this.fetchDelay = fetchDelay;
+    }
+
+    public boolean isPayloadTypeFiltering() {
+        return payloadTypeFiltering;
+    }
+
+    public void setPayloadTypeFiltering(boolean payloadTypeFiltering) {
+        this.payloadTypeFiltering = payloadTypeFiltering;
+    }
+
+    public boolean isSingleQueryAggregateLoads() {
+        return singleQueryAggregateLoads;
+    }
+
+    public void setSingleQueryAggregateLoads(boolean singleQueryAggregateLoads) {
+        this.singleQueryAggregateLoads = singleQueryAggregateLoads;
+    }
+
+    public enum AppendMode {
+        /**
+         * The Axon default: one single-row INSERT per event (sent together as a JDBC batch).
+         */
+        PER_ROW,
+
+        /**
+         * One multi-row INSERT for up to {@code maxAppendBatchSize} events.
+         */
+        MULTI_ROW
+    }
+
+    public enum Sequencing {
+        /**
+         * The Axon default: the identity of the domain event table, i.e. in the order the events are appended (which
+         * concurrent transactions may commit out of).
+         */
+        IDENTITY,
+
+        /**
+         * In commit order and without gaps, by serializing the appending transactions on a sequencing table (requires
+         * the `commit-ordered-sequencing` optional migration).
+         */
+        COMMIT_ORDERED
+    }
+
+    public enum ColumnTypes {
+        /**
+         * The Axon default: TEXT identifiers and ISO-8601 TEXT timestamps.
+         */
+        TEXT,
+
+        /**
+         * `uuid` identifiers and `timestamptz` timestamps (requires the `native-column-types` optional migration).
+         */
+        NATIVE
+    }
+}
@@ -0,0 +1,125 @@
+package io.github.vab2048.axon.exhibition.app.config;
+
+import org.postgresql.util.PGBinaryObject;
+import org.postgresql.util.PGobject;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * A jsonb PGobject which holds the UTF-8 bytes of the JSON document rather than a String.
+ *
+ * When binary transfer is enabled for the jsonb type (see the `binaryTransferEnable` datasource property in
+ * application.properties) pgjdbc hands the raw column bytes to {@link #setByteValue(byte[], int)} and sends
+ * {@link #toBytes(byte[], int)} as the parameter value. The JSON is then never decoded to (or encoded from) a
+ * String on its way between the DB and Jackson.
+ *
+ * If binary transfer is not used for a statement pgjdbc falls back to the text methods of PGobject, which still work
+ * (the String is created lazily).
+ */
+public class JsonbBytes extends PGobject implements PGBinaryObject {
+    public static final String TYPE = "jsonb";
+
+    /**
+     * The binary wire format of jsonb is a version byte followed by the JSON text.
+     */
+    private static final byte JSONB_VERSION = 1;
+
+    private byte[] bytes;
+    private int offset;
+    private int length;
+
+    public JsonbBytes() {
+        setType(TYPE);
+    }
+
+    /**
+     * {@return a jsonb object for the given UTF-8 JSON, which uses the given array as is (no copy is made).}
+     */
+    public static JsonbBytes wrap(byte[] utf8Json) {
+        JsonbBytes jsonb = new JsonbBytes();
+        jsonb.bytes = utf8Json;
+        jsonb.offset = 0;
+        jsonb.length = utf8Json.length;
+        return jsonb;
+    }
+
+    /**
+     * {@return the UTF-8 bytes of the JSON document. The backing array is returned as is when it holds exactly the
+     * document, otherwise the document is copied out of it once.}
+     */
+    public byte[] utf8Bytes() {
+        if (bytes == null) {
+            return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        }
+        if (offset == 0 && length == bytes.length) {
+            return bytes;
+        }
+        return Arrays.copyOfRange(bytes, offset, offset + length);
+    }
+
+    /*
+     * Binary receive: the value is the whole column (a version byte and then the JSON text).
+     */
+    @Override
+    public void setByteValue(byte[] value, int offset) throws SQLException {
+        if (value[offset] != JSONB_VERSION) {
+            throw new SQLException("Unsupported jsonb binary format version: " + value[offset]);
+        }
+        this.bytes = value;
+        this.offset = offset + 1;
+        this.length = value.length - this.offset;
+        this.value = null;
+    }
+
+    /*
+     * Binary send.
+     */
+    @Override
+    public int lengthInBytes() {
+        return isNull() ? 0 : 1 + utf8Length();
+    }
+
+    @Override
+    public void toBytes(byte[] target, int offset) {
+        target[offset] = JSONB_VERSION;
+        if (bytes != null) {
+            System.arraycopy(bytes, this.offset, target, offset + 1, length);
+        } else {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(utf8, 0, target, offset + 1, utf8.length);
+        }
+    }
+
+    /*
+     * Text receive.
+     */
+    @Override
+    public void setValue(String value) throws SQLException {
+        super.setValue(value);
+        this.bytes = null;
+    }
+
+    /*
+     * Text send (and anyone who just wants the JSON as a String).
+     */
+    @Override
+    public String getValue() {
+        if (value == null && bytes != null) {
+            value = new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    /*
+     * Not annotated with @Override as PGobject only has this method in more recent versions of pgjdbc.
+     */
+    public boolean isNull() {
+        return bytes == null && value == null;
+    }
+
+    private int utf8Length() {
+        return bytes != null ? length : value.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
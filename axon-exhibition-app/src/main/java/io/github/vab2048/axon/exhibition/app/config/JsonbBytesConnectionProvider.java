@@ -0,0 +1,30 @@
+package io.github.vab2048.axon.exhibition.app.config;
+
+import org.axonframework.common.jdbc.ConnectionProvider;
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Connection provider which registers {@link JsonbBytes} as the class pgjdbc should create for jsonb columns, so that
+ * the event store, token store and snapshot table read their jsonb payloads as bytes.
+ *
+ * The registration is held by the (pooled) physical connection, re-registering is a cheap map put.
+ */
+public class JsonbBytesConnectionProvider implements ConnectionProvider {
+    private final ConnectionProvider delegate;
+
+    public JsonbBytesConnectionProvider(ConnectionProvider delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = delegate.getConnection();
+        if (connection.isWrapperFor(PGConnection.class)) {
+            connection.unwrap(PGConnection.class).addDataType(JsonbBytes.TYPE, JsonbBytes.class);
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,133 @@
+package io.github.vab2048.axon.exhibition.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * The storage format of the serialized payloads in each of the Axon tables (see the "Serializers" section of
+ * application.properties).
+ *
+ * Switching a table to {@link PayloadFormat#SMILE} requires the matching opt-in migration under db/optional to have
+ * been run first (the sagaentry table is already bytea so needs none).
+ */
+@ConfigurationProperties(prefix = "axon-exhibition.payload-format")
+public class PayloadFormatProperties {
+
+    /**
+     * Format of axon.domainevententry payload and metaData.
+     */
+    private PayloadFormat domainEvents = PayloadFormat.JSON;
+
+    /**
+     * Format of axon.snapshotevententry payload and metaData.
+     */
+    private PayloadFormat snapshots = PayloadFormat.JSON;
+
+    /**
+     * Format of axon.tokenentry token.
+     */
+    private PayloadFormat tokens = PayloadFormat.JSON;
+
+    /**
+     * Format of axon.sagaentry serializedSaga.
+     */
+    private PayloadFormat sagas = PayloadFormat.JSON;
+
+    /**
+     * Codec with which the payloads of the tables in the binary ({@link PayloadFormat#SMILE}) format are compressed.
+     */
+    private Compression compression = Compression.NONE;
+
+    /**
+     * Payloads smaller than this (in bytes, once serialized) are not compressed.
+     */
+    private int compressionThreshold = 512;
+
+    /**
+     * Whether the snapshots of the aggregates with a
+     * {@link io.github.vab2048.axon.exhibition.app.config.serialization.SnapshotCodec} are written with it rather than
+     * with Jackson (requires the snapshots to be in the binary format). Codec snapshots are read either way.
+     */
+    private boolean snapshotCodecs = false;
+
+    public PayloadFormat getDomainEvents() {
+        return domainEvents;
+    }
+
+    public void setDomainEvents(PayloadFormat domainEvents) {
+        this.domainEvents = domainEvents;
+    }
+
+    public PayloadFormat getSnapshots() {
+        return snapshots;
+    }
+
+    public void setSnapshots(PayloadFormat snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    public PayloadFormat getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(PayloadFormat tokens) {
+        this.tokens = tokens;
+    }
+
+    public PayloadFormat getSagas() {
+        return sagas;
+    }
+
+    public void setSagas(PayloadFormat sagas) {
+        this.sagas = sagas;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public boolean isSnapshotCodecs() {
+        return snapshotCodecs;
+    }
+
+    public void setSnapshotCodecs(boolean snapshotCodecs) {
+        this.snapshotCodecs = snapshotCodecs;
+    }
+
+    public enum PayloadFormat {
+        /**
+         * JSON text, held in a jsonb column (or bytea for sagas).
+         */
+        JSON,
+
+        /**
+         * Binary Smile encoding of JSON, held in a bytea column.
+         */
+        SMILE
+    }
+
+    public enum Compression {
+        NONE,
+
+        /**
+         * Fastest, with a moderate compression ratio.
+         */
+        LZ4,
+
+        /**
+         * Better compression ratio for more CPU.
+         */
+        ZSTD
+    }
+}
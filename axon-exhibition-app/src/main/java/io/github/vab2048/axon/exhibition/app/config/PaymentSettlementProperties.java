@@ -0,0 +1,102 @@
+package io.github.vab2048.axon.exhibition.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * How the payments are settled (see the "Payment settlement" section of application.properties and
+ * {@link io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementCommandDispatcher}).
+ */
+@ConfigurationProperties(prefix = "axon-exhibition.payment-settlement")
+public class PaymentSettlementProperties {
+
+    public enum Engine {
+        /** The {@link io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementSaga}. */
+        SAGA,
+        /** The {@link io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementProcessor}. */
+        STATELESS
+    }
+
+    /**
+     * What settles the payments.
+     */
+    private Engine engine = Engine.SAGA;
+
+    /**
+     * Whether to settle the immediate payments between accounts whose credits are not sharded as they are created, in
+     * the same transaction (only when a single instance of the app handles the account commands).
+     */
+    private boolean fastPath = false;
+
+    /**
+     * The number of events the settlement's event processor handles at once (in one transaction), whose commands
+     * are all in flight together.
+     */
+    private int batchSize = 100;
+
+    /**
+     * How long a batch of the settlement's events waits for its commands to complete before it fails (and its events
+     * are handled again).
+     */
+    private Duration commandTimeout = Duration.ofSeconds(30);
+
+    /**
+     * How long the identifier of a command of the stateless engine is kept, to ignore the command should it be sent
+     * again.
+     */
+    private Duration deduplicationRetention = Duration.ofDays(1);
+
+    /**
+     * How often the identifiers kept for longer than the deduplication retention are deleted.
+     */
+    private Duration deduplicationCleanupInterval = Duration.ofHours(1);
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    public boolean isFastPath() {
+        return fastPath;
+    }
+
+    public void setFastPath(boolean fastPath) {
+        this.fastPath = fastPath;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getCommandTimeout() {
+        return commandTimeout;
+    }
+
+    public void setCommandTimeout(Duration commandTimeout) {
+        this.commandTimeout = commandTimeout;
+    }
+
+    public Duration getDeduplicationRetention() {
+        return deduplicationRetention;
+    }
+
+    public void setDeduplicationRetention(Duration deduplicationRetention) {
+        this.deduplicationRetention = deduplicationRetention;
+    }
+
+    public Duration getDeduplicationCleanupInterval() {
+        return deduplicationCleanupInterval;
+    }
+
+    public void setDeduplicationCleanupInterval(Duration deduplicationCleanupInterval) {
+        this.deduplicationCleanupInterval = deduplicationCleanupInterval;
+    }
+}
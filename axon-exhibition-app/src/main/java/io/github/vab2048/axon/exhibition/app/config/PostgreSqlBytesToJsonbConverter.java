@@ -1,12 +1,8 @@
 package io.github.vab2048.axon.exhibition.app.config;
 
-import org.axonframework.serialization.CannotConvertBetweenTypesException;
 import org.axonframework.serialization.ContentTypeConverter;
 import org.postgresql.util.PGobject;
 
-import java.nio.charset.StandardCharsets;
-import java.sql.SQLException;
-
 /**
  * Allows the Jackson serializer to convert between a byte[] and a JSONB PGObject.
  *
@@ -31,20 +27,10 @@ public class PostgreSqlBytesToJsonbConverter implements ContentTypeConverter<byt
     }
 
     /**
-     * {@inheritDoc}
+     * Wraps the bytes as they are (no copy and no intermediate String) - see {@link JsonbBytes}.
      */
     @Override
     public PGobject convert(byte[] original) {
-        String value = new String(original, StandardCharsets.UTF_8);
-
-        PGobject object = new PGobject();
-        object.setType("JSONB");
-        try {
-            object.setValue(value);
-        } catch (SQLException e) {
-            String message = "Unable to convert byte[] to PostgreSQL JSONB PGobject type: " + value;
-            throw new CannotConvertBetweenTypesException(message, e);
-        }
-        return object;
+        return JsonbBytes.wrap(original);
     }
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package io.github.vab2048.axon.exhibition.app.config;
 import org.axonframework.serialization.ContentTypeConverter;
 import org.postgresql.util.PGobject;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Allows the Jackson serializer to convert between a PGobject to a byte[].
  * @author JohT
@@ -26,13 +28,17 @@ public class PostgreSqlJsonbToBytesConverter implements ContentTypeConverter<PGo
     }
 
     /**
-     * {@inheritDoc}
+     * Where pgjdbc has given us a {@link JsonbBytes} the UTF-8 bytes are taken as they are, otherwise the String
+     * value is encoded (always as UTF-8, which is what Jackson expects).
      */
     @Override
     public byte[] convert(PGobject original) {
+        if (original instanceof JsonbBytes jsonb && !jsonb.isNull()) {
+            return jsonb.utf8Bytes();
+        }
         if ((original == null) || (original.getValue() == null)) {
             return new byte[0];
         }
-        return original.getValue().getBytes();
+        return original.getValue().getBytes(StandardCharsets.UTF_8);
     }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package io.github.vab2048.axon.exhibition.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Whether the association values looked up by the saga store are filtered (see the "Saga association filter" section
+ * of application.properties and {@link io.github.vab2048.axon.exhibition.app.config.saga.SagaAssociationFilter}).
+ */
+@ConfigurationProperties(prefix = "axon-exhibition.saga-association-filter")
+public class SagaAssociationFilterProperties {
+
+    /**
+     * Whether to skip looking up the association values which no saga has (only when a single instance of the app
+     * handles the sagas).
+     */
+    private boolean enabled = false;
+
+    /**
+     * The number of association values the filter is sized for (at least).
+     */
+    private int expectedAssociations = 100_000;
+
+    /**
+     * The probability that an association value which no saga has is looked up anyway.
+     */
+    private double falsePositiveProbability = 0.01;
+
+    /**
+     * How often the filter is rebuilt from the associations table (dropping the association values of ended sagas).
+     */
+    private Duration rebuildInterval = Duration.ofMinutes(10);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getExpectedAssociations() {
+        return expectedAssociations;
+    }
+
+    public void setExpectedAssociations(int expectedAssociations) {
+        this.expectedAssociations = expectedAssociations;
+    }
+
+    public double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+
+    public void setFalsePositiveProbability(double falsePositiveProbability) {
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    public Duration getRebuildInterval() {
+        return rebuildInterval;
+    }
+
+    public void setRebuildInterval(Duration rebuildInterval) {
+        this.rebuildInterval = rebuildInterval;
+    }
+}
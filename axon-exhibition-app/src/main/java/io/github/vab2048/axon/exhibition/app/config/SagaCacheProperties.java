@@ -0,0 +1,40 @@
+package io.github.vab2048.axon.exhibition.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * How many sagas (and saga associations) are kept in memory, and for how long (see the "Saga cache" section of
+ * application.properties and {@link io.github.vab2048.axon.exhibition.app.config.saga.BoundedCachingSagaStore}).
+ */
+@ConfigurationProperties(prefix = "axon-exhibition.saga-cache")
+public class SagaCacheProperties {
+
+    /**
+     * The number of sagas kept, and of association values whose sagas are kept (the least recently used is evicted
+     * first), or 0 to disable the cache.
+     */
+    private int maximumSize = 10_000;
+
+    /**
+     * How long a saga (or association value) is kept after it was last used.
+     */
+    private Duration timeToIdle = Duration.ofMinutes(1);
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getTimeToIdle() {
+        return timeToIdle;
+    }
+
+    public void setTimeToIdle(Duration timeToIdle) {
+        this.timeToIdle = timeToIdle;
+    }
+}
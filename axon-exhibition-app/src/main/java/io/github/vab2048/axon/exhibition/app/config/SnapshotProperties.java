@@ -0,0 +1,187 @@
+package io.github.vab2048.axon.exhibition.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * When aggregates are snapshotted (see the "Snapshots" section of application.properties and
+ * {@link io.github.vab2048.axon.exhibition.app.config.snapshot.AdaptiveSnapshotTriggerDefinition}) and how (see
+ * {@link io.github.vab2048.axon.exhibition.app.config.snapshot.CoalescingSnapshotter}).
+ */
+@ConfigurationProperties(prefix = "axon-exhibition.snapshot")
+public class SnapshotProperties {
+
+    /**
+     * The thresholds of any aggregate type without its own.
+     */
+    private Thresholds defaults = new Thresholds();
+
+    /**
+     * The thresholds of each aggregate type, by its simple class name. Any threshold not set takes the built-in
+     * default (not the one in {@link #defaults}).
+     */
+    private Map<String, Thresholds> aggregates = new HashMap<>();
+
+    /**
+     * The number of snapshots taken at once.
+     */
+    private int threads = 2;
+
+    /**
+     * The number of snapshots which can wait to be taken before further requests are dropped.
+     */
+    private int queueCapacity = 1000;
+
+    /**
+     * How a snapshot is written to the snapshot table.
+     */
+    private WriteMode writeMode = WriteMode.APPEND;
+
+    /**
+     * How often the snapshots superseded by a later snapshot of the same aggregate are deleted, or zero to only delete
+     * them on demand (through /_ops/snapshot-compaction).
+     */
+    private Duration compactionInterval = Duration.ofHours(1);
+
+    /**
+     * The number of aggregates whose superseded snapshots are deleted in a single transaction.
+     */
+    private int compactionBatchSize = 500;
+
+    public Thresholds getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Thresholds defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Thresholds> getAggregates() {
+        return aggregates;
+    }
+
+    public void setAggregates(Map<String, Thresholds> aggregates) {
+        this.aggregates = aggregates;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public WriteMode getWriteMode() {
+        return writeMode;
+    }
+
+    public void setWriteMode(WriteMode writeMode) {
+        this.writeMode = writeMode;
+    }
+
+    public Duration getCompactionInterval() {
+        return compactionInterval;
+    }
+
+    public void setCompactionInterval(Duration compactionInterval) {
+        this.compactionInterval = compactionInterval;
+    }
+
+    public int getCompactionBatchSize() {
+        return compactionBatchSize;
+    }
+
+    public void setCompactionBatchSize(int compactionBatchSize) {
+        this.compactionBatchSize = compactionBatchSize;
+    }
+
+    /**
+     * {@return the thresholds of the given aggregate type.}
+     */
+    public Thresholds thresholdsFor(Class<?> aggregateType) {
+        return aggregates.getOrDefault(aggregateType.getSimpleName(), defaults);
+    }
+
+    public enum WriteMode {
+        /**
+         * The Axon default: add each snapshot as a row of its own, then delete the aggregate's older snapshots.
+         */
+        APPEND,
+
+        /**
+         * Replace the aggregate's snapshot in place with a single upsert (requires the `snapshot-upsert` optional
+         * migration).
+         */
+        UPSERT
+    }
+
+    public static class Thresholds {
+
+        /**
+         * Snapshot an aggregate once this many events have been applied since its last snapshot, whatever they
+         * cost to load. This bounds the number of events a load replays.
+         */
+        private int maxEventsReplayed = 100;
+
+        /**
+         * Never snapshot an aggregate for its load time or snapshot age until at least this many events have been
+         * applied since its last snapshot (below that a snapshot would save little of the load).
+         */
+        private int minEventsReplayed = 10;
+
+        /**
+         * Snapshot an aggregate whose last load (reading, deserializing and applying its snapshot and events) took
+         * longer than this.
+         */
+        private Duration maxLoadTime = Duration.ofMillis(50);
+
+        /**
+         * Snapshot an aggregate whose last snapshot (or first event, if it has none) is older than this.
+         */
+        private Duration maxSnapshotAge = Duration.ofDays(1);
+
+        public int getMaxEventsReplayed() {
+            return maxEventsReplayed;
+        }
+
+        public void setMaxEventsReplayed(int maxEventsReplayed) {
+            this.maxEventsReplayed = maxEventsReplayed;
+        }
+
+        public int getMinEventsReplayed() {
+            return minEventsReplayed;
+        }
+
+        public void setMinEventsReplayed(int minEventsReplayed) {
+            this.minEventsReplayed = minEventsReplayed;
+        }
+
+        public Duration getMaxLoadTime() {
+            return maxLoadTime;
+        }
+
+        public void setMaxLoadTime(Duration maxLoadTime) {
+            this.maxLoadTime = maxLoadTime;
+        }
+
+        public Duration getMaxSnapshotAge() {
+            return maxSnapshotAge;
+        }
+
+        public void setMaxSnapshotAge(Duration maxSnapshotAge) {
+            this.maxSnapshotAge = maxSnapshotAge;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package io.github.vab2048.axon.exhibition.app.config.cache;
+
+import org.axonframework.common.Registration;
+import org.axonframework.common.caching.Cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An in-memory cache of the aggregates of one repository, bounded in size (the least recently used entry is evicted
+ * first) and in time (an entry not used for the time to idle expires).
+ *
+ * Axon's caching repository keeps the cache consistent with the event store: it puts the aggregate once its unit of
+ * work has committed and removes it when the unit of work rolls back - including on a concurrency conflict, e.g. when
+ * another instance of the app changed the aggregate since it was cached (its events then fail to append).
+ *
+ * All access is serialized on the cache, which holds its lock only for the map operation (listeners are notified
+ * outside it). Command handling serializes on the aggregate's own lock anyway.
+ *
+ * Also holds the sagas and their associations for the saga store (see
+ * {@link io.github.vab2048.axon.exhibition.app.config.saga.BoundedCachingSagaStore}).
+ */
+public class BoundedAggregateCache implements Cache {
+    private final String name;
+    private final int maximumSize;
+    private final long timeToIdleNanos;
+    // In access order, so the least recently used entry comes first (and so do those which have expired).
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<EntryListener> listeners = new CopyOnWriteArrayList<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * @param maximumSize the number of aggregates kept, or 0 to keep none (i.e. to disable the cache).
+     * @param timeToIdle how long an aggregate is kept after it was last used.
+     */
+    public BoundedAggregateCache(String name, int maximumSize, Duration timeToIdle) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("The maximum size of the %s cache must not be negative but was %s"
+                    .formatted(name, maximumSize));
+        }
+        this.name = name;
+        this.maximumSize = maximumSize;
+        this.timeToIdleNanos = timeToIdle.toNanos();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> V get(K key) {
+        Object value;
+        boolean expired = false;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            long now = System.nanoTime();
+            if (entry != null && entry.isExpired(now, timeToIdleNanos)) {
+                entries.remove(key);
+                expirations++;
+                expired = true;
+                entry = null;
+            }
+            if (entry == null) {
+                misses++;
+                value = null;
+            } else {
+                hits++;
+                entry.lastAccessNanos = now;
+                value = entry.value;
+            }
+        }
+        if (expired) {
+            notifyListeners(listener -> listener.onEntryExpired(key));
+        } else if (value != null) {
+            notifyListeners(listener -> listener.onEntryRead(key, value));
+        }
+        return (V) value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (maximumSize == 0) {
+            return;
+        }
+        List<Object> expired;
+        List<Object> evicted;
+        boolean updated;
+        synchronized (this) {
+            updated = entries.put(key, new Entry(value, System.nanoTime())) != null;
+            expired = removeExpired();
+            evicted = removeOverflow();
+        }
+        notifyListeners(listener -> {
+            if (updated) {
+                listener.onEntryUpdated(key, value);
+            } else {
+                listener.onEntryCreated(key, value);
+            }
+            expired.forEach(listener::onEntryExpired);
+            evicted.forEach(listener::onEntryRemoved);
+        });
+    }
+
+    @Override
+    public boolean putIfAbsent(Object key, Object value) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && !entry.isExpired(System.nanoTime(), timeToIdleNanos)) {
+                return false;
+            }
+        }
+        put(key, value);
+        return maximumSize > 0;
+    }
+
+    @Override
+    public boolean remove(Object key) {
+        boolean removed;
+        synchronized (this) {
+            removed = entries.remove(key) != null;
+        }
+        if (removed) {
+            notifyListeners(listener -> listener.onEntryRemoved(key));
+        }
+        return removed;
+    }
+
+    /**
+     * Remove all the entries.
+     */
+    public void clear() {
+        List<Object> removed;
+        synchronized (this) {
+            removed = new ArrayList<>(entries.keySet());
+            entries.clear();
+        }
+        notifyListeners(listener -> removed.forEach(listener::onEntryRemoved));
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        Entry entry = entries.get(key);
+        return entry != null && !entry.isExpired(System.nanoTime(), timeToIdleNanos);
+    }
+
+    @Override
+    public Registration registerCacheEntryListener(EntryListener cacheEntryListener) {
+        listeners.add(cacheEntryListener);
+        return () -> listeners.remove(cacheEntryListener);
+    }
+
+    public synchronized Metrics metrics() {
+        return new Metrics(name, entries.size(), maximumSize, hits, misses, evictions, expirations);
+    }
+
+    /*
+     * The least recently used entries come first, so stop at the first one which has not expired.
+     */
+    private List<Object> removeExpired() {
+        List<Object> removed = new ArrayList<>();
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Object, Entry> eldest = iterator.next();
+            if (!eldest.getValue().isExpired(now, timeToIdleNanos)) {
+                break;
+            }
+            iterator.remove();
+            expirations++;
+            removed.add(eldest.getKey());
+        }
+        return removed;
+    }
+
+    private List<Object> removeOverflow() {
+        List<Object> removed = new ArrayList<>();
+        Iterator<Object> iterator = entries.keySet().iterator();
+        while (entries.size() > maximumSize) {
+            removed.add(iterator.next());
+            iterator.remove();
+            evictions++;
+        }
+        return removed;
+    }
+
+    private void notifyListeners(Consumer<EntryListener> notification) {
+        listeners.forEach(notification);
+    }
+
+    private static class Entry {
+        private final Object value;
+        private long lastAccessNanos;
+
+        Entry(Object value, long lastAccessNanos) {
+            this.value = value;
+            this.lastAccessNanos = lastAccessNanos;
+        }
+
+        boolean isExpired(long now, long timeToIdleNanos) {
+            return now - lastAccessNanos > timeToIdleNanos;
+        }
+    }
+
+    /**
+     * @param name the name of the cache.
+     * @param size the number of aggregates in the cache (including any which have expired but not been removed yet).
+     * @param maximumSize the number of aggregates kept.
+     * @param hits the number of loads of a cached aggregate.
+     * @param misses the number of loads of an aggregate not in the cache (i.e. from the event store).
+     * @param evictions the number of aggregates evicted to keep to the maximum size.
+     * @param expirations the number of aggregates removed as not used for the time to idle.
+     */
+    public record Metrics(String name, int size, int maximumSize, long hits, long misses, long evictions,
+                          long expirations) {}
+}
@@ -0,0 +1,399 @@
+package io.github.vab2048.axon.exhibition.app.config.deadline;
+
+import org.axonframework.common.transaction.TransactionManager;
+import org.axonframework.config.ScopeAwareProvider;
+import org.axonframework.deadline.AbstractDeadlineManager;
+import org.axonframework.deadline.DeadlineMessage;
+import org.axonframework.deadline.GenericDeadlineMessage;
+import org.axonframework.messaging.DefaultInterceptorChain;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.MetaData;
+import org.axonframework.messaging.ResultMessage;
+import org.axonframework.messaging.ScopeDescriptor;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A deadline manager keeping the scheduled deadlines in a table (see the jdbc-deadlines optional migration) rather
+ * than in memory as Axon's SimpleDeadlineManager does: they survive a restart, are met by whichever instance of the app
+ * claims them first, and take no memory until they are due.
+ *
+ * A deadline is scheduled (and cancelled) in the transaction of the unit of work scheduling it, if any. A poller claims
+ * the due deadlines in batches of up to as many as there are idle threads, with a single {@code FOR UPDATE SKIP LOCKED}
+ * statement - so instances claiming at the same time each get different deadlines - which pushes their next attempt
+ * back by the claim timeout. Each is then met on one of the threads, in a unit of work whose transaction also deletes
+ * it. So a deadline whose handling fails (or whose instance stops) is met again once its claim has expired - up to
+ * the max attempts, after which it is logged and deleted rather than claimed forever.
+ */
+public class JdbcDeadlineManager extends AbstractDeadlineManager implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(JdbcDeadlineManager.class);
+
+    private final ScopeAwareProvider scopeAwareProvider;
+    private final TransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final Serializer serializer;
+    private final int threads;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration claimTimeout;
+    private final int maxAttempts;
+
+    private final String insertSql;
+    private final String claimSql;
+    private final String deleteSql;
+    private final String cancelSql;
+    private final String cancelAllSql;
+    private final String cancelAllWithinScopeSql;
+    private final String countDueSql;
+
+    private final LongAdder claimed = new LongAdder();
+    private final LongAdder met = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean running;
+    private Semaphore idleWorkers;
+    private ExecutorService poller;
+    private ExecutorService workers;
+
+    /**
+     * @param table the table the deadlines are kept in.
+     * @param threads the number of threads meeting the due deadlines.
+     * @param batchSize the most deadlines claimed at once.
+     * @param pollInterval how long to wait before looking for due deadlines again when there were none.
+     * @param claimTimeout how long a claimed deadline is left to the claimant before it is claimed again.
+     * @param maxAttempts the most times a deadline is attempted, after which it is given up on.
+     */
+    public JdbcDeadlineManager(ScopeAwareProvider scopeAwareProvider, TransactionManager transactionManager,
+                               JdbcTemplate jdbcTemplate, Serializer serializer, String table, int threads,
+                               int batchSize, Duration pollInterval, Duration claimTimeout, int maxAttempts) {
+        if (threads < 1 || batchSize < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException(
+                    "The deadline threads, batch size and max attempts must be at least 1 but were %s, %s and %s"
+                            .formatted(threads, batchSize, maxAttempts));
+        }
+        this.scopeAwareProvider = scopeAwareProvider;
+        this.transactionManager = transactionManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.serializer = serializer;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.claimTimeout = claimTimeout;
+        this.maxAttempts = maxAttempts;
+        this.insertSql = "INSERT INTO " + table + " (deadlineId, deadlineName, messageIdentifier, triggerTime,"
+                + " nextAttemptTime, payloadType, payloadRevision, payload, metaData, scopeType, scope)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        this.claimSql = claimSql(table);
+        this.deleteSql = "DELETE FROM " + table + " WHERE deadlineId = ?";
+        this.cancelSql = "DELETE FROM " + table + " WHERE deadlineId = ? AND deadlineName = ?";
+        this.cancelAllSql = "DELETE FROM " + table + " WHERE deadlineName = ?";
+        this.cancelAllWithinScopeSql = "DELETE FROM " + table
+                + " WHERE deadlineName = ? AND scopeType = ? AND scope = ?";
+        this.countDueSql = "SELECT count(*) FROM " + table + " WHERE nextAttemptTime <= ?";
+    }
+
+    /*
+     * Claim up to the given number of the deadlines due at the given time (the earliest first), until the given time.
+     * Those locked by another claim in progress are skipped rather than waited for.
+     */
+    static String claimSql(String table) {
+        return "WITH due AS ("
+                + " SELECT deadlineId FROM " + table + " WHERE nextAttemptTime <= ?"
+                + " ORDER BY nextAttemptTime LIMIT ? FOR UPDATE SKIP LOCKED"
+                + ") UPDATE " + table + " d SET nextAttemptTime = ?, attempts = d.attempts + 1"
+                + " FROM due WHERE d.deadlineId = due.deadlineId"
+                + " RETURNING d.deadlineId, d.deadlineName, d.messageIdentifier, d.triggerTime, d.attempts,"
+                + " d.payloadType, d.payloadRevision, d.payload, d.metaData, d.scopeType, d.scope";
+    }
+
+    @Override
+    public String schedule(Instant triggerDateTime, String deadlineName, Object messageOrPayload,
+                           ScopeDescriptor deadlineScope) {
+        DeadlineMessage<?> deadlineMessage = processDispatchInterceptors(
+                GenericDeadlineMessage.asDeadlineMessage(deadlineName, messageOrPayload, triggerDateTime));
+        String deadlineId = UUID.randomUUID().toString();
+        SerializedObject<byte[]> payload = deadlineMessage.getPayload() == null
+                ? null : serializer.serialize(deadlineMessage.getPayload(), byte[].class);
+        SerializedObject<byte[]> scope = serializer.serialize(deadlineScope, byte[].class);
+        Timestamp triggerTime = Timestamp.from(triggerDateTime);
+        jdbcTemplate.update(insertSql, deadlineId, deadlineName, deadlineMessage.getIdentifier(), triggerTime,
+                triggerTime,
+                payload == null ? null : payload.getType().getName(),
+                payload == null ? null : payload.getType().getRevision(),
+                payload == null ? null : payload.getData(),
+                serializer.serialize(deadlineMessage.getMetaData(), byte[].class).getData(),
+                scope.getType().getName(),
+                scope.getData());
+        return deadlineId;
+    }
+
+    @Override
+    public String schedule(Duration triggerDuration, String deadlineName, Object messageOrPayload,
+                           ScopeDescriptor deadlineScope) {
+        return schedule(GenericDeadlineMessage.clock.instant().plus(triggerDuration), deadlineName, messageOrPayload,
+                deadlineScope);
+    }
+
+    @Override
+    public void cancelSchedule(String deadlineName, String scheduleId) {
+        jdbcTemplate.update(cancelSql, scheduleId, deadlineName);
+    }
+
+    @Override
+    public void cancelAll(String deadlineName) {
+        jdbcTemplate.update(cancelAllSql, deadlineName);
+    }
+
+    @Override
+    public void cancelAllWithinScope(String deadlineName, ScopeDescriptor scope) {
+        SerializedObject<byte[]> serializedScope = serializer.serialize(scope, byte[].class);
+        jdbcTemplate.update(cancelAllWithinScopeSql, deadlineName, serializedScope.getType().getName(),
+                serializedScope.getData());
+    }
+
+    @Override
+    public void start() {
+        idleWorkers = new Semaphore(threads);
+        AtomicInteger workerCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads,
+                daemonThreads(() -> "deadline-worker-" + workerCount.incrementAndGet()));
+        poller = Executors.newSingleThreadExecutor(daemonThreads(() -> "deadline-poller"));
+        running = true;
+        poller.execute(this::poll);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (poller != null) {
+            poller.shutdownNow();
+            workers.shutdown();
+            try {
+                // Those not met in time are met again once their claim has expired.
+                workers.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            poller = null;
+            workers = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void shutdown() {
+        stop();
+    }
+
+    /**
+     * {@return the number of deadlines due (including those claimed and not met yet), claimed, met, failed and
+     * dropped.}
+     */
+    public Metrics metrics() {
+        Long due = jdbcTemplate.queryForObject(countDueSql, Long.class, Timestamp.from(Instant.now()));
+        return new Metrics(due == null ? 0 : due, claimed.sum(), met.sum(), failed.sum(), dropped.sum());
+    }
+
+    /*
+     * Claim as many of the due deadlines as there are idle workers (up to a batch) and hand them over, waiting for a
+     * worker to be idle and, when there were fewer due than claimed for, for the poll interval.
+     */
+    private void poll() {
+        while (running) {
+            try {
+                idleWorkers.acquire();
+                int idle = 1 + idleWorkers.drainPermits();
+                int claiming = Math.min(idle, batchSize);
+                idleWorkers.release(idle - claiming);
+                List<ClaimedDeadline> deadlines = List.of();
+                try {
+                    deadlines = claim(claiming);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to claim the due deadlines (will retry in {})", pollInterval, e);
+                }
+                idleWorkers.release(claiming - deadlines.size());
+                claimed.add(deadlines.size());
+                for (ClaimedDeadline deadline : deadlines) {
+                    workers.execute(() -> {
+                        try {
+                            meet(deadline);
+                        } finally {
+                            idleWorkers.release();
+                        }
+                    });
+                }
+                if (deadlines.size() < claiming) {
+                    Thread.sleep(pollInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    List<ClaimedDeadline> claim(int maxDeadlines) {
+        Instant now = Instant.now();
+        return jdbcTemplate.query(claimSql, claimedDeadlineMapper(), Timestamp.from(now), maxDeadlines,
+                Timestamp.from(now.plus(claimTimeout)));
+    }
+
+    /*
+     * Send the given deadline to its scope and delete it, in one unit of work (and transaction). When its last attempt
+     * fails it is dropped instead of being left to be claimed again.
+     */
+    void meet(ClaimedDeadline deadline) {
+        if (deadline.attempts() > maxAttempts) {
+            // i.e. its last attempt never finished (e.g. as its instance stopped).
+            drop(deadline, null);
+            return;
+        }
+        DeadlineMessage<?> deadlineMessage;
+        ScopeDescriptor scope;
+        try {
+            deadlineMessage = deadlineMessage(deadline);
+            scope = serializer.deserialize(
+                    new SimpleSerializedObject<>(deadline.scope(), byte[].class, deadline.scopeType(), null));
+        } catch (RuntimeException e) {
+            failed.increment();
+            if (deadline.attempts() >= maxAttempts) {
+                drop(deadline, e);
+            } else {
+                log.error("Failed to deserialize deadline {} ({}), attempt {}", deadline.deadlineId(),
+                        deadline.deadlineName(), deadline.attempts(), e);
+            }
+            return;
+        }
+        UnitOfWork<DeadlineMessage<?>> unitOfWork = new DefaultUnitOfWork<>(deadlineMessage);
+        unitOfWork.attachTransaction(transactionManager);
+        InterceptorChain chain = new DefaultInterceptorChain<>(unitOfWork, handlerInterceptors(),
+                interceptedDeadlineMessage -> {
+                    send(interceptedDeadlineMessage, scope);
+                    jdbcTemplate.update(deleteSql, deadline.deadlineId());
+                    return null;
+                });
+        ResultMessage<?> result = unitOfWork.executeWithResult(chain::proceed);
+        if (result.isExceptional()) {
+            failed.increment();
+            if (deadline.attempts() >= maxAttempts) {
+                drop(deadline, result.exceptionResult());
+                return;
+            }
+            log.warn("Failed to meet deadline {} ({}) for {}, attempt {} (will retry in {})", deadline.deadlineId(),
+                    deadline.deadlineName(), scope.scopeDescription(), deadline.attempts(), claimTimeout,
+                    result.exceptionResult());
+        } else {
+            met.increment();
+        }
+    }
+
+    /*
+     * Give up on the given deadline, which has had all of its attempts: delete it (outside of the unit of work of its
+     * last attempt, which has been rolled back), so that it is never claimed again.
+     */
+    private void drop(ClaimedDeadline deadline, Throwable lastFailure) {
+        try {
+            jdbcTemplate.update(deleteSql, deadline.deadlineId());
+        } catch (RuntimeException e) {
+            log.warn("Failed to drop deadline {} ({}) (will retry once claimed again)", deadline.deadlineId(),
+                    deadline.deadlineName(), e);
+            return;
+        }
+        dropped.increment();
+        if (lastFailure == null) {
+            log.error("Dropped deadline {} ({}) after {} attempt(s)", deadline.deadlineId(), deadline.deadlineName(),
+                    deadline.attempts() - 1);
+        } else {
+            log.error("Dropped deadline {} ({}) after {} attempt(s)", deadline.deadlineId(), deadline.deadlineName(),
+                    deadline.attempts(), lastFailure);
+        }
+    }
+
+    private void send(DeadlineMessage<?> deadlineMessage, ScopeDescriptor scope) {
+        scopeAwareProvider.provideScopeAwareStream(scope)
+                .filter(scopeAwareComponent -> scopeAwareComponent.canResolve(scope))
+                .forEach(scopeAwareComponent -> {
+                    try {
+                        scopeAwareComponent.send(deadlineMessage, scope);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(
+                                "Failed to send deadline message to " + scope.scopeDescription(), e);
+                    }
+                });
+    }
+
+    private DeadlineMessage<?> deadlineMessage(ClaimedDeadline deadline) {
+        Object payload = deadline.payloadType() == null ? null : serializer.deserialize(new SimpleSerializedObject<>(
+                deadline.payload(), byte[].class, deadline.payloadType(), deadline.payloadRevision()));
+        Map<String, ?> metaData = serializer.deserialize(
+                new SimpleSerializedObject<>(deadline.metaData(), byte[].class, MetaData.class.getName(), null));
+        return new GenericDeadlineMessage<>(deadline.deadlineName(), deadline.messageIdentifier(), payload, metaData,
+                deadline.triggerTime());
+    }
+
+    private static RowMapper<ClaimedDeadline> claimedDeadlineMapper() {
+        return (resultSet, rowNum) -> new ClaimedDeadline(
+                resultSet.getString("deadlineId"),
+                resultSet.getString("deadlineName"),
+                resultSet.getString("messageIdentifier"),
+                resultSet.getTimestamp("triggerTime").toInstant(),
+                resultSet.getInt("attempts"),
+                resultSet.getString("payloadType"),
+                resultSet.getString("payloadRevision"),
+                resultSet.getBytes("payload"),
+                resultSet.getBytes("metaData"),
+                resultSet.getString("scopeType"),
+                resultSet.getBytes("scope"));
+    }
+
+    private static ThreadFactory daemonThreads(Supplier<String> names) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, names.get());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A deadline claimed to be met, as stored.
+     */
+    record ClaimedDeadline(String deadlineId, String deadlineName, String messageIdentifier, Instant triggerTime,
+                           int attempts, String payloadType, String payloadRevision, byte[] payload,
+                           byte[] metaData, String scopeType, byte[] scope) {}
+
+    /**
+     * @param due the number of deadlines due, including those claimed but not met yet.
+     * @param claimed the number of deadlines claimed (including those claimed again) by this instance.
+     * @param met the number of deadlines met by this instance.
+     * @param failed the number of deadlines whose handling failed on this instance (to be claimed again, unless
+     *               dropped).
+     * @param dropped the number of deadlines given up on by this instance as they had had all of their attempts.
+     */
+    public record Metrics(long due, long claimed, long met, long failed, long dropped) {}
+}
@@ -0,0 +1,228 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import org.axonframework.common.transaction.TransactionManager;
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventhandling.GapAwareTrackingToken;
+import org.axonframework.eventhandling.GenericDomainEventEntry;
+import org.axonframework.eventhandling.GenericTrackedDomainEventEntry;
+import org.axonframework.eventhandling.TrackedEventData;
+import org.axonframework.eventsourcing.eventstore.DomainEventData;
+import org.axonframework.eventsourcing.eventstore.DomainEventStream;
+import org.axonframework.eventsourcing.eventstore.EventStoreException;
+import org.axonframework.eventsourcing.eventstore.jdbc.JdbcEventStorageEngine;
+import org.axonframework.eventsourcing.snapshotting.SnapshotFilter;
+import org.axonframework.serialization.upcasting.event.EventUpcaster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.axonframework.common.jdbc.JdbcUtils.executeQuery;
+import static org.axonframework.eventhandling.EventUtils.upcastAndDeserializeDomainEvents;
+
+/**
+ * JDBC storage engine for event and snapshot tables changed by the optional migrations, i.e. whose identifier columns
+ * are `uuid` and timestamp column is `timestamptz` (`native-column-types`) and/or whose type columns hold the codes of
+ * a {@link TypeDictionary} (`type-dictionary`). How the columns are bound is up to the given {@link EventRowBinder}.
+ *
+ * The engine itself only reads and writes the timestamps and turns the type codes it reads back into names. The
+ * statements which bind identifiers, timestamps and types are replaced by {@link #configure(Builder, EventRowBinder)}.
+ *
+ * Given an {@link AggregateLoad} it can also read the snapshot and the events of an aggregate in a single query (see
+ * {@link #readSnapshotAndEvents(String)}).
+ */
+public class ApplicationJdbcEventStorageEngine extends JdbcEventStorageEngine {
+    private static final Logger log = LoggerFactory.getLogger(ApplicationJdbcEventStorageEngine.class);
+
+    private final EventRowBinder binder;
+    private final TypeDictionary typeDictionary;
+    private final AggregateLoad aggregateLoad;
+
+    public ApplicationJdbcEventStorageEngine(JdbcEventStorageEngine.Builder builder, EventRowBinder binder) {
+        this(builder, binder, null);
+    }
+
+    /**
+     * @param aggregateLoad how to read the snapshot and the events of an aggregate together, or null not to.
+     */
+    public ApplicationJdbcEventStorageEngine(JdbcEventStorageEngine.Builder builder, EventRowBinder binder,
+                                             AggregateLoad aggregateLoad) {
+        super(builder);
+        this.binder = binder;
+        this.typeDictionary = binder.typeDictionary();
+        this.aggregateLoad = aggregateLoad;
+    }
+
+    /**
+     * Use the statements of the given binder in the given builder (which should then be built with
+     * {@link #ApplicationJdbcEventStorageEngine(JdbcEventStorageEngine.Builder, EventRowBinder)}).
+     */
+    public static JdbcEventStorageEngine.Builder configure(JdbcEventStorageEngine.Builder builder, EventRowBinder binder) {
+        var statements = new EventStoreStatements(binder);
+        return builder
+                .appendEvents(statements::appendEvents)
+                .appendSnapshot(statements::appendSnapshot)
+                .readEventDataForAggregate(statements::readEventDataForAggregate)
+                .readSnapshotData(statements::readSnapshotData)
+                .lastSequenceNumberFor(statements::lastSequenceNumberFor)
+                .deleteSnapshots(statements::deleteSnapshots)
+                .createTokenAt(statements::createTokenAt);
+    }
+
+    /**
+     * {@return whether {@link #readSnapshotAndEvents(String)} can be used.}
+     */
+    public boolean readsSnapshotAndEventsTogether() {
+        return aggregateLoad != null;
+    }
+
+    /**
+     * Read the latest snapshot of the aggregate followed by the events after it (or all its events when it has no
+     * snapshot), as {@link #readSnapshot(String)} and then {@link #readEvents(String, long)} do - but with one query
+     * rather than two.
+     *
+     * The query returns the first batch of events. Any further events are read in batches as usual once the stream
+     * gets to them. A snapshot which is filtered out or can't be read is dropped in favour of all the events (as the
+     * event store does), which takes a second query.
+     */
+    public DomainEventStream readSnapshotAndEvents(String aggregateIdentifier) {
+        int batchSize = aggregateLoad.batchSize();
+        // In a transaction as Axon's own reads are (so that the connection is the one of the current unit of work).
+        SnapshotAndEventRows rows = aggregateLoad.transactionManager().fetchInTransaction(() -> executeQuery(
+                getConnection(),
+                connection -> aggregateLoad.statement().build(connection, schema(), aggregateIdentifier, batchSize),
+                this::snapshotAndEventRows,
+                e -> new EventStoreException(
+                        "Failed to read the snapshot and events of aggregate [%s]".formatted(aggregateIdentifier), e)));
+
+        DomainEventMessage<?> snapshot = null;
+        if (rows.snapshot() != null) {
+            snapshot = deserializeSnapshot(aggregateIdentifier, rows.snapshot());
+            if (snapshot == null) {
+                return readEvents(aggregateIdentifier);
+            }
+        }
+        List<DomainEventData<?>> eventRows = rows.events();
+        DomainEventStream events = upcastAndDeserializeDomainEvents(eventRows.stream(), getEventSerializer(),
+                aggregateLoad.upcasterChain());
+        if (eventRows.size() == batchSize) {
+            long nextSequenceNumber = eventRows.get(eventRows.size() - 1).getSequenceNumber() + 1;
+            events = DomainEventStream.concat(events, readEvents(aggregateIdentifier, nextSequenceNumber));
+        }
+        return snapshot == null ? events : DomainEventStream.concat(DomainEventStream.of(snapshot), events);
+    }
+
+    private SnapshotAndEventRows snapshotAndEventRows(ResultSet resultSet) throws SQLException {
+        DomainEventData<?> snapshot = null;
+        List<DomainEventData<?>> events = new ArrayList<>();
+        while (resultSet.next()) {
+            if (resultSet.getInt(ReadSnapshotAndEventDataStatementBuilder.SOURCE_COLUMN) == 0) {
+                snapshot = getSnapshotData(resultSet);
+            } else {
+                events.add(getDomainEventData(resultSet));
+            }
+        }
+        return new SnapshotAndEventRows(snapshot, events);
+    }
+
+    /*
+     * The payload is deserialized straight away (rather than when the aggregate is created from it) so that a snapshot
+     * which can't be read is found while its events can still be read instead.
+     */
+    private DomainEventMessage<?> deserializeSnapshot(String aggregateIdentifier, DomainEventData<?> entry) {
+        if (!aggregateLoad.snapshotFilter().allow(entry)) {
+            return null;
+        }
+        try {
+            DomainEventMessage<?> snapshot = upcastAndDeserializeDomainEvents(Stream.of(entry), getSnapshotSerializer(),
+                    aggregateLoad.upcasterChain()).asStream().findFirst().orElse(null);
+            if (snapshot != null) {
+                snapshot.getPayload();
+            }
+            return snapshot;
+        } catch (Exception | LinkageError e) {
+            log.warn("Error reading snapshot for aggregate [{}]. Reconstructing from entire event stream.",
+                    aggregateIdentifier, e);
+            return null;
+        }
+    }
+
+    private record SnapshotAndEventRows(DomainEventData<?> snapshot, List<DomainEventData<?>> events) {}
+
+    /**
+     * How {@link #readSnapshotAndEvents(String)} reads the snapshot and the events of an aggregate.
+     *
+     * @param batchSize the number of events read by the query (and then per further query).
+     * @param snapshotFilter the engine's snapshot filter.
+     * @param upcasterChain the engine's upcaster chain.
+     * @param transactionManager the engine's transaction manager.
+     */
+    public record AggregateLoad(ReadSnapshotAndEventDataStatementBuilder statement, int batchSize,
+                                SnapshotFilter snapshotFilter, EventUpcaster upcasterChain,
+                                TransactionManager transactionManager) {}
+
+    /*
+     * Axon accepts any TemporalAccessor for the timestamp of the entries it creates from a row.
+     */
+    @Override
+    protected Object readTimeStamp(ResultSet resultSet, String columnName) throws SQLException {
+        return binder.nativeColumnTypes()
+                ? resultSet.getObject(columnName, OffsetDateTime.class).toInstant()
+                : super.readTimeStamp(resultSet, columnName);
+    }
+
+    @Override
+    protected void writeTimestamp(PreparedStatement preparedStatement, int position, Instant timestamp) throws SQLException {
+        binder.setTimestamp(preparedStatement, position, timestamp);
+    }
+
+    /*
+     * Axon reads the type columns with getString, which gives the code as a String when they are integers.
+     */
+
+    @Override
+    protected TrackedEventData<?> getTrackedEventData(ResultSet resultSet,
+                                                      GapAwareTrackingToken previousToken) throws SQLException {
+        TrackedEventData<?> entry = super.getTrackedEventData(resultSet, previousToken);
+        return typeDictionary == null ? entry : decode((GenericTrackedDomainEventEntry<?>) entry);
+    }
+
+    @Override
+    protected DomainEventData<?> getDomainEventData(ResultSet resultSet) throws SQLException {
+        DomainEventData<?> entry = super.getDomainEventData(resultSet);
+        return typeDictionary == null ? entry : decode((GenericDomainEventEntry<?>) entry);
+    }
+
+    @Override
+    protected DomainEventData<?> getSnapshotData(ResultSet resultSet) throws SQLException {
+        DomainEventData<?> entry = super.getSnapshotData(resultSet);
+        return typeDictionary == null ? entry : decode((GenericDomainEventEntry<?>) entry);
+    }
+
+    private <T> GenericTrackedDomainEventEntry<T> decode(GenericTrackedDomainEventEntry<T> entry) {
+        return new GenericTrackedDomainEventEntry<>(entry.trackingToken(), nameFor(entry.getType()),
+                entry.getAggregateIdentifier(), entry.getSequenceNumber(), entry.getEventIdentifier(),
+                entry.getTimestamp(), nameFor(entry.getPayload().getType().getName()),
+                entry.getPayload().getType().getRevision(), entry.getPayload().getData(),
+                entry.getMetaData().getData());
+    }
+
+    private <T> GenericDomainEventEntry<T> decode(GenericDomainEventEntry<T> entry) {
+        return new GenericDomainEventEntry<>(nameFor(entry.getType()),
+                entry.getAggregateIdentifier(), entry.getSequenceNumber(), entry.getEventIdentifier(),
+                entry.getTimestamp(), nameFor(entry.getPayload().getType().getName()),
+                entry.getPayload().getType().getRevision(), entry.getPayload().getData(),
+                entry.getMetaData().getData());
+    }
+
+    private String nameFor(String code) {
+        return code == null ? null : typeDictionary.nameFor(Integer.parseInt(code));
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Listens for the postgres notifications sent when events are inserted into the domain event table and wakes up
+ * the event store's producer so tracking event processors receive the events immediately rather than on the next poll.
+ *
+ * The notifications are sent by the statement level trigger in the optional `domain-event-notify` migration. Postgres
+ * only delivers them once the inserting transaction has committed (so the events are visible) and collapses duplicate
+ * notifications sent within the same transaction.
+ *
+ * LISTEN needs a connection of its own which is held for the lifetime of the app, so it is opened outside the
+ * connection pool. If the connection is lost it is re-established, and the event store falls back to polling meanwhile.
+ */
+public class DomainEventNotificationListener implements SmartLifecycle, Runnable {
+    private static final Logger log = LoggerFactory.getLogger(DomainEventNotificationListener.class);
+
+    /**
+     * Must match the channel used by the trigger in the domain-event-notify migration.
+     */
+    public static final String CHANNEL = "axon_domain_event_appended";
+
+    /**
+     * How long a single wait for notifications blocks (which bounds how long stopping takes).
+     */
+    private static final int NOTIFICATION_WAIT_MILLIS = 500;
+
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(5);
+
+    private final DataSourceProperties dataSourceProperties;
+    private final NotifiableEmbeddedEventStore eventStore;
+    private volatile boolean running;
+    private Thread thread;
+
+    public DomainEventNotificationListener(DataSourceProperties dataSourceProperties,
+                                           NotifiableEmbeddedEventStore eventStore) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.eventStore = eventStore;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this, "domain-event-notification-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Listening for notifications on channel: {}", CHANNEL);
+
+                // Anything appended while we were not listening would otherwise wait for the next poll.
+                eventStore.fetchNow();
+                awaitNotifications(connection.unwrap(PGConnection.class));
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Lost the connection listening on channel {} (will fall back to polling and reconnect in {})",
+                            CHANNEL, RECONNECT_DELAY, e);
+                    sleepBeforeReconnect();
+                }
+            }
+        }
+        log.info("Stopped listening for notifications on channel: {}", CHANNEL);
+    }
+
+    private void awaitNotifications(PGConnection connection) throws SQLException {
+        while (running) {
+            PGNotification[] notifications = connection.getNotifications(NOTIFICATION_WAIT_MILLIS);
+            if (notifications != null && notifications.length > 0) {
+                eventStore.fetchNow();
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(RECONNECT_DELAY.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the partitions of the (range partitioned) domain event table ahead of the global index, on start up and
+ * then periodically, so that an insert never finds no partition for its global index.
+ *
+ * The partitions are created by a function of the `partitioned-event-store` migration, which only creates those which
+ * are missing - so several instances of the app can run this at the same time.
+ */
+public class DomainEventPartitionMaintainer implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(DomainEventPartitionMaintainer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int partitionsAhead;
+    private final Duration interval;
+    private ScheduledExecutorService executor;
+
+    public DomainEventPartitionMaintainer(JdbcTemplate jdbcTemplate, int partitionsAhead, Duration interval) {
+        if (partitionsAhead < 1) {
+            throw new IllegalArgumentException("At least one partition must be kept ahead of the global index but was "
+                    + partitionsAhead);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionsAhead = partitionsAhead;
+        this.interval = interval;
+    }
+
+    /**
+     * Create any missing partitions now.
+     */
+    public void createPartitions() {
+        Integer created = jdbcTemplate.queryForObject("SELECT axon.create_domainevententry_partitions(?)",
+                Integer.class, partitionsAhead);
+        if (created != null && created > 0) {
+            log.info("Created {} domain event table partition(s)", created);
+        }
+    }
+
+    @Override
+    public void start() {
+        // Fail on start up (rather than on the first insert into a missing partition) if this does not work.
+        createPartitions();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "domain-event-partition-maintainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                createPartitions();
+            } catch (RuntimeException e) {
+                log.warn("Failed to create the domain event table partitions (will retry in {})", interval, e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+}
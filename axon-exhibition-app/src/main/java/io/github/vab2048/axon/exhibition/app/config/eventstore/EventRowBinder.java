@@ -0,0 +1,119 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.jdbc.statements.TimestampWriter;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.Serializer;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.axonframework.common.DateTimeUtils.formatInstant;
+
+/**
+ * Binds the parameters of the event and snapshot table columns whose type depends on the optional migrations which
+ * have been applied:
+ * <ul>
+ *     <li>identifiers and timestamps as `uuid`/`timestamptz` or as TEXT (see the `native-column-types` migration).</li>
+ *     <li>payload types and aggregate types as the integer codes of a {@link TypeDictionary} or as their names (see
+ *     the `type-dictionary` migration).</li>
+ * </ul>
+ */
+public class EventRowBinder {
+
+    /**
+     * The Axon default: every one of these columns is TEXT.
+     */
+    public static final EventRowBinder DEFAULT = new EventRowBinder(false, null);
+
+    private final boolean nativeColumnTypes;
+    private final TypeDictionary typeDictionary;
+
+    /**
+     * @param typeDictionary the dictionary of the type columns, or null if they hold the names.
+     */
+    public EventRowBinder(boolean nativeColumnTypes, TypeDictionary typeDictionary) {
+        this.nativeColumnTypes = nativeColumnTypes;
+        this.typeDictionary = typeDictionary;
+    }
+
+    public boolean nativeColumnTypes() {
+        return nativeColumnTypes;
+    }
+
+    /**
+     * {@return the dictionary of the type columns, or null if they hold the names.}
+     */
+    public TypeDictionary typeDictionary() {
+        return typeDictionary;
+    }
+
+    /**
+     * Bind an event or aggregate identifier, which must be a UUID if the identifier columns are `uuid`.
+     */
+    public void setIdentifier(PreparedStatement statement, int position, String identifier) throws SQLException {
+        if (nativeColumnTypes) {
+            // postgres will not implicitly cast a varchar parameter to uuid.
+            statement.setObject(position, uuid(identifier));
+        } else {
+            statement.setString(position, identifier);
+        }
+    }
+
+    private static UUID uuid(String identifier) {
+        try {
+            return UUID.fromString(identifier);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(("Identifier '%s' is not a UUID, which the uuid identifier columns of"
+                    + " axon-exhibition.event-store.column-types=native require").formatted(identifier), e);
+        }
+    }
+
+    /**
+     * Bind a timestamp.
+     */
+    public void setTimestamp(PreparedStatement statement, int position, Instant timestamp) throws SQLException {
+        if (nativeColumnTypes) {
+            statement.setObject(position, OffsetDateTime.ofInstant(timestamp, ZoneOffset.UTC));
+        } else {
+            statement.setString(position, formatInstant(timestamp));
+        }
+    }
+
+    /**
+     * Bind a payload type or aggregate type (which is null for an event not published by an aggregate).
+     */
+    public void setType(PreparedStatement statement, int position, String type) throws SQLException {
+        if (typeDictionary == null) {
+            statement.setString(position, type);
+        } else if (type == null) {
+            statement.setNull(position, Types.INTEGER);
+        } else {
+            statement.setInt(position, typeDictionary.codeFor(type));
+        }
+    }
+
+    /**
+     * Bind the columns of an event (or snapshot) from the given position onwards, in the column order of
+     * {@link org.axonframework.eventsourcing.eventstore.jdbc.EventSchema#domainEventFields()}.
+     */
+    public void bindEvent(PreparedStatement statement, int offset, Class<?> dataType, DomainEventMessage<?> event,
+                          Serializer serializer, TimestampWriter timestampWriter) throws SQLException {
+        SerializedObject<?> payload = event.serializePayload(serializer, dataType);
+        SerializedObject<?> metaData = event.serializeMetaData(serializer, dataType);
+        setIdentifier(statement, offset + 1, event.getIdentifier());
+        setIdentifier(statement, offset + 2, event.getAggregateIdentifier());
+        statement.setLong(offset + 3, event.getSequenceNumber());
+        setType(statement, offset + 4, event.getType());
+        timestampWriter.writeTimestamp(statement, offset + 5, event.getTimestamp());
+        setType(statement, offset + 6, payload.getType().getName());
+        statement.setString(offset + 7, payload.getType().getRevision());
+        statement.setObject(offset + 8, payload.getData());
+        statement.setObject(offset + 9, metaData.getData());
+    }
+}
@@ -0,0 +1,180 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
+import org.axonframework.eventsourcing.eventstore.jdbc.statements.TimestampWriter;
+import org.axonframework.serialization.Serializer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.axonframework.eventhandling.EventUtils.asDomainEventMessage;
+
+/**
+ * The statements of the JDBC storage engine which bind an identifier, a timestamp or a type, for the event and
+ * snapshot tables as changed by the optional `native-column-types` and `type-dictionary` migrations.
+ *
+ * The SQL is the same as Axon's defaults (C.F. JdbcEventStorageEngineStatements) - only the parameters are bound
+ * by the given {@link EventRowBinder}. The exceptions are appending events with a {@link GlobalIndexSequencer}, which
+ * also inserts the global index, and {@link #upsertSnapshot upserting snapshots}.
+ */
+public class EventStoreStatements {
+    private final EventRowBinder binder;
+    private final GlobalIndexSequencer sequencer;
+
+    public EventStoreStatements(EventRowBinder binder) {
+        this(binder, null);
+    }
+
+    /**
+     * @param sequencer assigns the global index of appended events, or null to leave it to the identity column.
+     */
+    public EventStoreStatements(EventRowBinder binder, GlobalIndexSequencer sequencer) {
+        this.binder = binder;
+        this.sequencer = sequencer;
+    }
+
+    public PreparedStatement appendEvents(Connection connection, EventSchema schema, Class<?> dataType,
+                                          List<? extends EventMessage<?>> events, Serializer serializer,
+                                          TimestampWriter timestampWriter) throws SQLException {
+        if (sequencer == null) {
+            PreparedStatement statement = connection.prepareStatement(insertSql(schema.domainEventTable(), schema));
+            for (EventMessage<?> eventMessage : events) {
+                binder.bindEvent(statement, 0, dataType, asDomainEventMessage(eventMessage), serializer, timestampWriter);
+                statement.addBatch();
+            }
+            return statement;
+        }
+        long globalIndex = events.isEmpty() ? 0 : sequencer.reserve(connection, events.size());
+        PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO " + schema.domainEventTable() + " (" + schema.globalIndexColumn() + ", "
+                        + schema.domainEventFields() + ") VALUES (?,?,?,?,?,?,?,?,?,?)");
+        for (EventMessage<?> eventMessage : events) {
+            statement.setLong(1, globalIndex++);
+            binder.bindEvent(statement, 1, dataType, asDomainEventMessage(eventMessage), serializer, timestampWriter);
+            statement.addBatch();
+        }
+        return statement;
+    }
+
+    public PreparedStatement appendSnapshot(Connection connection, EventSchema schema, Class<?> dataType,
+                                            DomainEventMessage<?> snapshot, Serializer serializer,
+                                            TimestampWriter timestampWriter) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(insertSql(schema.snapshotTable(), schema));
+        binder.bindEvent(statement, 0, dataType, snapshot, serializer, timestampWriter);
+        return statement;
+    }
+
+    /**
+     * Append the snapshot or, if its aggregate already has one, replace that (unless it is the later of the two) - for
+     * the snapshot table keyed by aggregate alone by the optional `snapshot-upsert` migration.
+     */
+    public PreparedStatement upsertSnapshot(Connection connection, EventSchema schema, Class<?> dataType,
+                                            DomainEventMessage<?> snapshot, Serializer serializer,
+                                            TimestampWriter timestampWriter) throws SQLException {
+        String table = schema.snapshotTable();
+        String updates = Arrays.stream(schema.domainEventFields().split(","))
+                .map(String::trim)
+                .map(column -> column + " = EXCLUDED." + column)
+                .collect(Collectors.joining(", "));
+        String sql = insertSql(table, schema) + " ON CONFLICT (" + schema.aggregateIdentifierColumn() + ") DO UPDATE"
+                + " SET " + updates + " WHERE " + table + "." + schema.sequenceNumberColumn()
+                + " < EXCLUDED." + schema.sequenceNumberColumn();
+        PreparedStatement statement = connection.prepareStatement(sql);
+        binder.bindEvent(statement, 0, dataType, snapshot, serializer, timestampWriter);
+        return statement;
+    }
+
+    public PreparedStatement readEventDataForAggregate(Connection connection, EventSchema schema, String identifier,
+                                                       long firstSequenceNumber, int batchSize) throws SQLException {
+        String sql = "SELECT " + schema.trackedEventFields() + " FROM " + schema.domainEventTable()
+                + " WHERE " + schema.aggregateIdentifierColumn() + " = ? AND " + schema.sequenceNumberColumn() + " >= ?"
+                + " AND " + schema.sequenceNumberColumn() + " < ? ORDER BY " + schema.sequenceNumberColumn() + " ASC";
+        PreparedStatement statement = connection.prepareStatement(sql);
+        binder.setIdentifier(statement, 1, identifier);
+        statement.setLong(2, firstSequenceNumber);
+        statement.setLong(3, firstSequenceNumber + batchSize);
+        return statement;
+    }
+
+    public PreparedStatement readSnapshotData(Connection connection, EventSchema schema,
+                                              String identifier) throws SQLException {
+        String sql = "SELECT " + schema.domainEventFields() + " FROM " + schema.snapshotTable()
+                + " WHERE " + schema.aggregateIdentifierColumn() + " = ? ORDER BY " + schema.sequenceNumberColumn() + " DESC";
+        PreparedStatement statement = connection.prepareStatement(sql);
+        binder.setIdentifier(statement, 1, identifier);
+        return statement;
+    }
+
+    /**
+     * See {@link ReadSnapshotAndEventDataStatementBuilder}.
+     */
+    public PreparedStatement readSnapshotAndEventData(Connection connection, EventSchema schema, String identifier,
+                                                      int batchSize) throws SQLException {
+        String events = "SELECT 1, " + schema.domainEventFields() + " FROM " + schema.domainEventTable()
+                + " WHERE " + schema.aggregateIdentifierColumn() + " = ?"
+                + " AND " + schema.sequenceNumberColumn() + " >= (SELECT sequence_number FROM first_event)"
+                + " AND " + schema.sequenceNumberColumn() + " < (SELECT sequence_number FROM first_event) + ?";
+        PreparedStatement statement = connection.prepareStatement(readSnapshotAndEventDataSql(schema, events));
+        binder.setIdentifier(statement, 1, identifier);
+        binder.setIdentifier(statement, 2, identifier);
+        statement.setInt(3, batchSize);
+        return statement;
+    }
+
+    /**
+     * {@return the SQL reading the latest snapshot of an aggregate followed by the rows of the given select of its
+     * events, which selects the source 1 and the domain event fields of the events from the first_event (the one after
+     * the snapshot, or 0) onwards.} The aggregate identifier of the snapshot is the first parameter.
+     */
+    static String readSnapshotAndEventDataSql(EventSchema schema, String eventsSelect) {
+        String source = ReadSnapshotAndEventDataStatementBuilder.SOURCE_COLUMN;
+        return "WITH snapshot AS ("
+                + "SELECT " + schema.domainEventFields() + " FROM " + schema.snapshotTable()
+                + " WHERE " + schema.aggregateIdentifierColumn() + " = ?"
+                + " ORDER BY " + schema.sequenceNumberColumn() + " DESC LIMIT 1"
+                + "), first_event AS ("
+                + "SELECT coalesce((SELECT " + schema.sequenceNumberColumn() + " + 1 FROM snapshot), 0) AS sequence_number"
+                + ") SELECT 0 AS " + source + ", " + schema.domainEventFields() + " FROM snapshot"
+                + " UNION ALL " + eventsSelect
+                + " ORDER BY " + source + ", " + schema.sequenceNumberColumn();
+    }
+
+    public PreparedStatement lastSequenceNumberFor(Connection connection, EventSchema schema,
+                                                   String aggregateIdentifier) throws SQLException {
+        String sql = "SELECT max(" + schema.sequenceNumberColumn() + ") FROM " + schema.domainEventTable()
+                + " WHERE " + schema.aggregateIdentifierColumn() + " = ?";
+        PreparedStatement statement = connection.prepareStatement(sql);
+        binder.setIdentifier(statement, 1, aggregateIdentifier);
+        return statement;
+    }
+
+    public PreparedStatement deleteSnapshots(Connection connection, EventSchema schema,
+                                             String aggregateIdentifier, long sequenceNumber) throws SQLException {
+        String sql = "DELETE FROM " + schema.snapshotTable() + " WHERE " + schema.aggregateIdentifierColumn() + " = ?"
+                + " AND " + schema.sequenceNumberColumn() + " < ?";
+        PreparedStatement statement = connection.prepareStatement(sql);
+        binder.setIdentifier(statement, 1, aggregateIdentifier);
+        statement.setLong(2, sequenceNumber);
+        return statement;
+    }
+
+    public PreparedStatement createTokenAt(Connection connection, EventSchema schema,
+                                           Instant dateTime) throws SQLException {
+        String sql = "SELECT min(" + schema.globalIndexColumn() + ") - 1 FROM " + schema.domainEventTable()
+                + " WHERE " + schema.timestampColumn() + " >= ?";
+        PreparedStatement statement = connection.prepareStatement(sql);
+        binder.setTimestamp(statement, 1, dateTime);
+        return statement;
+    }
+
+    private static String insertSql(String table, EventSchema schema) {
+        return "INSERT INTO " + table + " (" + schema.domainEventFields() + ") VALUES (?,?,?,?,?,?,?,?,?)";
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Assigns the global index of appended events in commit order and without gaps, from the single row of a sequencing
+ * table (see the optional `commit-ordered-sequencing` migration) rather than from the identity of the domain event
+ * table.
+ *
+ * With the identity, concurrent transactions take their global indexes in the order they append but commit in any
+ * order. A tracking processor which reads in between sees a gap, which its GapAwareTrackingToken then carries (and the
+ * processor keeps querying) until the gap is filled or times out. Here the indexes are reserved with an UPDATE of the
+ * sequencing row, whose lock is held until the transaction commits or rolls back: the next transaction to append waits
+ * for it, so the indexes become visible in order, and the reservation of a rolled back transaction is rolled back
+ * with it.
+ *
+ * The cost is that appending transactions are serialized from their append until their commit (Axon appends in the
+ * prepare commit phase of the unit of work, so that is the end of the transaction).
+ */
+public class GlobalIndexSequencer {
+    private final String sequenceTable;
+
+    public GlobalIndexSequencer(String sequenceTable) {
+        this.sequenceTable = sequenceTable;
+    }
+
+    /**
+     * Reserve the given number of global indexes within the transaction of the given connection.
+     *
+     * @return the first of the reserved indexes (the rest follow it).
+     */
+    public long reserve(Connection connection, int count) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(reserveSql())) {
+            statement.setInt(1, count);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new IllegalStateException("The global index sequencing table " + sequenceTable + " is empty");
+                }
+                return resultSet.getLong(1) - count + 1;
+            }
+        }
+    }
+
+    String reserveSql() {
+        return "UPDATE " + sequenceTable + " SET lastGlobalIndex = lastGlobalIndex + ? RETURNING lastGlobalIndex";
+    }
+}
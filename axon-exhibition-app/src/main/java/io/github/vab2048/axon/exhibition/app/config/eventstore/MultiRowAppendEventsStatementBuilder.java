@@ -0,0 +1,178 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
+import org.axonframework.eventsourcing.eventstore.jdbc.statements.AppendEventsStatementBuilder;
+import org.axonframework.eventsourcing.eventstore.jdbc.statements.TimestampWriter;
+import org.axonframework.serialization.Serializer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.axonframework.eventhandling.EventUtils.asDomainEventMessage;
+
+/**
+ * Replacement for Axon's default append statement which writes the events of a unit of work using
+ * multi-row INSERT statements ({@code INSERT ... VALUES (...), (...), ...}) rather than one INSERT per event.
+ *
+ * The events are split into chunks of at most {@code maxBatchSize} rows. Since a JDBC batch can only hold a
+ * single SQL string, any remainder which does not fill a whole chunk gets a statement of its own, which the statement
+ * returned executes first when the storage engine executes its batch of the full chunks. Nothing is executed while
+ * building, so a failure of either (e.g. the unique key violation of a concurrent append) is handled by the storage
+ * engine as that of any append. Writing the remainder first (rather than last) keeps the order of the global index
+ * the same as the order of the events within the unit of work.
+ *
+ * With a {@link GlobalIndexSequencer} the global indexes of all the events are reserved up front and inserted along
+ * with the other columns, in the same order.
+ */
+public class MultiRowAppendEventsStatementBuilder implements AppendEventsStatementBuilder {
+
+    /**
+     * Number of columns written per event (see {@link EventSchema#domainEventFields()}).
+     */
+    static final int COLUMNS_PER_EVENT = 9;
+
+    /**
+     * Postgres allows at most 65535 bind parameters in a single statement.
+     */
+    static final int MAX_BATCH_SIZE = 65_535 / COLUMNS_PER_EVENT;
+
+    /**
+     * As {@link #MAX_BATCH_SIZE} when the global index is written too.
+     */
+    static final int MAX_SEQUENCED_BATCH_SIZE = 65_535 / (COLUMNS_PER_EVENT + 1);
+
+    private final int maxBatchSize;
+    private final EventRowBinder binder;
+    private final GlobalIndexSequencer sequencer;
+
+    public MultiRowAppendEventsStatementBuilder(int maxBatchSize) {
+        this(maxBatchSize, EventRowBinder.DEFAULT, null);
+    }
+
+    /**
+     * @param binder binds the identifier, timestamp and type columns according to their types.
+     * @param sequencer assigns the global index of the events, or null to leave it to the identity column.
+     */
+    public MultiRowAppendEventsStatementBuilder(int maxBatchSize, EventRowBinder binder, GlobalIndexSequencer sequencer) {
+        int limit = sequencer == null ? MAX_BATCH_SIZE : MAX_SEQUENCED_BATCH_SIZE;
+        if (maxBatchSize < 1 || maxBatchSize > limit) {
+            throw new IllegalArgumentException("The maximum append batch size must be between 1 and %s but was %s"
+                    .formatted(limit, maxBatchSize));
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.binder = binder;
+        this.sequencer = sequencer;
+    }
+
+    @Override
+    public PreparedStatement build(Connection connection, EventSchema schema, Class<?> dataType,
+                                   List<? extends EventMessage<?>> events, Serializer serializer,
+                                   TimestampWriter timestampWriter) throws SQLException {
+        if (events.isEmpty()) {
+            // Nothing to write - an empty batch is a no-op for the storage engine.
+            return connection.prepareStatement(insertSql(schema, 1));
+        }
+        long globalIndex = sequencer == null ? 0 : sequencer.reserve(connection, events.size());
+        boolean sequenced = sequencer != null;
+        int chunkSize = Math.min(events.size(), maxBatchSize);
+        int remainder = events.size() % chunkSize;
+
+        // Every full chunk is an entry of a single JDBC batch...
+        PreparedStatement statement = connection.prepareStatement(insertSql(schema, chunkSize, sequenced));
+        for (int from = remainder; from < events.size(); from += chunkSize) {
+            bindEvents(statement, globalIndex + from, dataType, events.subList(from, from + chunkSize), serializer,
+                    timestampWriter);
+            statement.addBatch();
+        }
+        if (remainder == 0) {
+            return statement;
+        }
+
+        // ...preceded by the partial chunk.
+        PreparedStatement remainderStatement;
+        try {
+            remainderStatement = connection.prepareStatement(insertSql(schema, remainder, sequenced));
+            bindEvents(remainderStatement, globalIndex, dataType, events.subList(0, remainder), serializer,
+                    timestampWriter);
+        } catch (SQLException | RuntimeException e) {
+            statement.close();
+            throw e;
+        }
+        return remainderFirst(remainderStatement, statement);
+    }
+
+    /*
+     * The given batch statement, executing the given statement before its batch (counting the rows of both) and
+     * closing it along with itself.
+     */
+    private static PreparedStatement remainderFirst(PreparedStatement remainder, PreparedStatement batch) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                switch (method.getName()) {
+                    case "executeBatch" -> {
+                        int remainderRows = remainder.executeUpdate();
+                        int[] batchRows = batch.executeBatch();
+                        int[] rows = new int[batchRows.length + 1];
+                        rows[0] = remainderRows;
+                        System.arraycopy(batchRows, 0, rows, 1, batchRows.length);
+                        return rows;
+                    }
+                    case "close" -> {
+                        try (remainder) {
+                            batch.close();
+                        }
+                        return null;
+                    }
+                    default -> {
+                        return method.invoke(batch, args);
+                    }
+                }
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(MultiRowAppendEventsStatementBuilder.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, handler);
+    }
+
+    /**
+     * {@return an INSERT statement for the domain event table with a VALUES row for each of the given number of events.}
+     */
+    static String insertSql(EventSchema schema, int numberOfEvents) {
+        return insertSql(schema, numberOfEvents, false);
+    }
+
+    static String insertSql(EventSchema schema, int numberOfEvents, boolean withGlobalIndex) {
+        String columns = withGlobalIndex
+                ? schema.globalIndexColumn() + ", " + schema.domainEventFields()
+                : schema.domainEventFields();
+        int columnsPerEvent = withGlobalIndex ? COLUMNS_PER_EVENT + 1 : COLUMNS_PER_EVENT;
+        String row = "(" + String.join(",", Collections.nCopies(columnsPerEvent, "?")) + ")";
+        return "INSERT INTO " + schema.domainEventTable() + " (" + columns + ") VALUES "
+                + String.join(",", Collections.nCopies(numberOfEvents, row));
+    }
+
+    /*
+     * Bind the parameters for each event in the same column order as Axon's own single row INSERT (preceded by the
+     * global index, starting from the given one, when sequenced).
+     */
+    private void bindEvents(PreparedStatement statement, long globalIndex, Class<?> dataType,
+                            List<? extends EventMessage<?>> events, Serializer serializer,
+                            TimestampWriter timestampWriter) throws SQLException {
+        int offset = 0;
+        for (EventMessage<?> eventMessage : events) {
+            if (sequencer != null) {
+                statement.setLong(++offset, globalIndex++);
+            }
+            binder.bindEvent(statement, offset, dataType, asDomainEventMessage(eventMessage), serializer, timestampWriter);
+            offset += COLUMNS_PER_EVENT;
+        }
+    }
+}
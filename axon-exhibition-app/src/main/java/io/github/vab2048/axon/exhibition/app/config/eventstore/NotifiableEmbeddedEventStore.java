@@ -0,0 +1,46 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import org.axonframework.eventsourcing.eventstore.DomainEventStream;
+import org.axonframework.eventsourcing.eventstore.EmbeddedEventStore;
+
+import java.util.Collections;
+
+/**
+ * An {@link EmbeddedEventStore} whose event producer can be woken up from outside the store.
+ *
+ * The embedded store's producer thread fetches new events from the storage engine for all the tracking event
+ * processors. It is woken up straight away when events are committed through this store, but events appended by
+ * another instance of the app are only seen on the next poll (every `fetchDelay`). Calling {@link #fetchNow()} when
+ * the DB notifies us of an insert (see {@link DomainEventNotificationListener}) removes that delay.
+ *
+ * When its storage engine {@link ApplicationJdbcEventStorageEngine#readsSnapshotAndEventsTogether() reads the snapshot
+ * and events of an aggregate together} the store loads aggregates with that one query, rather than reading the
+ * snapshot and then the events after it.
+ */
+public class NotifiableEmbeddedEventStore extends EmbeddedEventStore {
+
+    public NotifiableEmbeddedEventStore(Builder builder) {
+        super(builder);
+    }
+
+    /**
+     * Have the producer fetch from the storage engine now if it is currently waiting for events.
+     */
+    public void fetchNow() {
+        // The embedded store's afterCommit hook does exactly this (and nothing else) after a local commit.
+        afterCommit(Collections.emptyList());
+    }
+
+    /*
+     * As the super class does, but with the snapshot and the events read together.
+     */
+    @Override
+    public DomainEventStream readEvents(String aggregateIdentifier) {
+        if (!(storageEngine() instanceof ApplicationJdbcEventStorageEngine engine)
+                || !engine.readsSnapshotAndEventsTogether()) {
+            return super.readEvents(aggregateIdentifier);
+        }
+        return DomainEventStream.concat(engine.readSnapshotAndEvents(aggregateIdentifier),
+                DomainEventStream.of(stagedDomainEventMessages(aggregateIdentifier)));
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The statements of the JDBC storage engine which find the events of an aggregate, for a domain event table which is
+ * range partitioned on the global index (see the optional `partitioned-event-store` migration).
+ *
+ * Without the partition key in the query postgres would have to probe every partition for the events of an aggregate.
+ * Instead the (unpartitioned) aggregate index table is used to find the global indexes of the events, each of which
+ * is then fetched from the one partition which can hold it.
+ *
+ * The tracked event statements need no changes: they already select a range of the global index, so postgres only
+ * reads the partitions at or after the position of the tracking token.
+ */
+public class PartitionedEventTableStatements {
+    private final String aggregateIndexTable;
+    private final EventRowBinder binder;
+
+    /**
+     * @param binder binds the identifier columns according to their type.
+     */
+    public PartitionedEventTableStatements(String aggregateIndexTable, EventRowBinder binder) {
+        this.aggregateIndexTable = aggregateIndexTable;
+        this.binder = binder;
+    }
+
+    public PreparedStatement readEventDataForAggregate(Connection connection, EventSchema schema, String identifier,
+                                                       long firstSequenceNumber, int batchSize) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(readEventDataForAggregateSql(schema));
+        binder.setIdentifier(statement, 1, identifier);
+        statement.setLong(2, firstSequenceNumber);
+        statement.setLong(3, firstSequenceNumber + batchSize);
+        return statement;
+    }
+
+    /**
+     * See {@link ReadSnapshotAndEventDataStatementBuilder}.
+     */
+    public PreparedStatement readSnapshotAndEventData(Connection connection, EventSchema schema, String identifier,
+                                                      int batchSize) throws SQLException {
+        String fields = Arrays.stream(schema.domainEventFields().split(","))
+                .map(column -> "e." + column.trim())
+                .collect(Collectors.joining(", "));
+        String events = "SELECT 1, " + fields + " FROM " + aggregateIndexTable + " i"
+                + " JOIN " + schema.domainEventTable() + " e ON e." + schema.globalIndexColumn() + " = i." + schema.globalIndexColumn()
+                + " WHERE i." + schema.aggregateIdentifierColumn() + " = ?"
+                + " AND i." + schema.sequenceNumberColumn() + " >= (SELECT sequence_number FROM first_event)"
+                + " AND i." + schema.sequenceNumberColumn() + " < (SELECT sequence_number FROM first_event) + ?";
+        PreparedStatement statement = connection.prepareStatement(
+                EventStoreStatements.readSnapshotAndEventDataSql(schema, events));
+        binder.setIdentifier(statement, 1, identifier);
+        binder.setIdentifier(statement, 2, identifier);
+        statement.setInt(3, batchSize);
+        return statement;
+    }
+
+    public PreparedStatement lastSequenceNumberFor(Connection connection, EventSchema schema,
+                                                   String aggregateIdentifier) throws SQLException {
+        String sql = "SELECT max(" + schema.sequenceNumberColumn() + ") FROM " + aggregateIndexTable
+                + " WHERE " + schema.aggregateIdentifierColumn() + " = ?";
+        PreparedStatement statement = connection.prepareStatement(sql);
+        binder.setIdentifier(statement, 1, aggregateIdentifier);
+        return statement;
+    }
+
+    String readEventDataForAggregateSql(EventSchema schema) {
+        // The same columns as EventSchema#trackedEventFields(), qualified as some are in both tables.
+        String fields = Stream.of(
+                        schema.globalIndexColumn(),
+                        schema.eventIdentifierColumn(),
+                        schema.timestampColumn(),
+                        schema.payloadTypeColumn(),
+                        schema.payloadRevisionColumn(),
+                        schema.payloadColumn(),
+                        schema.metaDataColumn(),
+                        schema.typeColumn(),
+                        schema.aggregateIdentifierColumn(),
+                        schema.sequenceNumberColumn())
+                .map(column -> "e." + column)
+                .collect(Collectors.joining(", "));
+        return "SELECT " + fields + " FROM " + aggregateIndexTable + " i"
+                + " JOIN " + schema.domainEventTable() + " e ON e." + schema.globalIndexColumn() + " = i." + schema.globalIndexColumn()
+                + " WHERE i." + schema.aggregateIdentifierColumn() + " = ?"
+                + " AND i." + schema.sequenceNumberColumn() + " >= ? AND i." + schema.sequenceNumberColumn() + " < ?"
+                + " ORDER BY i." + schema.sequenceNumberColumn() + " ASC";
+    }
+}
@@ -0,0 +1,152 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
+import org.axonframework.messaging.annotation.AnnotatedHandlerInspector;
+import org.axonframework.messaging.annotation.MessageHandlingMember;
+
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Replacement for Axon's statements which read the domain event table for tracking event processors, which only
+ * fetch the payload of the events whose payload type is one of a given set (i.e. the types a processing group can
+ * handle).
+ *
+ * Every row in the range is still returned (with its global index, payload type, metadata etc.) but the payload of
+ * any other type is replaced by a JSON null. This is deliberate: a row which is missing from the results is treated
+ * by the storage engine as a gap in the global index (i.e. a transaction which may yet commit) which the tracking
+ * token would then hold on to, whereas the returned rows advance the token exactly as before. Those events are never
+ * deserialized as the processor has no handler for their payload type.
+ *
+ * When the payload type column holds the codes of a {@link TypeDictionary} the filter compares codes instead (see
+ * {@link #using(TypeDictionary)}).
+ */
+public class PayloadTypeFilter {
+    private final SortedSet<String> payloadTypes;
+    private final TypeDictionary typeDictionary;
+
+    public PayloadTypeFilter(Collection<String> payloadTypes) {
+        this(payloadTypes, null);
+    }
+
+    private PayloadTypeFilter(Collection<String> payloadTypes, TypeDictionary typeDictionary) {
+        if (payloadTypes.isEmpty()) {
+            throw new IllegalArgumentException("A payload type filter needs at least one payload type");
+        }
+        this.payloadTypes = Collections.unmodifiableSortedSet(new TreeSet<>(payloadTypes));
+        this.typeDictionary = typeDictionary;
+    }
+
+    /**
+     * {@return this filter for a payload type column which holds the codes of the given dictionary (or the names, if
+     * it is null).}
+     */
+    public PayloadTypeFilter using(TypeDictionary typeDictionary) {
+        return new PayloadTypeFilter(payloadTypes, typeDictionary);
+    }
+
+    /**
+     * {@return a filter for the payload types handled by the event handlers of the given classes (as found by Axon's
+     * handler inspector) or empty if any handler accepts a payload type which could have subtypes, as the stored
+     * payload type names of those cannot be known up front.}
+     */
+    public static Optional<PayloadTypeFilter> forHandlersOf(Class<?>... handlerTypes) {
+        Set<Class<?>> payloadTypes = handledPayloadTypes(handlerTypes);
+        if (payloadTypes.isEmpty() || !payloadTypes.stream().allMatch(type -> Modifier.isFinal(type.getModifiers()))) {
+            return Optional.empty();
+        }
+        return Optional.of(new PayloadTypeFilter(payloadTypes.stream().map(Class::getName).toList()));
+    }
+
+    static Set<Class<?>> handledPayloadTypes(Class<?>... handlerTypes) {
+        Set<Class<?>> payloadTypes = new HashSet<>();
+        for (Class<?> handlerType : handlerTypes) {
+            AnnotatedHandlerInspector<?> inspector = AnnotatedHandlerInspector.inspectType(handlerType);
+            inspector.getAllHandlers().values().stream()
+                    .flatMap(Collection::stream)
+                    // @EventSourcingHandler and @SagaEventHandler are meta-annotated with @EventHandler.
+                    .filter(handler -> handler.annotationAttributes(EventHandler.class).isPresent())
+                    .map(MessageHandlingMember::payloadType)
+                    .forEach(payloadTypes::add);
+        }
+        return payloadTypes;
+    }
+
+    public SortedSet<String> payloadTypes() {
+        return payloadTypes;
+    }
+
+    /**
+     * As Axon's default statement: the events in the given range of the global index...
+     */
+    public PreparedStatement readEventDataWithoutGaps(Connection connection, EventSchema schema, long globalIndex,
+                                                      int batchSize) throws SQLException {
+        return readEventData(connection, schema, globalIndex, batchSize, Collections.emptyList());
+    }
+
+    /**
+     * ...plus those in any of the gaps of the tracking token.
+     */
+    public PreparedStatement readEventDataWithGaps(Connection connection, EventSchema schema, long globalIndex,
+                                                   int batchSize, List<Long> gaps) throws SQLException {
+        return readEventData(connection, schema, globalIndex, batchSize, gaps);
+    }
+
+    private PreparedStatement readEventData(Connection connection, EventSchema schema, long globalIndex,
+                                            int batchSize, List<Long> gaps) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(selectSql(schema, gaps.size()));
+        if (typeDictionary == null) {
+            statement.setArray(1, connection.createArrayOf("text", payloadTypes.toArray()));
+        } else {
+            // The codes are cached after the first batch, so this does not go to the DB again.
+            Object[] codes = payloadTypes.stream().map(typeDictionary::codeFor).toArray();
+            statement.setArray(1, connection.createArrayOf("int4", codes));
+        }
+        statement.setLong(2, globalIndex);
+        statement.setLong(3, globalIndex + batchSize);
+        for (int i = 0; i < gaps.size(); i++) {
+            statement.setLong(i + 4, gaps.get(i));
+        }
+        return statement;
+    }
+
+    static String selectSql(EventSchema schema, int numberOfGaps) {
+        String globalIndex = schema.globalIndexColumn();
+        // The same columns (and column names) as EventSchema#trackedEventFields() which the engine reads the rows by.
+        String fields = String.join(", ",
+                globalIndex,
+                schema.eventIdentifierColumn(),
+                schema.timestampColumn(),
+                schema.payloadTypeColumn(),
+                schema.payloadRevisionColumn(),
+                "CASE WHEN " + schema.payloadTypeColumn() + " = ANY(?) THEN " + schema.payloadColumn()
+                        + " ELSE 'null' END AS " + schema.payloadColumn(),
+                schema.metaDataColumn(),
+                schema.typeColumn(),
+                schema.aggregateIdentifierColumn(),
+                schema.sequenceNumberColumn());
+        String where = "(" + globalIndex + " > ? AND " + globalIndex + " <= ?)";
+        if (numberOfGaps > 0) {
+            where += " OR " + globalIndex + " IN (" + String.join(",", Collections.nCopies(numberOfGaps, "?")) + ")";
+        }
+        return "SELECT " + fields + " FROM " + schema.domainEventTable() + " WHERE " + where
+                + " ORDER BY " + globalIndex + " ASC";
+    }
+
+    @Override
+    public String toString() {
+        return payloadTypes.stream().collect(Collectors.joining(", ", "PayloadTypeFilter[", "]"));
+    }
+}
@@ -0,0 +1,137 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import org.axonframework.common.stream.BlockingStream;
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.eventsourcing.eventstore.EventStorageEngine;
+import org.axonframework.eventsourcing.eventstore.EventStore;
+import org.axonframework.messaging.StreamableMessageSource;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Message source for a tracking event processor which reads its way through the event history with a storage engine
+ * that only fetches the payloads the processor can handle (see {@link PayloadTypeFilter}), and then continues from
+ * the event store itself.
+ *
+ * Once caught up the processor shares the event store's producer (and its cache of recent events) with every other
+ * processor, so the filtering only applies to catching up and replays - which is where reading payloads that are
+ * discarded straight away costs the most.
+ */
+public class PayloadTypeFilteredMessageSource implements StreamableMessageSource<TrackedEventMessage<?>> {
+    private final EventStore eventStore;
+    private final EventStorageEngine filteredStorageEngine;
+
+    public PayloadTypeFilteredMessageSource(EventStore eventStore, EventStorageEngine filteredStorageEngine) {
+        this.eventStore = eventStore;
+        this.filteredStorageEngine = filteredStorageEngine;
+    }
+
+    @Override
+    public BlockingStream<TrackedEventMessage<?>> openStream(TrackingToken trackingToken) {
+        return new CatchUpStream(trackingToken);
+    }
+
+    @Override
+    public TrackingToken createTailToken() {
+        return eventStore.createTailToken();
+    }
+
+    @Override
+    public TrackingToken createHeadToken() {
+        return eventStore.createHeadToken();
+    }
+
+    @Override
+    public TrackingToken createTokenAt(Instant dateTime) {
+        return eventStore.createTokenAt(dateTime);
+    }
+
+    /*
+     * Reads from the filtered storage engine until it has no more events (i.e. the head of the event store has been
+     * reached) and from then on reads from the event store, starting at the token of the last event read.
+     */
+    private class CatchUpStream implements BlockingStream<TrackedEventMessage<?>> {
+        private TrackingToken lastToken;
+        private Stream<? extends TrackedEventMessage<?>> catchUpStream;
+        private Iterator<? extends TrackedEventMessage<?>> catchUpIterator;
+        private TrackedEventMessage<?> peeked;
+        private BlockingStream<TrackedEventMessage<?>> eventStoreStream;
+
+        CatchUpStream(TrackingToken trackingToken) {
+            this.lastToken = trackingToken;
+            this.catchUpStream = filteredStorageEngine.readEvents(trackingToken, false);
+            this.catchUpIterator = catchUpStream.iterator();
+        }
+
+        @Override
+        public Optional<TrackedEventMessage<?>> peek() {
+            return catchingUp() ? Optional.of(peeked) : eventStoreStream().peek();
+        }
+
+        @Override
+        public boolean hasNextAvailable(int timeout, TimeUnit unit) throws InterruptedException {
+            return catchingUp() || eventStoreStream().hasNextAvailable(timeout, unit);
+        }
+
+        @Override
+        public TrackedEventMessage<?> nextAvailable() throws InterruptedException {
+            if (catchingUp()) {
+                TrackedEventMessage<?> next = peeked;
+                peeked = null;
+                lastToken = next.trackingToken();
+                return next;
+            }
+            return eventStoreStream().nextAvailable();
+        }
+
+        @Override
+        public void skipMessagesWithPayloadTypeOf(TrackedEventMessage<?> ignoredMessage) {
+            if (eventStoreStream != null) {
+                eventStoreStream.skipMessagesWithPayloadTypeOf(ignoredMessage);
+            }
+        }
+
+        @Override
+        public void close() {
+            closeCatchUpStream();
+            if (eventStoreStream != null) {
+                eventStoreStream.close();
+            }
+        }
+
+        /*
+         * Whether the next event comes from the filtered storage engine (in which case it is held in `peeked`).
+         */
+        private boolean catchingUp() {
+            if (peeked != null) {
+                return true;
+            }
+            if (catchUpIterator != null && catchUpIterator.hasNext()) {
+                peeked = catchUpIterator.next();
+                return true;
+            }
+            closeCatchUpStream();
+            return false;
+        }
+
+        private BlockingStream<TrackedEventMessage<?>> eventStoreStream() {
+            if (eventStoreStream == null) {
+                eventStoreStream = eventStore.openStream(lastToken);
+            }
+            return eventStoreStream;
+        }
+
+        private void closeCatchUpStream() {
+            if (catchUpStream != null) {
+                catchUpStream.close();
+                catchUpStream = null;
+                catchUpIterator = null;
+            }
+        }
+    }
+}
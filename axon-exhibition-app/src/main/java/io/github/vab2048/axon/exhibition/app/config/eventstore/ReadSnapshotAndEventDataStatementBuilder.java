@@ -0,0 +1,23 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Builds the single statement which reads the latest snapshot of an aggregate together with the first batch of the
+ * events after it (or of all its events when it has no snapshot) - see
+ * {@link ApplicationJdbcEventStorageEngine#readSnapshotAndEvents(String)}.
+ *
+ * The snapshot row (if any) comes first with {@link #SOURCE_COLUMN} 0, followed by the event rows with 1 in sequence
+ * number order. Both have the columns of {@link EventSchema#domainEventFields()}.
+ */
+@FunctionalInterface
+public interface ReadSnapshotAndEventDataStatementBuilder {
+    String SOURCE_COLUMN = "source";
+
+    PreparedStatement build(Connection connection, EventSchema schema, String aggregateIdentifier,
+                            int batchSize) throws SQLException;
+}
@@ -0,0 +1,99 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import org.axonframework.common.jdbc.ConnectionProvider;
+import org.axonframework.eventsourcing.eventstore.EventStoreException;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The codes of the type dictionary table (see the optional `type-dictionary` migration) which are stored in the
+ * payloadType and type columns of the event and snapshot tables in place of the (fully qualified class) names.
+ *
+ * Both directions are cached in memory. There are only as many entries as there are event, snapshot and aggregate
+ * types so, once warmed up, every lookup is a read of a {@link ConcurrentHashMap} (which does not lock).
+ *
+ * The table is read and written on the connection of the current unit of work, if any - so a new name is added in the
+ * transaction of the events being appended, and does not need another connection of the pool. It is only cached once
+ * that transaction has committed, so that a cached code always exists in the table. A name can be added by several
+ * instances of the app at once, in which case they all get the code of whichever insert won.
+ */
+public class TypeDictionary {
+    private final ConnectionProvider connectionProvider;
+    private final String table;
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+    public TypeDictionary(ConnectionProvider connectionProvider, String table) {
+        this.connectionProvider = connectionProvider;
+        this.table = table;
+    }
+
+    /**
+     * {@return the code for the given name, adding it to the dictionary if it is new.}
+     */
+    public int codeFor(String name) {
+        Integer code = codes.get(name);
+        return code != null ? code : load(name);
+    }
+
+    /**
+     * {@return the name for the given code.}
+     */
+    public String nameFor(int code) {
+        String name = names.get(code);
+        return name != null ? name : load(code);
+    }
+
+    private int load(String name) {
+        try (Connection connection = connectionProvider.getConnection()) {
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO " + table + " (name) VALUES (?) ON CONFLICT (name) DO NOTHING")) {
+                insert.setString(1, name);
+                insert.executeUpdate();
+            }
+            try (PreparedStatement select = connection.prepareStatement("SELECT code FROM " + table + " WHERE name = ?")) {
+                select.setString(1, name);
+                try (ResultSet resultSet = select.executeQuery()) {
+                    resultSet.next();
+                    int code = resultSet.getInt(1);
+                    if (CurrentUnitOfWork.isStarted()) {
+                        CurrentUnitOfWork.get().root().afterCommit(unitOfWork -> cache(code, name));
+                    } else {
+                        cache(code, name);
+                    }
+                    return code;
+                }
+            }
+        } catch (SQLException e) {
+            throw new EventStoreException("Failed to find the type dictionary code for " + name, e);
+        }
+    }
+
+    private String load(int code) {
+        try (Connection connection = connectionProvider.getConnection();
+             PreparedStatement select = connection.prepareStatement("SELECT name FROM " + table + " WHERE code = ?")) {
+            select.setInt(1, code);
+            try (ResultSet resultSet = select.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new IllegalStateException("There is no type with code " + code + " in " + table);
+                }
+                cache(code, resultSet.getString(1));
+                return resultSet.getString(1);
+            }
+        } catch (SQLException e) {
+            throw new EventStoreException("Failed to find the type dictionary name for code " + code, e);
+        }
+    }
+
+    private int cache(int code, String name) {
+        codes.put(name, code);
+        names.put(code, name);
+        return code;
+    }
+}
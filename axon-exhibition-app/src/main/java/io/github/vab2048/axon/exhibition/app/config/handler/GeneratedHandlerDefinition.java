@@ -0,0 +1,108 @@
+package io.github.vab2048.axon.exhibition.app.config.handler;
+
+import org.axonframework.common.Priority;
+import org.axonframework.messaging.Message;
+import org.axonframework.messaging.annotation.AnnotatedMessageHandlingMemberDefinition;
+import org.axonframework.messaging.annotation.HandlerDefinition;
+import org.axonframework.messaging.annotation.MessageHandlingMember;
+import org.axonframework.messaging.annotation.ParameterResolver;
+import org.axonframework.messaging.annotation.ParameterResolverFactory;
+import org.axonframework.messaging.annotation.WrappedMessageHandlingMember;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the message handlers of the aggregates and sagas which invoke the handler method (or constructor) through the
+ * invoker generated for it at compile time by the axon-exhibition-handler-processor, rather than reflectively.
+ *
+ * The handler is otherwise the one Axon would create (with its annotation attributes, payload type etc.), so the
+ * handler enhancers (command, event sourcing, saga...) apply as usual. A handler without a generated invoker - e.g. a
+ * private one - is left to the next handler definition, and so is invoked reflectively.
+ *
+ * Registered through META-INF/services, so that both the app and the test fixtures use it.
+ */
+@Priority(Priority.HIGH)
+public class GeneratedHandlerDefinition implements HandlerDefinition {
+    static final String GENERATED_CLASS_SUFFIX = "HandlerInvokers";
+
+    private final HandlerDefinition delegate = new AnnotatedMessageHandlingMemberDefinition();
+    private final Map<Class<?>, Map<String, BiFunction<Object, Object[], Object>>> invokersByType =
+            new ConcurrentHashMap<>();
+
+    @Override
+    public <T> Optional<MessageHandlingMember<T>> createHandler(Class<T> declaringType, Executable executable,
+                                                               ParameterResolverFactory parameterResolverFactory) {
+        BiFunction<Object, Object[], Object> invoker =
+                invokers(executable.getDeclaringClass()).get(signature(executable));
+        if (invoker == null) {
+            return Optional.empty();
+        }
+        return delegate.createHandler(declaringType, executable, parameterResolverFactory)
+                .map(handler -> new GeneratedInvokerMessageHandlingMember<>(
+                        handler, executable, parameterResolverFactory, invoker));
+    }
+
+    /**
+     * {@return the signature of the given handler, as the generated invokers are keyed by.}
+     */
+    static String signature(Executable executable) {
+        String name = executable instanceof Constructor ? "<init>" : executable.getName();
+        return Arrays.stream(executable.getParameterTypes())
+                .map(Class::getCanonicalName)
+                .collect(Collectors.joining(",", name + "(", ")"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, BiFunction<Object, Object[], Object>> invokers(Class<?> type) {
+        return invokersByType.computeIfAbsent(type, t -> {
+            try {
+                Class<?> generated = Class.forName(t.getName() + GENERATED_CLASS_SUFFIX, true, t.getClassLoader());
+                return (Map<String, BiFunction<Object, Object[], Object>>) generated.getField("INVOKERS").get(null);
+            } catch (ClassNotFoundException e) {
+                // Not an aggregate or saga (or none of its handlers could have an invoker generated).
+                return Map.of();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new IllegalStateException("Invalid generated handler invokers for " + t.getName(), e);
+            }
+        });
+    }
+
+    /**
+     * The handler created by Axon, only invoking the handler method through its generated invoker.
+     *
+     * The parameters are resolved as Axon resolves them.
+     */
+    static class GeneratedInvokerMessageHandlingMember<T> extends WrappedMessageHandlingMember<T> {
+        private final ParameterResolver<?>[] parameterResolvers;
+        private final BiFunction<Object, Object[], Object> invoker;
+
+        GeneratedInvokerMessageHandlingMember(MessageHandlingMember<T> delegate, Executable executable,
+                                              ParameterResolverFactory parameterResolverFactory,
+                                              BiFunction<Object, Object[], Object> invoker) {
+            super(delegate);
+            this.invoker = invoker;
+            // The delegate has already checked each parameter can be resolved.
+            this.parameterResolvers = new ParameterResolver<?>[executable.getParameterCount()];
+            for (int i = 0; i < parameterResolvers.length; i++) {
+                parameterResolvers[i] = parameterResolverFactory.createInstance(
+                        executable, executable.getParameters(), i);
+            }
+        }
+
+        @Override
+        public Object handle(Message<?> message, T target) throws Exception {
+            Object[] parameters = new Object[parameterResolvers.length];
+            for (int i = 0; i < parameters.length; i++) {
+                parameters[i] = parameterResolvers[i].resolveParameterValue(message);
+            }
+            return invoker.apply(target, parameters);
+        }
+    }
+}
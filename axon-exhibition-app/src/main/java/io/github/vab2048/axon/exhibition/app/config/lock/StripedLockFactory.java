@@ -0,0 +1,222 @@
+package io.github.vab2048.axon.exhibition.app.config.lock;
+
+import org.axonframework.common.lock.Lock;
+import org.axonframework.common.lock.LockAcquisitionFailedException;
+import org.axonframework.common.lock.LockFactory;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The locks an aggregate repository takes while handling a command on an aggregate, as a fixed number of stripes (the
+ * aggregate identifier is hashed to its stripe) rather than Axon's PessimisticLockFactory's lock per identifier.
+ *
+ * A lock is acquired by spinning briefly (a command on a busy account usually holds it for well under a millisecond)
+ * and then parking until the timeout, after which the command fails with a {@link LockAcquisitionFailedException}.
+ * Unlike the PessimisticLockFactory there is no deadlock detection: a thread holding the lock of one aggregate while
+ * waiting for another's (whether or not they share a stripe with others) times out instead - unless the locks of the
+ * aggregates a unit of work handles together are taken in {@link #lockOrder()}.
+ *
+ * The time each acquisition waits is counted in a histogram, and the aggregates whose locks are most often contended
+ * are tracked (up to a limit, beyond which the least contended are dropped).
+ */
+public class StripedLockFactory implements LockFactory {
+    // The upper bound (in microseconds) of each wait time bucket but the last: the first counts the uncontended.
+    private static final long[] BUCKET_BOUNDS_MICROS = {0, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+    private static final int TOP_CONTENDED = 10;
+
+    private final String name;
+    private final ReentrantLock[] stripes;
+    private final int spins;
+    private final long timeoutNanos;
+    private final int trackedAggregates;
+
+    private final LongAdder[] waits = new LongAdder[BUCKET_BOUNDS_MICROS.length + 1];
+    private final LongAdder timeouts = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final Map<String, Contention> contended = new ConcurrentHashMap<>();
+
+    /**
+     * @param stripes the number of locks (rounded up to a power of two).
+     * @param spins how many times to retry the lock before parking.
+     * @param timeout how long to wait for the lock before failing the command.
+     * @param trackedAggregates the number of contended aggregates tracked for the top contended.
+     */
+    public StripedLockFactory(String name, int stripes, int spins, Duration timeout, int trackedAggregates) {
+        if (stripes <= 0 || stripes > 1 << 30) {
+            throw new IllegalArgumentException("The number of %s lock stripes must be between 1 and 2^30 but was %s"
+                    .formatted(name, stripes));
+        }
+        this.name = name;
+        this.stripes = new ReentrantLock[stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.spins = spins;
+        this.timeoutNanos = timeout.toNanos();
+        this.trackedAggregates = trackedAggregates;
+        for (int i = 0; i < waits.length; i++) {
+            waits[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public Lock obtainLock(String identifier) {
+        ReentrantLock stripe = stripes[stripeOf(identifier)];
+        if (stripe.tryLock()) {
+            waits[0].increment();
+            return new StripeLock(stripe);
+        }
+        long start = System.nanoTime();
+        try {
+            if (acquire(stripe, start)) {
+                long waited = System.nanoTime() - start;
+                recordWait(waited);
+                recordContention(identifier, waited);
+                return new StripeLock(stripe);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LockAcquisitionFailedException(
+                    "Interrupted while waiting for the lock of aggregate " + identifier, e);
+        }
+        timeouts.increment();
+        recordContention(identifier, System.nanoTime() - start);
+        throw new LockAcquisitionFailedException("Failed to acquire the lock of aggregate %s within %s ms"
+                .formatted(identifier, TimeUnit.NANOSECONDS.toMillis(timeoutNanos)));
+    }
+
+    private boolean acquire(ReentrantLock stripe, long start) throws InterruptedException {
+        for (int i = 0; i < spins; i++) {
+            Thread.onSpinWait();
+            if (stripe.tryLock()) {
+                return true;
+            }
+        }
+        return stripe.tryLock(timeoutNanos - (System.nanoTime() - start), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * {@return the order in which to obtain the locks of several aggregates in one unit of work, so that units of work
+     * locking some of the same aggregates (or stripes) never each hold a lock the other waits for: by stripe, then by
+     * identifier.}
+     *
+     * A stripe's lock is reentrant, so aggregates sharing a stripe can be locked in any order.
+     */
+    public Comparator<String> lockOrder() {
+        return Comparator.<String>comparingInt(this::stripeOf).thenComparing(Comparator.naturalOrder());
+    }
+
+    private int stripeOf(String identifier) {
+        int hash = identifier.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    private void recordWait(long waitNanos) {
+        long waitMicros = TimeUnit.NANOSECONDS.toMicros(waitNanos);
+        int bucket = 1;
+        while (bucket < BUCKET_BOUNDS_MICROS.length && waitMicros > BUCKET_BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        waits[bucket].increment();
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private void recordContention(String identifier, long waitNanos) {
+        Contention contention = contended.get(identifier);
+        if (contention == null) {
+            if (contended.size() >= trackedAggregates) {
+                dropLeastContended();
+            }
+            contention = contended.computeIfAbsent(identifier, id -> new Contention());
+        }
+        contention.count.increment();
+        contention.waitNanos.add(waitNanos);
+    }
+
+    /*
+     * Make room for newly contended aggregates by dropping the less contended half of those tracked.
+     */
+    private synchronized void dropLeastContended() {
+        if (contended.size() < trackedAggregates) {
+            return;
+        }
+        contended.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().count.sum()))
+                .limit(Math.max(1, contended.size() / 2))
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(contended::remove);
+    }
+
+    public Metrics metrics() {
+        Map<String, Long> waitHistogram = new LinkedHashMap<>();
+        waitHistogram.put("uncontended", waits[0].sum());
+        for (int i = 1; i < BUCKET_BOUNDS_MICROS.length; i++) {
+            waitHistogram.put("<=" + BUCKET_BOUNDS_MICROS[i] + "us", waits[i].sum());
+        }
+        waitHistogram.put(">" + BUCKET_BOUNDS_MICROS[BUCKET_BOUNDS_MICROS.length - 1] + "us",
+                waits[BUCKET_BOUNDS_MICROS.length].sum());
+        List<ContendedAggregate> topContended = contended.entrySet().stream()
+                .map(entry -> new ContendedAggregate(entry.getKey(), entry.getValue().count.sum(),
+                        TimeUnit.NANOSECONDS.toMicros(entry.getValue().waitNanos.sum())))
+                .sorted(Comparator.comparingLong(ContendedAggregate::contendedAcquisitions).reversed())
+                .limit(TOP_CONTENDED)
+                .toList();
+        return new Metrics(name, stripes.length, waitHistogram, timeouts.sum(),
+                TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()), topContended);
+    }
+
+    private static class Contention {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+    }
+
+    private static class StripeLock implements Lock {
+        private final ReentrantLock stripe;
+        private boolean released;
+
+        StripeLock(ReentrantLock stripe) {
+            this.stripe = stripe;
+        }
+
+        @Override
+        public void release() {
+            if (!released) {
+                released = true;
+                stripe.unlock();
+            }
+        }
+
+        @Override
+        public boolean isHeld() {
+            return !released && stripe.isHeldByCurrentThread();
+        }
+    }
+
+    /**
+     * @param name the name of the lock factory (the aggregate type).
+     * @param stripes the number of locks.
+     * @param waitHistogram the number of acquisitions by how long they waited.
+     * @param timeouts the number of commands failed as the lock was not acquired within the timeout.
+     * @param maxWaitMicros the longest an acquisition waited.
+     * @param topContended the aggregates whose locks were most often waited for.
+     */
+    public record Metrics(String name, int stripes, Map<String, Long> waitHistogram, long timeouts,
+                          long maxWaitMicros, List<ContendedAggregate> topContended) {}
+
+    /**
+     * @param aggregateIdentifier the identifier of the aggregate.
+     * @param contendedAcquisitions the number of times its lock was waited for (including timeouts).
+     * @param totalWaitMicros the total time waited for it.
+     */
+    public record ContendedAggregate(String aggregateIdentifier, long contendedAcquisitions, long totalWaitMicros) {}
+}
@@ -0,0 +1,105 @@
+package io.github.vab2048.axon.exhibition.app.config.saga;
+
+import io.github.vab2048.axon.exhibition.app.config.cache.BoundedAggregateCache;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.axonframework.modelling.saga.AssociationValue;
+import org.axonframework.modelling.saga.AssociationValues;
+import org.axonframework.modelling.saga.repository.CachingSagaStore;
+import org.axonframework.modelling.saga.repository.SagaStore;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A saga store keeping the sagas, and the identifiers of the sagas associated with each association value, in memory
+ * in front of the given (e.g. JDBC) saga store - so that e.g. each event of a payment settlement does not read and
+ * deserialize the saga again.
+ *
+ * The caching is Axon's own, which removes a saga (and its associations) from the caches when it is deleted, i.e. once
+ * an {@code @EndSaga} handler has run. As a cached saga is the very instance its handlers change, it is also removed
+ * when a unit of work which used it rolls back (and so are all the cached associations when one which changed the
+ * saga does) - leaving the saga to be read again from the saga store.
+ *
+ * The event processor of the sagas only handles the events of a segment on one instance of the app at a time, but a
+ * saga cached by an instance which has since lost the segment goes stale, which the time to idle bounds.
+ *
+ * Association values which the {@link SagaAssociationFilter} knows have no saga are not looked up at all.
+ */
+public class BoundedCachingSagaStore<T> implements SagaStore<T> {
+    private final BoundedAggregateCache sagaCache;
+    private final BoundedAggregateCache associationsCache;
+    private final SagaStore<T> cachingSagaStore;
+    private final SagaAssociationFilter associationFilter;
+
+    /**
+     * @param maximumSize the number of sagas (and of association values) kept, or 0 to keep none.
+     * @param timeToIdle how long a saga (or association value) is kept after it was last used.
+     */
+    public BoundedCachingSagaStore(SagaStore<T> delegate, int maximumSize, Duration timeToIdle,
+                                   SagaAssociationFilter associationFilter) {
+        this.sagaCache = new BoundedAggregateCache("sagas", maximumSize, timeToIdle);
+        this.associationsCache = new BoundedAggregateCache("saga-associations", maximumSize, timeToIdle);
+        this.cachingSagaStore = CachingSagaStore.<T>builder()
+                .delegateSagaStore(delegate)
+                .sagaCache(sagaCache)
+                .associationsCache(associationsCache)
+                .build();
+        this.associationFilter = associationFilter;
+    }
+
+    @Override
+    public Set<String> findSagas(Class<? extends T> sagaType, AssociationValue associationValue) {
+        if (!associationFilter.mightHaveSagas(sagaType, associationValue)) {
+            return Set.of();
+        }
+        return cachingSagaStore.findSagas(sagaType, associationValue);
+    }
+
+    @Override
+    public <S extends T> Entry<S> loadSaga(Class<S> sagaType, String sagaIdentifier) {
+        CurrentUnitOfWork.ifStarted(unitOfWork -> unitOfWork.onRollback(u -> sagaCache.remove(sagaIdentifier)));
+        return cachingSagaStore.loadSaga(sagaType, sagaIdentifier);
+    }
+
+    @Override
+    public void deleteSaga(Class<? extends T> sagaType, String sagaIdentifier,
+                           Set<AssociationValue> associationValues) {
+        invalidateOnRollback(sagaIdentifier);
+        cachingSagaStore.deleteSaga(sagaType, sagaIdentifier, associationValues);
+    }
+
+    @Override
+    public void insertSaga(Class<? extends T> sagaType, String sagaIdentifier, T saga,
+                           Set<AssociationValue> associationValues) {
+        invalidateOnRollback(sagaIdentifier);
+        associationValues.forEach(associationValue -> associationFilter.add(sagaType, associationValue));
+        cachingSagaStore.insertSaga(sagaType, sagaIdentifier, saga, associationValues);
+    }
+
+    @Override
+    public void updateSaga(Class<? extends T> sagaType, String sagaIdentifier, T saga,
+                           AssociationValues associationValues) {
+        invalidateOnRollback(sagaIdentifier);
+        associationValues.addedAssociations()
+                .forEach(associationValue -> associationFilter.add(sagaType, associationValue));
+        cachingSagaStore.updateSaga(sagaType, sagaIdentifier, saga, associationValues);
+    }
+
+    /**
+     * {@return the size, hits, misses and evictions of the saga cache and of the associations cache.}
+     */
+    public List<BoundedAggregateCache.Metrics> metrics() {
+        return List.of(sagaCache.metrics(), associationsCache.metrics());
+    }
+
+    /*
+     * The associations are cached by association value (not by saga), so drop them all: rollbacks are rare.
+     */
+    private void invalidateOnRollback(String sagaIdentifier) {
+        CurrentUnitOfWork.ifStarted(unitOfWork -> unitOfWork.onRollback(u -> {
+            sagaCache.remove(sagaIdentifier);
+            associationsCache.clear();
+        }));
+    }
+}
@@ -0,0 +1,152 @@
+package io.github.vab2048.axon.exhibition.app.config.saga;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+import org.axonframework.modelling.saga.AssociationValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Bloom filter of the association values of the live sagas (opt-in, see the "Saga association filter" section of
+ * application.properties), so that the saga store need not query the associations table for an event which no saga
+ * is associated with (e.g. the credit of an account which is not part of a payment).
+ *
+ * The filter can tell an association value has no saga for sure, but not that it has one. The association values of
+ * new sagas are added to it as the sagas are stored, while those of the sagas which have ended are only dropped when
+ * it is rebuilt from the associations table (see {@link SagaAssociationFilterRebuilder}). It only knows of the sagas
+ * stored by this instance of the app (and those in the table as of the last rebuild), so must only be enabled when a
+ * single instance handles the sagas.
+ */
+public class SagaAssociationFilter {
+    private static final Logger log = LoggerFactory.getLogger(SagaAssociationFilter.class);
+    private static final Funnel<CharSequence> FUNNEL = Funnels.stringFunnel(StandardCharsets.UTF_8);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String associationValueEntryTable;
+    private final boolean enabled;
+    private final int expectedAssociations;
+    private final double falsePositiveProbability;
+
+    private final Object lock = new Object();
+    // Null when disabled.
+    private volatile BloomFilter<CharSequence> filter;
+    // The association values added since the last rebuild started (guarded by the lock).
+    private Set<String> addedSinceRebuild = new HashSet<>();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    /**
+     * @param enabled whether to filter (when not, every association value may have sagas).
+     * @param expectedAssociations the number of association values the filter is sized for (at least).
+     * @param falsePositiveProbability the probability that the filter tells an association value may have sagas when
+     *                                 it has none (once it holds the expected number of association values).
+     */
+    public SagaAssociationFilter(JdbcTemplate jdbcTemplate, String associationValueEntryTable, boolean enabled,
+                                 int expectedAssociations, double falsePositiveProbability) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.associationValueEntryTable = associationValueEntryTable;
+        this.enabled = enabled;
+        this.expectedAssociations = expectedAssociations;
+        this.falsePositiveProbability = falsePositiveProbability;
+        rebuild();
+    }
+
+    /**
+     * {@return false if no saga of the given type can be associated with the given association value.}
+     */
+    public boolean mightHaveSagas(Class<?> sagaType, AssociationValue associationValue) {
+        BloomFilter<CharSequence> filter = this.filter;
+        if (filter == null) {
+            return true;
+        }
+        lookups.increment();
+        if (filter.mightContain(key(sagaType.getName(), associationValue.getKey(), associationValue.getValue()))) {
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+
+    /**
+     * Add the given association value of a saga of the given type (before the saga is stored).
+     */
+    public void add(Class<?> sagaType, AssociationValue associationValue) {
+        if (!enabled) {
+            return;
+        }
+        String key = key(sagaType.getName(), associationValue.getKey(), associationValue.getValue());
+        synchronized (lock) {
+            filter.put(key);
+            addedSinceRebuild.add(key);
+        }
+    }
+
+    /**
+     * Rebuild the filter from the associations table, dropping the association values of the sagas which have ended.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        // The sagas of the association values added since the previous rebuild may not have been committed yet (so
+        // not be read below), so add them again.
+        Set<String> added;
+        synchronized (lock) {
+            added = addedSinceRebuild;
+            addedSinceRebuild = new HashSet<>();
+        }
+        List<String> stored = new ArrayList<>();
+        jdbcTemplate.query("SELECT sagaType, associationKey, associationValue FROM " + associationValueEntryTable,
+                resultSet -> {
+                    stored.add(key(resultSet.getString("sagaType"), resultSet.getString("associationKey"),
+                            resultSet.getString("associationValue")));
+                });
+        BloomFilter<CharSequence> rebuilt = BloomFilter.create(FUNNEL,
+                Math.max(expectedAssociations, 2L * (stored.size() + added.size())), falsePositiveProbability);
+        stored.forEach(rebuilt::put);
+        added.forEach(rebuilt::put);
+        synchronized (lock) {
+            addedSinceRebuild.forEach(rebuilt::put);
+            filter = rebuilt;
+        }
+        rebuilds.increment();
+        log.debug("Rebuilt the saga association filter from {} association value(s) in {}ms", stored.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    public Metrics metrics() {
+        BloomFilter<CharSequence> filter = this.filter;
+        return filter == null
+                ? new Metrics(false, 0, 0, 0, 0, 0)
+                : new Metrics(true, filter.approximateElementCount(), filter.expectedFpp(), lookups.sum(),
+                        skipped.sum(), rebuilds.sum());
+    }
+
+    private static String key(String sagaType, String associationKey, String associationValue) {
+        return sagaType + "/" + associationKey + "=" + associationValue;
+    }
+
+    /**
+     * @param enabled whether the association values are filtered.
+     * @param approximateAssociations the approximate number of association values in the filter.
+     * @param falsePositiveProbability the probability that the filter tells an association value may have sagas when
+     *                                 it has none, given the association values it holds.
+     * @param lookups the number of association values looked up.
+     * @param skipped the number of lookups which skipped the associations table (as no saga has the association value).
+     * @param rebuilds the number of times the filter was built from the associations table.
+     */
+    public record Metrics(boolean enabled, long approximateAssociations, double falsePositiveProbability, long lookups,
+                          long skipped, long rebuilds) {}
+}
@@ -0,0 +1,59 @@
+package io.github.vab2048.axon.exhibition.app.config.saga;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically rebuilds the {@link SagaAssociationFilter} from the associations table, so that the association values
+ * of the sagas which have ended do not build up in it (and its false positive rate with them).
+ */
+public class SagaAssociationFilterRebuilder implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(SagaAssociationFilterRebuilder.class);
+
+    private final SagaAssociationFilter associationFilter;
+    private final Duration interval;
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param interval how often to rebuild the filter.
+     */
+    public SagaAssociationFilterRebuilder(SagaAssociationFilter associationFilter, Duration interval) {
+        this.associationFilter = associationFilter;
+        this.interval = interval;
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "saga-association-filter-rebuilder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                associationFilter.rebuild();
+            } catch (RuntimeException e) {
+                log.warn("Failed to rebuild the saga association filter (will retry in {})", interval, e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+}
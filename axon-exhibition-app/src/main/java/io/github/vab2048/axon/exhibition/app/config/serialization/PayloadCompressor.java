@@ -0,0 +1,147 @@
+package io.github.vab2048.axon.exhibition.app.config.serialization;
+
+import com.github.luben.zstd.Zstd;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compresses serialized payloads above a size threshold, and decompresses any payload it finds to be compressed
+ * (whichever codec it was compressed with) so that uncompressed and compressed rows can be read side by side.
+ *
+ * A compressed payload is the {@link #MAGIC} byte, the id of the codec, the uncompressed length (4 bytes, big endian)
+ * and then the compressed bytes. The magic byte can't be the first byte of a Smile document (which starts with ':')
+ * or of JSON text (which starts with an ASCII character), so the payloads don't need a separate column for the codec.
+ */
+public class PayloadCompressor {
+    static final byte MAGIC = (byte) 0xC5;
+    static final int HEADER_LENGTH = 6;
+    private static final int ZSTD_LEVEL = 3;
+
+    /**
+     * Never compresses (but still decompresses).
+     */
+    public static final PayloadCompressor NONE = new PayloadCompressor(Codec.NONE, Integer.MAX_VALUE);
+
+    private final Codec codec;
+    private final int threshold;
+
+    /**
+     * @param threshold payloads smaller than this many bytes are not compressed.
+     */
+    public PayloadCompressor(Codec codec, int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("The compression threshold must not be negative but was " + threshold);
+        }
+        this.codec = codec;
+        this.threshold = threshold;
+    }
+
+    /**
+     * {@return the given payload compressed, or the payload itself if it is below the threshold or does not get any
+     * smaller.}
+     */
+    public byte[] compress(byte[] payload) {
+        if (codec == Codec.NONE || payload.length < threshold) {
+            return payload;
+        }
+        byte[] compressed = codec.compress(payload);
+        if (compressed.length + HEADER_LENGTH >= payload.length) {
+            return payload;
+        }
+        return ByteBuffer.allocate(HEADER_LENGTH + compressed.length)
+                .put(MAGIC)
+                .put(codec.id)
+                .putInt(payload.length)
+                .put(compressed)
+                .array();
+    }
+
+    /**
+     * {@return the given payload decompressed, or the payload itself if it is not compressed.}
+     */
+    public static byte[] decompress(byte[] payload) {
+        if (!isCompressed(payload)) {
+            return payload;
+        }
+        Codec codec = Codec.forId(payload[1]);
+        int length = ByteBuffer.wrap(payload, 2, 4).getInt();
+        return codec.decompress(payload, HEADER_LENGTH, payload.length - HEADER_LENGTH, length);
+    }
+
+    public static boolean isCompressed(byte[] payload) {
+        return payload.length >= HEADER_LENGTH && payload[0] == MAGIC;
+    }
+
+    public enum Codec {
+        NONE((byte) 0) {
+            @Override
+            byte[] compress(byte[] payload) {
+                return payload;
+            }
+
+            @Override
+            byte[] decompress(byte[] source, int offset, int length, int uncompressedLength) {
+                throw new IllegalStateException("A payload is never stored with the NONE codec");
+            }
+        },
+
+        /**
+         * Very fast with a moderate ratio - the better choice when appending/loading is the bottleneck.
+         */
+        LZ4((byte) 1) {
+            private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+            private final LZ4SafeDecompressor decompressor = LZ4Factory.fastestInstance().safeDecompressor();
+
+            @Override
+            byte[] compress(byte[] payload) {
+                return compressor.compress(payload);
+            }
+
+            @Override
+            byte[] decompress(byte[] source, int offset, int length, int uncompressedLength) {
+                byte[] payload = new byte[uncompressedLength];
+                decompressor.decompress(source, offset, length, payload, 0);
+                return payload;
+            }
+        },
+
+        /**
+         * A better ratio than LZ4 for a few times the CPU - the better choice when storage/IO is the bottleneck.
+         */
+        ZSTD((byte) 2) {
+            @Override
+            byte[] compress(byte[] payload) {
+                return Zstd.compress(payload, ZSTD_LEVEL);
+            }
+
+            @Override
+            byte[] decompress(byte[] source, int offset, int length, int uncompressedLength) {
+                byte[] payload = new byte[uncompressedLength];
+                Zstd.decompressByteArray(payload, 0, uncompressedLength, source, offset, length);
+                return payload;
+            }
+        };
+
+        private final byte id;
+
+        Codec(byte id) {
+            this.id = id;
+        }
+
+        abstract byte[] compress(byte[] payload);
+
+        abstract byte[] decompress(byte[] source, int offset, int length, int uncompressedLength);
+
+        static Codec forId(byte id) {
+            for (Codec codec : values()) {
+                if (codec.id == id && codec != NONE) {
+                    return codec;
+                }
+            }
+            throw new IllegalArgumentException("Unknown payload compression codec id: " + id);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.vab2048.axon.exhibition.app.config.serialization;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.base.Suppliers;
+import io.github.vab2048.axon.exhibition.app.config.PayloadFormatProperties;
+import io.github.vab2048.axon.exhibition.app.config.PayloadFormatProperties.PayloadFormat;
+import org.axonframework.serialization.Serializer;
+import org.postgresql.util.PGobject;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Decides, per Axon table, which serializer and which column data type to use based on the configured
+ * {@link PayloadFormatProperties}.
+ *
+ * N.B. This is intentionally not a {@link Serializer} bean itself: Axon's auto configuration backs off from creating
+ * its own general serializer as soon as any Serializer bean exists.
+ */
+public class PayloadSerializers {
+    private final PayloadFormatProperties properties;
+    private final Supplier<SmileJacksonSerializer> smileSerializer;
+    private final List<SnapshotCodec<?>> snapshotCodecs;
+
+    /**
+     * @param properties           The configured format of each table.
+     * @param objectMapperBuilder  Spring's (prototype) builder, so that the Smile object mapper has the same modules
+     *                             and settings as the JSON one.
+     * @param snapshotCodecs       The codecs of the aggregates whose snapshots are not written with Jackson (when
+     *                             enabled).
+     */
+    public PayloadSerializers(PayloadFormatProperties properties, Jackson2ObjectMapperBuilder objectMapperBuilder,
+                              List<SnapshotCodec<?>> snapshotCodecs) {
+        this.properties = properties;
+        this.snapshotCodecs = snapshotCodecs;
+        this.smileSerializer = Suppliers.memoize(() ->
+                SmileJacksonSerializer.create(objectMapperBuilder.factory(new SmileFactory()).build(), compressor(properties)));
+        validate();
+    }
+
+    private static PayloadCompressor compressor(PayloadFormatProperties properties) {
+        return properties.getCompression() == PayloadFormatProperties.Compression.NONE
+                ? PayloadCompressor.NONE
+                : new PayloadCompressor(PayloadCompressor.Codec.valueOf(properties.getCompression().name()),
+                        properties.getCompressionThreshold());
+    }
+
+    /*
+     * Axon's JdbcEventStorageEngine binds a single data type for both the event and the snapshot table,
+     * so both tables must either be jsonb or bytea.
+     */
+    private void validate() {
+        if (isBinary(properties.getDomainEvents()) != isBinary(properties.getSnapshots())) {
+            throw new IllegalStateException(("The domain event (%s) and snapshot (%s) payload formats must both be " +
+                    "JSON or both be binary as they share the event storage engine's data type.")
+                    .formatted(properties.getDomainEvents(), properties.getSnapshots()));
+        }
+        // A codec snapshot is raw bytes, which a jsonb column can't hold.
+        if (properties.isSnapshotCodecs() && !isBinary(properties.getSnapshots())) {
+            throw new IllegalStateException("The snapshot codecs require the snapshot payload format to be binary " +
+                    "but it is " + properties.getSnapshots());
+        }
+    }
+
+    public Serializer domainEventSerializer(Serializer jsonSerializer) {
+        return serializerFor(properties.getDomainEvents(), jsonSerializer);
+    }
+
+    public Serializer snapshotSerializer(Serializer jsonSerializer) {
+        if (!isBinary(properties.getSnapshots()) || snapshotCodecs.isEmpty()) {
+            return serializerFor(properties.getSnapshots(), jsonSerializer);
+        }
+        return new SnapshotCodecSerializer(smileSerializer.get(), snapshotCodecs, properties.isSnapshotCodecs());
+    }
+
+    public Serializer tokenSerializer(Serializer jsonSerializer) {
+        return serializerFor(properties.getTokens(), jsonSerializer);
+    }
+
+    public Serializer sagaSerializer(Serializer jsonSerializer) {
+        return serializerFor(properties.getSagas(), jsonSerializer);
+    }
+
+    /**
+     * {@return the data type of the event and snapshot payload columns - a PGobject for jsonb or a byte[] for bytea.}
+     */
+    public Class<?> eventStoreDataType() {
+        return dataTypeFor(properties.getDomainEvents());
+    }
+
+    /**
+     * {@return the data type of the token column - a PGobject for jsonb or a byte[] for bytea.}
+     */
+    public Class<?> tokenDataType() {
+        return dataTypeFor(properties.getTokens());
+    }
+
+    private Serializer serializerFor(PayloadFormat format, Serializer jsonSerializer) {
+        return isBinary(format) ? smileSerializer.get() : jsonSerializer;
+    }
+
+    private static Class<?> dataTypeFor(PayloadFormat format) {
+        return isBinary(format) ? byte[].class : PGobject.class;
+    }
+
+    private static boolean isBinary(PayloadFormat format) {
+        return format == PayloadFormat.SMILE;
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.vab2048.axon.exhibition.app.config.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.axonframework.serialization.ChainingConverter;
+import org.axonframework.serialization.SerializationException;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.SerializedType;
+import org.axonframework.serialization.SimpleSerializedObject;
+import org.axonframework.serialization.UnknownSerializedType;
+import org.axonframework.serialization.json.JacksonSerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A Jackson serializer which writes the binary Smile encoding of JSON rather than JSON text.
+ *
+ * Smile is the same data model as JSON (so upcasters working on a {@code JsonNode} keep working) but field names
+ * are back-referenced and numbers are written in binary, which makes small payloads such as our account events
+ * considerably smaller. Every Smile document starts with the ":)\n" header, which is what allows this serializer to
+ * also read payloads which were written as JSON text before the switch (e.g. rows converted from jsonb to bytea).
+ *
+ * Payloads serialized to a byte[] (i.e. for a bytea column) are additionally compressed by the given
+ * {@link PayloadCompressor} when they are large enough. Compressed payloads are always decompressed when read, whatever
+ * the compressor is configured to do now.
+ */
+public class SmileJacksonSerializer extends JacksonSerializer {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Readers which detect whether the content (byte[] or InputStream) is Smile or JSON. Built once per payload type.
+     */
+    private final Map<Class<?>, ObjectReader> formatDetectingReaders = new ConcurrentHashMap<>();
+
+    private final PayloadCompressor compressor;
+
+    protected SmileJacksonSerializer(Builder builder, PayloadCompressor compressor) {
+        super(builder);
+        this.compressor = compressor;
+    }
+
+    /**
+     * Create a serializer for the given object mapper, which must have been created with a {@link SmileFactory}.
+     */
+    public static SmileJacksonSerializer create(ObjectMapper smileObjectMapper) {
+        return create(smileObjectMapper, PayloadCompressor.NONE);
+    }
+
+    /**
+     * Create a serializer for the given object mapper (which must have been created with a {@link SmileFactory}) which
+     * compresses byte[] payloads with the given compressor.
+     */
+    public static SmileJacksonSerializer create(ObjectMapper smileObjectMapper, PayloadCompressor compressor) {
+        if (!(smileObjectMapper.getFactory() instanceof SmileFactory)) {
+            throw new IllegalArgumentException("The object mapper for a SmileJacksonSerializer must use a SmileFactory");
+        }
+        return new SmileJacksonSerializer(JacksonSerializer.builder().objectMapper(smileObjectMapper), compressor);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> SerializedObject<T> serialize(Object object, Class<T> expectedRepresentation) {
+        if (!byte[].class.equals(expectedRepresentation) || compressor == PayloadCompressor.NONE) {
+            return super.serialize(object, expectedRepresentation);
+        }
+        SerializedObject<byte[]> serialized = super.serialize(object, byte[].class);
+        return (SerializedObject<T>) new SimpleSerializedObject<>(compressor.compress(serialized.getData()),
+                byte[].class, serialized.getType());
+    }
+
+    /**
+     * Deserialize the given object, detecting whether it is Smile or JSON if it is a byte[] or InputStream. Anything
+     * else - notably the JsonNode of an upcaster - is read as the super class does (format detecting readers can only
+     * read raw content, not trees).
+     */
+    @Override
+    public <S, T> T deserialize(SerializedObject<S> serializedObject) {
+        S data = serializedObject.getData();
+        if (data instanceof byte[] bytes && PayloadCompressor.isCompressed(bytes)) {
+            return deserialize(new SimpleSerializedObject<>(PayloadCompressor.decompress(bytes), byte[].class,
+                    serializedObject.getType()));
+        }
+        if (!(data instanceof byte[] || data instanceof InputStream)
+                || SerializedType.emptyType().equals(serializedObject.getType())) {
+            return super.deserialize(serializedObject);
+        }
+        Class<?> type = classForType(serializedObject.getType());
+        if (UnknownSerializedType.class.isAssignableFrom(type)) {
+            return super.deserialize(serializedObject);
+        }
+        try {
+            if (data instanceof byte[] bytes) {
+                return formatDetectingReader(type).readValue(bytes);
+            }
+            return formatDetectingReader(type).readValue((InputStream) data);
+        } catch (IOException e) {
+            throw new SerializationException("Error while deserializing object", e);
+        }
+    }
+
+    private ObjectReader formatDetectingReader(Class<?> type) {
+        return formatDetectingReaders.computeIfAbsent(type, t -> {
+            ObjectReader smileReader = getReader(t);
+            return smileReader.withFormatDetection(smileReader, smileReader.with(JSON_FACTORY));
+        });
+    }
+
+    @Override
+    protected void registerConverters(ChainingConverter converter) {
+        super.registerConverters(converter);
+        // Registered last so that it takes precedence over the (Smile only) byte[] -> JsonNode converter of the super class.
+        converter.registerConverter(new SmileOrJsonBytesToJsonNodeConverter(getObjectMapper()));
+    }
+}
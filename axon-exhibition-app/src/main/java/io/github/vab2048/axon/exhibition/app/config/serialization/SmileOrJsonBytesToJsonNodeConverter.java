@@ -0,0 +1,52 @@
+package io.github.vab2048.axon.exhibition.app.config.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.axonframework.serialization.CannotConvertBetweenTypesException;
+import org.axonframework.serialization.ContentTypeConverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * Allows the Smile serializer to convert a byte[] containing either Smile or JSON text (either of which may be
+ * compressed, see {@link PayloadCompressor}) into a JsonNode (which is what upcasters operate on).
+ */
+public class SmileOrJsonBytesToJsonNodeConverter implements ContentTypeConverter<byte[], JsonNode> {
+    private final ObjectReader reader;
+
+    public SmileOrJsonBytesToJsonNodeConverter(ObjectMapper smileObjectMapper) {
+        ObjectReader smileReader = smileObjectMapper.reader();
+        this.reader = smileReader.withFormatDetection(smileReader, smileReader.with(new JsonFactory()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<byte[]> expectedSourceType() {
+        return byte[].class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<JsonNode> targetType() {
+        return JsonNode.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JsonNode convert(byte[] original) {
+        try {
+            return reader.readTree(new ByteArrayInputStream(PayloadCompressor.decompress(original)));
+        } catch (IOException e) {
+            throw new CannotConvertBetweenTypesException("Unable to convert byte[] (Smile or JSON) to a JsonNode", e);
+        }
+    }
+}
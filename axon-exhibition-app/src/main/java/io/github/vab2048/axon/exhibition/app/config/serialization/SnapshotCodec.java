@@ -0,0 +1,35 @@
+package io.github.vab2048.axon.exhibition.app.config.serialization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads the snapshots of one aggregate type in a compact binary layout of its own, in place of Jackson
+ * (see {@link SnapshotCodecSerializer}).
+ *
+ * The layout is versioned: a snapshot is always written with the current {@link #version()}, and a codec must keep
+ * reading the snapshots it wrote with its earlier versions (or throw, in which case Axon loads the aggregate from its
+ * events instead).
+ *
+ * @param <T> the aggregate type.
+ */
+public interface SnapshotCodec<T> {
+
+    /**
+     * {@return the aggregate type whose snapshots this codec writes and reads.}
+     */
+    Class<T> type();
+
+    /**
+     * {@return the version of the layout written by {@link #encode}, between 0 and 255.}
+     */
+    int version();
+
+    void encode(T aggregate, DataOutput out) throws IOException;
+
+    /**
+     * @param version the version of the layout the snapshot was written with.
+     */
+    T decode(int version, DataInput in) throws IOException;
+}
@@ -0,0 +1,124 @@
+package io.github.vab2048.axon.exhibition.app.config.serialization;
+
+import org.axonframework.serialization.Converter;
+import org.axonframework.serialization.SerializationException;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.SerializedType;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The snapshot serializer for binary (bytea) snapshot tables: writes the snapshots of the aggregate types with a
+ * {@link SnapshotCodec} with that codec, and everything else (other aggregates, the metadata) with the given
+ * serializer.
+ *
+ * A codec snapshot is the {@link #MAGIC} byte, the version of the codec's layout and then the codec's bytes. The
+ * magic byte can't be the first byte of a Smile document, of JSON text or of a compressed payload (see
+ * {@link PayloadCompressor}), so snapshots written before (or after) a codec was registered are still read with the
+ * given serializer. Codec snapshots are read whether or not new ones are written with the codecs, so that writing with
+ * them can be turned off again.
+ *
+ * N.B. snapshots written by a codec can't be upcast through a JsonNode, so a codec should be versioned rather than its
+ * snapshots upcast.
+ */
+public class SnapshotCodecSerializer implements Serializer {
+    static final byte MAGIC = (byte) 0xC6;
+
+    private final Serializer delegate;
+    private final Map<Class<?>, SnapshotCodec<?>> codecs;
+    private final boolean writeWithCodecs;
+
+    /**
+     * @param writeWithCodecs whether snapshots are written with their codec (they are always read with it).
+     */
+    public SnapshotCodecSerializer(Serializer delegate, Collection<? extends SnapshotCodec<?>> codecs,
+                                   boolean writeWithCodecs) {
+        codecs.forEach(codec -> {
+            if (codec.version() < 0 || codec.version() > 255) {
+                throw new IllegalArgumentException("The %s snapshot codec's version must be 0 to 255 but was %s"
+                        .formatted(codec.type().getSimpleName(), codec.version()));
+            }
+        });
+        this.delegate = delegate;
+        this.codecs = codecs.stream().collect(Collectors.toUnmodifiableMap(SnapshotCodec::type, Function.identity()));
+        this.writeWithCodecs = writeWithCodecs;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> SerializedObject<T> serialize(Object object, Class<T> expectedRepresentation) {
+        SnapshotCodec<Object> codec = !writeWithCodecs || object == null
+                ? null : (SnapshotCodec<Object>) codecs.get(object.getClass());
+        if (codec == null || !byte[].class.equals(expectedRepresentation)) {
+            return delegate.serialize(object, expectedRepresentation);
+        }
+        var bytes = new ByteArrayOutputStream(64);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeByte(MAGIC);
+            out.writeByte(codec.version());
+            codec.encode(object, out);
+        } catch (IOException e) {
+            throw new SerializationException("Unable to write a snapshot of " + codec.type().getSimpleName(), e);
+        }
+        return (SerializedObject<T>) new SimpleSerializedObject<>(bytes.toByteArray(), byte[].class,
+                typeForClass(object.getClass()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S, T> T deserialize(SerializedObject<S> serializedObject) {
+        if (!(serializedObject.getData() instanceof byte[] bytes) || !isCodecSnapshot(bytes)) {
+            return delegate.deserialize(serializedObject);
+        }
+        Class<?> type = classForType(serializedObject.getType());
+        SnapshotCodec<?> codec = codecs.get(type);
+        if (codec == null) {
+            throw new SerializationException("No snapshot codec is registered for " + type.getName()
+                    + " to read its snapshot with");
+        }
+        try (var in = new DataInputStream(new ByteArrayInputStream(bytes, 2, bytes.length - 2))) {
+            return (T) codec.decode(Byte.toUnsignedInt(bytes[1]), in);
+        } catch (IOException e) {
+            throw new SerializationException("Unable to read a snapshot of " + type.getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public <T> boolean canSerializeTo(Class<T> expectedRepresentation) {
+        return delegate.canSerializeTo(expectedRepresentation);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Class classForType(SerializedType type) {
+        return delegate.classForType(type);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public SerializedType typeForClass(Class type) {
+        return delegate.typeForClass(type);
+    }
+
+    @Override
+    public Converter getConverter() {
+        return delegate.getConverter();
+    }
+
+    /**
+     * {@return whether the given serialized snapshot was written by a codec.}
+     */
+    public static boolean isCodecSnapshot(byte[] bytes) {
+        return bytes.length >= 2 && bytes[0] == MAGIC;
+    }
+}
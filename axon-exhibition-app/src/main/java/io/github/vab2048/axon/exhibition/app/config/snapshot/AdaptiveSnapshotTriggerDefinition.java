@@ -0,0 +1,166 @@
+package io.github.vab2048.axon.exhibition.app.config.snapshot;
+
+import io.github.vab2048.axon.exhibition.app.config.SnapshotProperties;
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventsourcing.SnapshotTrigger;
+import org.axonframework.eventsourcing.SnapshotTriggerDefinition;
+import org.axonframework.eventsourcing.Snapshotter;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Decides per aggregate whether to snapshot it, from what its last load cost rather than from a fixed event count:
+ * <ul>
+ *     <li>the number of events applied since its last snapshot (i.e. replayed on each load).</li>
+ *     <li>how long the load took - reading, deserializing and applying the snapshot and events (the payloads are
+ *     deserialized lazily, as they are applied).</li>
+ *     <li>how long ago its last snapshot (or first event) was taken.</li>
+ * </ul>
+ * A snapshot is scheduled when an event is applied to a loaded aggregate (i.e. one that is being changed) and:
+ * <ul>
+ *     <li>at least {@code maxEventsReplayed} events have been applied since its last snapshot, or</li>
+ *     <li>at least {@code minEventsReplayed} have been, and the load took longer than {@code maxLoadTime} or the last
+ *     snapshot is older than {@code maxSnapshotAge}.</li>
+ * </ul>
+ * So a busy aggregate is only snapshotted as often as its load gets slow or long, and a rarely changed one still is
+ * once it has built up enough events - rather than every aggregate on every few events.
+ */
+public class AdaptiveSnapshotTriggerDefinition implements SnapshotTriggerDefinition {
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveSnapshotTriggerDefinition.class);
+
+    private final Snapshotter snapshotter;
+    private final SnapshotProperties.Thresholds thresholds;
+    private final Clock clock;
+
+    public AdaptiveSnapshotTriggerDefinition(Snapshotter snapshotter, SnapshotProperties.Thresholds thresholds) {
+        this(snapshotter, thresholds, Clock.systemUTC());
+    }
+
+    AdaptiveSnapshotTriggerDefinition(Snapshotter snapshotter, SnapshotProperties.Thresholds thresholds, Clock clock) {
+        int min = thresholds.getMinEventsReplayed();
+        int max = thresholds.getMaxEventsReplayed();
+        if (min < 1 || min > max) {
+            throw new IllegalArgumentException(
+                    "The minimum events replayed must be between 1 and the maximum (%s) but was %s".formatted(max, min));
+        }
+        this.snapshotter = snapshotter;
+        this.thresholds = thresholds;
+        this.clock = clock;
+    }
+
+    @Override
+    public SnapshotTrigger prepareTrigger(Class<?> aggregateType) {
+        return new AdaptiveSnapshotTrigger(snapshotter, clock, aggregateType, thresholds);
+    }
+
+    /*
+     * A trigger kept with its aggregate (e.g. in a cache) loses its transient snapshotter/clock if it is serialized.
+     */
+    @Override
+    public SnapshotTrigger reconfigure(Class<?> aggregateType, SnapshotTrigger trigger) {
+        if (trigger instanceof AdaptiveSnapshotTrigger adaptiveTrigger) {
+            adaptiveTrigger.snapshotter = snapshotter;
+            adaptiveTrigger.clock = clock;
+        }
+        return trigger;
+    }
+
+    static class AdaptiveSnapshotTrigger implements SnapshotTrigger, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private transient Snapshotter snapshotter;
+        private transient Clock clock;
+        private final Class<?> aggregateType;
+        private final int maxEventsReplayed;
+        private final int minEventsReplayed;
+        private final long maxLoadTimeNanos;
+        private final Duration maxSnapshotAge;
+
+        private final long loadStartedNanos = System.nanoTime();
+        private boolean initialized;
+        private long loadTimeNanos;
+        private int eventsSinceSnapshot;
+        private Instant lastSnapshot;
+
+        AdaptiveSnapshotTrigger(Snapshotter snapshotter, Clock clock, Class<?> aggregateType,
+                                SnapshotProperties.Thresholds thresholds) {
+            this.snapshotter = snapshotter;
+            this.clock = clock;
+            this.aggregateType = aggregateType;
+            this.maxEventsReplayed = thresholds.getMaxEventsReplayed();
+            this.minEventsReplayed = thresholds.getMinEventsReplayed();
+            this.maxLoadTimeNanos = thresholds.getMaxLoadTime().toNanos();
+            this.maxSnapshotAge = thresholds.getMaxSnapshotAge();
+        }
+
+        @Override
+        public void eventHandled(EventMessage<?> msg) {
+            if (!(msg instanceof DomainEventMessage<?> event)) {
+                return;
+            }
+            if (!initialized && aggregateType.isAssignableFrom(event.getPayloadType())) {
+                // The snapshot the load started from.
+                lastSnapshot = event.getTimestamp();
+                eventsSinceSnapshot = 0;
+                return;
+            }
+            if (lastSnapshot == null) {
+                lastSnapshot = event.getTimestamp();
+            }
+            eventsSinceSnapshot++;
+            if (initialized) {
+                String reason = snapshotReason();
+                if (reason != null) {
+                    scheduleSnapshot(event.getAggregateIdentifier(), reason);
+                }
+            }
+        }
+
+        @Override
+        public void initializationFinished() {
+            loadTimeNanos = System.nanoTime() - loadStartedNanos;
+            initialized = true;
+        }
+
+        /**
+         * {@return why the aggregate should be snapshotted, or null if it should not be.}
+         */
+        String snapshotReason() {
+            if (eventsSinceSnapshot >= maxEventsReplayed) {
+                return eventsSinceSnapshot + " events since the last snapshot";
+            }
+            if (eventsSinceSnapshot < minEventsReplayed) {
+                return null;
+            }
+            if (loadTimeNanos > maxLoadTimeNanos) {
+                return "a load time of " + Duration.ofNanos(loadTimeNanos).toMillis() + "ms";
+            }
+            if (Duration.between(lastSnapshot, clock.instant()).compareTo(maxSnapshotAge) > 0) {
+                return "the last snapshot being older than " + maxSnapshotAge;
+            }
+            return null;
+        }
+
+        private void scheduleSnapshot(String aggregateIdentifier, String reason) {
+            log.debug("Snapshotting {} {} for {}", aggregateType.getSimpleName(), aggregateIdentifier, reason);
+            // Start counting again (from the snapshot to be) should the aggregate stay loaded, e.g. in a cache.
+            eventsSinceSnapshot = 0;
+            loadTimeNanos = 0;
+            lastSnapshot = clock.instant();
+            // The snapshot is of the committed state, so only take it once the changes are committed.
+            if (CurrentUnitOfWork.isStarted()) {
+                CurrentUnitOfWork.get().afterCommit(
+                        unitOfWork -> snapshotter.scheduleSnapshot(aggregateType, aggregateIdentifier));
+            } else {
+                snapshotter.scheduleSnapshot(aggregateType, aggregateIdentifier);
+            }
+        }
+    }
+}
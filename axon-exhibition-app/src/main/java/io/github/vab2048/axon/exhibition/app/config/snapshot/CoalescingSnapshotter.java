@@ -0,0 +1,131 @@
+package io.github.vab2048.axon.exhibition.app.config.snapshot;
+
+import org.axonframework.eventsourcing.Snapshotter;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Takes snapshots on a bounded executor of its own (rather than in the thread which committed the changes) using the
+ * given snapshotter, which should take them synchronously.
+ *
+ * Requests for an aggregate which already has a snapshot pending are coalesced into it: the snapshot is of the
+ * aggregate's state when it is taken, so it already covers them. The pending request is cleared just before the
+ * snapshot is taken, so that a request made while it is being taken is queued again rather than lost.
+ *
+ * When the queue is full further requests are shed (they are only an optimisation of later loads, and the aggregate
+ * will ask again once it next changes).
+ */
+public class CoalescingSnapshotter implements Snapshotter {
+    private static final Logger log = LoggerFactory.getLogger(CoalescingSnapshotter.class);
+
+    private final Snapshotter delegate;
+    private final ThreadPoolExecutor executor;
+    // The time (System#nanoTime) each pending snapshot was requested at.
+    private final Map<PendingSnapshot, Long> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * @param threads the number of snapshots taken at once.
+     * @param queueCapacity the number of snapshots which can wait to be taken before further requests are shed.
+     */
+    public CoalescingSnapshotter(Snapshotter delegate, int threads, int queueCapacity) {
+        this.delegate = delegate;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "snapshotter-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public void scheduleSnapshot(Class<?> aggregateType, String aggregateIdentifier) {
+        PendingSnapshot snapshot = new PendingSnapshot(aggregateType, aggregateIdentifier);
+        if (CurrentUnitOfWork.isStarted()) {
+            CurrentUnitOfWork.get().afterCommit(unitOfWork -> submit(snapshot));
+        } else {
+            submit(snapshot);
+        }
+    }
+
+    private void submit(PendingSnapshot snapshot) {
+        requested.increment();
+        if (pending.putIfAbsent(snapshot, System.nanoTime()) != null) {
+            coalesced.increment();
+            return;
+        }
+        try {
+            executor.execute(() -> take(snapshot));
+        } catch (RejectedExecutionException e) {
+            pending.remove(snapshot);
+            shed.increment();
+            log.debug("Shed the snapshot of {} {} as the snapshot queue is full",
+                    snapshot.aggregateType().getSimpleName(), snapshot.aggregateIdentifier());
+        }
+    }
+
+    private void take(PendingSnapshot snapshot) {
+        Long requestedAt = pending.remove(snapshot);
+        try {
+            delegate.scheduleSnapshot(snapshot.aggregateType(), snapshot.aggregateIdentifier());
+        } finally {
+            long latency = System.nanoTime() - requestedAt;
+            completed.increment();
+            totalLatencyNanos.add(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        }
+    }
+
+    public Metrics metrics() {
+        long completedCount = completed.sum();
+        return new Metrics(
+                executor.getQueue().size(),
+                executor.getActiveCount(),
+                requested.sum(),
+                coalesced.sum(),
+                shed.sum(),
+                completedCount,
+                completedCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.sum() / completedCount),
+                TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get()));
+    }
+
+    /**
+     * Stop taking snapshots (any still queued are dropped).
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record PendingSnapshot(Class<?> aggregateType, String aggregateIdentifier) {}
+
+    /**
+     * @param queueDepth the number of snapshots waiting to be taken.
+     * @param inProgress the number of snapshots being taken.
+     * @param requested the number of snapshots requested (including those coalesced or shed).
+     * @param coalesced the number of requests coalesced into a pending snapshot of the same aggregate.
+     * @param shed the number of requests dropped as the queue was full.
+     * @param completed the number of snapshots taken (or attempted).
+     * @param meanLatencyMillis the mean time from the request of a snapshot until it was taken.
+     * @param maxLatencyMillis the longest time from the request of a snapshot until it was taken.
+     */
+    public record Metrics(int queueDepth, int inProgress, long requested, long coalesced, long shed, long completed,
+                          long meanLatencyMillis, long maxLatencyMillis) {}
+}
@@ -0,0 +1,211 @@
+package io.github.vab2048.axon.exhibition.app.config.snapshot;
+
+import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deletes the snapshots superseded by a later snapshot of the same aggregate, periodically and on demand.
+ *
+ * The storage engine already deletes the older snapshots of an aggregate when it adds a new one, but misses those
+ * added concurrently (e.g. by another instance of the app) and those left from before - and as only the latest
+ * snapshot of an aggregate is ever read, the rest are dead weight.
+ *
+ * A pass walks the snapshot table in aggregate identifier order, a batch of aggregates per statement (and so per
+ * transaction), so that no lock is held for long and an interrupted pass loses at most one batch. Passes run on the
+ * compactor's own thread, whether scheduled or requested (see {@link #requestCompaction()}).
+ */
+public class SnapshotCompactor implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotCompactor.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Duration interval;
+    private final String firstBatchSql;
+    private final String nextBatchSql;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private ScheduledExecutorService executor;
+
+    // Written by the compacting thread only.
+    private volatile Instant passStarted;
+    private volatile Instant passFinished;
+    private volatile long passes;
+    private volatile long aggregatesScanned;
+    private volatile long passRowsDeleted;
+    private volatile long totalRowsDeleted;
+
+    /**
+     * @param batchSize the number of aggregates whose snapshots are compacted by a single statement.
+     * @param interval how often to compact the snapshot table, or zero to only compact it on demand.
+     */
+    public SnapshotCompactor(JdbcTemplate jdbcTemplate, EventSchema schema, int batchSize, Duration interval) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The compaction batch size must be at least 1 but was " + batchSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.interval = interval;
+        this.firstBatchSql = batchSql(schema, false);
+        this.nextBatchSql = batchSql(schema, true);
+    }
+
+    /*
+     * Delete the superseded snapshots of the next batch of aggregates (after the given one, if any), returning how many
+     * aggregates there were, the last of them and how many rows were deleted.
+     */
+    static String batchSql(EventSchema schema, boolean afterAggregate) {
+        String table = schema.snapshotTable();
+        String aggregateIdentifier = schema.aggregateIdentifierColumn();
+        String sequenceNumber = schema.sequenceNumberColumn();
+        return "WITH batch AS ("
+                + " SELECT DISTINCT " + aggregateIdentifier + " FROM " + table
+                + (afterAggregate ? " WHERE " + aggregateIdentifier + " > ?" : "")
+                + " ORDER BY " + aggregateIdentifier + " LIMIT ?"
+                + "), deleted AS ("
+                + " DELETE FROM " + table + " s USING batch b"
+                + " WHERE s." + aggregateIdentifier + " = b." + aggregateIdentifier
+                + " AND s." + sequenceNumber + " < (SELECT max(l." + sequenceNumber + ") FROM " + table + " l"
+                + " WHERE l." + aggregateIdentifier + " = b." + aggregateIdentifier + ")"
+                + " RETURNING 1"
+                + ") SELECT (SELECT count(*) FROM batch) AS aggregates,"
+                + " (SELECT " + aggregateIdentifier + " FROM batch ORDER BY " + aggregateIdentifier + " DESC LIMIT 1)"
+                + " AS lastAggregate,"
+                + " (SELECT count(*) FROM deleted) AS deleted";
+    }
+
+    /**
+     * Compact the whole snapshot table on the compactor's thread, unless it is already being compacted.
+     *
+     * @return whether a pass was started (rather than one already being in progress).
+     */
+    public boolean requestCompaction() {
+        ScheduledExecutorService executor = this.executor;
+        if (executor == null) {
+            throw new IllegalStateException("The snapshot compactor is not running");
+        }
+        if (!compacting.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    pass();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to compact the snapshot table", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // i.e. stopped in the meantime.
+            compacting.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Compact the whole snapshot table now (on the calling thread), unless it is already being compacted.
+     *
+     * @return whether the table was compacted (rather than already being compacted).
+     */
+    public boolean compact() {
+        if (!compacting.compareAndSet(false, true)) {
+            return false;
+        }
+        pass();
+        return true;
+    }
+
+    /*
+     * Compact the whole snapshot table, having set the compacting flag (which is cleared once done).
+     */
+    private void pass() {
+        try {
+            passStarted = Instant.now();
+            aggregatesScanned = 0;
+            passRowsDeleted = 0;
+            // The identifier is bound back as the type it was read as (text, or uuid with native column types).
+            Object lastAggregate = null;
+            Batch batch;
+            do {
+                batch = lastAggregate == null
+                        ? jdbcTemplate.queryForObject(firstBatchSql, BATCH_ROW_MAPPER, batchSize)
+                        : jdbcTemplate.queryForObject(nextBatchSql, BATCH_ROW_MAPPER, lastAggregate, batchSize);
+                lastAggregate = batch.lastAggregate();
+                aggregatesScanned += batch.aggregates();
+                passRowsDeleted += batch.deleted();
+                totalRowsDeleted += batch.deleted();
+            } while (batch.aggregates() == batchSize && !Thread.currentThread().isInterrupted());
+            passFinished = Instant.now();
+            passes++;
+            if (passRowsDeleted > 0) {
+                log.info("Deleted {} superseded snapshot(s) of {} aggregate(s)", passRowsDeleted, aggregatesScanned);
+            }
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    public Progress progress() {
+        return new Progress(compacting.get(), passStarted, passFinished, passes, aggregatesScanned, passRowsDeleted,
+                totalRowsDeleted);
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!interval.isZero()) {
+            executor.scheduleWithFixedDelay(() -> {
+                try {
+                    compact();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to compact the snapshot table (will retry in {})", interval, e);
+                }
+            }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    private record Batch(long aggregates, Object lastAggregate, long deleted) {}
+
+    private static final RowMapper<Batch> BATCH_ROW_MAPPER = (resultSet, rowNum) -> new Batch(
+            resultSet.getLong("aggregates"), resultSet.getObject("lastAggregate"), resultSet.getLong("deleted"));
+
+    /**
+     * @param compacting whether a pass is in progress.
+     * @param passStarted when the current (or last) pass started.
+     * @param passFinished when the last completed pass finished.
+     * @param passes the number of completed passes.
+     * @param aggregatesScanned the number of aggregates scanned by the current (or last) pass so far.
+     * @param passRowsDeleted the number of snapshots deleted by the current (or last) pass so far.
+     * @param totalRowsDeleted the number of snapshots deleted since start up.
+     */
+    public record Progress(boolean compacting, Instant passStarted, Instant passFinished, long passes,
+                           long aggregatesScanned, long passRowsDeleted, long totalRowsDeleted) {}
+}
@@ -1,5 +1,7 @@
 package io.github.vab2048.axon.exhibition.app.controller;
 
+import io.github.vab2048.axon.exhibition.app.command.account.AccountAggregate;
+import io.github.vab2048.axon.exhibition.app.config.SnapshotProperties;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.CreateMultipleAccountsInATransactionCommand;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.CreateNewAccountCommand;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.CreditAccountCommand;
@@ -22,9 +24,11 @@ public class DemonstrationsController implements Demonstrations {
     private static final Logger log = LoggerFactory.getLogger(DemonstrationsController.class);
 
     private final CommandGateway commandGateway;
+    private final SnapshotProperties snapshotProperties;
 
-    public DemonstrationsController(CommandGateway commandGateway) {
+    public DemonstrationsController(CommandGateway commandGateway, SnapshotProperties snapshotProperties) {
         this.commandGateway = commandGateway;
+        this.snapshotProperties = snapshotProperties;
     }
 
     /* *******************************************************************************
@@ -121,52 +125,29 @@ public class DemonstrationsController implements Demonstrations {
     /**
      * This endpoint is for illustrating the snapshotting of an aggregate.
      * In our case the 'account' aggregate will be snapshotted based on the
-     * configuration we have defined (after 3 events).
+     * thresholds we have configured (see the "Snapshots" section of application.properties).
      *
-     * So we will issue 10 commands to see the snapshotting occur three times.
-     * To view the snapshotting - inspect the DB.
+     * So we will issue enough commands for the account to have three times `max-events-replayed` events (that of
+     * the AccountAggregate, 50 by default) - we will see the snapshotting occur (at least) three times, whatever its
+     * load time. To view the snapshotting - inspect the DB.
      */
     @Override
     public void triggerAccountSnapshot() {
         var accountId = UUID.randomUUID();
+        int numEvents = 3 * snapshotProperties.thresholdsFor(AccountAggregate.class).getMaxEventsReplayed();
 
         // The credit/debit account commands requires a payment ID. We are not making payments (to make things
-        // simpler) for this scenario, so we will just use a one time generated paymentID for all commands.
-        var paymentId = UUID.randomUUID();
-
-        // Create 10 commands:
-        var command01 = nextCreateNewAccountCommand(accountId);
-        var command02 = nextCreditOrDebitCommand(accountId, paymentId);
-        var command03 = nextCreditOrDebitCommand(accountId, paymentId);
-        var command04 = nextCreditOrDebitCommand(accountId, paymentId);
-        var command05 = nextCreditOrDebitCommand(accountId, paymentId);
-        var command06 = nextCreditOrDebitCommand(accountId, paymentId);
-        var command07 = nextCreditOrDebitCommand(accountId, paymentId);
-        var command08 = nextCreditOrDebitCommand(accountId, paymentId);
-        var command09 = nextCreditOrDebitCommand(accountId, paymentId);
-        var command10 = nextCreditOrDebitCommand(accountId, paymentId);
-
-        // Issue the commands:
-        log.debug("Issuing command 1/10: {}", command01);
-        commandGateway.sendAndWait(command01);
-        log.debug("Issuing command 2/10: {}", command02);
-        commandGateway.sendAndWait(command02);
-        log.debug("Issuing command 3/10: {}", command03);
-        commandGateway.sendAndWait(command03);
-        log.debug("Issuing command 4/10: {}", command04);
-        commandGateway.sendAndWait(command04);
-        log.debug("Issuing command 5/10: {}", command05);
-        commandGateway.sendAndWait(command05);
-        log.debug("Issuing command 6/10: {}", command06);
-        commandGateway.sendAndWait(command06);
-        log.debug("Issuing command 7/10: {}", command07);
-        commandGateway.sendAndWait(command07);
-        log.debug("Issuing command 8/10: {}", command08);
-        commandGateway.sendAndWait(command08);
-        log.debug("Issuing command 9/10: {}", command09);
-        commandGateway.sendAndWait(command09);
-        log.debug("Issuing command 10/10: {}", command10);
-        commandGateway.sendAndWait(command10);
+        // simpler) for this scenario, so we will just generate one for each command.
+
+        // Issue the commands (one creating the account, then one per further event):
+        var createCommand = nextCreateNewAccountCommand(accountId);
+        log.debug("Issuing command 1/{}: {}", numEvents, createCommand);
+        commandGateway.sendAndWait(createCommand);
+        for (int i = 2; i <= numEvents; i++) {
+            var command = nextCreditOrDebitCommand(accountId, UUID.randomUUID());
+            log.debug("Issuing command {}/{}: {}", i, numEvents, command);
+            commandGateway.sendAndWait(command);
+        }
 
         // Now inspect the DB...
     }
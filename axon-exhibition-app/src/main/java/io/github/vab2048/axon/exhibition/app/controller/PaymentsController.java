@@ -1,5 +1,7 @@
 package io.github.vab2048.axon.exhibition.app.controller;
 
+import io.github.vab2048.axon.exhibition.app.command.payment.ImmediatePaymentTransferHandler.TransferRejectedException;
+import io.github.vab2048.axon.exhibition.app.config.PaymentSettlementProperties;
 import io.github.vab2048.axon.exhibition.app.controller.dto.ControllerDTOs;
 import io.github.vab2048.axon.exhibition.app.controller.dto.ControllerDTOs.*;
 import io.github.vab2048.axon.exhibition.app.query.QueryResponses.GetPaymentsQueryResponse;
@@ -7,8 +9,10 @@ import io.github.vab2048.axon.exhibition.app.query.payment.PaymentView;
 import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.CancelScheduledPaymentCommand;
 import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.CreateImmediatePaymentCommand;
 import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.CreateScheduledPaymentCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.TransferImmediatePaymentCommand;
 import io.github.vab2048.axon.exhibition.message_api.query.QueryAPI.GetPaymentQuery;
 import io.github.vab2048.axon.exhibition.message_api.query.QueryAPI.GetPaymentsQuery;
+import org.axonframework.commandhandling.CommandExecutionException;
 import org.axonframework.commandhandling.gateway.CommandGateway;
 import org.axonframework.queryhandling.QueryGateway;
 import org.slf4j.Logger;
@@ -26,19 +30,43 @@ public class PaymentsController implements Payments {
 
     private final QueryGateway queryGateway;
     private final CommandGateway commandGateway;
+    private final PaymentSettlementProperties paymentSettlementProperties;
 
-    public PaymentsController(QueryGateway queryGateway, CommandGateway commandGateway) {
+    public PaymentsController(QueryGateway queryGateway, CommandGateway commandGateway,
+                              PaymentSettlementProperties paymentSettlementProperties) {
         this.queryGateway = queryGateway;
         this.commandGateway = commandGateway;
+        this.paymentSettlementProperties = paymentSettlementProperties;
     }
 
     @Override
     public ResponseEntity<MakePaymentResponseBody> makePayment(MakePaymentRequestBody requestBody) {
-        UUID paymentId = commandGateway.sendAndWait(new CreateImmediatePaymentCommand(
-                UUID.randomUUID(),
-                requestBody.sourceBankAccountId(),
-                requestBody.destinationBankAccountId(),
-                requestBody.amount()));
+        var newPaymentId = UUID.randomUUID();
+        UUID paymentId = null;
+        if (paymentSettlementProperties.isFastPath()) {
+            // A transfer the fast path rejects changes nothing, so the payment is then created as usual (a transfer
+            // which fails in any other way fails the request).
+            try {
+                paymentId = commandGateway.sendAndWait(new TransferImmediatePaymentCommand(
+                        newPaymentId,
+                        requestBody.sourceBankAccountId(),
+                        requestBody.destinationBankAccountId(),
+                        requestBody.amount()));
+            } catch (CommandExecutionException e) {
+                // Handled remotely (e.g. over Axon Server), the rejection only comes back as its details.
+                if (!TransferRejectedException.isRejection(e)) {
+                    throw e;
+                }
+                log.debug("Settling payment {} as usual since the fast path rejected it", newPaymentId, e);
+            }
+        }
+        if (paymentId == null) {
+            paymentId = commandGateway.sendAndWait(new CreateImmediatePaymentCommand(
+                    newPaymentId,
+                    requestBody.sourceBankAccountId(),
+                    requestBody.destinationBankAccountId(),
+                    requestBody.amount()));
+        }
 
         // Get the URI for the newly created REST resource...
         var locationURI = ServletUriComponentsBuilder
@@ -1,14 +1,25 @@
 package io.github.vab2048.axon.exhibition.app.controller;
 
+import io.github.vab2048.axon.exhibition.app.config.cache.BoundedAggregateCache;
+import io.github.vab2048.axon.exhibition.app.config.deadline.JdbcDeadlineManager;
+import io.github.vab2048.axon.exhibition.app.config.lock.StripedLockFactory;
+import io.github.vab2048.axon.exhibition.app.config.saga.BoundedCachingSagaStore;
+import io.github.vab2048.axon.exhibition.app.config.saga.SagaAssociationFilter;
+import io.github.vab2048.axon.exhibition.app.config.snapshot.CoalescingSnapshotter;
+import io.github.vab2048.axon.exhibition.app.config.snapshot.SnapshotCompactor;
 import io.github.vab2048.axon.exhibition.app.controller.dto.TEPDTOs.TEPDescription;
 import io.github.vab2048.axon.exhibition.app.controller.dto.TEPDTOs.TEPSegmentProcessingStatus;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.ShardAccountCreditsCommand;
+import org.axonframework.commandhandling.gateway.CommandGateway;
 import org.axonframework.config.EventProcessingConfiguration;
+import org.axonframework.deadline.DeadlineManager;
 import org.axonframework.eventhandling.EventProcessor;
 import org.axonframework.eventhandling.TrackingEventProcessor;
 import org.axonframework.eventhandling.tokenstore.TokenStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
@@ -27,12 +38,33 @@ public class _OperationsController {
     private final EventProcessingConfiguration eventProcessingConfiguration;
     private final TokenStore tokenStore;
     private final TransactionTemplate transactionTemplate;
+    private final CoalescingSnapshotter snapshotter;
+    private final SnapshotCompactor snapshotCompactor;
+    private final List<BoundedAggregateCache> aggregateCaches;
+    private final List<StripedLockFactory> aggregateLockFactories;
+    private final CommandGateway commandGateway;
+    private final BoundedCachingSagaStore<?> sagaStore;
+    private final SagaAssociationFilter sagaAssociationFilter;
+    private final DeadlineManager deadlineManager;
 
 
-    public _OperationsController(EventProcessingConfiguration eventProcessingConfiguration, TokenStore tokenStore, TransactionTemplate transactionTemplate) {
+    public _OperationsController(EventProcessingConfiguration eventProcessingConfiguration, TokenStore tokenStore, TransactionTemplate transactionTemplate,
+                                 CoalescingSnapshotter snapshotter, SnapshotCompactor snapshotCompactor,
+                                 List<BoundedAggregateCache> aggregateCaches,
+                                 List<StripedLockFactory> aggregateLockFactories, CommandGateway commandGateway,
+                                 BoundedCachingSagaStore<?> sagaStore, SagaAssociationFilter sagaAssociationFilter,
+                                 DeadlineManager deadlineManager) {
         this.eventProcessingConfiguration = eventProcessingConfiguration;
         this.tokenStore = tokenStore;
         this.transactionTemplate = transactionTemplate;
+        this.snapshotter = snapshotter;
+        this.snapshotCompactor = snapshotCompactor;
+        this.aggregateCaches = aggregateCaches;
+        this.aggregateLockFactories = aggregateLockFactories;
+        this.commandGateway = commandGateway;
+        this.sagaStore = sagaStore;
+        this.sagaAssociationFilter = sagaAssociationFilter;
+        this.deadlineManager = deadlineManager;
     }
 
     public record EPNameAndType(String name, String type) {}
@@ -138,6 +170,90 @@ public class _OperationsController {
         return ResponseEntity.ok(resetTEPsResults);
     }
 
+    /**
+     * { @return the snapshotter's queue depth, coalesced/shed request counts and snapshot latencies. }
+     */
+    @GetMapping("/snapshotter")
+    public CoalescingSnapshotter.Metrics getSnapshotterMetrics() {
+        return snapshotter.metrics();
+    }
+
+    /**
+     * { @return the size, hits, misses and evictions of each aggregate cache. }
+     */
+    @GetMapping("/aggregate-caches")
+    public List<BoundedAggregateCache.Metrics> getAggregateCacheMetrics() {
+        return aggregateCaches.stream().map(BoundedAggregateCache::metrics).toList();
+    }
+
+    /**
+     * { @return the lock wait time histogram, timeouts and most contended aggregates of each aggregate type. }
+     */
+    @GetMapping("/aggregate-locks")
+    public List<StripedLockFactory.Metrics> getAggregateLockMetrics() {
+        return aggregateLockFactories.stream().map(StripedLockFactory::metrics).toList();
+    }
+
+    /**
+     * { @return the size, hits, misses and evictions of the saga store's saga and association caches. }
+     */
+    @GetMapping("/saga-cache")
+    public List<BoundedAggregateCache.Metrics> getSagaCacheMetrics() {
+        return sagaStore.metrics();
+    }
+
+    /**
+     * { @return the number of association values in the saga association filter, and how many lookups it skipped. }
+     */
+    @GetMapping("/saga-association-filter")
+    public SagaAssociationFilter.Metrics getSagaAssociationFilterMetrics() {
+        return sagaAssociationFilter.metrics();
+    }
+
+    /**
+     * { @return the number of deadlines due, and how many this instance claimed, met, failed to meet and dropped (only
+     * when the deadlines are kept in the DB). }
+     */
+    @GetMapping("/deadlines")
+    public ResponseEntity<?> getDeadlineMetrics() {
+        if (deadlineManager instanceof JdbcDeadlineManager jdbcDeadlineManager) {
+            return ResponseEntity.ok(jdbcDeadlineManager.metrics());
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("The deadlines are not kept in the DB");
+    }
+
+    /**
+     * Spread the credits of the given account over the given number of credit shards (more than it has already).
+     */
+    @PostMapping("/accounts/{accountId}/credit-shards")
+    public ResponseEntity<String> shardAccountCredits(@PathVariable UUID accountId, @RequestParam int shards) {
+        try {
+            commandGateway.sendAndWait(new ShardAccountCreditsCommand(accountId, shards));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.ok("The credits of account %s are spread over %s shard(s)".formatted(accountId, shards));
+    }
+
+    /**
+     * { @return the progress of the snapshot table compaction and the number of superseded snapshots it deleted. }
+     */
+    @GetMapping("/snapshot-compaction")
+    public SnapshotCompactor.Progress getSnapshotCompactionProgress() {
+        return snapshotCompactor.progress();
+    }
+
+    /**
+     * Start compacting the snapshot table now (on the compactor's thread, its progress being at the GET).
+     */
+    @PostMapping("/snapshot-compaction")
+    public ResponseEntity<?> compactSnapshots() {
+        if (!snapshotCompactor.requestCompaction()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("The snapshot table is already being compacted");
+        }
+        return ResponseEntity.accepted().body(snapshotCompactor.progress());
+    }
+
 
 
 
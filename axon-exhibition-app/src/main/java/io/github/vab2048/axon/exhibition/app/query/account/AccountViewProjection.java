@@ -4,6 +4,7 @@ import io.github.vab2048.axon.exhibition.app.query.QueryResponses;
 import io.github.vab2048.axon.exhibition.app.query.QueryResponses.GetAccountsQueryResponse;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountDebitedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountShardCreditedEvent;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.NewAccountCreatedEvent;
 import io.github.vab2048.axon.exhibition.message_api.query.QueryAPI.GetAccountQuery;
 import io.github.vab2048.axon.exhibition.message_api.query.QueryAPI.GetAccountsQuery;
@@ -50,6 +51,17 @@ public class AccountViewProjection {
         repository.save(updatedAccountView);
     }
 
+    // A credit on one of the account's credit shards is the account's straight away (its later consolidation into the
+    // account's command side balance does not change the balance).
+    @EventHandler
+    void on(AccountShardCreditedEvent evt) {
+        log.debug("Projecting: {}", evt);
+        var accountView = repository.findById(evt.accountId()).orElseThrow();
+        var updatedAccountView = new AccountView(accountView.accountId(),
+                accountView.emailAddress(), accountView.balance() + evt.amount());
+        repository.save(updatedAccountView);
+    }
+
     @EventHandler
     void on(AccountDebitedEvent evt) {
         log.debug("Projecting: {}", evt);
@@ -0,0 +1,11 @@
+/*
+ * Opt-in: keep the number of shards the credits of an account are spread over, for each account whose credits are
+ * sharded (maintained by the AccountCreditShards subscribing event processor and read to route the credits).
+ *
+ * Required before setting:
+ *   axon-exhibition.account-sharding.enabled=true
+ */
+CREATE TABLE IF NOT EXISTS "command_side"."account_credit_shards" (
+    account_id  UUID PRIMARY KEY,
+    shards      INT NOT NULL CHECK (shards > 0)
+);
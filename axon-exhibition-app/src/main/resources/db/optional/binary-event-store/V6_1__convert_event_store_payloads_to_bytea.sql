@@ -0,0 +1,17 @@
+/*
+ * Opt-in: store the payload and metadata of domain events and snapshots as bytea rather than jsonb.
+ *
+ * Required before setting:
+ *   axon-exhibition.payload-format.domain-events=smile
+ *   axon-exhibition.payload-format.snapshots=smile
+ *
+ * Existing rows are kept as their JSON text (UTF-8 bytes). The Smile serializer detects the format of each row
+ * (every Smile document begins with a ":)\n" header) so old JSON rows and new Smile rows can be read side by side.
+ */
+ALTER TABLE "axon"."domainevententry"
+    ALTER COLUMN payload  TYPE bytea USING convert_to(payload::text, 'UTF8'),
+    ALTER COLUMN metaData TYPE bytea USING convert_to(metaData::text, 'UTF8');
+
+ALTER TABLE "axon"."snapshotevententry"
+    ALTER COLUMN payload  TYPE bytea USING convert_to(payload::text, 'UTF8'),
+    ALTER COLUMN metaData TYPE bytea USING convert_to(metaData::text, 'UTF8');
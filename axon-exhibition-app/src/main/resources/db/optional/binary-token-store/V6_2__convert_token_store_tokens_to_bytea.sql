@@ -0,0 +1,10 @@
+/*
+ * Opt-in: store the tracking tokens as bytea rather than jsonb.
+ *
+ * Required before setting:
+ *   axon-exhibition.payload-format.tokens=smile
+ *
+ * Existing tokens are kept as their JSON text (UTF-8 bytes) and remain readable by the Smile serializer.
+ */
+ALTER TABLE "axon"."tokenentry"
+    ALTER COLUMN token TYPE bytea USING convert_to(token::text, 'UTF8');
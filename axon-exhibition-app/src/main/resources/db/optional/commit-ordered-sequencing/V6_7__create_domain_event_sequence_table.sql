@@ -0,0 +1,25 @@
+/*
+ * Opt-in: a single row table holding the last assigned global index of the domain event table, from which the app
+ * assigns the global index of appended events in commit order (see GlobalIndexSequencer).
+ *
+ * Required before setting:
+ *   axon-exhibition.event-store.sequencing=commit-ordered
+ *
+ * The identity of the domain event table is left in place but is no longer advanced by the app. To switch back to
+ * `identity` sequencing, first move it past the events appended in the meantime:
+ *   SELECT setval(pg_get_serial_sequence('"axon"."domainevententry"', 'globalindex'), lastGlobalIndex)
+ *   FROM "axon"."domainevententry_sequence";
+ */
+CREATE TABLE IF NOT EXISTS "axon"."domainevententry_sequence"
+(
+    id                  BOOLEAN DEFAULT TRUE NOT NULL CHECK (id), -- Allows only the one row.
+    lastGlobalIndex     BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO "axon"."domainevententry_sequence" (lastGlobalIndex)
+SELECT greatest(coalesce(pg_sequence_last_value(
+                        pg_get_serial_sequence('"axon"."domainevententry"', 'globalindex')::regclass), 0),
+                coalesce(max(globalIndex), 0))
+FROM "axon"."domainevententry"
+ON CONFLICT (id) DO NOTHING;
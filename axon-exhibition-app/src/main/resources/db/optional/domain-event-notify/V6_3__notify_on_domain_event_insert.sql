@@ -0,0 +1,22 @@
+/*
+ * Opt-in: send a notification on the 'axon_domain_event_appended' channel whenever events are inserted into the
+ * domain event table.
+ *
+ * Required before setting:
+ *   axon-exhibition.event-store.notifications-enabled=true
+ *
+ * The trigger fires once per INSERT statement (not per row) and postgres collapses identical notifications sent within
+ * the same transaction, so appending a unit of work results in a single notification, delivered on commit.
+ */
+CREATE OR REPLACE FUNCTION "axon".notify_domain_event_appended() RETURNS trigger AS
+$$
+BEGIN
+    PERFORM pg_notify('axon_domain_event_appended', '');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER domain_event_appended
+    AFTER INSERT ON "axon"."domainevententry"
+    FOR EACH STATEMENT
+EXECUTE FUNCTION "axon".notify_domain_event_appended();
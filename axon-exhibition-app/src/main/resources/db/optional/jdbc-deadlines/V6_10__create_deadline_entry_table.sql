@@ -0,0 +1,34 @@
+/*
+ * Opt-in: the scheduled deadlines, kept until they are met or cancelled (see JdbcDeadlineManager) rather than in the
+ * memory of the app instance which scheduled them.
+ *
+ * Required before setting:
+ *   axon-exhibition.deadlines.persistent=true
+ *
+ * A deadline is due once its nextAttemptTime has passed: initially its triggerTime, then pushed back by each claim of
+ * it (so a deadline whose handling failed, or whose claiming instance stopped, is retried once its claim expires).
+ */
+CREATE TABLE IF NOT EXISTS "axon"."deadlineentry"
+(
+    deadlineId        TEXT NOT NULL,
+    deadlineName      TEXT NOT NULL,
+    messageIdentifier TEXT NOT NULL,
+    triggerTime       TIMESTAMPTZ NOT NULL,
+    nextAttemptTime   TIMESTAMPTZ NOT NULL,
+    attempts          INTEGER DEFAULT 0 NOT NULL,
+    payloadType       TEXT,
+    payloadRevision   TEXT,
+    payload           bytea,
+    metaData          bytea,
+    scopeType         TEXT NOT NULL,
+    scope             bytea NOT NULL,
+    PRIMARY KEY (deadlineId)
+);
+
+-- Claiming takes the earliest due deadlines.
+CREATE INDEX IF NOT EXISTS deadlineentry_index_next_attempt
+    ON "axon"."deadlineentry" (nextAttemptTime);
+
+-- Cancelling all the deadlines of a name (within a scope).
+CREATE INDEX IF NOT EXISTS deadlineentry_index_name
+    ON "axon"."deadlineentry" (deadlineName);
@@ -0,0 +1,27 @@
+/*
+ * Opt-in: store the event and aggregate identifiers of domain events and snapshots as uuid (16 bytes rather than a
+ * 36 character string) and their timestamps as timestamptz rather than TEXT.
+ *
+ * Required before setting:
+ *   axon-exhibition.event-store.column-types=native
+ *
+ * Every aggregate identifier in the app is a UUID, as is every event identifier (Axon's default identifier factory).
+ * Existing timestamps are ISO-8601 strings which postgres parses as is. The tables (and their indexes, including the
+ * unique (aggregateIdentifier, sequenceNumber) index) are rewritten, so run this at a quiet time.
+ */
+ALTER TABLE "axon"."domainevententry"
+    ALTER COLUMN eventIdentifier     TYPE uuid        USING eventIdentifier::uuid,
+    ALTER COLUMN aggregateIdentifier TYPE uuid        USING aggregateIdentifier::uuid,
+    ALTER COLUMN timeStamp           TYPE timestamptz USING timeStamp::timestamptz;
+
+ALTER TABLE "axon"."snapshotevententry"
+    ALTER COLUMN eventIdentifier     TYPE uuid        USING eventIdentifier::uuid,
+    ALTER COLUMN aggregateIdentifier TYPE uuid        USING aggregateIdentifier::uuid,
+    ALTER COLUMN timeStamp           TYPE timestamptz USING timeStamp::timestamptz;
+
+/*
+ * Events are appended in (roughly) timestamp order so a BRIN index makes time range scans (e.g. creating a tracking
+ * token at a point in time) cheap, at a negligible cost to the size of the table and to inserts.
+ */
+CREATE INDEX IF NOT EXISTS domainevententry_timestamp_brin_index
+    ON "axon"."domainevententry" USING brin (timeStamp);
@@ -0,0 +1,161 @@
+/*
+ * Opt-in: range partition the domain event table on globalIndex.
+ *
+ * Required before setting:
+ *   axon-exhibition.event-store.partitioned=true
+ *
+ * Each partition holds 10,000,000 consecutive global indexes. Tracked event fetches select a range of the global index
+ * so postgres only reads the partitions at or after the position of the tracking token (plus those of any gaps). New
+ * partitions are created ahead of the global index sequence by axon.create_domainevententry_partitions() which the app
+ * calls on start up and periodically afterwards (see DomainEventPartitionMaintainer).
+ *
+ * A unique index on a partitioned table must include the partition key, so the (aggregateIdentifier, sequenceNumber)
+ * uniqueness which Axon relies on for optimistic locking moves to the (unpartitioned) aggregate index table below. It
+ * is filled by a trigger in the same statement as the insert of the event and is also what aggregate loads go through.
+ * The (per partition only) uniqueness of eventIdentifier is dropped.
+ *
+ * If the native-column-types migration is wanted it should be applied before this one (the column types are copied).
+ * Existing events are copied into the new table, so run this at a quiet time.
+ */
+ALTER TABLE "axon"."domainevententry" RENAME TO "domainevententry_unpartitioned";
+-- Free the name of the BRIN index of the native-column-types migration (if it has been applied), to be recreated below.
+ALTER INDEX IF EXISTS "axon"."domainevententry_timestamp_brin_index"
+    RENAME TO "domainevententry_unpartitioned_timestamp_brin_index";
+
+CREATE TABLE "axon"."domainevententry"
+(
+    LIKE "axon"."domainevententry_unpartitioned" INCLUDING DEFAULTS INCLUDING IDENTITY,
+    PRIMARY KEY (globalIndex)
+) PARTITION BY RANGE (globalIndex);
+
+/*
+ * The aggregate identifier and sequence number of every event, with the global index of the event.
+ */
+CREATE TABLE "axon"."domainevententry_aggregate_index" AS
+    SELECT aggregateIdentifier, sequenceNumber, globalIndex FROM "axon"."domainevententry" WITH NO DATA;
+ALTER TABLE "axon"."domainevententry_aggregate_index"
+    ALTER COLUMN aggregateIdentifier SET NOT NULL,
+    ALTER COLUMN sequenceNumber SET NOT NULL,
+    ALTER COLUMN globalIndex SET NOT NULL,
+    ADD PRIMARY KEY (aggregateIdentifier, sequenceNumber);
+
+CREATE OR REPLACE FUNCTION "axon".index_domain_event_aggregate() RETURNS trigger AS
+$$
+BEGIN
+    INSERT INTO "axon"."domainevententry_aggregate_index" (aggregateIdentifier, sequenceNumber, globalIndex)
+    VALUES (NEW.aggregateIdentifier, NEW.sequenceNumber, NEW.globalIndex);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER domain_event_aggregate_index
+    AFTER INSERT ON "axon"."domainevententry"
+    FOR EACH ROW
+EXECUTE FUNCTION "axon".index_domain_event_aggregate();
+
+/*
+ * The number of consecutive global indexes each partition holds.
+ */
+CREATE OR REPLACE FUNCTION "axon".domainevententry_partition_size() RETURNS bigint AS
+$$
+SELECT 10000000::bigint;
+$$ LANGUAGE sql IMMUTABLE;
+
+/*
+ * Create any missing partitions from the one holding the current global index up to `partitions_ahead` partitions
+ * after it. Returns the number of partitions created.
+ *
+ * Several instances of the app may call this at once: a partition created by another in the meantime is skipped.
+ */
+CREATE OR REPLACE FUNCTION "axon".create_domainevententry_partitions(partitions_ahead integer) RETURNS integer AS
+$$
+DECLARE
+    partition_size    CONSTANT bigint := "axon".domainevententry_partition_size();
+    current_index     bigint;
+    partition_number  bigint;
+    partition_name    text;
+    created           integer := 0;
+BEGIN
+    -- The max of the global index is cheap to find (it is the primary key of each partition) and covers events
+    -- inserted with an explicit global index, which do not advance the sequence.
+    SELECT greatest(coalesce(pg_sequence_last_value(
+                            pg_get_serial_sequence('"axon"."domainevententry"', 'globalindex')::regclass), 0),
+                    coalesce(max(globalIndex), 0))
+    INTO current_index
+    FROM "axon"."domainevententry";
+    FOR partition_number IN (current_index / partition_size) .. (current_index / partition_size) + partitions_ahead LOOP
+        partition_name := 'domainevententry_p' || partition_number;
+        IF to_regclass('"axon".' || quote_ident(partition_name)) IS NULL THEN
+            BEGIN
+                EXECUTE format('CREATE TABLE "axon".%I PARTITION OF "axon"."domainevententry"'
+                                   || ' FOR VALUES FROM (%s) TO (%s)',
+                               partition_name, partition_number * partition_size,
+                               (partition_number + 1) * partition_size);
+                created := created + 1;
+            EXCEPTION
+                -- Created by a concurrent call since the check above (which of the two is raised depends on where the
+                -- concurrent creation is detected).
+                WHEN duplicate_table OR unique_violation THEN
+                    NULL;
+            END;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+/*
+ * Move the existing events over, continuing the global index sequence from where it was.
+ */
+DO
+$$
+DECLARE
+    partition_size CONSTANT bigint := "axon".domainevententry_partition_size();
+    max_index bigint;
+    partition_number bigint;
+BEGIN
+    SELECT coalesce(max(globalIndex), 0) INTO max_index FROM "axon"."domainevententry_unpartitioned";
+    FOR partition_number IN 0 .. (max_index / partition_size) LOOP
+        EXECUTE format('CREATE TABLE "axon".%I PARTITION OF "axon"."domainevententry" FOR VALUES FROM (%s) TO (%s)',
+                       'domainevententry_p' || partition_number, partition_number * partition_size,
+                       (partition_number + 1) * partition_size);
+    END LOOP;
+    IF max_index > 0 THEN
+        PERFORM setval(pg_get_serial_sequence('"axon"."domainevententry"', 'globalindex'), max_index);
+    END IF;
+END;
+$$;
+
+INSERT INTO "axon"."domainevententry" SELECT * FROM "axon"."domainevententry_unpartitioned" ORDER BY globalIndex;
+
+/*
+ * Keep the BRIN index of the native-column-types migration (if it has been applied), now on every partition. Created
+ * after the events have been copied as that is quicker than maintaining it while they are.
+ */
+DO
+$$
+BEGIN
+    IF to_regclass('"axon"."domainevententry_unpartitioned_timestamp_brin_index"') IS NOT NULL THEN
+        CREATE INDEX domainevententry_timestamp_brin_index ON "axon"."domainevententry" USING brin (timeStamp);
+    END IF;
+END;
+$$;
+
+SELECT "axon".create_domainevententry_partitions(2);
+
+/*
+ * Keep the notification trigger of the domain-event-notify migration (if it has been applied).
+ */
+DO
+$$
+BEGIN
+    IF to_regproc('"axon".notify_domain_event_appended') IS NOT NULL THEN
+        CREATE TRIGGER domain_event_appended
+            AFTER INSERT ON "axon"."domainevententry"
+            FOR EACH STATEMENT
+        EXECUTE FUNCTION "axon".notify_domain_event_appended();
+    END IF;
+END;
+$$;
+
+DROP TABLE "axon"."domainevententry_unpartitioned";
@@ -0,0 +1,17 @@
+/*
+ * Keep exactly one snapshot per aggregate: key the snapshot table by the aggregate alone so that each snapshot
+ * replaces the previous one in place (axon-exhibition.snapshot.write-mode=upsert) rather than being added alongside
+ * it, with the older ones deleted afterwards.
+ *
+ * Only the latest snapshot of each aggregate is kept (it is the only one ever read).
+ */
+DELETE FROM "axon"."snapshotevententry" s
+WHERE s.sequenceNumber < (SELECT max(l.sequenceNumber)
+                          FROM "axon"."snapshotevententry" l
+                          WHERE l.aggregateIdentifier = s.aggregateIdentifier);
+
+ALTER TABLE "axon"."snapshotevententry" DROP CONSTRAINT snapshotevententry_pkey;
+ALTER TABLE "axon"."snapshotevententry" ADD PRIMARY KEY (aggregateIdentifier);
+
+-- Redundant with the new primary key.
+DROP INDEX IF EXISTS "axon".snapshotevententry_aggregate_identifier_index;
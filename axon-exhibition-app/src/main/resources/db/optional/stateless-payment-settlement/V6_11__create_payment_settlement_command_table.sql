@@ -0,0 +1,15 @@
+/*
+ * Opt-in: the identifiers of the commands of the stateless payment settlement engine which have been handled, so that
+ * one sent again is ignored (see PaymentSettlementCommandDeduplicator, which deletes them after their retention).
+ *
+ * Required before setting:
+ *   axon-exhibition.payment-settlement.engine=stateless
+ */
+CREATE TABLE IF NOT EXISTS "command_side"."payment_settlement_command" (
+    command_id  UUID PRIMARY KEY,
+    handled_at  TIMESTAMPTZ NOT NULL
+);
+
+-- Deleting the identifiers past their retention.
+CREATE INDEX IF NOT EXISTS payment_settlement_command_index_handled_at
+    ON "command_side"."payment_settlement_command" (handled_at);
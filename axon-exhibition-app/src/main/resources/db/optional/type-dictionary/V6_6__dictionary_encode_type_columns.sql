@@ -0,0 +1,44 @@
+/*
+ * Opt-in: store the payload type and aggregate type of domain events and snapshots as the integer code of an entry in
+ * a dictionary table (4 bytes) rather than as the fully qualified class name (often 80+ characters) on every row.
+ *
+ * Required before setting:
+ *   axon-exhibition.event-store.type-dictionary=true
+ *
+ * The app caches the dictionary in memory and adds the names of new types to it as they are first appended. The
+ * tables are rewritten, so run this at a quiet time.
+ */
+CREATE TABLE IF NOT EXISTS "axon"."typedictionary"
+(
+    code    INTEGER GENERATED BY DEFAULT AS IDENTITY (START WITH 1 INCREMENT BY 1) NOT NULL,
+    name    TEXT NOT NULL,
+    PRIMARY KEY (code),
+    UNIQUE (name)
+);
+
+INSERT INTO "axon"."typedictionary" (name)
+SELECT name FROM (
+    SELECT payloadType AS name FROM "axon"."domainevententry"
+    UNION SELECT type FROM "axon"."domainevententry"
+    UNION SELECT payloadType FROM "axon"."snapshotevententry"
+    UNION SELECT type FROM "axon"."snapshotevententry"
+) names
+ORDER BY name
+ON CONFLICT (name) DO NOTHING;
+
+/*
+ * The USING expression of ALTER COLUMN cannot contain a sub query, so the lookup is wrapped in a function.
+ */
+CREATE OR REPLACE FUNCTION axon.type_code(type_name text) RETURNS integer AS $$
+    SELECT code FROM "axon"."typedictionary" WHERE name = type_name;
+$$ LANGUAGE sql STABLE;
+
+ALTER TABLE "axon"."domainevententry"
+    ALTER COLUMN type        TYPE integer USING axon.type_code(type),
+    ALTER COLUMN payloadType TYPE integer USING axon.type_code(payloadType);
+
+ALTER TABLE "axon"."snapshotevententry"
+    ALTER COLUMN type        TYPE integer USING axon.type_code(type),
+    ALTER COLUMN payloadType TYPE integer USING axon.type_code(payloadType);
+
+DROP FUNCTION axon.type_code(text);
@@ -0,0 +1,40 @@
+package io.github.vab2048.axon.exhibition.app.command.account;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AccountAggregateSnapshotCodecTest {
+    private final AccountAggregateSnapshotCodec codec = new AccountAggregateSnapshotCodec();
+
+    @Test
+    void decode_Version3Layout_SkipsItsPaymentIds() throws Exception {
+        var accountId = UUID.randomUUID();
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        out.writeLong(accountId.getMostSignificantBits());
+        out.writeLong(accountId.getLeastSignificantBits());
+        out.writeLong(42L);
+        // One credit shard, then one debited and no credited payment.
+        out.writeInt(1);
+        out.writeLong(5L);
+        out.writeInt(1);
+        out.writeLong(1L);
+        out.writeLong(2L);
+        out.writeInt(0);
+
+        var in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        AccountAggregate read = codec.decode(3, in);
+
+        assertThat(read.getAccountId()).isEqualTo(accountId);
+        assertThat(read.getBalance()).isEqualTo(42L);
+        assertThat(read.getConsolidatedCreditShardTotals()).containsExactly(5L);
+        assertThat(in.available()).isZero();
+    }
+}
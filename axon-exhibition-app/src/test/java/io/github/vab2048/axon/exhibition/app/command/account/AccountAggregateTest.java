@@ -1,10 +1,15 @@
 package io.github.vab2048.axon.exhibition.app.command.account;
 
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditShardConsolidatedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditsShardedEvent;
 import io.github.vab2048.axon.exhibition.test.utils.command.account.AccountAggregateMessageGenerator;
 import org.axonframework.test.aggregate.AggregateTestFixture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
 public class AccountAggregateTest {
     private static final AccountAggregateMessageGenerator messageGenerator = new AccountAggregateMessageGenerator();
 
@@ -14,6 +19,7 @@ public class AccountAggregateTest {
     void setUp() {
         // Reset the fixture before each test.
         fixture = new AggregateTestFixture<>(AccountAggregate.class);
+        fixture.registerInjectableResource(new AccountCreditShards(null, null, false));
     }
 
     @Test
@@ -48,4 +54,21 @@ public class AccountAggregateTest {
                 .when(debitAccountCmd)
                 .expectEvents(accountDebitedEvt);
     }
+
+    @Test
+    void debitAccountScenario_WithShardedCredits_ConsolidatesTheShardsFirst() {
+        var accountDebited = messageGenerator.accountDebited();
+        var creationEvt = accountDebited.accountCreation().evt();
+        var accountId = creationEvt.accountId();
+        var accountCreditShards = mock(AccountCreditShards.class);
+        when(accountCreditShards.creditedTotal(accountId, 1)).thenReturn(30L);
+        fixture = new AggregateTestFixture<>(AccountAggregate.class);
+        fixture.registerInjectableResource(accountCreditShards);
+
+        fixture.given(creationEvt,
+                        new AccountCreditsShardedEvent(accountId, 2),
+                        new AccountCreditShardConsolidatedEvent(accountId, 1, 10L, 10L))
+                .when(accountDebited.cmd())
+                .expectEvents(new AccountCreditShardConsolidatedEvent(accountId, 1, 20L, 30L), accountDebited.evt());
+    }
 }
@@ -0,0 +1,29 @@
+package io.github.vab2048.axon.exhibition.app.command.account;
+
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountShardCreditedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.CreditAccountShardCommand;
+import org.axonframework.test.aggregate.AggregateTestFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+public class AccountCreditShardAggregateTest {
+    private final UUID accountId = UUID.randomUUID();
+    private final UUID shardId = AccountCreditShards.shardId(accountId, 1);
+    private final UUID paymentId = UUID.randomUUID();
+
+    private AggregateTestFixture<AccountCreditShardAggregate> fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new AggregateTestFixture<>(AccountCreditShardAggregate.class);
+    }
+
+    @Test
+    void creditAccountShardScenario_FirstCredit_CreatesTheShard() {
+        fixture.givenNoPriorActivity()
+                .when(new CreditAccountShardCommand(shardId, accountId, 1, paymentId, 10L))
+                .expectEvents(new AccountShardCreditedEvent(shardId, accountId, 1, paymentId, 10L));
+    }
+}
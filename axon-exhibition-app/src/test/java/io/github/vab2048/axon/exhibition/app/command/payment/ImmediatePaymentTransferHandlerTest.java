@@ -0,0 +1,100 @@
+package io.github.vab2048.axon.exhibition.app.command.payment;
+
+import io.github.vab2048.axon.exhibition.app.command.account.AccountAggregate;
+import io.github.vab2048.axon.exhibition.app.config.lock.StripedLockFactory;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.CreditAccountCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.DebitAccountCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.MarkPaymentAsCompletedCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.TransferImmediatePaymentCommand;
+import io.github.vab2048.axon.exhibition.message_api.common.InstantSupplier;
+import org.axonframework.commandhandling.CommandExecutionException;
+import org.axonframework.messaging.Message;
+import org.axonframework.modelling.command.Aggregate;
+import org.axonframework.modelling.command.Repository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatcher;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ImmediatePaymentTransferHandlerTest {
+    private final UUID paymentId = UUID.randomUUID();
+    private final UUID sourceAccountId = UUID.randomUUID();
+    private final UUID destinationAccountId = UUID.randomUUID();
+
+    private Repository<AccountAggregate> accountRepository;
+    private Repository<PaymentAggregate> paymentRepository;
+    private StripedLockFactory accountLockFactory;
+    private Aggregate<AccountAggregate> sourceAccount;
+    private Aggregate<AccountAggregate> destinationAccount;
+    private Aggregate<PaymentAggregate> payment;
+    private ImmediatePaymentTransferHandler handler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        accountRepository = mock(Repository.class);
+        paymentRepository = mock(Repository.class);
+        accountLockFactory = new StripedLockFactory("test", 16, 10, Duration.ofSeconds(1), 10);
+        sourceAccount = mock(Aggregate.class);
+        destinationAccount = mock(Aggregate.class);
+        payment = mock(Aggregate.class);
+        when(accountRepository.load(sourceAccountId.toString())).thenReturn(sourceAccount);
+        when(accountRepository.load(destinationAccountId.toString())).thenReturn(destinationAccount);
+        when(sourceAccount.invoke(any())).thenReturn(0);
+        when(destinationAccount.invoke(any())).thenReturn(0);
+        when(paymentRepository.newInstance(any())).thenReturn(payment);
+        handler = new ImmediatePaymentTransferHandler(accountRepository, paymentRepository, accountLockFactory,
+                InstantSupplier.DEFAULT_SUPPLIER);
+    }
+
+    @Test
+    void transfer_DebitsCreditsAndCompletesThePayment_HavingLockedTheAccountsInLockOrder() throws Exception {
+        var command = new TransferImmediatePaymentCommand(paymentId, sourceAccountId, destinationAccountId, 10);
+
+        assertThat(handler.handle(command)).isEqualTo(paymentId);
+
+        var accountIdsInLockOrder = Stream.of(sourceAccountId.toString(), destinationAccountId.toString())
+                .sorted(accountLockFactory.lockOrder())
+                .toList();
+        var loads = inOrder(accountRepository);
+        loads.verify(accountRepository).load(accountIdsInLockOrder.get(0));
+        loads.verify(accountRepository).load(accountIdsInLockOrder.get(1));
+        var handling = inOrder(sourceAccount, destinationAccount, payment);
+        handling.verify(sourceAccount).handle(argThat(hasPayload(
+                new DebitAccountCommand(sourceAccountId, paymentId, 10))));
+        handling.verify(destinationAccount).handle(argThat(hasPayload(
+                new CreditAccountCommand(destinationAccountId, paymentId, 10))));
+        handling.verify(payment).handle(argThat(hasPayload(new MarkPaymentAsCompletedCommand(paymentId))));
+    }
+
+    @Test
+    void transfer_ToAnAccountWithShardedCredits_IsRejected() throws Exception {
+        when(destinationAccount.invoke(any())).thenReturn(4);
+        var command = new TransferImmediatePaymentCommand(paymentId, sourceAccountId, destinationAccountId, 10);
+
+        assertThatThrownBy(() -> handler.handle(command))
+                .isInstanceOf(ImmediatePaymentTransferHandler.TransferRejectedException.class)
+                .matches(e -> ImmediatePaymentTransferHandler.TransferRejectedException
+                        .isRejection((CommandExecutionException) e));
+
+        verify(sourceAccount, never()).handle(any());
+        verify(paymentRepository, never()).newInstance(any());
+    }
+
+    private static ArgumentMatcher<Message<?>> hasPayload(Object payload) {
+        return message -> message.getPayload().equals(payload);
+    }
+}
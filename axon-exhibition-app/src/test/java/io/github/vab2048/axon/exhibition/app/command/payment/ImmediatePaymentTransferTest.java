@@ -0,0 +1,162 @@
+package io.github.vab2048.axon.exhibition.app.command.payment;
+
+import io.github.vab2048.axon.exhibition.app.command.account.AccountAggregate;
+import io.github.vab2048.axon.exhibition.app.command.account.AccountCreditShards;
+import io.github.vab2048.axon.exhibition.app.command.payment.ImmediatePaymentTransferHandler.TransferRejectedException;
+import io.github.vab2048.axon.exhibition.app.config.lock.StripedLockFactory;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditsShardedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountDebitedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.NewAccountCreatedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.ImmediatePaymentCreatedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.PaymentCompletedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.TransferImmediatePaymentCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentStatus;
+import io.github.vab2048.axon.exhibition.message_api.common.InstantSupplier;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.EventSourcingRepository;
+import org.axonframework.eventsourcing.eventstore.EmbeddedEventStore;
+import org.axonframework.eventsourcing.eventstore.inmemory.InMemoryEventStorageEngine;
+import org.axonframework.messaging.Message;
+import org.axonframework.messaging.ResultMessage;
+import org.axonframework.messaging.annotation.ClasspathParameterResolverFactory;
+import org.axonframework.messaging.annotation.MultiParameterResolverFactory;
+import org.axonframework.messaging.annotation.ParameterResolverFactory;
+import org.axonframework.messaging.annotation.SimpleResourceParameterResolverFactory;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.axonframework.commandhandling.GenericCommandMessage.asCommandMessage;
+
+/**
+ * The transfer of {@link ImmediatePaymentTransferHandler} over the actual account and payment aggregates, event
+ * sourced from an in-memory event store in the one unit of work (as a command of the command bus would be).
+ */
+public class ImmediatePaymentTransferTest {
+    private final UUID paymentId = UUID.randomUUID();
+    private final UUID sourceAccountId = UUID.randomUUID();
+    private final UUID destinationAccountId = UUID.randomUUID();
+    private final Instant settlementInitiationTimestamp = Instant.now();
+
+    private FailingInMemoryEventStorageEngine storageEngine;
+    private EmbeddedEventStore eventStore;
+    private ImmediatePaymentTransferHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        storageEngine = new FailingInMemoryEventStorageEngine();
+        eventStore = EmbeddedEventStore.builder().storageEngine(storageEngine).build();
+        var accountLockFactory = new StripedLockFactory("test", 16, 10, Duration.ofSeconds(1), 10);
+        InstantSupplier instantSupplier = () -> settlementInitiationTimestamp;
+        ParameterResolverFactory parameterResolverFactory = MultiParameterResolverFactory.ordered(
+                ClasspathParameterResolverFactory.forClass(AccountAggregate.class),
+                new SimpleResourceParameterResolverFactory(
+                        List.of(new AccountCreditShards(null, null, false), instantSupplier)));
+        var accountRepository = EventSourcingRepository.builder(AccountAggregate.class)
+                .eventStore(eventStore)
+                .lockFactory(accountLockFactory)
+                .parameterResolverFactory(parameterResolverFactory)
+                .build();
+        var paymentRepository = EventSourcingRepository.builder(PaymentAggregate.class)
+                .subtype(ImmediatePaymentAggregate.class)
+                .eventStore(eventStore)
+                .parameterResolverFactory(parameterResolverFactory)
+                .build();
+        handler = new ImmediatePaymentTransferHandler(accountRepository, paymentRepository, accountLockFactory,
+                instantSupplier);
+
+        givenAccount(sourceAccountId, new AccountCreditedEvent(sourceAccountId, UUID.randomUUID(), 100));
+        givenAccount(destinationAccountId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventStore.shutDown();
+    }
+
+    @Test
+    void transfer_DebitsCreditsAndCompletesThePaymentInOneUnitOfWork() {
+        var result = transfer(destinationAccountId);
+
+        assertThat(result.isExceptional()).isFalse();
+        assertThat(result.getPayload()).isEqualTo(paymentId);
+        assertThat(payloads(sourceAccountId)).endsWith(new AccountDebitedEvent(sourceAccountId, paymentId, 10));
+        assertThat(payloads(destinationAccountId))
+                .endsWith(new AccountCreditedEvent(destinationAccountId, paymentId, 10));
+        assertThat(payloads(paymentId)).containsExactly(
+                new ImmediatePaymentCreatedEvent(paymentId, sourceAccountId, destinationAccountId, 10,
+                        PaymentStatus.CREATED, settlementInitiationTimestamp),
+                new PaymentCompletedEvent(paymentId));
+    }
+
+    @Test
+    void transfer_ToAnAccountWithShardedCredits_IsRejectedWithoutChangingEitherAccount() {
+        var shardedAccountId = UUID.randomUUID();
+        givenAccount(shardedAccountId, new AccountCreditsShardedEvent(shardedAccountId, 4));
+        var sourceEvents = payloads(sourceAccountId);
+        var shardedAccountEvents = payloads(shardedAccountId);
+
+        var result = transfer(shardedAccountId);
+
+        assertThat(result.isExceptional()).isTrue();
+        assertThat(result.exceptionResult()).isInstanceOf(TransferRejectedException.class);
+        assertThat(payloads(sourceAccountId)).isEqualTo(sourceEvents);
+        assertThat(payloads(shardedAccountId)).isEqualTo(shardedAccountEvents);
+        assertThat(payloads(paymentId)).isEmpty();
+    }
+
+    @Test
+    void transfer_WhichFailsOnceDebited_IsRolledBackAsAWhole() {
+        var sourceEvents = payloads(sourceAccountId);
+        var destinationEvents = payloads(destinationAccountId);
+        // i.e. the debit, credit and payment are all rejected by the event store as the unit of work commits.
+        storageEngine.failAppends = true;
+
+        var result = transfer(destinationAccountId);
+
+        assertThat(result.isExceptional()).isTrue();
+        assertThat(payloads(sourceAccountId)).isEqualTo(sourceEvents);
+        assertThat(payloads(destinationAccountId)).isEqualTo(destinationEvents);
+        assertThat(payloads(paymentId)).isEmpty();
+    }
+
+    private ResultMessage<UUID> transfer(UUID destinationAccountId) {
+        var command = new TransferImmediatePaymentCommand(paymentId, sourceAccountId, destinationAccountId, 10);
+        return DefaultUnitOfWork.startAndGet(asCommandMessage(command))
+                .executeWithResult(() -> handler.handle(command));
+    }
+
+    private void givenAccount(UUID accountId, Object... events) {
+        storageEngine.appendEvents(new GenericDomainEventMessage<>("AccountAggregate", accountId.toString(), 0L,
+                new NewAccountCreatedEvent(accountId, accountId + "@example.com", 0L)));
+        for (int i = 0; i < events.length; i++) {
+            storageEngine.appendEvents(new GenericDomainEventMessage<>("AccountAggregate", accountId.toString(),
+                    i + 1L, events[i]));
+        }
+    }
+
+    private List<Object> payloads(UUID aggregateId) {
+        return eventStore.readEvents(aggregateId.toString()).asStream().map(Message::getPayload).toList();
+    }
+
+    private static class FailingInMemoryEventStorageEngine extends InMemoryEventStorageEngine {
+        private boolean failAppends;
+
+        @Override
+        public void appendEvents(List<? extends EventMessage<?>> events) {
+            if (failAppends) {
+                throw new IllegalStateException("Unable to append events");
+            }
+            super.appendEvents(events);
+        }
+    }
+}
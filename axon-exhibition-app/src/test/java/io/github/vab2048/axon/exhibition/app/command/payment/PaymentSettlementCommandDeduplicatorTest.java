@@ -0,0 +1,68 @@
+package io.github.vab2048.axon.exhibition.app.command.payment;
+
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.DebitAccountCommand;
+import org.axonframework.commandhandling.CommandMessage;
+import org.axonframework.commandhandling.GenericCommandMessage;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class PaymentSettlementCommandDeduplicatorTest {
+    private final UUID paymentId = UUID.randomUUID();
+    private final DebitAccountCommand debit = new DebitAccountCommand(UUID.randomUUID(), paymentId, 10L);
+
+    private JdbcTemplate jdbcTemplate;
+    private InterceptorChain interceptorChain;
+    private PaymentSettlementCommandDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        interceptorChain = mock(InterceptorChain.class);
+        when(interceptorChain.proceed()).thenReturn("handled");
+        deduplicator = new PaymentSettlementCommandDeduplicator(jdbcTemplate, Duration.ofDays(1),
+                Duration.ofHours(1));
+    }
+
+    @Test
+    void handle_SettlementCommandNotHandledBefore_IsRecordedAndHandled() throws Exception {
+        var command = PaymentSettlementProcessor.command(paymentId, "debit", debit, UUID.randomUUID().toString());
+        when(jdbcTemplate.update(anyString(), eq(UUID.fromString(command.getIdentifier())), any())).thenReturn(1);
+
+        assertThat(handle(command)).isEqualTo("handled");
+    }
+
+    @Test
+    void handle_SettlementCommandAlreadyHandled_IsIgnored() throws Exception {
+        var command = PaymentSettlementProcessor.command(paymentId, "debit", debit, UUID.randomUUID().toString());
+        when(jdbcTemplate.update(anyString(), eq(UUID.fromString(command.getIdentifier())), any())).thenReturn(0);
+
+        assertThat(handle(command)).isNull();
+        verify(interceptorChain, never()).proceed();
+    }
+
+    @Test
+    void handle_CommandNotOfTheSettlement_IsHandledWithoutBeingRecorded() throws Exception {
+        assertThat(handle(GenericCommandMessage.asCommandMessage(debit))).isEqualTo("handled");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private Object handle(CommandMessage<?> command) throws Exception {
+        return deduplicator.handle(new DefaultUnitOfWork<>(command), interceptorChain);
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.vab2048.axon.exhibition.app.command.payment;
+
+import org.axonframework.commandhandling.gateway.CommandGateway;
+import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.messaging.ResultMessage;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PaymentSettlementCommandDispatcherTest {
+    private CommandGateway commandGateway;
+    private PaymentSettlementCommandDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        commandGateway = mock(CommandGateway.class);
+        dispatcher = new PaymentSettlementCommandDispatcher(commandGateway, Duration.ofMillis(100));
+    }
+
+    @Test
+    void send_CommandWhichFails_SendsTheOtherCommandInsteadAndCommitsTheBatch() {
+        when(commandGateway.send("command")).thenReturn(CompletableFuture.failedFuture(new IllegalStateException()));
+        when(commandGateway.send("onFailure")).thenReturn(CompletableFuture.completedFuture(null));
+
+        var result = batch(() -> dispatcher.send("command", "onFailure"));
+
+        assertThat(result.isExceptional()).isFalse();
+        verify(commandGateway).send("onFailure");
+    }
+
+    @Test
+    void send_CommandWhichDoesNotCompleteWithinTheTimeout_FailsTheBatch() {
+        when(commandGateway.send("command")).thenReturn(new CompletableFuture<>());
+
+        var result = batch(() -> dispatcher.send("command"));
+
+        assertThat(result.isExceptional()).isTrue();
+        assertThat(result.exceptionResult()).hasRootCauseInstanceOf(TimeoutException.class);
+    }
+
+    /*
+     * Send in the unit of work of a batch of events (as their event processor would).
+     */
+    private ResultMessage<Object> batch(Runnable send) {
+        return DefaultUnitOfWork.startAndGet(GenericEventMessage.asEventMessage("event"))
+                .executeWithResult(() -> {
+                    send.run();
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.vab2048.axon.exhibition.app.command.payment;
+
+import io.github.vab2048.axon.exhibition.app.command.account.AccountCreditShards;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountDebitedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.CreditAccountCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.DebitAccountCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.MarkPaymentAsCompletedCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.MarkPaymentAsFailedCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.PaymentSettlementTriggeredEvent;
+import org.axonframework.commandhandling.CommandMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementProcessor.DESTINATION_ACCOUNT_ID_META_DATA_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+public class PaymentSettlementProcessorTest {
+    private final UUID paymentId = UUID.randomUUID();
+    private final UUID sourceAccountId = UUID.randomUUID();
+    private final UUID destinationAccountId = UUID.randomUUID();
+
+    private PaymentSettlementCommandDispatcher commandDispatcher;
+    private PaymentSettlementProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        commandDispatcher = mock(PaymentSettlementCommandDispatcher.class);
+        processor = new PaymentSettlementProcessor(commandDispatcher, new AccountCreditShards(null, null, false));
+    }
+
+    @Test
+    void paymentSettlementTriggeredEvent_ResultsInDebitCarryingTheDestinationAccount() {
+        processor.on(new PaymentSettlementTriggeredEvent(paymentId, sourceAccountId, destinationAccountId, 10,
+                Instant.now()));
+
+        var command = ArgumentCaptor.forClass(CommandMessage.class);
+        var onFailure = ArgumentCaptor.forClass(CommandMessage.class);
+        verify(commandDispatcher).send(command.capture(), onFailure.capture());
+        assertThat(command.getValue().getPayload()).isEqualTo(new DebitAccountCommand(sourceAccountId, paymentId, 10));
+        assertThat(command.getValue().getMetaData())
+                .containsEntry(DESTINATION_ACCOUNT_ID_META_DATA_KEY, destinationAccountId.toString());
+        assertThat(onFailure.getValue().getPayload()).isEqualTo(new MarkPaymentAsFailedCommand(paymentId));
+    }
+
+    @Test
+    void accountDebitedEvent_ResultsInCreditOfTheDestinationAccount() {
+        processor.on(new AccountDebitedEvent(sourceAccountId, paymentId, 10), destinationAccountId.toString());
+
+        var command = ArgumentCaptor.forClass(CommandMessage.class);
+        verify(commandDispatcher).send(command.capture());
+        assertThat(command.getValue().getPayload())
+                .isEqualTo(new CreditAccountCommand(destinationAccountId, paymentId, 10));
+    }
+
+    @Test
+    void accountCreditedEvent_ResultsInMarkPaymentAsCompletedCommand() {
+        processor.on(new AccountCreditedEvent(destinationAccountId, paymentId, 10), destinationAccountId.toString());
+
+        var command = ArgumentCaptor.forClass(CommandMessage.class);
+        verify(commandDispatcher).send(command.capture());
+        assertThat(command.getValue().getPayload()).isEqualTo(new MarkPaymentAsCompletedCommand(paymentId));
+    }
+
+    @Test
+    void accountEventsWithoutDestinationAccount_AreIgnored() {
+        processor.on(new AccountDebitedEvent(sourceAccountId, paymentId, 10), null);
+        processor.on(new AccountCreditedEvent(destinationAccountId, paymentId, 10), null);
+
+        verifyNoInteractions(commandDispatcher);
+    }
+
+    @Test
+    void command_IdentifierIsDerivedFromThePaymentAndStep() {
+        var command = new MarkPaymentAsCompletedCommand(paymentId);
+        var destination = destinationAccountId.toString();
+
+        assertThat(PaymentSettlementProcessor.command(paymentId, "complete", command, destination).getIdentifier())
+                .isEqualTo(PaymentSettlementProcessor.command(paymentId, "complete", command, destination)
+                        .getIdentifier())
+                .isNotEqualTo(PaymentSettlementProcessor.command(paymentId, "fail", command, destination)
+                        .getIdentifier());
+    }
+}
@@ -1,18 +1,23 @@
 package io.github.vab2048.axon.exhibition.app.command.payment;
 
+import io.github.vab2048.axon.exhibition.app.command.account.AccountCreditShards;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountDebitedEvent;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.CreditAccountCommand;
 import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.DebitAccountCommand;
 import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI;
 import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.MarkPaymentAsCompletedCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.MarkPaymentAsFailedCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.PaymentFailedEvent;
 import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.PaymentSettlementTriggeredEvent;
 import io.github.vab2048.axon.exhibition.test.utils.command.account.AccountAggregateMessageGenerator;
 import io.github.vab2048.axon.exhibition.test.utils.command.payment.ImmediatePaymentAggregateMessageGenerator;
+import org.axonframework.commandhandling.gateway.DefaultCommandGateway;
 import org.axonframework.test.saga.SagaTestFixture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.Instant;
 
 import static io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementSaga.PAYMENT_ID_ASSOCIATION_PROPERTY;
@@ -26,6 +31,9 @@ public class PaymentSettlementSagaTest {
     @BeforeEach
     void setUp() {
         fixture = new SagaTestFixture<>(PaymentSettlementSaga.class);
+        fixture.registerResource(new AccountCreditShards(null, null, false));
+        fixture.registerResource(new PaymentSettlementCommandDispatcher(
+                DefaultCommandGateway.builder().commandBus(fixture.getCommandBus()).build(), Duration.ofSeconds(1)));
     }
 
 
@@ -47,6 +55,43 @@ public class PaymentSettlementSagaTest {
                 .expectAssociationWith(PAYMENT_ID_ASSOCIATION_PROPERTY, paymentId);
     }
 
+    @Test
+    void paymentSettlementTriggeredEvent_DebitRejected_ResultsInMarkPaymentAsFailedCommand() {
+        var paymentInitiationTimestamp = Instant.now();
+        var paymentCreationMessages = immediatePaymentAggregateMessageGenerator.immediatePaymentCreation(paymentInitiationTimestamp);
+        var paymentSettlementTriggeredEvent = paymentCreationMessages.evt2();
+        var paymentId = paymentSettlementTriggeredEvent.paymentId();
+        var sourceAccountId = paymentSettlementTriggeredEvent.sourceAccountId();
+        var amount = paymentSettlementTriggeredEvent.amount();
+        fixture.setCallbackBehavior((payload, metaData) -> {
+            if (payload instanceof DebitAccountCommand) {
+                throw new IllegalStateException("Debit rejected");
+            }
+            return null;
+        });
+
+        fixture.givenNoPriorActivity()
+                .whenAggregate(paymentId.toString())
+                .publishes(paymentSettlementTriggeredEvent)
+                .expectActiveSagas(1)
+                .expectDispatchedCommands(new DebitAccountCommand(sourceAccountId, paymentId, amount),
+                        new MarkPaymentAsFailedCommand(paymentId));
+    }
+
+    @Test
+    void paymentFailedEvent_EndsSaga() {
+        var paymentInitiationTimestamp = Instant.now();
+        var paymentCreationMessages = immediatePaymentAggregateMessageGenerator.immediatePaymentCreation(paymentInitiationTimestamp);
+        var paymentSettlementTriggeredEvent = paymentCreationMessages.evt2();
+        var paymentId = paymentSettlementTriggeredEvent.paymentId();
+
+        fixture.givenAggregate(paymentId.toString())
+                .published(paymentSettlementTriggeredEvent)
+                .whenAggregate(paymentId.toString())
+                .publishes(new PaymentFailedEvent(paymentId))
+                .expectActiveSagas(0)
+                .expectNoDispatchedCommands();
+    }
 
     @Test
     void accountDebitedEvent_ResultsInSagaDispatchingCreditAccountCommand() {
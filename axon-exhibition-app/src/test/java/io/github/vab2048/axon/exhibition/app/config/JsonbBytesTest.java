@@ -0,0 +1,48 @@
+package io.github.vab2048.axon.exhibition.app.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonbBytesTest {
+    private static final String JSON = "{\"emailAddress\":\"zoë@exämple.com\"}";
+
+    @Test
+    void binaryReceive_ThenConvertToBytes_GivesUtf8Json() throws Exception {
+        // What pgjdbc receives for a jsonb column in binary format: the version byte then the JSON text.
+        byte[] utf8 = JSON.getBytes(StandardCharsets.UTF_8);
+        byte[] column = new byte[utf8.length + 1];
+        column[0] = 1;
+        System.arraycopy(utf8, 0, column, 1, utf8.length);
+
+        var jsonb = new JsonbBytes();
+        jsonb.setByteValue(column, 0);
+
+        assertThat(new PostgreSqlJsonbToBytesConverter().convert(jsonb)).isEqualTo(utf8);
+        assertThat(jsonb.getValue()).isEqualTo(JSON);
+    }
+
+    @Test
+    void bytesToJsonb_ThenBinarySend_WritesVersionByteAndUtf8Json() {
+        byte[] utf8 = JSON.getBytes(StandardCharsets.UTF_8);
+        var jsonb = (JsonbBytes) new PostgreSqlBytesToJsonbConverter().convert(utf8);
+
+        byte[] sent = new byte[jsonb.lengthInBytes()];
+        jsonb.toBytes(sent, 0);
+
+        assertThat(jsonb.getType()).isEqualTo(JsonbBytes.TYPE);
+        assertThat(jsonb.utf8Bytes()).isSameAs(utf8);
+        assertThat(sent[0]).isEqualTo((byte) 1);
+        assertThat(new String(sent, 1, sent.length - 1, StandardCharsets.UTF_8)).isEqualTo(JSON);
+    }
+
+    @Test
+    void textReceive_ThenConvertToBytes_EncodesAsUtf8() throws Exception {
+        var jsonb = new JsonbBytes();
+        jsonb.setValue(JSON);
+
+        assertThat(new PostgreSqlJsonbToBytesConverter().convert(jsonb)).isEqualTo(JSON.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.vab2048.axon.exhibition.app.config.cache;
+
+import org.axonframework.common.caching.Cache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class BoundedAggregateCacheTest {
+
+    @Test
+    void put_AboveMaximumSize_EvictsLeastRecentlyUsed() {
+        var cache = new BoundedAggregateCache("test", 2, Duration.ofMinutes(1));
+        var listener = mock(Cache.EntryListener.class);
+        cache.registerCacheEntryListener(listener);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+
+        cache.put("c", 3);
+
+        assertThat(cache.containsKey("a")).isTrue();
+        assertThat(cache.containsKey("b")).isFalse();
+        assertThat(cache.containsKey("c")).isTrue();
+        verify(listener).onEntryRemoved("b");
+        assertThat(cache.metrics())
+                .isEqualTo(new BoundedAggregateCache.Metrics("test", 2, 2, 1, 0, 1, 0));
+    }
+
+    @Test
+    void get_NotUsedForTimeToIdle_ExpiresAndMisses() throws InterruptedException {
+        var cache = new BoundedAggregateCache("test", 10, Duration.ofMillis(1));
+        cache.put("a", 1);
+
+        Thread.sleep(5);
+
+        assertThat((Object) cache.get("a")).isNull();
+        assertThat(cache.metrics().expirations()).isEqualTo(1);
+        assertThat(cache.metrics().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void put_MaximumSizeZero_KeepsNothing() {
+        var cache = new BoundedAggregateCache("test", 0, Duration.ofMinutes(1));
+
+        cache.put("a", 1);
+
+        assertThat((Object) cache.get("a")).isNull();
+        assertThat(cache.putIfAbsent("a", 1)).isFalse();
+    }
+}
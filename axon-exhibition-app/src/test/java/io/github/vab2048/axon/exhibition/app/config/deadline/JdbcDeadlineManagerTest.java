@@ -0,0 +1,150 @@
+package io.github.vab2048.axon.exhibition.app.config.deadline;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.vab2048.axon.exhibition.app.config.deadline.JdbcDeadlineManager.ClaimedDeadline;
+import org.axonframework.common.transaction.NoTransactionManager;
+import org.axonframework.config.ScopeAwareProvider;
+import org.axonframework.deadline.DeadlineMessage;
+import org.axonframework.messaging.ScopeAware;
+import org.axonframework.modelling.command.AggregateScopeDescriptor;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JdbcDeadlineManagerTest {
+    private final AggregateScopeDescriptor scope = new AggregateScopeDescriptor("ScheduledPaymentAggregate", "id");
+
+    private JdbcTemplate jdbcTemplate;
+    private ScopeAware scopeAwareComponent;
+    private JdbcDeadlineManager deadlineManager;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        scopeAwareComponent = mock(ScopeAware.class);
+        when(scopeAwareComponent.canResolve(any())).thenReturn(true);
+        ScopeAwareProvider scopeAwareProvider = mock(ScopeAwareProvider.class);
+        when(scopeAwareProvider.provideScopeAwareStream(any()))
+                .thenAnswer(invocation -> Stream.of(scopeAwareComponent));
+        var serializer = JacksonSerializer.builder()
+                .objectMapper(new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES))
+                .build();
+        deadlineManager = new JdbcDeadlineManager(scopeAwareProvider, NoTransactionManager.INSTANCE, jdbcTemplate,
+                serializer, "deadlineentry", 1, 10, Duration.ofSeconds(1), Duration.ofMinutes(5), 3);
+    }
+
+    @Test
+    void claimSql_SkipsTheDeadlinesLockedByAnotherClaim() {
+        assertThat(JdbcDeadlineManager.claimSql("deadlineentry")).contains("FOR UPDATE SKIP LOCKED");
+    }
+
+    @Test
+    void claim_ClaimsAtMostTheGivenNumberOfDueDeadlinesAndPushesTheirNextAttemptBackByTheClaimTimeout() {
+        var before = Instant.now();
+
+        deadlineManager.claim(7);
+
+        var sql = ArgumentCaptor.forClass(String.class);
+        var dueAt = ArgumentCaptor.forClass(Timestamp.class);
+        var nextAttemptAt = ArgumentCaptor.forClass(Timestamp.class);
+        verify(jdbcTemplate).query(sql.capture(), ArgumentMatchers.<RowMapper<ClaimedDeadline>>any(), dueAt.capture(),
+                eq(7), nextAttemptAt.capture());
+        // The parameters bind, in order, the due time, the batch limit and the next attempt time.
+        assertThat(sql.getValue())
+                .contains(" WHERE nextAttemptTime <= ? ORDER BY nextAttemptTime LIMIT ? FOR UPDATE SKIP LOCKED")
+                .contains(" SET nextAttemptTime = ?, attempts = d.attempts + 1 ");
+        assertThat(dueAt.getValue().toInstant()).isBetween(before, Instant.now());
+        assertThat(Duration.between(dueAt.getValue().toInstant(), nextAttemptAt.getValue().toInstant()))
+                .isEqualTo(Duration.ofMinutes(5));
+    }
+
+    @Test
+    void meet_AScheduledDeadline_SendsItToItsScopeAndDeletesIt() throws Exception {
+        var deadline = schedule(Instant.parse("2022-01-01T00:00:00Z"), "payload");
+
+        deadlineManager.meet(deadline);
+
+        var deadlineMessage = ArgumentCaptor.forClass(DeadlineMessage.class);
+        verify(scopeAwareComponent).send(deadlineMessage.capture(), eq(scope));
+        assertThat(deadlineMessage.getValue().getDeadlineName()).isEqualTo("deadlineName");
+        assertThat(deadlineMessage.getValue().getPayload()).isEqualTo("payload");
+        assertThat(deadlineMessage.getValue().getTimestamp()).isEqualTo(Instant.parse("2022-01-01T00:00:00Z"));
+        verify(jdbcTemplate).update(startsWith("DELETE"), eq(deadline.deadlineId()));
+        assertThat(deadlineManager.metrics().met()).isEqualTo(1);
+    }
+
+    @Test
+    void meet_HandlingFails_LeavesTheDeadlineToBeClaimedAgain() throws Exception {
+        var deadline = schedule(Instant.parse("2022-01-01T00:00:00Z"), "payload");
+        doThrow(new IllegalStateException("failed")).when(scopeAwareComponent).send(any(), any());
+
+        deadlineManager.meet(deadline);
+
+        verify(jdbcTemplate, never()).update(startsWith("DELETE"), anyString());
+        assertThat(deadlineManager.metrics().failed()).isEqualTo(1);
+    }
+
+    @Test
+    void meet_LastAttemptFails_DropsTheDeadline() throws Exception {
+        var deadline = schedule(Instant.parse("2022-01-01T00:00:00Z"), "payload", 3);
+        doThrow(new IllegalStateException("failed")).when(scopeAwareComponent).send(any(), any());
+
+        deadlineManager.meet(deadline);
+
+        verify(jdbcTemplate).update(startsWith("DELETE"), eq(deadline.deadlineId()));
+        assertThat(deadlineManager.metrics().failed()).isEqualTo(1);
+        assertThat(deadlineManager.metrics().dropped()).isEqualTo(1);
+    }
+
+    @Test
+    void meet_BeyondTheMaxAttempts_DropsTheDeadlineWithoutSendingIt() throws Exception {
+        // i.e. its last attempt never finished.
+        var deadline = schedule(Instant.parse("2022-01-01T00:00:00Z"), "payload", 4);
+
+        deadlineManager.meet(deadline);
+
+        verify(scopeAwareComponent, never()).send(any(), any());
+        verify(jdbcTemplate).update(startsWith("DELETE"), eq(deadline.deadlineId()));
+        assertThat(deadlineManager.metrics().dropped()).isEqualTo(1);
+    }
+
+    /*
+     * Schedule a deadline and return it as it would be claimed (from the row inserted).
+     */
+    private ClaimedDeadline schedule(Instant triggerTime, Object payload) {
+        return schedule(triggerTime, payload, 1);
+    }
+
+    private ClaimedDeadline schedule(Instant triggerTime, Object payload, int attempts) {
+        String deadlineId = deadlineManager.schedule(triggerTime, "deadlineName", payload, scope);
+        ArgumentCaptor<Object> row = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(startsWith("INSERT"), row.capture());
+        List<Object> columns = row.getAllValues();
+        assertThat(columns.get(0)).isEqualTo(deadlineId);
+        return new ClaimedDeadline((String) columns.get(0), (String) columns.get(1), (String) columns.get(2),
+                ((Timestamp) columns.get(3)).toInstant(), attempts, (String) columns.get(5), (String) columns.get(6),
+                (byte[]) columns.get(7), (byte[]) columns.get(8), (String) columns.get(9), (byte[]) columns.get(10));
+    }
+}
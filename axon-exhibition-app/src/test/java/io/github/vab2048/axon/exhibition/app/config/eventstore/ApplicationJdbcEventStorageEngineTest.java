@@ -0,0 +1,173 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import org.axonframework.common.transaction.NoTransactionManager;
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventhandling.GenericDomainEventEntry;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.DomainEventData;
+import org.axonframework.eventsourcing.eventstore.DomainEventStream;
+import org.axonframework.eventsourcing.eventstore.jdbc.JdbcEventStorageEngine;
+import org.axonframework.eventsourcing.snapshotting.SnapshotFilter;
+import org.axonframework.messaging.MetaData;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.axonframework.serialization.upcasting.event.NoOpEventUpcaster;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link ApplicationJdbcEventStorageEngine#readSnapshotAndEvents(String)} over the rows of its query (the reads it
+ * falls back on being those of Axon's engine).
+ */
+public class ApplicationJdbcEventStorageEngineTest {
+    private static final int BATCH_SIZE = 2;
+
+    private final Serializer serializer = JacksonSerializer.defaultSerializer();
+    private final UUID accountId = UUID.randomUUID();
+    private final String aggregateIdentifier = accountId.toString();
+
+    private final ResultSet resultSet = mock(ResultSet.class);
+
+    @Test
+    void readSnapshotAndEvents_WithFewerEventsThanABatch_ReadsTheSnapshotAndEventsWithTheOneQuery() throws Exception {
+        var engine = engine(SnapshotFilter.allowAll());
+        givenRows(engine, snapshot(10), List.of(event(11)));
+
+        var stream = engine.readSnapshotAndEvents(aggregateIdentifier);
+
+        assertThat(sequenceNumbers(stream)).containsExactly(10L, 11L);
+        verify(engine, never()).readEvents(anyString());
+        verify(engine, never()).readEvents(anyString(), anyLong());
+    }
+
+    @Test
+    void readSnapshotAndEvents_WithAFullBatchOfEvents_ReadsOnFromTheEventAfterIt() throws Exception {
+        var engine = engine(SnapshotFilter.allowAll());
+        givenRows(engine, snapshot(10), List.of(event(11), event(12)));
+        doReturn(DomainEventStream.of(eventMessage(13), eventMessage(14))).when(engine)
+                .readEvents(aggregateIdentifier, 13L);
+
+        var stream = engine.readSnapshotAndEvents(aggregateIdentifier);
+
+        assertThat(sequenceNumbers(stream)).containsExactly(10L, 11L, 12L, 13L, 14L);
+        verify(engine).readEvents(aggregateIdentifier, 13L);
+    }
+
+    @Test
+    void readSnapshotAndEvents_WithoutASnapshot_ReadsTheEventsFromTheFirst() throws Exception {
+        var engine = engine(SnapshotFilter.allowAll());
+        givenRows(engine, null, List.of(event(0), event(1)));
+        doReturn(DomainEventStream.of(eventMessage(2))).when(engine).readEvents(aggregateIdentifier, 2L);
+
+        var stream = engine.readSnapshotAndEvents(aggregateIdentifier);
+
+        assertThat(sequenceNumbers(stream)).containsExactly(0L, 1L, 2L);
+    }
+
+    @Test
+    void readSnapshotAndEvents_WithASnapshotFilteredOut_ReadsAllTheEventsInstead() throws Exception {
+        var engine = engine(SnapshotFilter.rejectAll());
+        givenRows(engine, snapshot(10), List.of(event(11)));
+        doReturn(DomainEventStream.of(eventMessage(0), eventMessage(1))).when(engine).readEvents(aggregateIdentifier);
+
+        var stream = engine.readSnapshotAndEvents(aggregateIdentifier);
+
+        assertThat(sequenceNumbers(stream)).containsExactly(0L, 1L);
+        verify(engine).readEvents(aggregateIdentifier);
+    }
+
+    @Test
+    void readSnapshotAndEvents_WithASnapshotWhichCannotBeRead_ReadsAllTheEventsInstead() throws Exception {
+        var engine = engine(SnapshotFilter.allowAll());
+        var unreadableSnapshot = entry(10, AccountCreditedEvent.class.getName(),
+                "not json".getBytes(StandardCharsets.UTF_8));
+        givenRows(engine, unreadableSnapshot, List.of(event(11)));
+        doReturn(DomainEventStream.of(eventMessage(0), eventMessage(1))).when(engine).readEvents(aggregateIdentifier);
+
+        var stream = engine.readSnapshotAndEvents(aggregateIdentifier);
+
+        assertThat(sequenceNumbers(stream)).containsExactly(0L, 1L);
+        verify(engine).readEvents(aggregateIdentifier);
+    }
+
+    private ApplicationJdbcEventStorageEngine engine(SnapshotFilter snapshotFilter) throws Exception {
+        var connection = mock(Connection.class);
+        var statement = mock(PreparedStatement.class);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        var builder = JdbcEventStorageEngine.builder()
+                .connectionProvider(() -> connection)
+                .transactionManager(NoTransactionManager.INSTANCE)
+                .eventSerializer(serializer)
+                .snapshotSerializer(serializer);
+        var aggregateLoad = new ApplicationJdbcEventStorageEngine.AggregateLoad(
+                (c, schema, identifier, batchSize) -> statement, BATCH_SIZE, snapshotFilter,
+                NoOpEventUpcaster.INSTANCE, NoTransactionManager.INSTANCE);
+        return spy(new ApplicationJdbcEventStorageEngine(builder, EventRowBinder.DEFAULT, aggregateLoad));
+    }
+
+    /*
+     * The rows of the query: the snapshot (if any) and then the events, as read by the engine.
+     */
+    private void givenRows(ApplicationJdbcEventStorageEngine engine, DomainEventData<?> snapshot,
+                           List<DomainEventData<?>> events) throws Exception {
+        List<Boolean> next = new ArrayList<>();
+        List<Integer> sources = new ArrayList<>();
+        if (snapshot != null) {
+            next.add(true);
+            sources.add(0);
+            doReturn(snapshot).when(engine).getSnapshotData(resultSet);
+        }
+        for (DomainEventData<?> ignored : events) {
+            next.add(true);
+            sources.add(1);
+        }
+        next.add(false);
+        when(resultSet.next()).thenReturn(next.get(0), next.subList(1, next.size()).toArray(Boolean[]::new));
+        when(resultSet.getInt(ReadSnapshotAndEventDataStatementBuilder.SOURCE_COLUMN))
+                .thenReturn(sources.get(0), sources.subList(1, sources.size()).toArray(Integer[]::new));
+        doReturn(events.get(0), events.subList(1, events.size()).toArray()).when(engine).getDomainEventData(resultSet);
+    }
+
+    private DomainEventData<?> snapshot(long sequenceNumber) {
+        return event(sequenceNumber);
+    }
+
+    private DomainEventData<?> event(long sequenceNumber) {
+        var payload = serializer.serialize(new AccountCreditedEvent(accountId, UUID.randomUUID(), 10L), byte[].class);
+        return entry(sequenceNumber, payload.getType().getName(), payload.getData());
+    }
+
+    private DomainEventData<?> entry(long sequenceNumber, String payloadType, byte[] payload) {
+        return new GenericDomainEventEntry<>("AccountAggregate", aggregateIdentifier, sequenceNumber,
+                UUID.randomUUID().toString(), Instant.now(), payloadType, null, payload,
+                serializer.serialize(MetaData.emptyInstance(), byte[].class).getData());
+    }
+
+    private DomainEventMessage<?> eventMessage(long sequenceNumber) {
+        return new GenericDomainEventMessage<>("AccountAggregate", aggregateIdentifier, sequenceNumber,
+                new AccountCreditedEvent(accountId, UUID.randomUUID(), 10L));
+    }
+
+    private static List<Long> sequenceNumbers(DomainEventStream stream) {
+        return stream.asStream().map(DomainEventMessage::getSequenceNumber).toList();
+    }
+}
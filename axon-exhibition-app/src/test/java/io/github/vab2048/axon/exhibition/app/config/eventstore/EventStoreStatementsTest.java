@@ -0,0 +1,99 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
+import org.axonframework.eventsourcing.eventstore.jdbc.statements.TimestampWriter;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class EventStoreStatementsTest {
+    private static final EventSchema SCHEMA = EventSchema.builder()
+            .eventTable("axon.domainevententry")
+            .snapshotTable("axon.snapshotevententry")
+            .build();
+
+    @Test
+    void upsertSnapshot_ReplacesOnlyAnEarlierSnapshotOfTheAggregate() throws Exception {
+        var connection = mock(Connection.class);
+        var statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        var accountId = UUID.randomUUID();
+        var snapshot = new GenericDomainEventMessage<>("AccountAggregate", accountId.toString(), 7L,
+                new AccountCreditedEvent(accountId, UUID.randomUUID(), 10L));
+
+        new EventStoreStatements(EventRowBinder.DEFAULT).upsertSnapshot(connection, SCHEMA, byte[].class, snapshot,
+                JacksonSerializer.defaultSerializer(), mock(TimestampWriter.class));
+
+        var sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        assertThat(sql.getValue())
+                .startsWith("INSERT INTO axon.snapshotevententry (")
+                .contains(" ON CONFLICT (aggregateIdentifier) DO UPDATE SET ")
+                .contains("payload = EXCLUDED.payload")
+                .endsWith(" WHERE axon.snapshotevententry.sequenceNumber < EXCLUDED.sequenceNumber");
+        verify(statement).setLong(3, 7L);
+    }
+
+    @Test
+    void readSnapshotAndEventData_ReadsLatestSnapshotThenTheEventsAfterItInOneStatement() throws Exception {
+        var connection = mock(Connection.class);
+        var statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        var aggregateIdentifier = UUID.randomUUID().toString();
+
+        new EventStoreStatements(EventRowBinder.DEFAULT)
+                .readSnapshotAndEventData(connection, SCHEMA, aggregateIdentifier, 100);
+
+        var sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        assertThat(sql.getValue())
+                .startsWith("WITH snapshot AS (SELECT ")
+                .contains(" FROM axon.snapshotevententry WHERE aggregateIdentifier = ? ORDER BY sequenceNumber DESC LIMIT 1")
+                .contains(" UNION ALL SELECT 1, ")
+                .contains(" FROM axon.domainevententry WHERE aggregateIdentifier = ?"
+                        + " AND sequenceNumber >= (SELECT sequence_number FROM first_event)"
+                        + " AND sequenceNumber < (SELECT sequence_number FROM first_event) + ?")
+                .endsWith(" ORDER BY source, sequenceNumber");
+        verify(statement).setString(1, aggregateIdentifier);
+        verify(statement).setString(2, aggregateIdentifier);
+        verify(statement).setInt(3, 100);
+    }
+
+    @Test
+    void appendSnapshot_WithNativeColumnTypesAndANonUuidAggregateIdentifier_IsRejectedBeforeBinding() throws Exception {
+        var connection = mock(Connection.class);
+        var statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        var snapshot = new GenericDomainEventMessage<>("AccountAggregate", "account-1", 7L,
+                new AccountCreditedEvent(UUID.randomUUID(), UUID.randomUUID(), 10L));
+
+        assertThatThrownBy(() -> new EventStoreStatements(new EventRowBinder(true, null)).appendSnapshot(connection,
+                SCHEMA, byte[].class, snapshot, JacksonSerializer.defaultSerializer(), mock(TimestampWriter.class)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("'account-1' is not a UUID")
+                .hasMessageContaining("column-types=native");
+        verify(statement, never()).setObject(eq(2), any());
+    }
+
+    @Test
+    void readEventDataForAggregate_WithNativeColumnTypesAndANonUuidIdentifier_IsRejected() throws Exception {
+        var connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+
+        assertThatThrownBy(() -> new EventStoreStatements(new EventRowBinder(true, null))
+                .readEventDataForAggregate(connection, SCHEMA, "account-1", 0, 100))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("'account-1' is not a UUID");
+    }
+}
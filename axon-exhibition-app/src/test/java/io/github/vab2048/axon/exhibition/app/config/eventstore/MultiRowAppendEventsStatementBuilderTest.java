@@ -0,0 +1,174 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
+import org.axonframework.eventsourcing.eventstore.jdbc.statements.TimestampWriter;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class MultiRowAppendEventsStatementBuilderTest {
+    private static final EventSchema SCHEMA = EventSchema.builder().eventTable("axon.domainevententry").build();
+
+    @Test
+    void build_WithRemainder_WritesRemainderFirstAndBatchesFullChunks() throws Exception {
+        var connection = mock(Connection.class);
+        var remainderStatement = mock(PreparedStatement.class);
+        var chunkStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(MultiRowAppendEventsStatementBuilder.insertSql(SCHEMA, 1))).thenReturn(remainderStatement);
+        when(connection.prepareStatement(MultiRowAppendEventsStatementBuilder.insertSql(SCHEMA, 2))).thenReturn(chunkStatement);
+
+        when(remainderStatement.executeUpdate()).thenReturn(1);
+        when(chunkStatement.executeBatch()).thenReturn(new int[]{2, 2});
+
+        var builder = new MultiRowAppendEventsStatementBuilder(2);
+        var statement = builder.build(connection, SCHEMA, byte[].class, events(5),
+                JacksonSerializer.defaultSerializer(), mock(TimestampWriter.class));
+
+        // Nothing is written until the storage engine executes the batch: the single left-over event first, then the
+        // other four in two batch entries.
+        verify(chunkStatement, times(2)).addBatch();
+        verify(remainderStatement, never()).executeUpdate();
+        assertThat(statement.executeBatch()).containsExactly(1, 2, 2);
+        var inOrder = inOrder(remainderStatement, chunkStatement);
+        inOrder.verify(remainderStatement).executeUpdate();
+        inOrder.verify(chunkStatement).executeBatch();
+        verify(remainderStatement).setLong(3, 0L);
+        verify(chunkStatement).setLong(3, 1L);
+        verify(chunkStatement).setLong(12, 2L);
+
+        statement.close();
+        verify(remainderStatement).close();
+        verify(chunkStatement).close();
+    }
+
+    @Test
+    void build_WithRemainder_FailsToWriteItWhenTheBatchIsExecuted() throws Exception {
+        // i.e. so that the storage engine translates a unique key violation into a concurrency exception.
+        var connection = mock(Connection.class);
+        var remainderStatement = mock(PreparedStatement.class);
+        var chunkStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(MultiRowAppendEventsStatementBuilder.insertSql(SCHEMA, 1))).thenReturn(remainderStatement);
+        when(connection.prepareStatement(MultiRowAppendEventsStatementBuilder.insertSql(SCHEMA, 2))).thenReturn(chunkStatement);
+        var violation = new SQLException("duplicate key value violates unique constraint", "23505");
+        when(remainderStatement.executeUpdate()).thenThrow(violation);
+
+        var builder = new MultiRowAppendEventsStatementBuilder(2);
+        var statement = builder.build(connection, SCHEMA, byte[].class, events(3),
+                JacksonSerializer.defaultSerializer(), mock(TimestampWriter.class));
+
+        assertThatThrownBy(statement::executeBatch).isSameAs(violation);
+        verify(chunkStatement, never()).executeBatch();
+    }
+
+    @Test
+    void build_WithFewerEventsThanMaximum_UsesSingleStatement() throws Exception {
+        var connection = mock(Connection.class);
+        var chunkStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(chunkStatement);
+
+        var builder = new MultiRowAppendEventsStatementBuilder(64);
+        builder.build(connection, SCHEMA, byte[].class, events(2),
+                JacksonSerializer.defaultSerializer(), mock(TimestampWriter.class));
+
+        verify(connection).prepareStatement(MultiRowAppendEventsStatementBuilder.insertSql(SCHEMA, 2));
+        verify(chunkStatement, times(1)).addBatch();
+        verify(chunkStatement, never()).executeUpdate();
+        // The payload and metadata of each event.
+        verify(chunkStatement, times(4)).setObject(anyInt(), any());
+    }
+
+    @Test
+    void build_WithNativeColumnTypes_BindsIdentifiersAsUuids() throws Exception {
+        var connection = mock(Connection.class);
+        var chunkStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(chunkStatement);
+        var events = events(1);
+
+        var builder = new MultiRowAppendEventsStatementBuilder(64, new EventRowBinder(true, null), null);
+        builder.build(connection, SCHEMA, byte[].class, events,
+                JacksonSerializer.defaultSerializer(), mock(TimestampWriter.class));
+
+        verify(chunkStatement).setObject(1, UUID.fromString(events.get(0).getIdentifier()));
+        verify(chunkStatement).setObject(2, UUID.fromString(events.get(0).getAggregateIdentifier()));
+        verify(chunkStatement, never()).setString(eq(1), anyString());
+    }
+
+    @Test
+    void build_WithTypeDictionary_BindsTypesAsCodes() throws Exception {
+        var connection = mock(Connection.class);
+        var chunkStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(chunkStatement);
+        var typeDictionary = mock(TypeDictionary.class);
+        when(typeDictionary.codeFor("AccountAggregate")).thenReturn(1);
+        when(typeDictionary.codeFor(AccountCreditedEvent.class.getName())).thenReturn(2);
+
+        var builder = new MultiRowAppendEventsStatementBuilder(64, new EventRowBinder(false, typeDictionary), null);
+        builder.build(connection, SCHEMA, byte[].class, events(1),
+                JacksonSerializer.defaultSerializer(), mock(TimestampWriter.class));
+
+        verify(chunkStatement).setInt(4, 1);
+        verify(chunkStatement).setInt(6, 2);
+        verify(chunkStatement, never()).setString(eq(4), anyString());
+        verify(chunkStatement, never()).setString(eq(6), anyString());
+    }
+
+    @Test
+    void build_WithSequencer_InsertsReservedGlobalIndexesInOrder() throws Exception {
+        var connection = mock(Connection.class);
+        var remainderStatement = mock(PreparedStatement.class);
+        var chunkStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(MultiRowAppendEventsStatementBuilder.insertSql(SCHEMA, 1, true))).thenReturn(remainderStatement);
+        when(connection.prepareStatement(MultiRowAppendEventsStatementBuilder.insertSql(SCHEMA, 2, true))).thenReturn(chunkStatement);
+        var sequencer = mock(GlobalIndexSequencer.class);
+        when(sequencer.reserve(connection, 3)).thenReturn(100L);
+
+        var builder = new MultiRowAppendEventsStatementBuilder(2, EventRowBinder.DEFAULT, sequencer);
+        builder.build(connection, SCHEMA, byte[].class, events(3),
+                JacksonSerializer.defaultSerializer(), mock(TimestampWriter.class));
+
+        verify(remainderStatement).setLong(1, 100L);
+        verify(chunkStatement).setLong(1, 101L);
+        verify(chunkStatement).setLong(11, 102L);
+        // The sequence numbers follow their global index.
+        verify(chunkStatement).setLong(4, 1L);
+        verify(chunkStatement).setLong(14, 2L);
+    }
+
+    @Test
+    void insertSql_ContainsAValuesRowPerEvent() {
+        var sql = MultiRowAppendEventsStatementBuilder.insertSql(SCHEMA, 3);
+        assertThat(sql).startsWith("INSERT INTO axon.domainevententry (");
+        assertThat(sql).endsWith("VALUES (?,?,?,?,?,?,?,?,?),(?,?,?,?,?,?,?,?,?),(?,?,?,?,?,?,?,?,?)");
+    }
+
+    @Test
+    void constructor_WithBatchSizeAboveBindParameterLimit_Throws() {
+        assertThatThrownBy(() -> new MultiRowAppendEventsStatementBuilder(MultiRowAppendEventsStatementBuilder.MAX_BATCH_SIZE + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<DomainEventMessage<?>> events(int count) {
+        var accountId = UUID.randomUUID();
+        List<DomainEventMessage<?>> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            var payload = new AccountCreditedEvent(accountId, UUID.randomUUID(), 10L);
+            events.add(new GenericDomainEventMessage<>("AccountAggregate", accountId.toString(), i, payload));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class PartitionedEventTableStatementsTest {
+    private static final EventSchema SCHEMA = EventSchema.builder().eventTable("axon.domainevententry").build();
+    private static final String AGGREGATE_INDEX_TABLE = "axon.domainevententry_aggregate_index";
+
+    @Test
+    void readEventDataForAggregateSql_FindsTheEventsThroughTheAggregateIndex() {
+        var sql = new PartitionedEventTableStatements(AGGREGATE_INDEX_TABLE, EventRowBinder.DEFAULT).readEventDataForAggregateSql(SCHEMA);
+
+        assertThat(sql).startsWith("SELECT e.globalIndex, e.eventIdentifier, ");
+        assertThat(sql).contains(" FROM axon.domainevententry_aggregate_index i JOIN axon.domainevententry e ON e.globalIndex = i.globalIndex");
+        assertThat(sql).endsWith(" WHERE i.aggregateIdentifier = ? AND i.sequenceNumber >= ? AND i.sequenceNumber < ? ORDER BY i.sequenceNumber ASC");
+    }
+
+    @Test
+    void readEventDataForAggregate_BindsIdentifierAndSequenceNumberRange() throws Exception {
+        var connection = mock(Connection.class);
+        var statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        var aggregateIdentifier = UUID.randomUUID();
+
+        new PartitionedEventTableStatements(AGGREGATE_INDEX_TABLE, new EventRowBinder(true, null))
+                .readEventDataForAggregate(connection, SCHEMA, aggregateIdentifier.toString(), 5, 100);
+
+        verify(statement).setObject(1, aggregateIdentifier);
+        verify(statement).setLong(2, 5);
+        verify(statement).setLong(3, 105);
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.vab2048.axon.exhibition.app.config.eventstore;
+
+import io.github.vab2048.axon.exhibition.app.command.payment.PaymentSettlementSaga;
+import io.github.vab2048.axon.exhibition.app.query.payment.PaymentViewProjection;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountDebitedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.PaymentCompletedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.PaymentCreatedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.PaymentFailedEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.PaymentSettlementTriggeredEvent;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.ScheduledPaymentCancelledEvent;
+import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class PayloadTypeFilterTest {
+    private static final EventSchema SCHEMA = EventSchema.builder().eventTable("axon.domainevententry").build();
+
+    @Test
+    void forHandlersOf_Projection_HasTheEventTypesItHandles() {
+        var filter = PayloadTypeFilter.forHandlersOf(PaymentViewProjection.class);
+
+        assertThat(filter).isPresent();
+        assertThat(filter.get().payloadTypes()).containsExactlyInAnyOrder(
+                PaymentCreatedEvent.class.getName(),
+                PaymentCompletedEvent.class.getName(),
+                ScheduledPaymentCancelledEvent.class.getName(),
+                PaymentFailedEvent.class.getName());
+    }
+
+    @Test
+    void forHandlersOf_Saga_HasTheEventTypesOfItsSagaEventHandlers() {
+        var filter = PayloadTypeFilter.forHandlersOf(PaymentSettlementSaga.class);
+
+        assertThat(filter).isPresent();
+        assertThat(filter.get().payloadTypes()).containsExactlyInAnyOrder(
+                PaymentSettlementTriggeredEvent.class.getName(),
+                AccountDebitedEvent.class.getName(),
+                AccountCreditedEvent.class.getName());
+    }
+
+    @Test
+    void forHandlersOf_HandlerOfNonFinalType_IsNotFiltered() {
+        assertThat(PayloadTypeFilter.forHandlersOf(ObjectHandler.class)).isEmpty();
+    }
+
+    @Test
+    void readEventDataWithGaps_BindsPayloadTypesThenRangeThenGaps() throws Exception {
+        var connection = mock(Connection.class);
+        var statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+
+        new PayloadTypeFilter(List.of(PaymentCreatedEvent.class.getName()))
+                .readEventDataWithGaps(connection, SCHEMA, 10, 100, List.of(3L, 7L));
+
+        verify(connection).prepareStatement(PayloadTypeFilter.selectSql(SCHEMA, 2));
+        verify(connection).createArrayOf("text", new Object[]{PaymentCreatedEvent.class.getName()});
+        verify(statement).setArray(eq(1), any());
+        verify(statement).setLong(2, 10);
+        verify(statement).setLong(3, 110);
+        verify(statement).setLong(4, 3L);
+        verify(statement).setLong(5, 7L);
+    }
+
+    @Test
+    void readEventDataWithoutGaps_UsingTypeDictionary_BindsPayloadTypeCodes() throws Exception {
+        var connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        var typeDictionary = mock(TypeDictionary.class);
+        when(typeDictionary.codeFor(PaymentCreatedEvent.class.getName())).thenReturn(7);
+
+        new PayloadTypeFilter(List.of(PaymentCreatedEvent.class.getName())).using(typeDictionary)
+                .readEventDataWithoutGaps(connection, SCHEMA, 10, 100);
+
+        verify(connection).createArrayOf("int4", new Object[]{7});
+    }
+
+    @Test
+    void selectSql_KeepsTheTrackedEventColumnNames() {
+        String sql = PayloadTypeFilter.selectSql(SCHEMA, 0);
+
+        assertThat(sql).contains("CASE WHEN payloadType = ANY(?) THEN payload ELSE 'null' END AS payload");
+        assertThat(sql).endsWith("FROM axon.domainevententry WHERE (globalIndex > ? AND globalIndex <= ?) ORDER BY globalIndex ASC");
+    }
+
+    static class ObjectHandler {
+        @EventHandler
+        void on(Object event) {
+        }
+    }
+}
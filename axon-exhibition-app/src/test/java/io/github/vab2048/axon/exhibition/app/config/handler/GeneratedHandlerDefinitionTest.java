@@ -0,0 +1,62 @@
+package io.github.vab2048.axon.exhibition.app.config.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.vab2048.axon.exhibition.app.command.account.AccountAggregate;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.messaging.annotation.ClasspathParameterResolverFactory;
+import org.axonframework.messaging.annotation.MessageHandlingMember;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GeneratedHandlerDefinitionTest {
+
+    @Test
+    void createHandler_AggregateHandler_InvokesTheGeneratedInvoker() throws Exception {
+        var accountId = UUID.randomUUID();
+        var aggregate = new ObjectMapper().convertValue(
+                Map.of("accountId", accountId, "balance", 100L), AccountAggregate.class);
+
+        MessageHandlingMember<AccountAggregate> handler = new GeneratedHandlerDefinition()
+                .createHandler(AccountAggregate.class,
+                        AccountAggregate.class.getDeclaredMethod("on", AccountCreditedEvent.class),
+                        ClasspathParameterResolverFactory.forClass(AccountAggregate.class))
+                .orElseThrow();
+        var event = GenericEventMessage.asEventMessage(new AccountCreditedEvent(accountId, UUID.randomUUID(), 50L));
+
+        assertThat(handler).isInstanceOf(GeneratedHandlerDefinition.GeneratedInvokerMessageHandlingMember.class);
+        assertThat(handler.canHandle(event)).isTrue();
+        handler.handle(event, aggregate);
+        assertThat(aggregate.getBalance()).isEqualTo(150L);
+    }
+
+    @Test
+    void createHandler_NoGeneratedInvoker_IsLeftToTheNextDefinition() throws Exception {
+        var handler = new GeneratedHandlerDefinition()
+                .createHandler(NotGenerated.class, NotGenerated.class.getDeclaredMethod("on", String.class),
+                        ClasspathParameterResolverFactory.forClass(NotGenerated.class));
+
+        assertThat(handler).isEmpty();
+    }
+
+    @Test
+    void signature_IsTheNameAndCanonicalParameterTypes() throws Exception {
+        assertThat(GeneratedHandlerDefinition.signature(
+                NotGenerated.class.getDeclaredConstructor(AccountCreditedEvent.class, List.class, long.class)))
+                .isEqualTo("<init>(io.github.vab2048.axon.exhibition.message_api.command"
+                        + ".AccountCommandMessageAPI.AccountCreditedEvent,java.util.List,long)");
+    }
+
+    static class NotGenerated {
+        NotGenerated(AccountCreditedEvent event, List<String> values, long value) {}
+
+        @EventHandler
+        void on(String payload) {}
+    }
+}
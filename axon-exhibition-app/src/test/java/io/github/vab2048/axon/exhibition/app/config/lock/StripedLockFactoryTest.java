@@ -0,0 +1,66 @@
+package io.github.vab2048.axon.exhibition.app.config.lock;
+
+import org.axonframework.common.lock.Lock;
+import org.axonframework.common.lock.LockAcquisitionFailedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StripedLockFactoryTest {
+
+    @Test
+    void obtainLock_Uncontended_IsHeldUntilReleased() {
+        var lockFactory = new StripedLockFactory("test", 16, 10, Duration.ofSeconds(1), 10);
+
+        Lock lock = lockFactory.obtainLock("a");
+        Lock reentered = lockFactory.obtainLock("a");
+
+        assertThat(lock.isHeld()).isTrue();
+        reentered.release();
+        assertThat(lock.isHeld()).isTrue();
+        lock.release();
+        assertThat(lock.isHeld()).isFalse();
+        assertThat(lockFactory.metrics().waitHistogram()).containsEntry("uncontended", 2L);
+        assertThat(lockFactory.metrics().topContended()).isEmpty();
+    }
+
+    @Test
+    void obtainLock_HeldByAnotherThreadBeyondTimeout_FailsAndIsReportedAsContended() {
+        var lockFactory = new StripedLockFactory("test", 16, 10, Duration.ofMillis(10), 10);
+        Lock lock = lockFactory.obtainLock("a");
+
+        var attempt = CompletableFuture.runAsync(() -> lockFactory.obtainLock("a"));
+
+        assertThatThrownBy(attempt::join).hasCauseInstanceOf(LockAcquisitionFailedException.class);
+        lock.release();
+        var metrics = lockFactory.metrics();
+        assertThat(metrics.stripes()).isEqualTo(16);
+        assertThat(metrics.timeouts()).isEqualTo(1);
+        assertThat(metrics.topContended()).singleElement()
+                .satisfies(contended -> {
+                    assertThat(contended.aggregateIdentifier()).isEqualTo("a");
+                    assertThat(contended.contendedAcquisitions()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    void lockOrder_IsByStripeThenIdentifier() {
+        var lockFactory = new StripedLockFactory("test", 16, 10, Duration.ofSeconds(1), 10);
+
+        // "a" and "q" share the 2nd stripe, "b" is on the 3rd.
+        assertThat(Stream.of("b", "q", "a").sorted(lockFactory.lockOrder())).containsExactly("a", "q", "b");
+    }
+
+    @Test
+    void new_StripesNotAPowerOfTwo_AreRoundedUp() {
+        assertThat(new StripedLockFactory("test", 1000, 0, Duration.ofSeconds(1), 10).metrics().stripes())
+                .isEqualTo(1024);
+        assertThat(new StripedLockFactory("test", 1, 0, Duration.ofSeconds(1), 10).metrics().stripes())
+                .isEqualTo(1);
+    }
+}
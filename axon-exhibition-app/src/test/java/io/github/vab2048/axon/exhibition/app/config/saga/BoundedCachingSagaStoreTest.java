@@ -0,0 +1,71 @@
+package io.github.vab2048.axon.exhibition.app.config.saga;
+
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.axonframework.modelling.saga.AssociationValue;
+import org.axonframework.modelling.saga.repository.SagaStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BoundedCachingSagaStoreTest {
+    private static final AssociationValue ASSOCIATION = new AssociationValue("paymentId", "p");
+
+    private SagaStore<Object> delegate;
+    private BoundedCachingSagaStore<Object> sagaStore;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        delegate = mock(SagaStore.class);
+        when(delegate.loadSaga(Object.class, "s")).thenReturn(new TestEntry("saga", Set.of(ASSOCIATION)));
+        when(delegate.findSagas(Object.class, ASSOCIATION)).thenReturn(new HashSet<>(Set.of("s")));
+        sagaStore = new BoundedCachingSagaStore<>(delegate, 10, Duration.ofMinutes(1),
+                new SagaAssociationFilter(null, null, false, 0, 0.01));
+    }
+
+    @Test
+    void loadSaga_AndFindSagas_AreReadFromTheDelegateOnce() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(sagaStore.findSagas(Object.class, ASSOCIATION)).containsExactly("s");
+            assertThat(sagaStore.loadSaga(Object.class, "s").saga()).isEqualTo("saga");
+        }
+
+        verify(delegate, times(1)).findSagas(Object.class, ASSOCIATION);
+        verify(delegate, times(1)).loadSaga(Object.class, "s");
+        assertThat(sagaStore.metrics()).extracting("hits").containsExactly(2L, 2L);
+    }
+
+    @Test
+    void deleteSaga_RemovesItFromTheCaches() {
+        sagaStore.findSagas(Object.class, ASSOCIATION);
+        sagaStore.loadSaga(Object.class, "s");
+
+        sagaStore.deleteSaga(Object.class, "s", Set.of(ASSOCIATION));
+
+        assertThat(sagaStore.findSagas(Object.class, ASSOCIATION)).isEmpty();
+        sagaStore.loadSaga(Object.class, "s");
+        verify(delegate, times(2)).loadSaga(Object.class, "s");
+    }
+
+    @Test
+    void loadSaga_UnitOfWorkRolledBack_RemovesItFromTheCache() {
+        var unitOfWork = DefaultUnitOfWork.startAndGet(null);
+        sagaStore.loadSaga(Object.class, "s");
+        unitOfWork.rollback();
+
+        sagaStore.loadSaga(Object.class, "s");
+
+        verify(delegate, times(2)).loadSaga(Object.class, "s");
+    }
+
+    private record TestEntry(Object saga, Set<AssociationValue> associationValues) implements SagaStore.Entry<Object> {}
+}
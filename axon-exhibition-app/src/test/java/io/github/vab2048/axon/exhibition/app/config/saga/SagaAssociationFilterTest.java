@@ -0,0 +1,62 @@
+package io.github.vab2048.axon.exhibition.app.config.saga;
+
+import org.axonframework.modelling.saga.AssociationValue;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SagaAssociationFilterTest {
+
+    @Test
+    void mightHaveSagas_OnlyForTheAddedAssociationValues() {
+        var filter = new SagaAssociationFilter(mock(JdbcTemplate.class), "associations", true, 1000, 0.001);
+
+        filter.add(Object.class, new AssociationValue("paymentId", "a"));
+
+        assertThat(filter.mightHaveSagas(Object.class, new AssociationValue("paymentId", "a"))).isTrue();
+        assertThat(filter.mightHaveSagas(Object.class, new AssociationValue("paymentId", "b"))).isFalse();
+        assertThat(filter.mightHaveSagas(String.class, new AssociationValue("paymentId", "a"))).isFalse();
+        assertThat(filter.metrics().lookups()).isEqualTo(3);
+        assertThat(filter.metrics().skipped()).isEqualTo(2);
+    }
+
+    @Test
+    void rebuild_KeepsTheStoredAndTheRecentlyAddedAssociationValues() throws SQLException {
+        var jdbcTemplate = mock(JdbcTemplate.class);
+        var resultSet = mock(ResultSet.class);
+        when(resultSet.getString("sagaType")).thenReturn(Object.class.getName());
+        when(resultSet.getString("associationKey")).thenReturn("paymentId");
+        when(resultSet.getString("associationValue")).thenReturn("stored");
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        var filter = new SagaAssociationFilter(jdbcTemplate, "associations", true, 1000, 0.001);
+        filter.add(Object.class, new AssociationValue("paymentId", "added"));
+
+        filter.rebuild();
+
+        assertThat(filter.mightHaveSagas(Object.class, new AssociationValue("paymentId", "stored"))).isTrue();
+        assertThat(filter.mightHaveSagas(Object.class, new AssociationValue("paymentId", "added"))).isTrue();
+        assertThat(filter.mightHaveSagas(Object.class, new AssociationValue("paymentId", "other"))).isFalse();
+        assertThat(filter.metrics().rebuilds()).isEqualTo(2);
+    }
+
+    @Test
+    void mightHaveSagas_Disabled_IsAlwaysTrue() {
+        var filter = new SagaAssociationFilter(null, null, false, 1000, 0.001);
+
+        assertThat(filter.mightHaveSagas(Object.class, new AssociationValue("paymentId", "a"))).isTrue();
+        assertThat(filter.metrics().enabled()).isFalse();
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.vab2048.axon.exhibition.app.config.serialization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import org.axonframework.messaging.MetaData;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.SimpleSerializedObject;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SmileJacksonSerializerTest {
+    private final SmileJacksonSerializer serializer = SmileJacksonSerializer.create(new ObjectMapper(new SmileFactory()));
+
+    @Test
+    void serialize_AccountCreditedEvent_RoundTripsAndIsSmallerThanJson() {
+        var event = new AccountCreditedEvent(UUID.randomUUID(), UUID.randomUUID(), 1_000L);
+
+        SerializedObject<byte[]> smile = serializer.serialize(event, byte[].class);
+        SerializedObject<byte[]> json = JacksonSerializer.defaultSerializer().serialize(event, byte[].class);
+
+        assertThat(smile.getData()).startsWith((byte) ':', (byte) ')', (byte) '\n');
+        assertThat(smile.getData().length).isLessThan(json.getData().length);
+        assertThat((Object) serializer.deserialize(smile)).isEqualTo(event);
+    }
+
+    @Test
+    void deserialize_PayloadWrittenAsJson_IsStillReadable() {
+        // i.e. a row which was written as jsonb and then converted to bytea by the optional migration.
+        var event = new AccountCreditedEvent(UUID.randomUUID(), UUID.randomUUID(), 1_000L);
+        SerializedObject<byte[]> json = JacksonSerializer.defaultSerializer().serialize(event, byte[].class);
+
+        assertThat((Object) serializer.deserialize(json)).isEqualTo(event);
+        assertThat(serializer.getConverter().convert(json.getData(), byte[].class, JsonNode.class).get("amount").asLong())
+                .isEqualTo(1_000L);
+    }
+
+    @Test
+    void deserialize_JsonNode_IsReadWithoutFormatDetection() {
+        // i.e. the intermediate representation of an upcasted payload.
+        var event = new AccountCreditedEvent(UUID.randomUUID(), UUID.randomUUID(), 1_000L);
+        SerializedObject<byte[]> smile = serializer.serialize(event, byte[].class);
+        JsonNode node = serializer.getConverter().convert(smile.getData(), byte[].class, JsonNode.class);
+
+        assertThat((Object) serializer.deserialize(new SimpleSerializedObject<>(node, JsonNode.class, smile.getType())))
+                .isEqualTo(event);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = PayloadCompressor.Codec.class, names = {"LZ4", "ZSTD"})
+    void serialize_AboveCompressionThreshold_IsCompressedAndRoundTrips(PayloadCompressor.Codec codec) {
+        var compressing = SmileJacksonSerializer.create(new ObjectMapper(new SmileFactory()), new PayloadCompressor(codec, 256));
+        var metaData = largeMetaData();
+
+        SerializedObject<byte[]> compressed = compressing.serialize(metaData, byte[].class);
+
+        assertThat(PayloadCompressor.isCompressed(compressed.getData())).isTrue();
+        assertThat(compressed.getData().length).isLessThan(serializer.serialize(metaData, byte[].class).getData().length);
+        assertThat((Object) compressing.deserialize(compressed)).isEqualTo(metaData);
+        // Whatever the compressor of the reading serializer, and also when upcasting (via a JsonNode).
+        assertThat((Object) serializer.deserialize(compressed)).isEqualTo(metaData);
+        assertThat(serializer.getConverter().convert(compressed.getData(), byte[].class, JsonNode.class).get("traceId").asText())
+                .isEqualTo(metaData.get("traceId"));
+    }
+
+    @Test
+    void serialize_BelowCompressionThreshold_IsNotCompressed() {
+        var compressing = SmileJacksonSerializer.create(new ObjectMapper(new SmileFactory()),
+                new PayloadCompressor(PayloadCompressor.Codec.LZ4, 256));
+        var event = new AccountCreditedEvent(UUID.randomUUID(), UUID.randomUUID(), 1_000L);
+
+        assertThat(compressing.serialize(event, byte[].class).getData())
+                .isEqualTo(serializer.serialize(event, byte[].class).getData());
+    }
+
+    private static MetaData largeMetaData() {
+        Map<String, String> entries = new HashMap<>();
+        entries.put("traceId", UUID.randomUUID().toString());
+        for (int i = 0; i < 30; i++) {
+            entries.put("x-request-header-" + i, "value-" + i);
+        }
+        return MetaData.from(entries);
+    }
+}
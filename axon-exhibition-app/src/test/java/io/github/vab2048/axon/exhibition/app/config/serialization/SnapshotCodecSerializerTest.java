@@ -0,0 +1,64 @@
+package io.github.vab2048.axon.exhibition.app.config.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.github.vab2048.axon.exhibition.app.command.account.AccountAggregate;
+import io.github.vab2048.axon.exhibition.app.command.account.AccountAggregateSnapshotCodec;
+import org.axonframework.messaging.MetaData;
+import org.axonframework.serialization.SerializedObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SnapshotCodecSerializerTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SmileJacksonSerializer smile = SmileJacksonSerializer.create(new ObjectMapper(new SmileFactory()));
+    private final List<AccountAggregateSnapshotCodec> codecs = List.of(new AccountAggregateSnapshotCodec());
+
+    @Test
+    void serialize_AggregateWithCodec_RoundTripsInThirtyBytes() {
+        var serializer = new SnapshotCodecSerializer(smile, codecs, true);
+        var aggregate = account(UUID.randomUUID(), 123_456L);
+
+        SerializedObject<byte[]> serialized = serializer.serialize(aggregate, byte[].class);
+        AccountAggregate read = serializer.deserialize(serialized);
+
+        assertThat(serialized.getData()).hasSize(30).startsWith(SnapshotCodecSerializer.MAGIC, (byte) 2);
+        assertThat(serialized.getType().getName()).isEqualTo(AccountAggregate.class.getName());
+        assertThat(read.getAccountId()).isEqualTo(aggregate.getAccountId());
+        assertThat(read.getBalance()).isEqualTo(123_456L);
+    }
+
+    @Test
+    void deserialize_JacksonSnapshotAndMetaData_AreReadWithDelegate() {
+        var serializer = new SnapshotCodecSerializer(smile, codecs, true);
+        var aggregate = account(UUID.randomUUID(), 42L);
+        var metaData = MetaData.with("traceId", UUID.randomUUID().toString());
+
+        AccountAggregate read = serializer.deserialize(smile.serialize(aggregate, byte[].class));
+
+        assertThat(read.getBalance()).isEqualTo(42L);
+        assertThat((Object) serializer.deserialize(serializer.serialize(metaData, byte[].class))).isEqualTo(metaData);
+    }
+
+    @Test
+    void deserialize_CodecSnapshotWhenNoLongerWritingWithCodecs_IsStillRead() {
+        var aggregate = account(UUID.randomUUID(), 7L);
+        var written = new SnapshotCodecSerializer(smile, codecs, false).serialize(aggregate, byte[].class);
+        var codecWritten = new SnapshotCodecSerializer(smile, codecs, true).serialize(aggregate, byte[].class);
+
+        AccountAggregate read = new SnapshotCodecSerializer(smile, codecs, false).deserialize(codecWritten);
+
+        assertThat(SnapshotCodecSerializer.isCodecSnapshot(written.getData())).isFalse();
+        assertThat(read.getBalance()).isEqualTo(7L);
+    }
+
+    private AccountAggregate account(UUID accountId, long balance) {
+        // As Axon itself creates the aggregate when reading a Jackson snapshot.
+        return objectMapper.convertValue(Map.of("accountId", accountId, "balance", balance), AccountAggregate.class);
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.vab2048.axon.exhibition.app.config.snapshot;
+
+import io.github.vab2048.axon.exhibition.app.command.account.AccountAggregate;
+import io.github.vab2048.axon.exhibition.app.config.SnapshotProperties;
+import io.github.vab2048.axon.exhibition.message_api.command.AccountCommandMessageAPI.AccountCreditedEvent;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.SnapshotTrigger;
+import org.axonframework.eventsourcing.Snapshotter;
+import org.axonframework.messaging.MetaData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class AdaptiveSnapshotTriggerDefinitionTest {
+    private static final Instant NOW = Instant.parse("2022-06-01T12:00:00Z");
+    private static final String AGGREGATE_ID = UUID.randomUUID().toString();
+
+    private Snapshotter snapshotter;
+    private SnapshotProperties.Thresholds thresholds;
+    private long sequenceNumber;
+
+    @BeforeEach
+    void setUp() {
+        snapshotter = mock(Snapshotter.class);
+        thresholds = new SnapshotProperties.Thresholds();
+        thresholds.setMaxEventsReplayed(5);
+        thresholds.setMinEventsReplayed(2);
+        thresholds.setMaxLoadTime(Duration.ofHours(1));
+        thresholds.setMaxSnapshotAge(Duration.ofHours(1));
+        sequenceNumber = 0;
+    }
+
+    @Test
+    void eventHandled_MaxEventsReplayedReached_SchedulesOneSnapshot() {
+        var trigger = load(NOW, 4);
+
+        trigger.eventHandled(event(NOW));
+        trigger.eventHandled(event(NOW));
+
+        verify(snapshotter, times(1)).scheduleSnapshot(AccountAggregate.class, AGGREGATE_ID);
+    }
+
+    @Test
+    void eventHandled_FewEventsSinceRecentSnapshot_DoesNotSnapshot() {
+        var trigger = load(NOW.minusSeconds(60), 3);
+
+        trigger.eventHandled(event(NOW));
+
+        verify(snapshotter, never()).scheduleSnapshot(any(), anyString());
+    }
+
+    @Test
+    void eventHandled_OldSnapshotWithMinimumEvents_SchedulesSnapshot() {
+        var trigger = load(NOW.minus(Duration.ofHours(2)), 1);
+
+        trigger.eventHandled(event(NOW));
+
+        verify(snapshotter).scheduleSnapshot(AccountAggregate.class, AGGREGATE_ID);
+    }
+
+    @Test
+    void eventHandled_OldSnapshotBelowMinimumEvents_DoesNotSnapshot() {
+        var trigger = load(NOW.minus(Duration.ofHours(2)), 0);
+
+        trigger.eventHandled(event(NOW));
+
+        verify(snapshotter, never()).scheduleSnapshot(any(), anyString());
+    }
+
+    @Test
+    void constructor_MinimumAboveMaximum_Throws() {
+        thresholds.setMinEventsReplayed(6);
+
+        assertThatThrownBy(() -> new AdaptiveSnapshotTriggerDefinition(snapshotter, thresholds))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /*
+     * Load an aggregate from a snapshot taken at the given time followed by the given number of events.
+     */
+    private SnapshotTrigger load(Instant snapshotTaken, int eventsAfterSnapshot) {
+        var definition = new AdaptiveSnapshotTriggerDefinition(snapshotter, thresholds, Clock.fixed(NOW, ZoneOffset.UTC));
+        var trigger = definition.prepareTrigger(AccountAggregate.class);
+        trigger.eventHandled(new GenericDomainEventMessage<>("AccountAggregate", AGGREGATE_ID, sequenceNumber++,
+                mock(AccountAggregate.class), MetaData.emptyInstance(), UUID.randomUUID().toString(), snapshotTaken));
+        for (int i = 0; i < eventsAfterSnapshot; i++) {
+            trigger.eventHandled(event(snapshotTaken));
+        }
+        trigger.initializationFinished();
+        return trigger;
+    }
+
+    private GenericDomainEventMessage<AccountCreditedEvent> event(Instant timestamp) {
+        var payload = new AccountCreditedEvent(UUID.fromString(AGGREGATE_ID), UUID.randomUUID(), 10L);
+        return new GenericDomainEventMessage<>("AccountAggregate", AGGREGATE_ID, sequenceNumber++, payload,
+                MetaData.emptyInstance(), UUID.randomUUID().toString(), timestamp);
+    }
+}
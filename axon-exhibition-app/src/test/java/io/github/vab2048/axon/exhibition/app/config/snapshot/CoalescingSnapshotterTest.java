@@ -0,0 +1,69 @@
+package io.github.vab2048.axon.exhibition.app.config.snapshot;
+
+import io.github.vab2048.axon.exhibition.app.command.account.AccountAggregate;
+import org.axonframework.eventsourcing.Snapshotter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CoalescingSnapshotterTest {
+
+    private Snapshotter delegate;
+    private CountDownLatch snapshotStarted;
+    private CountDownLatch releaseSnapshot;
+    private CoalescingSnapshotter snapshotter;
+
+    @BeforeEach
+    void setUp() {
+        snapshotStarted = new CountDownLatch(1);
+        releaseSnapshot = new CountDownLatch(1);
+        delegate = mock(Snapshotter.class);
+        // Block the first snapshot taken so that further requests have to wait in the queue.
+        doAnswer(invocation -> {
+            snapshotStarted.countDown();
+            releaseSnapshot.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(delegate).scheduleSnapshot(any(), anyString());
+        snapshotter = new CoalescingSnapshotter(delegate, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshotter.shutdown();
+    }
+
+    @Test
+    void scheduleSnapshot_AggregateAlreadyPending_CoalescesRequest() throws InterruptedException {
+        snapshotter.scheduleSnapshot(AccountAggregate.class, "blocking");
+        snapshotStarted.await(5, TimeUnit.SECONDS);
+
+        snapshotter.scheduleSnapshot(AccountAggregate.class, "a");
+        snapshotter.scheduleSnapshot(AccountAggregate.class, "a");
+        releaseSnapshot.countDown();
+
+        verify(delegate, timeout(5000)).scheduleSnapshot(AccountAggregate.class, "a");
+        assertThat(snapshotter.metrics().coalesced()).isEqualTo(1);
+    }
+
+    @Test
+    void scheduleSnapshot_QueueFull_ShedsRequest() throws InterruptedException {
+        snapshotter.scheduleSnapshot(AccountAggregate.class, "blocking");
+        snapshotStarted.await(5, TimeUnit.SECONDS);
+
+        snapshotter.scheduleSnapshot(AccountAggregate.class, "a");
+        snapshotter.scheduleSnapshot(AccountAggregate.class, "b");
+        releaseSnapshot.countDown();
+
+        verify(delegate, timeout(5000)).scheduleSnapshot(AccountAggregate.class, "a");
+        verify(delegate, never()).scheduleSnapshot(AccountAggregate.class, "b");
+        assertThat(snapshotter.metrics().shed()).isEqualTo(1);
+    }
+}
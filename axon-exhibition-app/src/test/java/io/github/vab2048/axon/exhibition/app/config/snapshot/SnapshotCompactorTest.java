@@ -0,0 +1,124 @@
+package io.github.vab2048.axon.exhibition.app.config.snapshot;
+
+import org.axonframework.eventsourcing.eventstore.jdbc.EventSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SnapshotCompactorTest {
+    private static final EventSchema SCHEMA = EventSchema.builder().snapshotTable("axon.snapshotevententry").build();
+    private static final String FIRST_BATCH_SQL = SnapshotCompactor.batchSql(SCHEMA, false);
+    private static final String NEXT_BATCH_SQL = SnapshotCompactor.batchSql(SCHEMA, true);
+
+    private JdbcTemplate jdbcTemplate;
+    private SnapshotCompactor compactor;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        compactor = new SnapshotCompactor(jdbcTemplate, SCHEMA, 2, Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        compactor.stop();
+    }
+
+    @Test
+    void batchSql_DeletesAllButTheLatestSnapshotOfTheNextBatchOfAggregates() {
+        assertThat(FIRST_BATCH_SQL)
+                .contains(" SELECT DISTINCT aggregateIdentifier FROM axon.snapshotevententry"
+                        + " ORDER BY aggregateIdentifier LIMIT ?")
+                .contains(" DELETE FROM axon.snapshotevententry s USING batch b"
+                        + " WHERE s.aggregateIdentifier = b.aggregateIdentifier"
+                        + " AND s.sequenceNumber < (SELECT max(l.sequenceNumber) FROM axon.snapshotevententry l"
+                        + " WHERE l.aggregateIdentifier = b.aggregateIdentifier)");
+        assertThat(NEXT_BATCH_SQL)
+                .contains(" SELECT DISTINCT aggregateIdentifier FROM axon.snapshotevententry"
+                        + " WHERE aggregateIdentifier > ? ORDER BY aggregateIdentifier LIMIT ?");
+    }
+
+    @Test
+    void compact_WalksTheAggregatesInBatchesUntilAPartialOne() {
+        when(jdbcTemplate.queryForObject(eq(FIRST_BATCH_SQL), ArgumentMatchers.<RowMapper<Object>>any(), eq(2)))
+                .thenAnswer(batch(2, "b", 3));
+        when(jdbcTemplate.queryForObject(eq(NEXT_BATCH_SQL), ArgumentMatchers.<RowMapper<Object>>any(), eq("b"),
+                eq(2)))
+                .thenAnswer(batch(1, "c", 1));
+
+        assertThat(compactor.compact()).isTrue();
+
+        verify(jdbcTemplate).queryForObject(eq(NEXT_BATCH_SQL), ArgumentMatchers.<RowMapper<Object>>any(), eq("b"),
+                eq(2));
+        var progress = compactor.progress();
+        assertThat(progress.compacting()).isFalse();
+        assertThat(progress.passes()).isEqualTo(1);
+        assertThat(progress.aggregatesScanned()).isEqualTo(3);
+        assertThat(progress.passRowsDeleted()).isEqualTo(4);
+        assertThat(progress.totalRowsDeleted()).isEqualTo(4);
+    }
+
+    @Test
+    void compact_WhileAlreadyCompacting_IsNotStartedAgain() {
+        var compactedAgain = new AtomicReference<Boolean>();
+        when(jdbcTemplate.queryForObject(eq(FIRST_BATCH_SQL), ArgumentMatchers.<RowMapper<Object>>any(), eq(2)))
+                .thenAnswer(invocation -> {
+                    compactedAgain.set(compactor.compact());
+                    return batch(0, null, 0).answer(invocation);
+                });
+
+        assertThat(compactor.compact()).isTrue();
+
+        assertThat(compactedAgain.get()).isFalse();
+        assertThat(compactor.progress().passes()).isEqualTo(1);
+    }
+
+    @Test
+    void requestCompaction_CompactsOnTheCompactorsThread() throws Exception {
+        var compactingThread = new AtomicReference<String>();
+        when(jdbcTemplate.queryForObject(eq(FIRST_BATCH_SQL), ArgumentMatchers.<RowMapper<Object>>any(), eq(2)))
+                .thenAnswer(invocation -> {
+                    compactingThread.set(Thread.currentThread().getName());
+                    return batch(1, "a", 1).answer(invocation);
+                });
+        compactor.start();
+
+        assertThat(compactor.requestCompaction()).isTrue();
+
+        var deadline = Instant.now().plusSeconds(5);
+        while (compactor.progress().passes() == 0 && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+        }
+        assertThat(compactor.progress().passes()).isEqualTo(1);
+        assertThat(compactingThread.get()).isEqualTo("snapshot-compactor");
+    }
+
+    /*
+     * Answer a batch query with the row of a batch of the given number of aggregates.
+     */
+    private static Answer<Object> batch(long aggregates, Object lastAggregate, long deleted) {
+        return invocation -> {
+            var resultSet = mock(ResultSet.class);
+            when(resultSet.getLong("aggregates")).thenReturn(aggregates);
+            when(resultSet.getObject("lastAggregate")).thenReturn(lastAggregate);
+            when(resultSet.getLong("deleted")).thenReturn(deleted);
+            RowMapper<?> rowMapper = invocation.getArgument(1);
+            return rowMapper.mapRow(resultSet, 0);
+        };
+    }
+}
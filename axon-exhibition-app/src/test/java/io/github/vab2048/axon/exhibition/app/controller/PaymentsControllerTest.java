@@ -0,0 +1,88 @@
+package io.github.vab2048.axon.exhibition.app.controller;
+
+import io.github.vab2048.axon.exhibition.app.command.payment.ImmediatePaymentTransferHandler.TransferRejectedException;
+import io.github.vab2048.axon.exhibition.app.config.PaymentSettlementProperties;
+import io.github.vab2048.axon.exhibition.app.controller.dto.ControllerDTOs.MakePaymentRequestBody;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.CreateImmediatePaymentCommand;
+import io.github.vab2048.axon.exhibition.message_api.command.PaymentCommandMessageAPI.TransferImmediatePaymentCommand;
+import org.axonframework.commandhandling.CommandExecutionException;
+import org.axonframework.commandhandling.gateway.CommandGateway;
+import org.axonframework.queryhandling.QueryGateway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link PaymentsController#makePayment} with the fast path enabled, over a command gateway which fails as that of a
+ * remote command bus (e.g. Axon Server's) would: with a CommandExecutionException of its own.
+ */
+public class PaymentsControllerTest {
+    private final MakePaymentRequestBody requestBody =
+            new MakePaymentRequestBody(UUID.randomUUID(), UUID.randomUUID(), 10L);
+
+    private CommandGateway commandGateway;
+    private PaymentsController controller;
+
+    @BeforeEach
+    void setUp() {
+        commandGateway = mock(CommandGateway.class);
+        var paymentSettlementProperties = new PaymentSettlementProperties();
+        paymentSettlementProperties.setFastPath(true);
+        controller = new PaymentsController(mock(QueryGateway.class), commandGateway, paymentSettlementProperties);
+        when(commandGateway.sendAndWait(any(CreateImmediatePaymentCommand.class)))
+                .thenAnswer(invocation -> invocation.<CreateImmediatePaymentCommand>getArgument(0).paymentId());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void makePayment_TransferRejectedRemotely_CreatesThePaymentAsUsual() {
+        when(commandGateway.sendAndWait(any(TransferImmediatePaymentCommand.class)))
+                .thenThrow(new CommandExecutionException("Rejected", null, TransferRejectedException.DETAILS));
+
+        var response = controller.makePayment(requestBody);
+
+        assertThat(response.getBody()).isNotNull();
+        verify(commandGateway).sendAndWait(new CreateImmediatePaymentCommand(response.getBody().paymentId(),
+                requestBody.sourceBankAccountId(), requestBody.destinationBankAccountId(), 10L));
+    }
+
+    @Test
+    void makePayment_TransferFailingOtherwise_FailsWithoutCreatingThePayment() {
+        when(commandGateway.sendAndWait(any(TransferImmediatePaymentCommand.class)))
+                .thenThrow(new CommandExecutionException("Account does not exist", null));
+
+        assertThatThrownBy(() -> controller.makePayment(requestBody))
+                .isInstanceOf(CommandExecutionException.class);
+
+        verify(commandGateway, never()).sendAndWait(any(CreateImmediatePaymentCommand.class));
+    }
+
+    @Test
+    void makePayment_TransferAccepted_DoesNotCreateThePaymentAgain() {
+        when(commandGateway.sendAndWait(any(TransferImmediatePaymentCommand.class)))
+                .thenAnswer(invocation -> invocation.<TransferImmediatePaymentCommand>getArgument(0).paymentId());
+
+        var response = controller.makePayment(requestBody);
+
+        assertThat(response.getBody()).isNotNull();
+        verify(commandGateway, never()).sendAndWait(any(CreateImmediatePaymentCommand.class));
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.vab2048.axon.exhibition.handler.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates, for each aggregate and saga (a top level class annotated with Axon's Spring {@code @Aggregate} or
+ * {@code @Saga}), a {@code <class name>HandlerInvokers} class in the same package holding a direct invoker for each of
+ * the message handlers the class declares - so that a handler is called as any other method rather than through
+ * reflection.
+ *
+ * The invokers are held in the generated class's public static {@code INVOKERS} map, by the handler's signature: its
+ * name ({@code <init>} for a constructor) and the canonical names of its (erased) parameter types, e.g.
+ * {@code handle(com.example.Commands.CreditAccountCommand)}. Each invoker is a
+ * {@code BiFunction<Object, Object[], Object>} taking the target (null for a constructor) and the resolved parameter
+ * values, and returning the handler's result (the new instance for a constructor).
+ *
+ * A message handler is any method or constructor with an annotation which is (meta-)annotated with Axon's
+ * {@code @MessageHandler}. Those which cannot be invoked directly from the same package - private ones, constructors of
+ * abstract classes and those declaring checked exceptions - are skipped, and so are still invoked reflectively.
+ */
+@SupportedAnnotationTypes({HandlerInvokerProcessor.AGGREGATE, HandlerInvokerProcessor.SAGA})
+public class HandlerInvokerProcessor extends AbstractProcessor {
+    static final String AGGREGATE = "org.axonframework.spring.stereotype.Aggregate";
+    static final String SAGA = "org.axonframework.spring.stereotype.Saga";
+    private static final String MESSAGE_HANDLER = "org.axonframework.messaging.annotation.MessageHandler";
+    public static final String GENERATED_CLASS_SUFFIX = "HandlerInvokers";
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS
+                        && ((TypeElement) element).getNestingKind() == NestingKind.TOP_LEVEL
+                        && generated.add(((TypeElement) element).getQualifiedName().toString())) {
+                    generate((TypeElement) element);
+                }
+            }
+        }
+        // Leave the annotations to any other processor.
+        return false;
+    }
+
+    private void generate(TypeElement type) {
+        List<String> invokers = new ArrayList<>();
+        for (Element member : type.getEnclosedElements()) {
+            if (!(member instanceof ExecutableElement handler) || !isMessageHandler(handler, new HashSet<>())) {
+                continue;
+            }
+            String unsupported = unsupportedReason(type, handler);
+            if (unsupported != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Not generating an invoker for " + type.getSimpleName() + "." + signature(handler)
+                                + " (" + unsupported + "): it will be invoked reflectively", handler);
+                continue;
+            }
+            invokers.add("        invokers.put(\"" + signature(handler) + "\", " + invoker(type, handler) + ");\n");
+        }
+        if (invokers.isEmpty()) {
+            return;
+        }
+
+        String packageName = ((PackageElement) type.getEnclosingElement()).getQualifiedName().toString();
+        String className = type.getSimpleName() + GENERATED_CLASS_SUFFIX;
+        String source = "package " + packageName + ";\n"
+                + "\n"
+                + "import java.util.HashMap;\n"
+                + "import java.util.Map;\n"
+                + "import java.util.function.BiFunction;\n"
+                + "\n"
+                + "/**\n"
+                + " * The direct invokers of the message handlers of {@link " + type.getSimpleName() + "}.\n"
+                + " */\n"
+                + "@javax.annotation.processing.Generated(\"" + HandlerInvokerProcessor.class.getName() + "\")\n"
+                + "@SuppressWarnings({\"deprecation\", \"unchecked\", \"rawtypes\"})\n"
+                + "public final class " + className + " {\n"
+                + "    public static final Map<String, BiFunction<Object, Object[], Object>> INVOKERS;\n"
+                + "\n"
+                + "    static {\n"
+                + "        Map<String, BiFunction<Object, Object[], Object>> invokers = new HashMap<>();\n"
+                + String.join("", invokers)
+                + "        INVOKERS = Map.copyOf(invokers);\n"
+                + "    }\n"
+                + "\n"
+                + "    private " + className + "() {}\n"
+                + "}\n";
+        try (Writer writer = processingEnv.getFiler()
+                .createSourceFile(packageName + "." + className, type).openWriter()) {
+            writer.write(source);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + className + ": " + e.getMessage(), type);
+        }
+    }
+
+    private boolean isMessageHandler(Element element, Set<String> visited) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            String name = annotationType.getQualifiedName().toString();
+            if (name.equals(MESSAGE_HANDLER) || visited.add(name) && isMessageHandler(annotationType, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String unsupportedReason(TypeElement type, ExecutableElement handler) {
+        if (handler.getModifiers().contains(Modifier.PRIVATE)) {
+            return "private";
+        }
+        if (handler.getModifiers().contains(Modifier.STATIC)) {
+            return "static";
+        }
+        if (handler.getKind() == ElementKind.CONSTRUCTOR && type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return "constructor of an abstract class";
+        }
+        TypeMirror runtimeException = processingEnv.getElementUtils()
+                .getTypeElement(RuntimeException.class.getName()).asType();
+        TypeMirror error = processingEnv.getElementUtils().getTypeElement(Error.class.getName()).asType();
+        for (TypeMirror thrown : handler.getThrownTypes()) {
+            if (!processingEnv.getTypeUtils().isAssignable(thrown, runtimeException)
+                    && !processingEnv.getTypeUtils().isAssignable(thrown, error)) {
+                return "declares checked exceptions";
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Matches the signature the app builds from the reflected method or constructor.
+     */
+    private String signature(ExecutableElement handler) {
+        String name = handler.getKind() == ElementKind.CONSTRUCTOR ? "<init>" : handler.getSimpleName().toString();
+        return handler.getParameters().stream()
+                .map(parameter -> erasure(parameter.asType()))
+                .collect(Collectors.joining(",", name + "(", ")"));
+    }
+
+    private String invoker(TypeElement type, ExecutableElement handler) {
+        String arguments = IntStream.range(0, handler.getParameters().size())
+                .mapToObj(i -> "(" + erasure(handler.getParameters().get(i).asType()) + ") args[" + i + "]")
+                .collect(Collectors.joining(", "));
+        String typeName = type.getQualifiedName().toString();
+        if (handler.getKind() == ElementKind.CONSTRUCTOR) {
+            return "(target, args) -> new " + typeName + "(" + arguments + ")";
+        }
+        String call = "((" + typeName + ") target)." + handler.getSimpleName() + "(" + arguments + ")";
+        return handler.getReturnType().getKind() == TypeKind.VOID
+                ? "(target, args) -> { " + call + "; return null; }"
+                : "(target, args) -> " + call;
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+}
@@ -41,4 +41,23 @@ public class AccountCommandMessageAPI {
 
     public record DebitAccountCommand(@TargetAggregateIdentifier UUID accountId, UUID paymentId, long amount) {}
     public record AccountDebitedEvent(UUID accountId, UUID paymentId, long amount) {}
+
+    /*
+     * The credits of a busy account can be spread over a number of credit shards (each an aggregate of its own) so
+     * that they are not serialized on the account. The credits on each shard are consolidated into the account's
+     * balance periodically and before each debit. The number of shards of an account can only grow.
+     */
+    public record ShardAccountCreditsCommand(@TargetAggregateIdentifier UUID accountId, int shards) {}
+    public record AccountCreditsShardedEvent(UUID accountId, int shards) {}
+
+    public record CreditAccountShardCommand(@TargetAggregateIdentifier UUID shardId, UUID accountId, int shard,
+                                            UUID paymentId, long amount) {}
+    public record AccountShardCreditedEvent(UUID shardId, UUID accountId, int shard, UUID paymentId, long amount) {}
+
+    public record ConsolidateAccountCreditShardsCommand(@TargetAggregateIdentifier UUID accountId) {}
+    /**
+     * @param amount the credits on the shard since it was last consolidated.
+     * @param consolidatedTotal the total of the credits on the shard consolidated so far.
+     */
+    public record AccountCreditShardConsolidatedEvent(UUID accountId, int shard, long amount, long consolidatedTotal) {}
 }
@@ -59,6 +59,16 @@ public class PaymentCommandMessageAPI {
             PaymentStatus status,
             Instant settlementInitiationTime) implements PaymentCreatedEvent {}
 
+    /**
+     * Create an immediate payment and settle it in the same transaction, rather than through its settlement (which is
+     * left for the payments this cannot settle).
+     */
+    public record TransferImmediatePaymentCommand(
+            @TargetAggregateIdentifier UUID paymentId,
+            UUID sourceAccountId,
+            UUID destinationAccountId,
+            long amount) {}
+
     public record TriggerPaymentSettlementCommand(@TargetAggregateIdentifier UUID paymentId) {}
 
     public record PaymentSettlementTriggeredEvent(